@@ -0,0 +1,160 @@
+package org.acme.getting.started;
+
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Commits user defined JFR events, see {@link Events}, from a number of platform or virtual threads,
+ * as fast as possible or at a given rate per thread, and times each commit.
+ *
+ * Commits that take over ten times the median are counted as slow, that is where a thread's buffer
+ * gets flushed to the global one and where threads contend for it.
+ */
+@ApplicationScoped
+// Virtual threads are looked up reflectively so that the app still builds with JDK 17
+@RegisterForReflection(targets = Executors.class)
+public class EventEmitter {
+    private static final int STACK_DEPTH = 32;
+
+    public String emit(String type, int threads, boolean virtual, int events, int rate, int payload) throws Exception {
+        final ExecutorService executor;
+        if (virtual) {
+            try {
+                executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (NoSuchMethodException e) {
+                return "unsupported=virtual threads\n";
+            }
+        } else {
+            executor = Executors.newFixedThreadPool(threads);
+        }
+        final String text = "x".repeat(payload);
+        final long[][] latencies = new long[threads][events];
+        final CountDownLatch start = new CountDownLatch(1);
+        final List<Future<?>> futures = new ArrayList<>(threads);
+        try {
+            for (int t = 0; t < threads; t++) {
+                final long[] l = latencies[t];
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    run(type, l, rate, text);
+                    return null;
+                }));
+            }
+            final long startNs = System.nanoTime();
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+            final long elapsedNs = System.nanoTime() - startNs;
+            return stats(latencies, elapsedNs);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static void run(String type, long[] latencies, int rate, String text) {
+        final long intervalNs = rate > 0 ? 1_000_000_000L / rate : 0;
+        long next = System.nanoTime();
+        for (int i = 0; i < latencies.length; i++) {
+            if (intervalNs > 0) {
+                // No parking, that would record jdk.ThreadPark events
+                while (System.nanoTime() < next) {
+                    Thread.onSpinWait();
+                }
+                next += intervalNs;
+            }
+            switch (type) {
+                case "small":
+                    latencies[i] = small(i);
+                    break;
+                case "text":
+                    latencies[i] = text(i, text);
+                    break;
+                case "wide":
+                    latencies[i] = wide(i, text);
+                    break;
+                case "stack":
+                    latencies[i] = stack(i, STACK_DEPTH);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown event type " + type + ", expected small, text, wide or stack");
+            }
+        }
+    }
+
+    private static long small(long sequence) {
+        final Events.Small e = new Events.Small();
+        e.sequence = sequence;
+        final long start = System.nanoTime();
+        e.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static long text(long sequence, String text) {
+        final Events.Text e = new Events.Text();
+        e.sequence = sequence;
+        e.text = text;
+        final long start = System.nanoTime();
+        e.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static long wide(long sequence, String text) {
+        final Events.Wide e = new Events.Wide();
+        e.sequence = sequence;
+        e.l1 = sequence + 1;
+        e.l2 = sequence + 2;
+        e.l3 = sequence + 3;
+        e.i0 = (int) sequence;
+        e.i1 = e.i0 + 1;
+        e.i2 = e.i0 + 2;
+        e.i3 = e.i0 + 3;
+        e.d0 = sequence / 2.0;
+        e.d1 = sequence / 3.0;
+        e.d2 = sequence / 5.0;
+        e.d3 = sequence / 7.0;
+        e.b0 = sequence % 2 == 0;
+        e.b1 = !e.b0;
+        e.s0 = text;
+        e.s1 = Long.toString(sequence);
+        final long start = System.nanoTime();
+        e.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static long stack(long sequence, int depth) {
+        if (depth > 0) {
+            return stack(sequence, depth - 1);
+        }
+        final Events.Stack e = new Events.Stack();
+        e.sequence = sequence;
+        e.depth = STACK_DEPTH;
+        final long start = System.nanoTime();
+        e.commit();
+        return System.nanoTime() - start;
+    }
+
+    private static String stats(long[][] latencies, long elapsedNs) {
+        final long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        final long p50 = all.length > 0 ? all[(all.length - 1) / 2] : 0;
+        final long p99 = all.length > 0 ? all[(int) ((all.length - 1) * 0.99)] : 0;
+        final long max = all.length > 0 ? all[all.length - 1] : 0;
+        final long slowNs = Math.max(p50, 1) * 10;
+        final long slow = Arrays.stream(all).filter(l -> l > slowNs).count();
+        return "events=" + all.length + "\n" +
+                "elapsedNs=" + elapsedNs + "\n" +
+                "eventsPerSecond=" + (elapsedNs > 0 ? all.length * 1_000_000_000L / elapsedNs : 0) + "\n" +
+                "commitP50Ns=" + p50 + "\n" +
+                "commitP99Ns=" + p99 + "\n" +
+                "commitMaxNs=" + max + "\n" +
+                "slowCommits=" + slow + "\n";
+    }
+}
@@ -0,0 +1,62 @@
+package org.acme.getting.started;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * User defined events of growing payload committed by {@link EventEmitter}.
+ */
+public class Events {
+
+    @Name("org.acme.Small")
+    @Label("Small")
+    @Category("JFR Test")
+    @StackTrace(false)
+    public static class Small extends Event {
+        long sequence;
+    }
+
+    @Name("org.acme.Text")
+    @Label("Text")
+    @Category("JFR Test")
+    @StackTrace(false)
+    public static class Text extends Event {
+        long sequence;
+        String text;
+    }
+
+    @Name("org.acme.Wide")
+    @Label("Wide")
+    @Category("JFR Test")
+    @StackTrace(false)
+    public static class Wide extends Event {
+        long sequence;
+        long l1;
+        long l2;
+        long l3;
+        int i0;
+        int i1;
+        int i2;
+        int i3;
+        double d0;
+        double d1;
+        double d2;
+        double d3;
+        boolean b0;
+        boolean b1;
+        String s0;
+        String s1;
+    }
+
+    @Name("org.acme.Stack")
+    @Label("Stack")
+    @Category("JFR Test")
+    @StackTrace(true)
+    public static class Stack extends Event {
+        long sequence;
+        int depth;
+    }
+}
@@ -1,9 +1,11 @@
 package org.acme.getting.started;
 
 import jakarta.inject.Inject;
+import jakarta.ws.rs.DefaultValue;
 import jakarta.ws.rs.GET;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
 import jakarta.ws.rs.core.MediaType;
 
 @Path("/hello")
@@ -12,6 +14,9 @@ public class GreetingResource {
     @Inject
     GreetingService service;
 
+    @Inject
+    EventEmitter emitter;
+
     @GET
     @Produces(MediaType.TEXT_PLAIN)
     @Path("/greeting/{name}")
@@ -38,4 +43,20 @@ public class GreetingResource {
     public String regular(String text) {
         return service.regular(text);
     }
-}
\ No newline at end of file
+
+    /**
+     * e.g. /hello/emit/text?threads=4&amp;virtual=true&amp;events=100000&amp;rate=0&amp;payload=1024
+     * type is one of small, text, wide or stack, rate is events per second per thread, 0 as fast as possible.
+     */
+    @GET
+    @Produces(MediaType.TEXT_PLAIN)
+    @Path("/emit/{type}")
+    public String emit(String type,
+                       @QueryParam("threads") @DefaultValue("1") int threads,
+                       @QueryParam("virtual") @DefaultValue("false") boolean virtual,
+                       @QueryParam("events") @DefaultValue("10000") int events,
+                       @QueryParam("rate") @DefaultValue("0") int rate,
+                       @QueryParam("payload") @DefaultValue("64") int payload) throws Exception {
+        return emitter.emit(type, threads, virtual, events, rate, payload);
+    }
+}
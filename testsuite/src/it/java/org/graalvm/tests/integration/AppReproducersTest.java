@@ -70,10 +70,8 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
-import java.util.Scanner;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
-import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -83,13 +81,17 @@ import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
 import org.graalvm.home.Version;
 import org.graalvm.tests.integration.utils.Apps;
+import org.graalvm.tests.integration.utils.BuildScheduler;
 import org.graalvm.tests.integration.utils.ContainerNames;
 import org.graalvm.tests.integration.utils.LogBuilder;
+import org.graalvm.tests.integration.utils.LogScanner;
 import org.graalvm.tests.integration.utils.Logs;
 import org.graalvm.tests.integration.utils.versions.IfMandrelVersion;
 import org.graalvm.tests.integration.utils.versions.IfQuarkusVersion;
 import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.jboss.logging.Logger;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
@@ -140,6 +142,27 @@ public class AppReproducersTest {
         put("ubi10", Set.of("ubi10", "cnts10", "amzn2023", "ubnt2404"));
     }};
 
+    /**
+     * With PREBUILD_APPS=true, simple apps are built in the background, see {@link BuildScheduler}.
+     * Mind that versions match the tests' @IfMandrelVersion.
+     */
+    @BeforeAll
+    public static void prebuild() {
+        final Version version = getVersion(false);
+        BuildScheduler.prebuild(Apps.RANDOM_NUMBERS, null, null, null);
+        if (version.compareTo(Version.create(22, 3, 5)) >= 0) {
+            BuildScheduler.prebuild(Apps.CALENDARS, null, null, null);
+        }
+        if (version.compareTo(Version.create(22, 1, 0)) >= 0 && UsedVersion.jdkFeature(false) >= 17) {
+            BuildScheduler.prebuild(Apps.RECORDANNOTATIONS, null, null, null);
+        }
+    }
+
+    @AfterAll
+    public static void discardPrebuilt() {
+        BuildScheduler.discardAll();
+    }
+
     @Test
     @Tag("randomNumbers")
     public void randomNumbersReinit(TestInfo testInfo) throws IOException, InterruptedException {
@@ -177,16 +200,13 @@ public class AppReproducersTest {
             Logs.appendln(report, appDir.getAbsolutePath());
             Logs.appendlnSection(report, String.join(" ", cmd));
 
-            final Pattern p = Pattern.compile("Hello, (.*)");
-            final Set<String> parsedLines = new HashSet<>(4);
-            try (Scanner sc = new Scanner(processLog, UTF_8)) {
-                while (sc.hasNextLine()) {
-                    Matcher m = p.matcher(sc.nextLine());
-                    if (m.matches()) {
-                        parsedLines.add(m.group(1));
-                    }
-                }
-            }
+            processStopper(process, false);
+            // Parsing the output and checking errors in one pass
+            final LogScanner.Sections sections = new LogScanner()
+                    .collect("hello", Pattern.compile("Hello, (.*)"), 1)
+                    .whitelist(app)
+                    .scan(processLog.toPath());
+            final Set<String> parsedLines = new HashSet<>(sections.collected("hello"));
 
             LOGGER.info(parsedLines.toString());
 
@@ -194,8 +214,7 @@ public class AppReproducersTest {
                     "showing 2 different pseudorandom sequences. The fact that there are less than 4 means the native image" +
                     "was not properly re-seeded. See https://github.com/oracle/graal/issues/2265.");
 
-            processStopper(process, false);
-            Logs.checkLog(cn, mn, app, processLog);
+            Logs.checkLog(cn, mn, processLog, sections);
         } finally {
             cleanup(process, cn, mn, report, app, processLog);
         }
@@ -1300,24 +1319,21 @@ public class AppReproducersTest {
             Logs.appendln(report, appDir.getAbsolutePath());
             Logs.appendlnSection(report, String.join(" ", cmd));
 
-            int count = 0;
+            processStopper(process, false);
             // This magic hash is what the app is supposed to spit out.
             // See ./apps/debug-symbols-smoke/src/main/java/debug_symbols_smoke/Main.java
             final String magicHash = "b6951775b0375ea13fc977581e54eb36d483e95ed3bc1e62fcb8da59830f1ef9";
-            try (Scanner sc = new Scanner(processLog, UTF_8)) {
-                while (sc.hasNextLine()) {
-                    if (magicHash.equals(sc.nextLine().trim())) {
-                        count++;
-                    }
-                }
-            }
+            final LogScanner.Sections sections = new LogScanner()
+                    .collect("hash", Pattern.compile("\\s*\\Q" + magicHash + "\\E\\s*"), 0)
+                    .whitelist(app)
+                    .scan(processLog.toPath());
+            final int count = sections.collected("hash").size();
 
             assertEquals(2, count, "There were two same hashes " + magicHash + " expected in the log. " +
                     "One from JVM run and one for Native image run. " + count +
                     " such hashes were found. Check build-and-run.log and report.md.");
 
-            processStopper(process, false);
-            Logs.checkLog(cn, mn, app, processLog);
+            Logs.checkLog(cn, mn, processLog, sections);
             final Path measurementsLog = Paths.get(getLogsDir(cn, mn).toString(), "measurements.csv");
 
             LogBuilder.Log logJVM = new LogBuilder()
@@ -24,8 +24,16 @@ import org.graalvm.tests.integration.utils.Apps;
 import org.graalvm.tests.integration.utils.Commands;
 import org.graalvm.tests.integration.utils.ContainerNames;
 import org.graalvm.tests.integration.utils.HyperfoilHelper;
+import org.graalvm.tests.integration.utils.JFREventThroughput;
+import org.graalvm.tests.integration.utils.JFRRecording;
+import org.graalvm.tests.integration.utils.JFRRecordingIO;
+import org.graalvm.tests.integration.utils.JFRSweep;
+import org.graalvm.tests.integration.utils.LoadGenerator;
 import org.graalvm.tests.integration.utils.LogBuilder;
+import org.graalvm.tests.integration.utils.LogScanner;
 import org.graalvm.tests.integration.utils.Logs;
+import org.graalvm.tests.integration.utils.RunEnvironment;
+import org.graalvm.tests.integration.utils.StartupProbe;
 import org.graalvm.tests.integration.utils.WebpageTester;
 import org.graalvm.tests.integration.utils.versions.IfMandrelVersion;
 import org.graalvm.tests.integration.utils.versions.IfQuarkusVersion;
@@ -33,16 +41,17 @@ import org.graalvm.tests.integration.utils.versions.QuarkusVersion;
 import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.jboss.logging.Logger;
 import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
 import org.junit.jupiter.api.condition.DisabledOnOs;
 import org.junit.jupiter.api.condition.OS;
 
-import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.http.HttpClient;
@@ -54,16 +63,15 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
-import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.graalvm.tests.integration.utils.Commands.BUILDER_IMAGE;
 import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
 import static org.graalvm.tests.integration.utils.Commands.IS_THIS_MACOS;
@@ -138,6 +146,20 @@ public class JFRTest {
     // https://bugs.openjdk.org/browse/JDK-8225312
     public static final String JFR_FLIGHT_RECORDER_HOTSPOT_TOKEN = "<FLIGHT_RECORDER>";
 
+    private static RunEnvironment runEnvironment;
+
+    @BeforeAll
+    public static void controlRunEnvironment() throws IOException {
+        runEnvironment = RunEnvironment.setUp();
+    }
+
+    @AfterAll
+    public static void releaseRunEnvironment() throws IOException {
+        if (runEnvironment != null) {
+            runEnvironment.close();
+        }
+    }
+
     @Test
     @Tag("builder-image")
     @Tag("jfr")
@@ -212,7 +234,7 @@ public class JFRTest {
             // Build and run
             processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
 
-            generateJFRConfigurationFile(inContainer, jfrPerfJfc, processLog);
+            generateJFRConfigurationFile(inContainer, jfrPerfJfc, processLog, List.of("method-profiling=max", "jdk.ThreadPark#threshold=0ns", "jdk.Flush#enabled=true"));
 
             Map<String, String> switches = null;
             if (UsedVersion.getVersion(inContainer).compareTo(Version.create(23, 1, 0)) >= 0) {
@@ -261,6 +283,199 @@ public class JFRTest {
         }
     }
 
+    /**
+     * Sweeps the matrix of JFR settings in the app's jfr-sweep.conf, see {@link JFRSweep}, each setting against
+     * the same app built without JFR. Takes long, runs only with JFR_SWEEP=true. Nothing is checked against thresholds,
+     * the report and jfr-sweep.csv tell throughput, latency and RSS differences per setting.
+     */
+    @Test
+    @Tag("jfr-sweep")
+    @Tag("jfr")
+    @Tag("builder-image")
+    @IfMandrelVersion(min = "23.0.0", inContainer = true)
+    @IfQuarkusVersion(min = "3.0")
+    public void jfrSweepContainerTest(TestInfo testInfo) throws IOException, InterruptedException {
+        jfrSweepTestRun(testInfo, true);
+    }
+
+    @Test
+    @Tag("jfr-sweep")
+    @Tag("jfr")
+    @IfMandrelVersion(min = "23.0.0")
+    @IfQuarkusVersion(min = "3.0")
+    public void jfrSweepTest(TestInfo testInfo) throws IOException, InterruptedException {
+        jfrSweepTestRun(testInfo, false);
+    }
+
+    public void jfrSweepTestRun(TestInfo testInfo, boolean inContainer) throws IOException, InterruptedException {
+        Assumptions.assumeTrue(JFRSweep.JFR_SWEEP, "JFR sweep is enabled with JFR_SWEEP=true");
+        final Apps appJfr = inContainer ? Apps.JFR_PERFORMANCE_BUILDER_IMAGE : Apps.JFR_PERFORMANCE;
+        final Apps appNoJfr = inContainer ? Apps.PLAINTEXT_PERFORMANCE_BUILDER_IMAGE : Apps.PLAINTEXT_PERFORMANCE;
+        LOGGER.info("Testing app: " + appJfr);
+        File processLog = null;
+        final StringBuilder report = new StringBuilder();
+        final File appDir = Path.of(BASE_DIR, appJfr.dir).toFile();
+        final String cn = testInfo.getTestClass().get().getCanonicalName();
+        final String mn = testInfo.getTestMethod().get().getName();
+        final Path measurementsLog = Paths.get(Logs.getLogsDir(cn, mn).toString(), "measurements.csv");
+        final Path jfrPerfJfc = Paths.get(appDir.getAbsolutePath(), "jfr-perf.jfc");
+        final Endpoint endpoint = Endpoint.valueOf(JFRSweep.JFR_SWEEP_ENDPOINT.toUpperCase());
+        final JFRSweep sweep = JFRSweep.of(appDir.toPath());
+        final Path logs = Paths.get(appDir.getAbsolutePath(), "logs");
+        String patch = null;
+
+        try {
+            // Cleanup
+            cleanTarget(appJfr);
+            if (inContainer) {
+                stopAllRunningContainers();
+                removeContainers(ContainerNames.HYPERFOIL.name, appJfr.runtimeContainer.name, appNoJfr.runtimeContainer.name);
+            }
+            Files.createDirectories(logs);
+
+            // Build once, the settings are read at runtime
+            processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
+            generateJFRConfigurationFile(inContainer, jfrPerfJfc, processLog, List.of());
+
+            Map<String, String> switches = null;
+            if (UsedVersion.getVersion(inContainer).compareTo(Version.create(23, 1, 0)) >= 0) {
+                switches = Map.of("-H:+SignalHandlerBasedExecutionSampler", "-H:+UnlockExperimentalVMOptions,-H:+SignalHandlerBasedExecutionSampler,-H:-UnlockExperimentalVMOptions");
+            }
+            if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
+                patch = "quarkus_3.31.x.patch";
+            }
+            if (patch != null) {
+                runCommand(getRunCommand("git", "apply", patch), appDir);
+            }
+            final Map<String, String> environment = quarkusEnv();
+            builderRoutine(appJfr, report, cn, mn, appDir, processLog, environment, switches);
+            builderRoutine(appNoJfr, report, cn, mn, appDir, processLog, environment, switches);
+
+            final Map<String, Integer> measurementsNoJfr = runBenchmarkForApp(endpoint, JFRSweep.JFR_SWEEP_TRIALS, appNoJfr, appDir, processLog,
+                    cn, mn, report, measurementsLog, inContainer, "jfr-plaintext-runner", List.of());
+            for (JFRSweep.Setting setting : sweep.settings) {
+                LOGGER.info("JFR sweep setting " + setting);
+                Logs.appendlnSection(report, "JFR sweep setting " + setting);
+                generateJFRConfigurationFile(inContainer, jfrPerfJfc, processLog, setting.configure);
+                final Map<String, Integer> measurementsJfr = runBenchmarkForApp(endpoint, JFRSweep.JFR_SWEEP_TRIALS, appJfr, appDir, processLog,
+                        cn, mn, report, measurementsLog, inContainer, "jfr-perf-runner", setting.runtime);
+                sweep.add(setting, measurementsJfr, measurementsNoJfr);
+                // The next setting's run writes the same file names
+                final String prefix = endpoint + "-" + appJfr.name().toLowerCase();
+                Files.move(logs.resolve(prefix + "-hyperfoil-result.json"), logs.resolve(prefix + "-" + setting.name + "-hyperfoil-result.json"));
+                Files.deleteIfExists(logs.resolve(prefix + "-flight-native.jfr"));
+            }
+            Logs.appendln(report, "These values represent the % difference as calculated (measurement_JFR - measurement_no_JFR)/measurement_no_JFR");
+            Logs.appendln(report, endpoint + " JFR sweep:");
+            Logs.appendln(report, sweep.markdown());
+            sweep.toCSV(Paths.get(Logs.getLogsDir(cn, mn).toString(), "jfr-sweep.csv"));
+
+            Logs.checkLog(cn, mn, appJfr, processLog);
+        } finally {
+            Files.deleteIfExists(jfrPerfJfc);
+            final List<File> results = new ArrayList<>();
+            results.add(processLog);
+            results.add(new File(logs.toFile(), endpoint + "-" + appNoJfr.name().toLowerCase() + "-hyperfoil-result.json"));
+            sweep.settings.forEach(st -> results.add(new File(logs.toFile(), endpoint + "-" + appJfr.name().toLowerCase() + "-" + st.name + "-hyperfoil-result.json")));
+            cleanup(null, cn, mn, report, appJfr, results.toArray(new File[0]));
+            stopAllRunningContainers();
+            removeContainers(ContainerNames.HYPERFOIL.name);
+            if (!inContainer) {
+                removeContainers(appJfr.runtimeContainer.name, appNoJfr.runtimeContainer.name);
+            } else {
+                removeContainers(ContainerNames.JFR_PERFORMANCE_BUILDER_IMAGE.name, ContainerNames.JFR_PLAINTEXT_BUILDER_IMAGE.name);
+            }
+            enableTurbo();
+            if (patch != null) {
+                runCommand(getRunCommand("git", "apply", "-R", patch), appDir);
+            }
+        }
+    }
+
+    /**
+     * Commits user defined JFR events from platform and virtual threads, see {@link JFREventThroughput},
+     * in the same app in JVM mode and native, and reads back the recordings to count dropped events.
+     * It is a direct benchmark of SubstrateVM's JFR buffers, nothing is checked against thresholds.
+     */
+    @Test
+    @Tag("jfr-perf")
+    @Tag("jfr")
+    @IfMandrelVersion(min = "23.0.0")
+    @IfQuarkusVersion(min = "3.0")
+    public void jfrEventThroughputTest(TestInfo testInfo) throws IOException, InterruptedException {
+        final Apps app = Apps.JFR_EVENTS;
+        LOGGER.info("Testing app: " + app);
+        Process process = null;
+        File processLog = null;
+        final StringBuilder report = new StringBuilder();
+        final File appDir = Path.of(BASE_DIR, app.dir).toFile();
+        final String cn = testInfo.getTestClass().get().getCanonicalName();
+        final String mn = testInfo.getTestMethod().get().getName();
+        final Path logs = Paths.get(appDir.getAbsolutePath(), "logs");
+        // Indexes match the app's run commands
+        final String[] modes = new String[]{"jvm", "native"};
+        String patch = null;
+
+        try {
+            // Cleanup
+            cleanTarget(app);
+            Files.createDirectories(logs);
+
+            // Build and run
+            processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
+            if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
+                patch = "quarkus_3.31.x.patch";
+            }
+            if (patch != null) {
+                runCommand(getRunCommand("git", "apply", patch), appDir);
+            }
+            builderRoutine(app, report, cn, mn, appDir, processLog, quarkusEnv(), null);
+
+            final JFREventThroughput throughput = new JFREventThroughput();
+            final HttpClient hc = HttpClient.newBuilder().build();
+            for (int i = 0; i < modes.length; i++) {
+                final Path recording = logs.resolve("flight-" + modes[i] + ".jfr");
+                Files.deleteIfExists(recording);
+                final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[i]);
+                Logs.appendln(report, appDir.getAbsolutePath());
+                Logs.appendlnSection(report, String.join(" ", cmd));
+                process = runCommand(cmd, appDir, processLog, app);
+                assertNotNull(process, "The test application failed to run. Check " + getLogsDir(cn, mn) + File.separator + processLog.getName());
+                StartupProbe.probe(process, app, 10);
+                for (String type : JFREventThroughput.TYPES.keySet()) {
+                    for (boolean virtual : new boolean[]{false, true}) {
+                        final HttpRequest request = HttpRequest.newBuilder()
+                                .uri(URI.create("http://localhost:8080" + JFREventThroughput.path(type, virtual)))
+                                .GET()
+                                .build();
+                        final HttpResponse<String> response = hc.send(request, HttpResponse.BodyHandlers.ofString());
+                        assertEquals(200, response.statusCode(), "Emitting " + type + " events failed: " + response.body());
+                        throughput.add(JFREventThroughput.Run.parse(modes[i], type, virtual, response.body()));
+                    }
+                }
+                // The recording is written on exit
+                processStopper(process, true);
+                process = null;
+                assertTrue(Files.exists(recording), "The flight record file " + recording + " MUST exist at this point in time.");
+                throughput.recorded(modes[i], new JFRRecording().read(recording));
+            }
+            Logs.appendln(report, "JFR events committed by " + JFREventThroughput.JFR_EVENTS_THREADS + " threads, " +
+                    JFREventThroughput.JFR_EVENTS_PER_THREAD + " events each:");
+            Logs.appendln(report, throughput.markdown());
+            throughput.toCSV(Paths.get(Logs.getLogsDir(cn, mn).toString(), "jfr-events.csv"));
+
+            Logs.checkLog(cn, mn, app, processLog);
+        } finally {
+            cleanup(process, cn, mn, report, app, processLog);
+            for (String mode : modes) {
+                Files.deleteIfExists(logs.resolve("flight-" + mode + ".jfr"));
+            }
+            if (patch != null) {
+                runCommand(getRunCommand("git", "apply", "-R", patch), appDir);
+            }
+        }
+    }
+
     private static long getMeasurementDiff(String measurement, Map<String, Integer> measurementsJfr, Map<String, Integer> measurementsNoJfr) {
         if (measurementsJfr.get(measurement) == 0 || measurementsNoJfr.get(measurement) == 0) {
             LOGGER.error(measurement + " should not be 0! JFR: " + measurementsJfr.get(measurement) + " No JFR: " + measurementsNoJfr.get(measurement));
@@ -275,9 +490,9 @@ public class JFRTest {
                                              boolean inContainer) throws IOException, InterruptedException {
 
         final Map<String, Integer> measurementsJfr = runBenchmarkForApp(endpoint, 5, appJfr, appDir, processLog,
-                cn, mn, report, measurementsLog, inContainer, "jfr-perf-runner");
+                cn, mn, report, measurementsLog, inContainer, "jfr-perf-runner", List.of());
         final Map<String, Integer> measurementsNoJfr = runBenchmarkForApp(endpoint, 5, appNoJfr, appDir, processLog,
-                cn, mn, report, measurementsLog, inContainer,  "jfr-plaintext-runner");
+                cn, mn, report, measurementsLog, inContainer,  "jfr-plaintext-runner", List.of());
 
         LOGGER.info("JFR measurementsJfr records: " + measurementsJfr.size() + ", measurementsNoJfr records: " + measurementsNoJfr.size());
         long imageSizeDiff = getMeasurementDiff("imageSize", measurementsJfr, measurementsNoJfr);
@@ -306,15 +521,23 @@ public class JFRTest {
         Logs.appendln(report, log.headerMarkdown + "\n" + log.lineMarkdown);
 
         final Path recording = Paths.get(appDir.getAbsolutePath(), "logs", endpoint + "-" + appJfr.name().toLowerCase() + "-flight-native.jfr");
+        JFRRecordingIO io = null;
         if (Files.exists(recording)) {
             LOGGER.info("Processing JFR events from " + recording);
             final long jfrRequestCount = measurementsJfr.get("requestCount");
             final long jfrResponseCount = measurementsJfr.get("responseCount");
             final long jfrRequestTimeouts = measurementsJfr.get("requestTimeouts");
             final long jfrInternalErrors = measurementsJfr.get("internalErrors");
-            final long jdkThreadParkEvents = countJFREvents(inContainer, "jdk.ThreadPark", recording, processLog, report);
-            final long parkedClassGreetingService = countJFREventMatches(inContainer, "jdk.ThreadPark",
-                    Pattern.compile("^[\\s\\t]*parkedClass = org\\.acme\\.getting\\.started\\.GreetingService[\\s\\t]+.*[\\n\\r]*"), recording, processLog, report);
+            final JFRRecording jfr = new JFRRecording()
+                    .count("parkedClassGreetingService", JFRRecording.field("jdk.ThreadPark", "parkedClass", "org.acme.getting.started.GreetingService"))
+                    .read(recording);
+            Logs.appendlnSection(report, "JFR events in " + recording.getFileName());
+            jfr.toReport(report, "jdk.ThreadPark");
+            final long jdkThreadParkEvents = jfr.events("jdk.ThreadPark");
+            final long parkedClassGreetingService = jfr.matches("parkedClassGreetingService");
+            io = new JFRRecordingIO(recording, jfr, measurementsJfr, measurementsNoJfr);
+            Logs.appendln(report, endpoint + " JFR recording I/O:");
+            io.toReport(report);
             LOGGER.info("JFR file results for endpoint " + endpoint + ": \n" +
                     "jfrRequestCount: " + jfrRequestCount + "\n" +
                     "jfrResponseCount: " + jfrResponseCount + "\n" +
@@ -343,22 +566,32 @@ public class JFRTest {
                                 "a thousand more amount of jdk.ThreadPark events in GreetingService class: " + parkedClassGreetingService);
             }
         }
-        if (checkThresholds) {
+        if (checkThresholds && (measurementsJfr.get("noisy") == 1 || measurementsNoJfr.get("noisy") == 1)) {
+            LOGGER.warn("The host was noisy, not checking " + endpoint + " thresholds.");
+        } else if (checkThresholds) {
             Logs.checkThreshold(appJfr, Logs.Mode.DIFF_NATIVE, imageSizeDiff, rssKbDiff, timeToFirstOKRequestMsDiff, meanResponseTimeDiff, responseTime50PercentileDiff, responseTime90PercentileDiff);
+            if (io != null) {
+                io.checkThresholds(appJfr, Logs.Mode.NATIVE);
+            }
         }
     }
 
     private Map<String, Integer> runBenchmarkForApp(Endpoint endpoint, int trials, Apps app, File appDir, File processLog,
             String cn, String mn, StringBuilder report, Path measurementsLog,
-            boolean inContainer, String binaryName) throws IOException, InterruptedException {
+            boolean inContainer, String binaryName, List<String> runtimeOptions) throws IOException, InterruptedException {
 
         Process process = null;
         Process hyperfoilProcess = null;
+        JFRRecordingIO.Writes writes = null;
         int rssSum = 0;
         int startupSum = 0;
         final long[] tunnelPIDs = new long[] { -1L, -1L };
 
         try {
+            final RunEnvironment.Noise noise = RunEnvironment.probe();
+            if (noise != null) {
+                Logs.appendln(report, "Noise before " + app.name() + ": " + noise);
+            }
             for (int i = 0; i < trials; i++) {
                 if (process != null) {
                     processStopper(process, true, true);
@@ -368,16 +601,18 @@ public class JFRTest {
                     }
                     assertTrue(waitForTcpClosed("localhost", 8080, 10),
                             "Quarkus app likely hanging on port 8080.");
-                    assertTrue(waitForTcpClosed("localhost", 8090, 10),
+                    assertTrue(LoadGenerator.EMBEDDED || waitForTcpClosed("localhost", 8090, 10),
                             "Hyperfoil likely hanging on port 8090.");
                 }
                 final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[0]);
+                // Both the native executable and the container image take them last
+                cmd.addAll(runtimeOptions);
                 clearCaches(); //TODO consider using warm up instead of clearing caches
                 Logs.appendln(report, "Trial " + i + " in " + appDir.getAbsolutePath());
                 Logs.appendlnSection(report, String.join(" ", cmd));
                 process = runCommand(cmd, appDir, processLog, app);
                 assertNotNull(process, "The test application failed to run. Check " + getLogsDir(cn, mn) + File.separator + processLog.getName());
-                startupSum += WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
+                startupSum += StartupProbe.probe(process, app, 10).timeToFirstOKRequestMs();
                 if (inContainer) {
                     rssSum += getContainerMemoryKb(app.runtimeContainer.name);
                 } else {
@@ -392,50 +627,74 @@ public class JFRTest {
                 final String identity = "/Users/tester/.local/share/containers/podman/machine/machine";
                 final int port = getPodmanMachineSSHPort();
                 tunnelPIDs[0] = openSSHTunnel(identity, String.valueOf(port), "core", "localhost", "8080", false);
-                tunnelPIDs[1] = openSSHTunnel(identity, String.valueOf(port), "core", "localhost", "8090", true);
+                if (!LoadGenerator.EMBEDDED) {
+                    tunnelPIDs[1] = openSSHTunnel(identity, String.valueOf(port), "core", "localhost", "8090", true);
+                }
             }
 
-            // Run Hyperfoil controller in container and expose port for test
-            final List<String> getAndStartHyperfoil = getRunCommand(app.buildAndRunCmds.runCommands[1]);
-            hyperfoilProcess = runCommand(getAndStartHyperfoil, appDir, processLog, app);
-            Logs.appendln(report, appDir.getAbsolutePath());
-            Logs.appendlnSection(report, String.join(" ", getAndStartHyperfoil));
-            assertNotNull(hyperfoilProcess, "Hyperfoil failed to run. Check " + getLogsDir(cn, mn) + File.separator + processLog.getName());
-
-            // Wait for Hyperfoil to download & start
-            Commands.waitForContainerLogToMatch(ContainerNames.HYPERFOIL.name,
-                    Pattern.compile(".*Hyperfoil controller listening.*", Pattern.DOTALL), 600, 5, TimeUnit.SECONDS);
-            // Wait for Hyperfoil to open endpoint
-            WebpageTester.testWeb(app.urlContent.urlContent[2][0], 15, app.urlContent.urlContent[2][1], false);
-
-            // Upload the benchmark
-            final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
-            HyperfoilHelper.uploadBenchmark(app, appDir, app.urlContent.urlContent[1][0], hc);
-
-            // Run the benchmark
-            disableTurbo();
-            final HttpRequest benchmarkRequest = HttpRequest.newBuilder()
-                    .uri(new URI(app.urlContent.urlContent[3][0] + "?templateParam=ENDPOINT=" + endpoint))
-                    .GET()
-                    .build();
-            final HttpResponse<String> benchmarkResponse = hc.send(benchmarkRequest, HttpResponse.BodyHandlers.ofString());
-            final JSONObject benchmarkResponseJson = new JSONObject(benchmarkResponse.body());
-            final String id = benchmarkResponseJson.getString("id");
-
-            // Wait for benchmark to complete
-            Commands.waitForContainerLogToMatch(ContainerNames.HYPERFOIL.name,
-                    Pattern.compile(".*Successfully persisted run.*", Pattern.DOTALL), 30, 2, TimeUnit.SECONDS);
-            enableTurbo();
+            // Storage writes of the app during the load, in containers the pid is not the app's
+            if (!inContainer) {
+                writes = JFRRecordingIO.Writes.start(process.pid());
+            }
+            final JSONObject resultsResponseJson;
+            if (LoadGenerator.EMBEDDED) {
+                final LoadGenerator.Benchmark benchmark = LoadGenerator.parse(appDir.toPath().resolve("benchmark.hf.yaml"),
+                        Map.of("ENDPOINT", endpoint.toString()));
+                Logs.appendln(report, appDir.getAbsolutePath());
+                Logs.appendlnSection(report, "Embedded load generator running " + benchmark.name + " with ENDPOINT=" + endpoint);
+                disableTurbo();
+                try {
+                    resultsResponseJson = LoadGenerator.run(benchmark).toJSON(benchmark.name);
+                } finally {
+                    enableTurbo();
+                }
+            } else {
+                // Run Hyperfoil controller in container and expose port for test
+                final List<String> getAndStartHyperfoil = getRunCommand(app.buildAndRunCmds.runCommands[1]);
+                hyperfoilProcess = runCommand(getAndStartHyperfoil, appDir, processLog, app);
+                Logs.appendln(report, appDir.getAbsolutePath());
+                Logs.appendlnSection(report, String.join(" ", getAndStartHyperfoil));
+                assertNotNull(hyperfoilProcess, "Hyperfoil failed to run. Check " + getLogsDir(cn, mn) + File.separator + processLog.getName());
+
+                // Wait for Hyperfoil to download & start
+                Commands.waitForContainerLogToMatch(ContainerNames.HYPERFOIL.name,
+                        Pattern.compile(".*Hyperfoil controller listening.*", Pattern.DOTALL), 600, 5, TimeUnit.SECONDS);
+                // Wait for Hyperfoil to open endpoint
+                WebpageTester.testWeb(app.urlContent.urlContent[2][0], 15, app.urlContent.urlContent[2][1], false);
+
+                // Upload the benchmark
+                final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
+                HyperfoilHelper.uploadBenchmark(app, appDir, app.urlContent.urlContent[1][0], hc);
+
+                // Run the benchmark
+                disableTurbo();
+                final HttpRequest benchmarkRequest = HttpRequest.newBuilder()
+                        .uri(new URI(app.urlContent.urlContent[3][0] + "?templateParam=ENDPOINT=" + endpoint))
+                        .GET()
+                        .build();
+                final HttpResponse<String> benchmarkResponse = hc.send(benchmarkRequest, HttpResponse.BodyHandlers.ofString());
+                final JSONObject benchmarkResponseJson = new JSONObject(benchmarkResponse.body());
+                final String id = benchmarkResponseJson.getString("id");
+
+                // Wait for benchmark to complete
+                Commands.waitForContainerLogToMatch(ContainerNames.HYPERFOIL.name,
+                        Pattern.compile(".*Successfully persisted run.*", Pattern.DOTALL), 30, 2, TimeUnit.SECONDS);
+                enableTurbo();
+
+                // Get the results
+                final HttpRequest resultsRequest = HttpRequest.newBuilder()
+                        .uri(new URI("http://localhost:8090/run/" + id + "/stats/all/json"))
+                        .GET()
+                        .timeout(Duration.ofSeconds(3)) // set timeout to allow for cleanup, otherwise will stall at first request above
+                        .build();
+                final HttpResponse<String> resultsResponse = hc.send(resultsRequest, HttpResponse.BodyHandlers.ofString());
+                LOGGER.info("Hyperfoil results response code " + resultsResponse.statusCode());
+                resultsResponseJson = new JSONObject(resultsResponse.body());
+            }
 
-            // Get the results
-            final HttpRequest resultsRequest = HttpRequest.newBuilder()
-                    .uri(new URI("http://localhost:8090/run/" + id + "/stats/all/json"))
-                    .GET()
-                    .timeout(Duration.ofSeconds(3)) // set timeout to allow for cleanup, otherwise will stall at first request above
-                    .build();
-            final HttpResponse<String> resultsResponse = hc.send(resultsRequest, HttpResponse.BodyHandlers.ofString());
-            LOGGER.info("Hyperfoil results response code " + resultsResponse.statusCode());
-            final JSONObject resultsResponseJson = new JSONObject(resultsResponse.body());
+            if (writes != null) {
+                writes.close();
+            }
 
             // Persist the benchmark result in case a human needs to see it.
             Files.writeString(Paths.get(appDir.getAbsolutePath(), "logs", endpoint + "-" + app.name().toLowerCase() + "-hyperfoil-result.json"),
@@ -456,10 +715,18 @@ public class JFRTest {
             measurements.put("startup", startupSum / trials);
             measurements.put("rss", rssSum / trials);
             measurements.put("imageSize", imageSizeKB);
+            measurements.put("noisy", noise != null && noise.noisy() ? 1 : 0);
+            measurements.put("writeKb", writes != null ? (int) (writes.writtenBytes() / 1024L) : -1);
+            measurements.put("writeKBps", writes != null ? (int) writes.meanKBps() : -1);
+            measurements.put("peakWriteKBps", writes != null ? (int) writes.peakKBps() : -1);
             measurements.put("requestCount", resultsResponseJson.getJSONArray("stats").getJSONObject(0).getJSONObject("total").getJSONObject("summary").getInt("requestCount"));
             measurements.put("responseCount", resultsResponseJson.getJSONArray("stats").getJSONObject(0).getJSONObject("total").getJSONObject("summary").getInt("responseCount"));
             measurements.put("requestTimeouts", resultsResponseJson.getJSONArray("stats").getJSONObject(0).getJSONObject("total").getJSONObject("summary").getInt("requestTimeouts"));
             measurements.put("internalErrors", resultsResponseJson.getJSONArray("stats").getJSONObject(0).getJSONObject("total").getJSONObject("summary").getInt("internalErrors"));
+            final JSONObject summary = resultsResponseJson.getJSONArray("stats").getJSONObject(0).getJSONObject("total").getJSONObject("summary");
+            final long durationMs = summary.optLong("endTime", 0) - summary.optLong("startTime", 0);
+            // Responses per second
+            measurements.put("throughput", durationMs > 0 ? (int) (measurements.get("responseCount") * 1000L / durationMs) : 0);
 
             LOGGER.info("mean:" + measurements.get("mean")
                     + ", max:" + measurements.get("max")
@@ -473,6 +740,8 @@ public class JFRTest {
                     + ", responseCount:" + measurements.get("responseCount")
                     + ", requestTimeouts:" + measurements.get("requestTimeouts")
                     + ", internalErrors:" + measurements.get("internalErrors")
+                    + ", throughput:" + measurements.get("throughput")
+                    + ", writeKb:" + measurements.get("writeKb")
             );
 
             final LogBuilder logBuilder = new LogBuilder();
@@ -493,6 +762,9 @@ public class JFRTest {
         } catch (URISyntaxException e) {
             throw new RuntimeException(e);
         } finally {
+            if (writes != null) {
+                writes.close();
+            }
             // Stop container before stopping Hyperfoil process
             stopAllRunningContainers();
             if (process != null && process.isAlive()) {
@@ -518,16 +790,20 @@ public class JFRTest {
         }
     }
 
-    private void generateJFRConfigurationFile(boolean inContainer, Path jfrPerfJfc, File logFile) throws IOException {
+    private void generateJFRConfigurationFile(boolean inContainer, Path jfrPerfJfc, File logFile, List<String> options) throws IOException {
         final List<String> command;
         if (inContainer) {
             command = getRunCommand(CONTAINER_RUNTIME, "run", IS_THIS_WINDOWS ? "" : "-u", IS_THIS_WINDOWS ? "" : getUnixUIDGID(),
                     "-t", "--entrypoint", "jfr", "-v", jfrPerfJfc.getParent().toString() + ":/project:z",
                     BUILDER_IMAGE,
-                    "configure", "--input", "profile.jfc", "method-profiling=max", "jdk.ThreadPark#threshold=0ns", "--output", "./" + jfrPerfJfc.getFileName().toString());
+                    "configure", "--input", "profile.jfc");
         } else {
-            command = getRunCommand("jfr", "configure", "method-profiling=max", "jdk.ThreadPark#threshold=0ns", "--output", jfrPerfJfc.toString());
+            command = getRunCommand("jfr", "configure");
         }
+        command.addAll(options);
+        command.add("--output");
+        command.add(inContainer ? "./" + jfrPerfJfc.getFileName().toString() : jfrPerfJfc.toString());
+        Files.deleteIfExists(jfrPerfJfc);
         final String c = "Command: " + String.join(" ", command) + "\n";
         LOGGER.infof("Command: %s", command);
         Files.write(logFile.toPath(), c.getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND, StandardOpenOption.CREATE);
@@ -535,91 +811,6 @@ public class JFRTest {
         assertTrue(Files.exists(jfrPerfJfc), "The JFR config file " + jfrPerfJfc + " MUST exist at this point in time.");
     }
 
-    /**
-     * @param inContainer     Whether to use jfr tool from a container
-     * @param eventType       e.g. jdk.ThreadPark
-     * @param flightRecording e.g. path to your flight-native.jfr
-     * @param logFile         e.g. path to the build and run log
-     * @return parsed Count from JFR file summary for the particular event
-     * @throws IOException
-     * @throws InterruptedException
-     */
-    private long countJFREvents(boolean inContainer, String eventType, Path flightRecording, File logFile, StringBuilder report) throws IOException, InterruptedException {
-        assertTrue(Files.exists(flightRecording), "The flight record file " + flightRecording + " MUST exist at this point in time.");
-        final Pattern pattern = Pattern.compile("^[\\s\\t]*" + eventType + "[\\s\\t]+([0-9]+)[\\s\\t]+.*[\\n\\r]*");
-        final List<String> cmd;
-        if (inContainer) {
-            cmd = getRunCommand(CONTAINER_RUNTIME, "run", IS_THIS_WINDOWS ? "" : "-u", IS_THIS_WINDOWS ? "" : getUnixUIDGID(),
-                    "-t", "--entrypoint", "jfr", "-v", flightRecording.getParent().toString() + ":/project:z",
-                    BUILDER_IMAGE,
-                    "summary", "./" + flightRecording.getFileName().toString());
-        } else {
-            cmd = getRunCommand("jfr", "summary", flightRecording.toString());
-        }
-        final String command = "Command: " + String.join(" ", cmd) + "\n";
-        Logs.appendlnSection(report, command);
-        LOGGER.infof("Command: %s", cmd);
-        Files.writeString(logFile.toPath(), command, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-        final Process p = Commands.runCommand(cmd, new File("."), null, null);
-        // UTF-8 on Windows might work poorly with colours in terminal.
-        try (BufferedReader processOutputReader =
-                     new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
-            String l;
-            while ((l = processOutputReader.readLine()) != null) {
-                final Matcher m = pattern.matcher(l);
-                if (m.matches()) {
-                    return Long.parseLong(m.group(1));
-                }
-            }
-            p.waitFor(5, TimeUnit.MINUTES);
-        }
-        LOGGER.error("None of the output lines matched regexp: " + pattern.pattern());
-        return -1L;
-    }
-
-    private long countJFREventMatches(boolean inContainer, String eventType, Pattern regexp, Path flightRecording, File logFile, StringBuilder report) throws IOException, InterruptedException {
-        assertTrue(Files.exists(flightRecording), "The flight record file " + flightRecording + " MUST exist at this point in time.");
-        final List<String> cmd;
-        if (inContainer) {
-            cmd = getRunCommand(CONTAINER_RUNTIME, "run", IS_THIS_WINDOWS ? "" : "-u", IS_THIS_WINDOWS ? "" : getUnixUIDGID(),
-                    "-t", "--entrypoint", "jfr", "-v", flightRecording.getParent().toString() + ":/project:z",
-                    BUILDER_IMAGE,
-                    "print", "--events", eventType, "./" + flightRecording.getFileName().toString());
-        } else {
-            cmd = getRunCommand("jfr", "print", "--events", eventType, flightRecording.toString());
-        }
-        final String command = "Command: " + String.join(" ", cmd) + "\n";
-        Logs.appendlnSection(report, command);
-        LOGGER.infof("Command: %s", cmd);
-        Files.writeString(logFile.toPath(), command, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-        // logFile is null, the output could easily be hundreds of megabytes, we log just the start manually here
-        final Process p = Commands.runCommand(cmd, new File("."), null, null);
-        long c = 0;
-        int i = 0;
-        long start = System.currentTimeMillis();
-        final StringBuilder s = new StringBuilder();
-        // UTF-8 on Windows might work poorly with colours in terminal.
-        try (BufferedReader processOutputReader =
-                     new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8))) {
-            String l;
-            // TODO: This is kind of naive. There could be hundreds of thousands of matches and it would be better to do big chunks.
-            while ((l = processOutputReader.readLine()) != null) {
-                if (i < 100) {
-                    s.append(l);
-                    s.append("\n");
-                    i++;
-                }
-                if (regexp.matcher(l).matches()) {
-                    c++;
-                }
-            }
-            Files.writeString(logFile.toPath(), "First " + i + " lines of output: " + s, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-            p.waitFor(5, TimeUnit.MINUTES);
-        }
-        LOGGER.info("Found " + c + " matches in " + (System.currentTimeMillis() - start) + " ms.");
-        return c;
-    }
-
     public void jfrSmoke(TestInfo testInfo, Apps app) throws IOException, InterruptedException {
         LOGGER.info("Testing app: " + app);
         Process process = null;
@@ -701,24 +892,21 @@ public class JFRTest {
                 assertTrue(Files.size(path) > 1024, file + " seems too small. " + archivedLogLocation);
             }
 
-            int count = 0;
+            processStopper(process, false);
             // This magic hash is what the app is supposed to spit out.
             // See ./apps/debug-symbols-smoke/src/main/java/debug_symbols_smoke/Main.java
             final String magicHash = "b6951775b0375ea13fc977581e54eb36d483e95ed3bc1e62fcb8da59830f1ef9";
-            try (Scanner sc = new Scanner(processLog, UTF_8)) {
-                while (sc.hasNextLine()) {
-                    if (magicHash.equals(sc.nextLine().trim())) {
-                        count++;
-                    }
-                }
-            }
+            final LogScanner.Sections sections = new LogScanner()
+                    .collect("hash", Pattern.compile("\\s*\\Q" + magicHash + "\\E\\s*"), 0)
+                    .whitelist(app)
+                    .scan(processLog.toPath());
+            final int count = sections.collected("hash").size();
 
             assertEquals(4, count, "There were four same hashes " + magicHash + " expected in the log. " +
                     "One from JVM run, one from JVM run with JFR, one for Native image run and one for Native image run with JFR. " +
                     "" + count + " such hashes were found. Check build-and-run.log and report.md.");
 
-            processStopper(process, false);
-            Logs.checkLog(cn, mn, app, processLog);
+            Logs.checkLog(cn, mn, processLog, sections);
             final Path measurementsLog = Paths.get(getLogsDir(cn, mn).toString(), "measurements.csv");
 
             LogBuilder.Log logJVM = new LogBuilder()
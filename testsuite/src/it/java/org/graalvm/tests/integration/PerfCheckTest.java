@@ -22,10 +22,21 @@ package org.graalvm.tests.integration;
 import com.sun.management.OperatingSystemMXBean;
 import org.graalvm.home.Version;
 import org.graalvm.tests.integration.utils.Apps;
+import org.graalvm.tests.integration.utils.BuildCache;
+import org.graalvm.tests.integration.utils.BuildScheduler;
 import org.graalvm.tests.integration.utils.Commands;
 import org.graalvm.tests.integration.utils.ContainerNames;
+import org.graalvm.tests.integration.utils.History;
 import org.graalvm.tests.integration.utils.HyperfoilHelper;
+import org.graalvm.tests.integration.utils.LoadGenerator;
+import org.graalvm.tests.integration.utils.LogScanner;
+import org.graalvm.tests.integration.utils.Phases;
 import org.graalvm.tests.integration.utils.Logs;
+import org.graalvm.tests.integration.utils.ProcSampler;
+import org.graalvm.tests.integration.utils.Profiler;
+import org.graalvm.tests.integration.utils.Report;
+import org.graalvm.tests.integration.utils.RunEnvironment;
+import org.graalvm.tests.integration.utils.StartupProbe;
 import org.graalvm.tests.integration.utils.WebpageTester;
 import org.graalvm.tests.integration.utils.thresholds.Thresholds;
 import org.graalvm.tests.integration.utils.versions.IfMandrelVersion;
@@ -34,6 +45,8 @@ import org.graalvm.tests.integration.utils.versions.QuarkusVersion;
 import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.jboss.logging.Logger;
 import org.json.JSONObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInfo;
@@ -62,7 +75,6 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
@@ -84,8 +96,8 @@ import static org.graalvm.tests.integration.utils.Commands.findFiles;
 import static org.graalvm.tests.integration.utils.Commands.getProperty;
 import static org.graalvm.tests.integration.utils.Commands.getRSSkB;
 import static org.graalvm.tests.integration.utils.Commands.getRunCommand;
-import static org.graalvm.tests.integration.utils.Commands.mapToJSON;
 import static org.graalvm.tests.integration.utils.Commands.parsePerfRecord;
+import static org.graalvm.tests.integration.utils.Commands.perfStatTarget;
 import static org.graalvm.tests.integration.utils.Commands.parsePort;
 import static org.graalvm.tests.integration.utils.Commands.parseSerialGCLog;
 import static org.graalvm.tests.integration.utils.Commands.processStopper;
@@ -96,12 +108,9 @@ import static org.graalvm.tests.integration.utils.Commands.waitForFileToMatch;
 import static org.graalvm.tests.integration.utils.Commands.waitForTcpClosed;
 import static org.graalvm.tests.integration.utils.Logs.getLogsDir;
 import static org.graalvm.tests.integration.utils.Uploader.PERF_APP_REPORT;
-import static org.graalvm.tests.integration.utils.Uploader.postBuildtimePayload;
-import static org.graalvm.tests.integration.utils.Uploader.postRuntimePayload;
+import static org.graalvm.tests.integration.utils.Uploader.enqueueBuildtimePayload;
+import static org.graalvm.tests.integration.utils.Uploader.enqueueRuntimePayload;
 import static org.graalvm.tests.integration.utils.versions.UsedVersion.getVersion;
-import static org.jboss.resteasy.spi.HttpResponseCodes.SC_ACCEPTED;
-import static org.jboss.resteasy.spi.HttpResponseCodes.SC_CREATED;
-import static org.jboss.resteasy.spi.HttpResponseCodes.SC_OK;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -127,14 +136,18 @@ public class PerfCheckTest {
 
     // Build time constraint
     public static final int NATIVE_IMAGE_XMX_GB = Integer.parseInt(getProperty("PERFCHECK_TEST_NATIVE_IMAGE_XMX_GB", "8"));
+    // Perf tests build cold unless told otherwise, cache hits are marked in reports as buildCacheHit
+    public static final boolean BUILD_CACHE = BuildCache.ENABLED && Boolean.parseBoolean(getProperty("PERFCHECK_TEST_BUILD_CACHE", "false"));
 
     public static final String FINAL_NAME_TOKEN = "<FINAL_NAME>";
 
+    private static RunEnvironment runEnvironment;
+
     // Reporting
     public static final String APP_RUNTIME_CONTEXT = "api/v1/perfstats/perf";
     public static final String APP_BUILDTIME_CONTEXT = "api/v1/image-stats";
 
-    public static Map<String, String> populateHeader(Map<String, String> report) {
+    public static Report populateHeader(Report report) {
         report.put("arch", getProperty("perf.app.arch", ARCH));
         report.put("os", getProperty("perf.app.os", System.getProperty("os.name")));
         report.put("quarkusVersion", QUARKUS_VERSION.isSnapshot() ?
@@ -142,29 +155,83 @@ public class PerfCheckTest {
         report.put("mandrelVersion", getVersion(false).toString());
         report.put("jdkVersion", String.format("%s.%s.%s", UsedVersion.jdkFeature(false),
                 UsedVersion.jdkInterim(false), UsedVersion.jdkUpdate(false)));
-        report.put("ramAvailableMB", Long.toString(
+        report.put("ramAvailableMB",
                 ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getFreePhysicalMemorySize()
-                        / 1024 / 1024));
-        report.put("coresAvailable", Integer.toString(
-                ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors()));
+                        / 1024 / 1024, "MB");
+        report.put("coresAvailable",
+                ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors());
         report.put("runnerDescription",
                 getProperty("PERF_APP_RUNNER_DESCRIPTION", ""));
         report.put("testApp", "https://github.com/Karm/mandrel-integration-tests/apps/quarkus-json/");
-        report.put("maxHeapSizeMB", String.valueOf(MX_HEAP_MB));
+        report.put("maxHeapSizeMB", MX_HEAP_MB, "MB");
         return report;
     }
 
+    /**
+     * Keeps the reports in the local {@link History}, one series per run command, e.g. jvm and native.
+     * The i-th report is expected to come from the i-th run command.
+     */
+    private static void recordHistory(Apps app, List<Report> reports) {
+        for (int i = 0; i < reports.size(); i++) {
+            if (RunEnvironment.noisy(reports.get(i))) {
+                LOGGER.warn("Not recording run " + i + " of " + app + " in history, the host was noisy.");
+                continue;
+            }
+            History.record(app.name(), mode(String.join(" ", app.buildAndRunCmds.runCommands[i])), reports.get(i));
+        }
+    }
+
+    private static String mode(String cmd) {
+        return cmd.contains("-jar") ? "jvm" :
+                cmd.contains("+ParseOnce") ? "native+ParseOnce" : cmd.contains("-ParseOnce") ? "native-ParseOnce" : "native";
+    }
+
+    /**
+     * With PREBUILD_APPS=true, one app per directory is built in the background,
+     * see {@link BuildScheduler}. Mind that versions match the tests' @IfMandrelVersion.
+     */
+    @BeforeAll
+    public static void prebuild() {
+        final Version version = getVersion(false);
+        if (version.compareTo(Version.create(21, 3, 0)) < 0) {
+            return;
+        }
+        BuildScheduler.prebuild(Apps.QUARKUS_JSON_PERF, null, getSwitches2(), null);
+        BuildScheduler.prebuild(Apps.QUARKUS_FULL_MICROPROFILE_PERF, null, getSwitches3(), getFullMicroProfilePatch());
+        if (version.compareTo(Version.create(22, 3, 0)) >= 0 && QUARKUS_VERSION.compareTo(new QuarkusVersion("2.13.3")) >= 0) {
+            BuildScheduler.prebuild(Apps.QUARKUS_MP_ORM_DBS_AWT, null, getMPOrmAwtSwitches(false), getMPOrmAwtPatch());
+        }
+    }
+
+    @AfterAll
+    public static void discardPrebuilt() {
+        BuildScheduler.discardAll();
+    }
+
+    @BeforeAll
+    public static void controlRunEnvironment() throws IOException {
+        runEnvironment = RunEnvironment.setUp();
+    }
+
+    @AfterAll
+    public static void releaseRunEnvironment() throws IOException {
+        if (runEnvironment != null) {
+            runEnvironment.close();
+        }
+    }
+
     @Test
     @IfMandrelVersion(min = "21.3", max = "23.999")
     public void testQuarkusJSONParseOnce(TestInfo testInfo) throws IOException, InterruptedException, URISyntaxException {
         final Apps app = Apps.QUARKUS_JSON_PERF_PARSEONCE;
         LOGGER.info("Testing app: " + app);
         Process process = null;
+        ProcSampler sampler = null;
         final File appDir = Path.of(BASE_DIR, app.dir).toFile();
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final String cn = testInfo.getTestClass().get().getCanonicalName();
         final String mn = testInfo.getTestMethod().get().getName();
-        final List<Map<String, String>> reports = new ArrayList<>(3);
+        final List<Report> reports = new ArrayList<>(3);
         // Test data tmp storage
         final File json = Path.of(appDir.getAbsolutePath(), "logs", "record.json").toFile();
 
@@ -174,91 +241,82 @@ public class PerfCheckTest {
             Files.createDirectories(Paths.get(appDir.getAbsolutePath(), "logs"));
 
             // Build executables
-            builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches1());
+            final boolean buildCacheHit = builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches1(), BUILD_CACHE);
+            BuildScheduler.awaitIdle();
             assertTrue(processLog.exists());
 
             int line = 0;
             for (int i = 0; i < app.buildAndRunCmds.runCommands.length; i++) {
-                final Map<String, String> report = populateHeader(new TreeMap<>());
+                final Report report = populateHeader(new Report());
+                report.put("buildCacheHit", buildCacheHit);
+                final RunEnvironment.Noise noise = RunEnvironment.probe();
+                if (noise != null) {
+                    noise.toReport(report);
+                }
                 final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[i]);
                 Files.writeString(processLog.toPath(), String.join(" ", cmd) + '\n', StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-                process = runCommand(cmd, appDir, processLog, app);
+                process = runCommand(cmd, appDir, processLog, app, null, Profiler.env());
+                final StartupProbe.Startup startup = StartupProbe.probe(process, app, 10);
                 line = waitForFileToMatch(Pattern.compile(".*Events enabled.*"), processLog.toPath(), line, 20, 1, TimeUnit.SECONDS);
-                final long timeToFirstOKRequestMs = WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
-                report.put("timeToFirstOKRequestMs", String.valueOf(timeToFirstOKRequestMs));
+                if (ProcSampler.isSupported()) {
+                    sampler = ProcSampler.start(process.children().sorted().findFirst().get().pid());
+                }
+                startup.toReport(report);
                 // Test web pages
                 try (final ReadableByteChannel readableByteChannel = Channels.newChannel(new URL(app.urlContent.urlContent[1][0]).openStream());
                         final FileOutputStream fileOutputStream = new FileOutputStream(json)) {
                     fileOutputStream.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
                 }
-                final String[] headers = new String[] {
-                        "Content-Type", "application/json",
-                        "Accept", "text/plain"
-                };
-                final HttpRequest releaseRequest = HttpRequest.newBuilder()
-                        .method("POST", HttpRequest.BodyPublishers.ofFile(json.toPath()))
-                        .version(HttpClient.Version.HTTP_1_1)
-                        //[3][0] - uses sha-256, [2][0] just deserialization
-                        .uri(new URI(app.urlContent.urlContent[3][0]))
-                        .headers(headers)
-                        .build();
-                final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
-                for (int j = 0; j < HEAVY_REQUESTS; j++) {
-                    final HttpResponse<String> releaseResponse = hc.send(releaseRequest, HttpResponse.BodyHandlers.ofString());
-                    System.out.print(".");
-                    assertEquals(200, releaseResponse.statusCode(), "App returned a non HTTP 200 response. The perf report is invalid.");
+                final Path profile = Profiler.ENABLED ? Path.of(appDir.getAbsolutePath(), "logs", "perf-" + i + ".data") : null;
+                final List<Phases.Phase> phases = runJSONPhases(app, json, process.children().sorted().findFirst().get().pid(), processLog, profile);
+                report.put("rssKb", getRSSkB(process.children().sorted().findFirst().get().pid()), "kB");
+                if (sampler != null) {
+                    sampler.close();
+                    sampler.toReport(report);
                 }
-                System.out.println();
-                report.put("rssKb", Long.toString(getRSSkB(process.children().sorted().findFirst().get().pid())));
                 processStopper(process, false, true);
-                final String statsFor = Arrays.stream(app.buildAndRunCmds.runCommands[i])
-                        // skipping first 4 perf tool conf
-                        .skip(4).collect(Collectors.joining(" ")).trim();
-                waitForFileToMatch(Pattern.compile(".*Performance counter stats for\\s+'\\Q" + statsFor + "\\E':.*"), processLog.toPath(), 0, 5, 1, TimeUnit.SECONDS);
-                final Commands.PerfRecord pr = parsePerfRecord(processLog.toPath(), statsFor);
+                final String statsFor = perfStatTarget(app.buildAndRunCmds.runCommands[i]);
+                // perf writes its counters as it exits
+                process.waitFor(5, TimeUnit.SECONDS);
+                // One pass over the log for both perf stat and GC events of this run
+                final LogScanner.Sections sections = new LogScanner()
+                        .perfStat(statsFor)
+                        .serialGC(statsFor)
+                        .scan(processLog.toPath());
+                final Commands.PerfRecord pr = parsePerfRecord(sections, statsFor);
                 report.put("file", statsFor);
-                report.put("taskClock", String.valueOf(pr.taskClock));
-                report.put("contextSwitches", String.valueOf(pr.contextSwitches));
-                report.put("cpuMigrations", String.valueOf(pr.cpuMigrations));
-                report.put("pageFaults", String.valueOf(pr.pageFaults));
-                report.put("cycles", String.valueOf(pr.cycles));
-                report.put("instructions", String.valueOf(pr.instructions));
-                report.put("branches", String.valueOf(pr.branches));
-                report.put("branchMisses", String.valueOf(pr.branchMisses));
-                report.put("secondsTimeElapsed", String.valueOf(pr.secondsTimeElapsed));
+                pr.toReport(report);
                 assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                         "Main port is still open");
-                final Commands.SerialGCLog l;
+                final Commands.SerialGCLog l = parseSerialGCLog(sections);
                 if (!statsFor.contains("-jar")) {
                     long executableSizeKb = Files.size(Path.of(appDir.getAbsolutePath(), statsFor.split(" ")[0])) / 1024L;
-                    report.put("executableSizeKb", String.valueOf(executableSizeKb));
-                    report.put("parseOnce", statsFor.contains("+ParseOnce") ? "true" : "false");
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, false);
-                    report.put("incrementalGCevents", String.valueOf(l.incrementalGCevents));
-                    report.put("fullGCevents", String.valueOf(l.fullGCevents));
+                    report.put("executableSizeKb", executableSizeKb, "kB");
+                    report.put("parseOnce", statsFor.contains("+ParseOnce"));
+                    report.put("incrementalGCevents", l.incrementalGCevents);
+                    report.put("fullGCevents", l.fullGCevents);
                 } else {
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, true);
-                    report.put("incrementalGCevents", "-1");
-                    report.put("fullGCevents", "-1");
-                    report.put("executableSizeKb", "-1");
-                    report.put("parseOnce", "null");
+                    report.put("incrementalGCevents", -1L);
+                    report.put("fullGCevents", -1L);
+                    report.put("executableSizeKb", -1L, "kB");
+                    report.put("parseOnce", (Boolean) null);
                 }
-                report.put("timeSpentInGCs", String.valueOf(l.timeSpentInGCs));
+                report.put("timeSpentInGCs", l.timeSpentInGCs, "s");
+                l.gc.toReport(report, pr.secondsTimeElapsed * 1000);
+                if (profile != null && Files.exists(profile)) {
+                    // After the app is gone, the JVM writes its perf map as it exits
+                    Profiler.analyze(profile, app.name(), mode(statsFor), Logs.getLogsDir(cn, mn), report);
+                }
+                Phases.attributeGC(phases, l);
+                phases.forEach(p -> p.toReport(report));
                 report.put("testMethod", cn + "#" + mn);
-                report.put("requestsExecuted", String.valueOf(HEAVY_REQUESTS));
+                report.put("requestsExecuted", phases.stream().mapToInt(Phases.Phase::count).sum());
                 reports.add(report);
             }
-            final String reportPayload = mapToJSON(reports);
-            LOGGER.info(reportPayload);
+            LOGGER.info(Report.toJSON(reports));
+            recordHistory(app, reports);
             if (PERF_APP_REPORT) {
-                final HttpResponse<String> response = postRuntimePayload(APP_RUNTIME_CONTEXT, reportPayload);
-                if (response != null) {
-                    LOGGER.info("Response code:" + response.statusCode());
-                    LOGGER.info("Response body:" + response.body());
-                    if (response.statusCode() != SC_CREATED) {
-                        LOGGER.error("Payload was NOT uploaded tot the collector server!");
-                    }
-                }
+                enqueueRuntimePayload(APP_RUNTIME_CONTEXT, reports);
             }
             LOGGER.info("Gonna wait for ports closed...");
             assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
@@ -266,6 +324,9 @@ public class PerfCheckTest {
             Logs.checkLog(cn, mn, app, processLog);
         } finally {
             Files.deleteIfExists(json.toPath());
+            if (sampler != null) {
+                sampler.close();
+            }
             if (process != null) {
                 processStopper(process, true);
             }
@@ -285,11 +346,12 @@ public class PerfCheckTest {
         final Apps app = Apps.QUARKUS_JSON_PERF;
         LOGGER.info("Testing app: " + app);
         Process process = null;
+        ProcSampler sampler = null;
         final File appDir = Path.of(BASE_DIR, app.dir).toFile();
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final String cn = testInfo.getTestClass().get().getCanonicalName();
         final String mn = testInfo.getTestMethod().get().getName();
-        final List<Map<String, String>> reports = new ArrayList<>(2);
+        final List<Report> reports = new ArrayList<>(2);
         // Test data tmp storage
         final File json = Path.of(appDir.getAbsolutePath(), "logs", "record.json").toFile();
 
@@ -299,89 +361,80 @@ public class PerfCheckTest {
             Files.createDirectories(Paths.get(appDir.getAbsolutePath(), "logs"));
 
             // Build executables
-            builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches2());
+            final boolean buildCacheHit = builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches2(), BUILD_CACHE);
+            BuildScheduler.awaitIdle();
 
             int line = 0;
             for (int i = 0; i < app.buildAndRunCmds.runCommands.length; i++) {
-                final Map<String, String> report = populateHeader(new TreeMap<>());
+                final Report report = populateHeader(new Report());
+                report.put("buildCacheHit", buildCacheHit);
+                final RunEnvironment.Noise noise = RunEnvironment.probe();
+                if (noise != null) {
+                    noise.toReport(report);
+                }
                 final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[i]);
                 Files.writeString(processLog.toPath(), String.join(" ", cmd) + '\n', StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-                process = runCommand(cmd, appDir, processLog, app);
+                process = runCommand(cmd, appDir, processLog, app, null, Profiler.env());
+                final StartupProbe.Startup startup = StartupProbe.probe(process, app, 10);
                 line = waitForFileToMatch(Pattern.compile(".*Events enabled.*"), processLog.toPath(), line, 20, 1, TimeUnit.SECONDS);
-                final long timeToFirstOKRequestMs = WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
-                report.put("timeToFirstOKRequestMs", String.valueOf(timeToFirstOKRequestMs));
+                if (ProcSampler.isSupported()) {
+                    sampler = ProcSampler.start(process.children().sorted().findFirst().get().pid());
+                }
+                startup.toReport(report);
                 // Test web pages
                 try (final ReadableByteChannel readableByteChannel = Channels.newChannel(new URL(app.urlContent.urlContent[1][0]).openStream());
                         final FileOutputStream fileOutputStream = new FileOutputStream(json)) {
                     fileOutputStream.getChannel().transferFrom(readableByteChannel, 0, Long.MAX_VALUE);
                 }
-                final String[] headers = new String[] {
-                        "Content-Type", "application/json",
-                        "Accept", "text/plain"
-                };
-                final HttpRequest releaseRequest = HttpRequest.newBuilder()
-                        .method("POST", HttpRequest.BodyPublishers.ofFile(json.toPath()))
-                        .version(HttpClient.Version.HTTP_1_1)
-                        //[3][0] - uses sha-256, [2][0] just deserialization
-                        .uri(new URI(app.urlContent.urlContent[3][0]))
-                        .headers(headers)
-                        .build();
-                final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
-                for (int j = 0; j < HEAVY_REQUESTS; j++) {
-                    final HttpResponse<String> releaseResponse = hc.send(releaseRequest, HttpResponse.BodyHandlers.ofString());
-                    System.out.print(".");
-                    assertEquals(200, releaseResponse.statusCode(), "App returned a non HTTP 200 response. The perf report is invalid.");
+                final Path profile = Profiler.ENABLED ? Path.of(appDir.getAbsolutePath(), "logs", "perf-" + i + ".data") : null;
+                final List<Phases.Phase> phases = runJSONPhases(app, json, process.children().sorted().findFirst().get().pid(), processLog, profile);
+                report.put("rssKb", getRSSkB(process.children().sorted().findFirst().get().pid()), "kB");
+                if (sampler != null) {
+                    sampler.close();
+                    sampler.toReport(report);
                 }
-                System.out.println();
-                report.put("rssKb", Long.toString(getRSSkB(process.children().sorted().findFirst().get().pid())));
                 processStopper(process, false, true);
-                final String statsFor = Arrays.stream(app.buildAndRunCmds.runCommands[i])
-                        // skipping first 4 perf tool conf
-                        .skip(4).collect(Collectors.joining(" ")).trim();
-                waitForFileToMatch(Pattern.compile(".*Performance counter stats for\\s+'\\Q" + statsFor + "\\E':.*"), processLog.toPath(), 0, 5, 1, TimeUnit.SECONDS);
-                final Commands.PerfRecord pr = parsePerfRecord(processLog.toPath(), statsFor);
+                final String statsFor = perfStatTarget(app.buildAndRunCmds.runCommands[i]);
+                // perf writes its counters as it exits
+                process.waitFor(5, TimeUnit.SECONDS);
+                // One pass over the log for both perf stat and GC events of this run
+                final LogScanner.Sections sections = new LogScanner()
+                        .perfStat(statsFor)
+                        .serialGC(statsFor)
+                        .scan(processLog.toPath());
+                final Commands.PerfRecord pr = parsePerfRecord(sections, statsFor);
                 report.put("file", statsFor);
-                report.put("taskClock", String.valueOf(pr.taskClock));
-                report.put("contextSwitches", String.valueOf(pr.contextSwitches));
-                report.put("cpuMigrations", String.valueOf(pr.cpuMigrations));
-                report.put("pageFaults", String.valueOf(pr.pageFaults));
-                report.put("cycles", String.valueOf(pr.cycles));
-                report.put("instructions", String.valueOf(pr.instructions));
-                report.put("branches", String.valueOf(pr.branches));
-                report.put("branchMisses", String.valueOf(pr.branchMisses));
-                report.put("secondsTimeElapsed", String.valueOf(pr.secondsTimeElapsed));
+                pr.toReport(report);
                 assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                         "Main port is still open");
-                final Commands.SerialGCLog l;
+                final Commands.SerialGCLog l = parseSerialGCLog(sections);
                 if (!statsFor.contains("-jar")) {
                     long executableSizeKb = Files.size(Path.of(appDir.getAbsolutePath(), statsFor.split(" ")[0])) / 1024L;
-                    report.put("executableSizeKb", String.valueOf(executableSizeKb));
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, false);
-                    report.put("incrementalGCevents", String.valueOf(l.incrementalGCevents));
-                    report.put("fullGCevents", String.valueOf(l.fullGCevents));
+                    report.put("executableSizeKb", executableSizeKb, "kB");
+                    report.put("incrementalGCevents", l.incrementalGCevents);
+                    report.put("fullGCevents", l.fullGCevents);
                 } else {
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, true);
-                    report.put("incrementalGCevents", "-1");
-                    report.put("fullGCevents", "-1");
-                    report.put("executableSizeKb", "-1");
-                    report.put("parseOnce", "null");
+                    report.put("incrementalGCevents", -1L);
+                    report.put("fullGCevents", -1L);
+                    report.put("executableSizeKb", -1L, "kB");
+                    report.put("parseOnce", (Boolean) null);
+                }
+                report.put("timeSpentInGCs", l.timeSpentInGCs, "s");
+                l.gc.toReport(report, pr.secondsTimeElapsed * 1000);
+                if (profile != null && Files.exists(profile)) {
+                    // After the app is gone, the JVM writes its perf map as it exits
+                    Profiler.analyze(profile, app.name(), mode(statsFor), Logs.getLogsDir(cn, mn), report);
                 }
-                report.put("timeSpentInGCs", String.valueOf(l.timeSpentInGCs));
+                Phases.attributeGC(phases, l);
+                phases.forEach(p -> p.toReport(report));
                 report.put("testMethod", cn + "#" + mn);
-                report.put("requestsExecuted", String.valueOf(HEAVY_REQUESTS));
+                report.put("requestsExecuted", phases.stream().mapToInt(Phases.Phase::count).sum());
                 reports.add(report);
             }
-            final String reportPayload = mapToJSON(reports);
-            LOGGER.info(reportPayload);
+            LOGGER.info(Report.toJSON(reports));
+            recordHistory(app, reports);
             if (PERF_APP_REPORT) {
-                final HttpResponse<String> response = postRuntimePayload(APP_RUNTIME_CONTEXT, reportPayload);
-                if (response != null) {
-                    LOGGER.info("Response code:" + response.statusCode());
-                    LOGGER.info("Response body:" + response.body());
-                    if (response.statusCode() != SC_CREATED) {
-                        LOGGER.error("Payload was NOT uploaded tot the collector server!");
-                    }
-                }
+                enqueueRuntimePayload(APP_RUNTIME_CONTEXT, reports);
             }
             LOGGER.info("Gonna wait for ports closed...");
             assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
@@ -389,6 +442,9 @@ public class PerfCheckTest {
             Logs.checkLog(cn, mn, app, processLog);
         } finally {
             Files.deleteIfExists(json.toPath());
+            if (sampler != null) {
+                sampler.close();
+            }
             if (process != null) {
                 processStopper(process, true);
             }
@@ -406,18 +462,14 @@ public class PerfCheckTest {
         final Apps app = Apps.QUARKUS_FULL_MICROPROFILE_PERF;
         LOGGER.info("Testing app: " + app);
         Process process = null;
+        ProcSampler sampler = null;
         final File appDir = Path.of(BASE_DIR, app.dir).toFile();
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final String cn = testInfo.getTestClass().get().getCanonicalName();
         final String mn = testInfo.getTestMethod().get().getName();
-        final List<Map<String, String>> reports = new ArrayList<>(2);
+        final List<Report> reports = new ArrayList<>(2);
 
-        String patch = null;
-        if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_4_0_0) >= 0) {
-            patch = "quarkus_4.0.x.patch";
-        } else if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
-            patch = "quarkus_3.31.x.patch";
-        }
+        final String patch = getFullMicroProfilePatch();
         try {
             // Cleanup
             cleanTarget(app);
@@ -429,20 +481,29 @@ public class PerfCheckTest {
             }
 
             // Build executables
-            builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches3());
+            final boolean buildCacheHit = builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches3(), BUILD_CACHE);
+            BuildScheduler.awaitIdle();
 
             runJaegerContainer();
 
             int line = 0;
             for (int i = 0; i < app.buildAndRunCmds.runCommands.length; i++) {
-                final Map<String, String> report = populateHeader(new TreeMap<>());
-                report.replace("testApp", "https://github.com/Karm/mandrel-integration-tests/apps/quarkus-full-microprofile/");
+                final Report report = populateHeader(new Report());
+                report.put("buildCacheHit", buildCacheHit);
+                report.put("testApp", "https://github.com/Karm/mandrel-integration-tests/apps/quarkus-full-microprofile/");
+                final RunEnvironment.Noise noise = RunEnvironment.probe();
+                if (noise != null) {
+                    noise.toReport(report);
+                }
                 final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[i]);
                 Files.writeString(processLog.toPath(), String.join(" ", cmd) + '\n', StandardOpenOption.APPEND, StandardOpenOption.CREATE);
                 process = runCommand(cmd, appDir, processLog, app);
-                final long timeToFirstOKRequestMs = WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
+                final StartupProbe.Startup startup = StartupProbe.probe(process, app, 10);
                 line = waitForFileToMatch(Pattern.compile(".*Events enabled.*"), processLog.toPath(), line, 20, 1, TimeUnit.SECONDS);
-                report.put("timeToFirstOKRequestMs", String.valueOf(timeToFirstOKRequestMs));
+                if (ProcSampler.isSupported()) {
+                    sampler = ProcSampler.start(process.children().sorted().findFirst().get().pid());
+                }
+                startup.toReport(report);
                 LOGGER.info("Testing web page content...");
                 // Just serially iterate. No parallel clients...
                 final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
@@ -467,60 +528,55 @@ public class PerfCheckTest {
                     }
                 }
                 System.out.println();
-                report.put("rssKb", Long.toString(getRSSkB(process.children().sorted().findFirst().get().pid())));
+                report.put("rssKb", getRSSkB(process.children().sorted().findFirst().get().pid()), "kB");
+                if (sampler != null) {
+                    sampler.close();
+                    sampler.toReport(report);
+                }
                 processStopper(process, false, true);
-                final String statsFor = Arrays.stream(app.buildAndRunCmds.runCommands[i])
-                        // skipping first 2:  `perf stat'
-                        .skip(2).collect(Collectors.joining(" ")).trim();
-                waitForFileToMatch(Pattern.compile(".*Performance counter stats for\\s+'\\Q" + statsFor + "\\E':.*"), processLog.toPath(), 0, 5, 1, TimeUnit.SECONDS);
-                final Commands.PerfRecord pr = parsePerfRecord(processLog.toPath(), statsFor);
+                final String statsFor = perfStatTarget(app.buildAndRunCmds.runCommands[i]);
+                // perf writes its counters as it exits
+                process.waitFor(5, TimeUnit.SECONDS);
+                // One pass over the log for both perf stat and GC events of this run
+                final LogScanner.Sections sections = new LogScanner()
+                        .perfStat(statsFor)
+                        .serialGC(statsFor)
+                        .scan(processLog.toPath());
+                final Commands.PerfRecord pr = parsePerfRecord(sections, statsFor);
                 report.put("file", statsFor);
-                report.put("taskClock", String.valueOf(pr.taskClock));
-                report.put("contextSwitches", String.valueOf(pr.contextSwitches));
-                report.put("cpuMigrations", String.valueOf(pr.cpuMigrations));
-                report.put("pageFaults", String.valueOf(pr.pageFaults));
-                report.put("cycles", String.valueOf(pr.cycles));
-                report.put("instructions", String.valueOf(pr.instructions));
-                report.put("branches", String.valueOf(pr.branches));
-                report.put("branchMisses", String.valueOf(pr.branchMisses));
-                report.put("secondsTimeElapsed", String.valueOf(pr.secondsTimeElapsed));
+                pr.toReport(report);
                 assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                         "Main port is still open");
-                final Commands.SerialGCLog l;
+                final Commands.SerialGCLog l = parseSerialGCLog(sections);
                 if (!statsFor.contains("-jar")) {
                     long executableSizeKb = Files.size(Path.of(appDir.getAbsolutePath(), statsFor.split(" ")[0])) / 1024L;
-                    report.put("executableSizeKb", String.valueOf(executableSizeKb));
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, false);
-                    report.put("incrementalGCevents", String.valueOf(l.incrementalGCevents));
-                    report.put("fullGCevents", String.valueOf(l.fullGCevents));
+                    report.put("executableSizeKb", executableSizeKb, "kB");
+                    report.put("incrementalGCevents", l.incrementalGCevents);
+                    report.put("fullGCevents", l.fullGCevents);
                 } else {
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, true);
-                    report.put("incrementalGCevents", "-1");
-                    report.put("fullGCevents", "-1");
-                    report.put("executableSizeKb", "-1");
+                    report.put("incrementalGCevents", -1L);
+                    report.put("fullGCevents", -1L);
+                    report.put("executableSizeKb", -1L, "kB");
                 }
-                report.put("timeSpentInGCs", String.valueOf(l.timeSpentInGCs));
+                report.put("timeSpentInGCs", l.timeSpentInGCs, "s");
+                l.gc.toReport(report, pr.secondsTimeElapsed * 1000);
                 report.put("testMethod", cn + "#" + mn);
-                report.put("requestsExecuted", String.valueOf(LIGHT_REQUESTS));
+                report.put("requestsExecuted", LIGHT_REQUESTS);
                 reports.add(report);
             }
-            final String reportPayload = mapToJSON(reports);
-            LOGGER.info(reportPayload);
+            LOGGER.info(Report.toJSON(reports));
+            recordHistory(app, reports);
             if (PERF_APP_REPORT) {
-                final HttpResponse<String> response = postRuntimePayload(APP_RUNTIME_CONTEXT, reportPayload);
-                if (response != null) {
-                    LOGGER.info("Response code:" + response.statusCode());
-                    LOGGER.info("Response body:" + response.body());
-                    if (response.statusCode() != SC_CREATED) {
-                        LOGGER.error("Payload was NOT uploaded to the collector server!");
-                    }
-                }
+                enqueueRuntimePayload(APP_RUNTIME_CONTEXT, reports);
             }
             LOGGER.info("Gonna wait for ports closed...");
             assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                     "Main port is still open");
             Logs.checkLog(cn, mn, app, processLog);
         } finally {
+            if (sampler != null) {
+                sampler.close();
+            }
             if (process != null) {
                 processStopper(process, true);
             }
@@ -548,15 +604,10 @@ public class PerfCheckTest {
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final String cn = testInfo.getTestClass().get().getCanonicalName();
         final String mn = testInfo.getTestMethod().get().getName();
-        final List<Map<String, String>> reports = new ArrayList<>(2);
+        final List<Report> reports = new ArrayList<>(2);
 
         // apply patches, when necessary
-        String patch = null;
-        if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_4_0_0) >= 0) {
-            patch = "quarkus_4.0.x.patch";
-        } else if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
-            patch = "quarkus_3.31.x.patch";
-        }
+        final String patch = getFullMicroProfilePatch();
 
         try {
             // cleanup before start
@@ -568,28 +619,36 @@ public class PerfCheckTest {
             }
 
             // build executables for testing
-            builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches3());
+            final boolean buildCacheHit = builderRoutine(app, null, null, null, appDir, processLog, null, getSwitches3(), BUILD_CACHE);
+            BuildScheduler.awaitIdle();
 
             for (int i = 0; i < app.buildAndRunCmds.runCommands.length - 1; i++) {
-                final Map<String, String> report = populateHeader(new TreeMap<>());
-                report.replace("testApp", "https://github.com/Karm/mandrel-integration-tests/apps/quarkus-full-microprofile/");
+                final Report report = populateHeader(new Report());
+                report.put("buildCacheHit", buildCacheHit);
+                report.put("testApp", "https://github.com/Karm/mandrel-integration-tests/apps/quarkus-full-microprofile/");
 
                 // run the app
+                final RunEnvironment.Noise noise = RunEnvironment.probe();
+                if (noise != null) {
+                    noise.toReport(report);
+                }
                 final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[i]);
                 Files.writeString(processLog.toPath(), String.join(" ", cmd) + '\n', StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+                final long startNs = System.nanoTime();
                 process = runCommand(cmd, appDir, processLog, app);
                 LOGGER.info("Running app with pid " + process.pid());
 
                 // create a request to teh app and measure the time
-                final long timeToFirstOKRequestMs = WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
+                final StartupProbe.Startup startup = StartupProbe.probe(process, app, 10);
                 waitForFileToMatch(Pattern.compile(".*Events enabled.*"), processLog.toPath(), 0, 20, 1, TimeUnit.SECONDS);
-                report.put("timeToFirstOKRequestMs", String.valueOf(timeToFirstOKRequestMs));
+                startup.toReport(report);
 
                 // generate some requests to the app with Hyperfoil
                 generateRequestsWithHyperfoil(app, appDir, processLog, cn, mn, false);
 
                 // stop the app
                 processStopper(process, false, true);
+                final double elapsedMs = (System.nanoTime() - startNs) / 1_000_000d;
                 assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                         "Main port is still open.");
 
@@ -598,24 +657,25 @@ public class PerfCheckTest {
                 final Commands.SerialGCLog l;
                 if (!statsFor.contains("-jar")) {
                     long executableSizeKb = Files.size(Path.of(appDir.getAbsolutePath(), statsFor.split(" ")[0])) / 1024L;
-                    report.put("executableSizeKb", String.valueOf(executableSizeKb));
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, false);
-                    report.put("incrementalGCevents", String.valueOf(l.incrementalGCevents));
-                    report.put("fullGCevents", String.valueOf(l.fullGCevents));
+                    report.put("executableSizeKb", executableSizeKb, "kB");
+                    l = parseSerialGCLog(processLog.toPath(), statsFor);
+                    report.put("incrementalGCevents", l.incrementalGCevents);
+                    report.put("fullGCevents", l.fullGCevents);
                 } else {
-                    l = parseSerialGCLog(processLog.toPath(), statsFor, true);
-                    report.put("incrementalGCevents", "-1");
-                    report.put("fullGCevents", "-1");
-                    report.put("executableSizeKb", "-1");
+                    l = parseSerialGCLog(processLog.toPath(), statsFor);
+                    report.put("incrementalGCevents", -1L);
+                    report.put("fullGCevents", -1L);
+                    report.put("executableSizeKb", -1L, "kB");
                 }
-                report.put("timeSpentInGCs", String.valueOf(l.timeSpentInGCs));
+                report.put("timeSpentInGCs", l.timeSpentInGCs, "s");
+                l.gc.toReport(report, elapsedMs);
                 report.put("testMethod", cn + "#" + mn);
                 reports.add(report);
             }
 
             // log the report
-            final String reportPayload = mapToJSON(reports);
-            LOGGER.info(reportPayload);
+            LOGGER.info(Report.toJSON(reports));
+            recordHistory(app, reports);
 
             LOGGER.info("Wait till the ports close...");
             assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
@@ -623,12 +683,17 @@ public class PerfCheckTest {
             Logs.checkLog(cn, mn, app, processLog);
 
             // sanity check
-            assertNotEquals("0.0", reports.get(0).get("timeSpentInGCs"), "Time spent in GCs is zero (JVM).");
-            assertNotEquals("0.0", reports.get(1).get("timeSpentInGCs"), "Time spent in GCs is zero (native).");
+            assertNotEquals(0.0, reports.get(0).getDouble("timeSpentInGCs"), "Time spent in GCs is zero (JVM).");
+            assertNotEquals(0.0, reports.get(1).getDouble("timeSpentInGCs"), "Time spent in GCs is zero (native).");
+
+            if (reports.stream().anyMatch(RunEnvironment::noisy)) {
+                LOGGER.warn("The host was noisy, not comparing GC times with thresholds.");
+                return;
+            }
 
             // saving time spent in GCs values
-            double jvmGCTime = Double.parseDouble(reports.get(1).get("timeSpentInGCs"));
-            double nativeGCTime = Double.parseDouble(reports.get(1).get("timeSpentInGCs"));
+            double jvmGCTime = reports.get(0).getDouble("timeSpentInGCs");
+            double nativeGCTime = reports.get(1).getDouble("timeSpentInGCs");
 
             // get threshold value
             final Path gcThresholds = appDir.toPath().resolve("gc_threshold.conf");
@@ -638,6 +703,20 @@ public class PerfCheckTest {
             double percentageDiff = getPercentageDifference(nativeGCTime, jvmGCTime);
             assertTrue(nativeGCTime < jvmGCTime || percentageDiff <= (double) thresholds.get("timeInGCs"),
                     "Time spent in GCs is " + percentageDiff + "% slower in native than in JVM (threshold is " + thresholds.get("timeInGCs") + "%).");
+
+            // the same for the latency impact, i.e. the long pauses requests wait for
+            for (String[] pt : new String[][]{{"gcPauseP99Ms", "pauseP99"}, {"gcPauseMaxMs", "pauseMax"}}) {
+                final String pause = pt[0];
+                final String threshold = pt[1];
+                final double jvmPause = reports.get(0).getDouble(pause);
+                final double nativePause = reports.get(1).getDouble(pause);
+                final double pauseDiff = getPercentageDifference(nativePause, jvmPause);
+                LOGGER.info(pause + " JVM: " + jvmPause + ", native: " + nativePause);
+                if (thresholds.containsKey(threshold)) {
+                    assertTrue(nativePause <= jvmPause || pauseDiff <= (double) thresholds.get(threshold),
+                            pause + " is " + pauseDiff + "% longer in native than in JVM (threshold is " + thresholds.get(threshold) + "%).");
+                }
+            }
         } finally {
             // final cleanup after the test is over
             if (process != null) {
@@ -653,8 +732,59 @@ public class PerfCheckTest {
         }
     }
 
+    /**
+     * Cold start and warm-up on /load/hash, then a measurement of /load/hash (sha-256 of the deserialized payload)
+     * and of /load (just deserialization), each with HEAVY_REQUESTS POSTs of the /dump payload.
+     *
+     * @param profile where perf record writes the profile of the measurement phases, null not to profile
+     */
+    private static List<Phases.Phase> runJSONPhases(Apps app, File json, long pid, File processLog, Path profile)
+            throws URISyntaxException, IOException, InterruptedException {
+        final HttpRequest hash = jsonRequest(json, app.urlContent.urlContent[3][0]);
+        final HttpRequest load = jsonRequest(json, app.urlContent.urlContent[2][0]);
+        final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
+        final List<Phases.Phase> phases = Phases.of(hash, List.of(hash, load), HEAVY_REQUESTS);
+        Profiler profiler = null;
+        try {
+            for (int i = 0; i < phases.size(); i++) {
+                if (profile != null && i == Phases.FIRST_MEASUREMENT) {
+                    profiler = Profiler.attach(pid, profile);
+                }
+                phases.get(i).run(hc, pid, processLog);
+            }
+        } finally {
+            if (profiler != null) {
+                profiler.close();
+            }
+        }
+        return phases;
+    }
+
+    private static HttpRequest jsonRequest(File json, String url) throws URISyntaxException, IOException {
+        return HttpRequest.newBuilder()
+                .method("POST", HttpRequest.BodyPublishers.ofFile(json.toPath()))
+                .version(HttpClient.Version.HTTP_1_1)
+                .uri(new URI(url))
+                .headers("Content-Type", "application/json", "Accept", "text/plain")
+                .build();
+    }
+
     private void generateRequestsWithHyperfoil(Apps app, File appDir, File processLog, String cn, String mn, boolean printResults)
             throws IOException, InterruptedException, URISyntaxException {
+        if (LoadGenerator.EMBEDDED) {
+            final LoadGenerator.Benchmark benchmark = LoadGenerator.parse(appDir.toPath().resolve("benchmark.hf.yaml"), Map.of());
+            disableTurbo();
+            final LoadGenerator.Stats stats;
+            try {
+                stats = LoadGenerator.run(benchmark);
+            } finally {
+                enableTurbo();
+            }
+            if (printResults) {
+                System.out.println(stats.toJSON(benchmark.name)); // uses normal system print, because it's often very long
+            }
+            return;
+        }
         try {
             removeContainer("hyperfoil-container");
 
@@ -751,13 +881,8 @@ public class PerfCheckTest {
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final String cn = testInfo.getTestClass().get().getCanonicalName();
         final String mn = testInfo.getTestMethod().get().getName();
-        String patch = null;
+        final String patch = getMPOrmAwtPatch();
         final List<Path> jsonPayloads = new ArrayList<>(2);
-        if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
-            patch = "quarkus_3.31.x.patch";
-        } else if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_21_0) >= 0) {
-            patch = "quarkus_3.21.x.patch";
-        }
         try {
             // Cleanup
             cleanTarget(app);
@@ -768,26 +893,15 @@ public class PerfCheckTest {
             }
 
             // Build executables
-            final Map<String, String> switches = new HashMap<>() {
-                {
-                    put(FINAL_NAME_TOKEN, String.format("build-perf-%s-%s-mp-orm-dbs-awt",
-                            getProperty("perf.app.arch", ARCH),
-                            getProperty("perf.app.os", System.getProperty("os.name"))));
-                    put(GRAALVM_BUILD_OUTPUT_JSON_FILE, "quarkus-json.json");
-                    if ((getVersion(inContainer).compareTo(Version.create(23, 1, 0)) >= 0)) {
-                        put(GRAALVM_EXPERIMENTAL_BEGIN, "-H:+UnlockExperimentalVMOptions,");
-                        put(GRAALVM_EXPERIMENTAL_END, "-H:-UnlockExperimentalVMOptions,");
-                    } else {
-                        put(GRAALVM_EXPERIMENTAL_BEGIN, "");
-                        put(GRAALVM_EXPERIMENTAL_END, "");
-                    }
-                }
-            };
-
-            builderRoutine(app, null, null, null, appDir, processLog, null, switches);
+            final Map<String, String> switches = getMPOrmAwtSwitches(inContainer);
+            final boolean buildCacheHit = builderRoutine(app, null, null, null, appDir, processLog, null, switches, BUILD_CACHE);
+            // Measure only once no other build competes for the CPU
+            BuildScheduler.awaitIdle();
             findExecutable(Path.of(appDir.getAbsolutePath(), "target"), Pattern.compile(".*mp-orm-dbs-awt.*"));
 
-            if (PERF_APP_REPORT) {
+            if (PERF_APP_REPORT && buildCacheHit) {
+                LOGGER.warn("Build was restored from cache, not uploading its build time stats again.");
+            } else if (PERF_APP_REPORT) {
                 // The checking whether there are no more files than we expect is to avoid uploading unexpected artifacts.
                 final List<Path> mainPayloads = findFiles(Path.of(appDir.getAbsolutePath(), "target"), Pattern.compile("quarkus-json.json"));
                 if (mainPayloads.size() != 1) {
@@ -805,19 +919,11 @@ public class PerfCheckTest {
                 final String qversion = QUARKUS_VERSION.isSnapshot() ?
                         QUARKUS_VERSION.getGitSHA() + '.' + QUARKUS_VERSION.getVersionString() : QUARKUS_VERSION.getVersionString();
                 final String mversion = getVersion(inContainer).toString();
-                final HttpResponse<String> r;
-                // The json files are like 4K tops, so we can afford Files.readString...
-                if (secondaryPayloads.size() == 1) {
-                    r = postBuildtimePayload(APP_BUILDTIME_CONTEXT, qversion, mversion, Files.readString(mainPayloads.get(0)), Files.readString(secondaryPayloads.get(0)));
-                } else {
-                    r = postBuildtimePayload(APP_BUILDTIME_CONTEXT, qversion, mversion, Files.readString(mainPayloads.get(0)));
-                }
-                if (r != null) {
-                    LOGGER.info("Response code:" + r.statusCode());
-                    LOGGER.info("Response body:" + r.body());
-                    if (!(r.statusCode() == SC_CREATED || r.statusCode() == SC_ACCEPTED || r.statusCode() == SC_OK)) {
-                        LOGGER.error("Payload was NOT uploaded to the collector server!");
-                    }
+                enqueueBuildtimePayload(APP_BUILDTIME_CONTEXT, qversion, mversion, jsonPayloads.toArray(new Path[0]));
+            }
+            if (History.ENABLED && !buildCacheHit) {
+                for (Path buildOutput : findFiles(Path.of(appDir.getAbsolutePath(), "target"), Pattern.compile("quarkus-json.json"))) {
+                    History.recordBuildOutput(History.current(app.name(), "build", inContainer), buildOutput);
                 }
             }
             Logs.checkLog(cn, mn, app, processLog);
@@ -834,6 +940,40 @@ public class PerfCheckTest {
         }
     }
 
+    private static String getFullMicroProfilePatch() {
+        if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_4_0_0) >= 0) {
+            return "quarkus_4.0.x.patch";
+        } else if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
+            return "quarkus_3.31.x.patch";
+        }
+        return null;
+    }
+
+    private static String getMPOrmAwtPatch() {
+        if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
+            return "quarkus_3.31.x.patch";
+        } else if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_21_0) >= 0) {
+            return "quarkus_3.21.x.patch";
+        }
+        return null;
+    }
+
+    private static Map<String, String> getMPOrmAwtSwitches(boolean inContainer) {
+        final Map<String, String> switches = new HashMap<>();
+        switches.put(FINAL_NAME_TOKEN, String.format("build-perf-%s-%s-mp-orm-dbs-awt",
+                getProperty("perf.app.arch", ARCH),
+                getProperty("perf.app.os", System.getProperty("os.name"))));
+        switches.put(GRAALVM_BUILD_OUTPUT_JSON_FILE, "quarkus-json.json");
+        if ((getVersion(inContainer).compareTo(Version.create(23, 1, 0)) >= 0)) {
+            switches.put(GRAALVM_EXPERIMENTAL_BEGIN, "-H:+UnlockExperimentalVMOptions,");
+            switches.put(GRAALVM_EXPERIMENTAL_END, "-H:-UnlockExperimentalVMOptions,");
+        } else {
+            switches.put(GRAALVM_EXPERIMENTAL_BEGIN, "");
+            switches.put(GRAALVM_EXPERIMENTAL_END, "");
+        }
+        return switches;
+    }
+
     private static Map<String, String> getSwitches1() {
         final Map<String, String> switches;
         if (getVersion(false).compareTo(Version.create(22, 2, 0)) >= 0) {
@@ -860,7 +1000,7 @@ public class PerfCheckTest {
                     GRAALVM_BUILD_OUTPUT_JSON_FILE + "+ParseOnce", ""
             );
         }
-        return switches;
+        return Profiler.debugInfo(switches, getVersion(false).compareTo(Version.create(23, 1, 0)) >= 0);
     }
 
     private static Map<String, String> getSwitches2() {
@@ -876,7 +1016,7 @@ public class PerfCheckTest {
         } else {
             switches = Map.of(GRAALVM_BUILD_OUTPUT_JSON_FILE, "");
         }
-        return switches;
+        return Profiler.debugInfo(switches, getVersion(false).compareTo(Version.create(23, 1, 0)) >= 0);
     }
 
     private static Map<String, String> getSwitches3() {
@@ -22,8 +22,12 @@ package org.graalvm.tests.integration;
 import org.graalvm.home.Version;
 import org.graalvm.tests.integration.utils.Apps;
 import org.graalvm.tests.integration.utils.ContainerNames;
+import org.graalvm.tests.integration.utils.ContainerSampler;
+import org.graalvm.tests.integration.utils.History;
 import org.graalvm.tests.integration.utils.LogBuilder;
 import org.graalvm.tests.integration.utils.Logs;
+import org.graalvm.tests.integration.utils.ProcSampler;
+import org.graalvm.tests.integration.utils.StartupProbe;
 import org.graalvm.tests.integration.utils.WebpageTester;
 import org.graalvm.tests.integration.utils.versions.QuarkusVersion;
 import org.graalvm.tests.integration.utils.versions.UsedVersion;
@@ -40,11 +44,13 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Pattern;
 
+import static org.graalvm.tests.integration.utils.Commands.PERF_TRIALS;
 import static org.graalvm.tests.integration.utils.Commands.QUARKUS_VERSION;
 import static org.graalvm.tests.integration.utils.Commands.builderRoutine;
 import static org.graalvm.tests.integration.utils.Commands.cleanTarget;
@@ -84,6 +90,8 @@ public class RuntimesSmokeTest {
     public void testRuntime(TestInfo testInfo, Apps app, Map<String, String> env, Map<String, String> switchReplacements) throws IOException, InterruptedException {
         LOGGER.info("Testing app: " + app);
         Process process = null;
+        ProcSampler sampler = null;
+        ContainerSampler containerSampler = null;
         final File appDir = Path.of(BASE_DIR, app.dir).toFile();
         final File processLog = Path.of(appDir.getAbsolutePath(), "logs", "build-and-run.log").toFile();
         final StringBuilder report = new StringBuilder();
@@ -107,15 +115,20 @@ public class RuntimesSmokeTest {
             LOGGER.info("Running...");
             final List<String> cmd = getRunCommand(app.buildAndRunCmds.runCommands[0]);
             process = runCommand(cmd, appDir, processLog, app);
+            if (app.runtimeContainer == ContainerNames.NONE && ProcSampler.isSupported()) {
+                sampler = ProcSampler.start(process.pid());
+            }
             Logs.appendln(report, appDir.getAbsolutePath());
             Logs.appendlnSection(report, String.join(" ", cmd));
 
+            final StartupProbe.Startup startup = probe(app, process);
+            final long timeToFirstOKRequest = startup.timeToFirstOKRequestMs();
+            Logs.appendln(report, "Startup: " + startup);
             if (app.runtimeContainer != ContainerNames.NONE) {
-                waitForContainerLogToMatch(app.runtimeContainer.name, Pattern.compile(".*started.*"), 3000, 500, TimeUnit.MILLISECONDS);
+                containerSampler = ContainerSampler.start(app.runtimeContainer.name);
             }
 
             // Test web pages
-            final long timeToFirstOKRequest = WebpageTester.testWeb(app.urlContent.urlContent[0][0], 10, app.urlContent.urlContent[0][1], true);
             LOGGER.info("Testing web page content...");
             for (String[] urlContent : app.urlContent.urlContent) {
                 if (QUARKUS_VERSION.compareTo(QuarkusVersion.V_3_31_0) >= 0) {
@@ -140,42 +153,92 @@ public class RuntimesSmokeTest {
                 executableSizeKb = Files.size(Path.of(appDir.getAbsolutePath(), app.buildAndRunCmds.runCommands[0][0])) / 1024L;
                 rssKb = getRSSkB(process.pid());
                 final long openedFiles = getOpenedFDs(process.pid());
-                processStopper(process, false);
-                log = new LogBuilder()
+                final LogBuilder logBuilder = new LogBuilder()
                         .app(app)
                         .buildTimeMs(buildEnds - buildStarts)
                         .timeToFirstOKRequestMs(timeToFirstOKRequest)
                         .executableSizeKb(executableSizeKb)
-                        .rssKb(rssKb)
-                        .openedFiles(openedFiles)
-                        .build();
+                        .rssKb(rssKb);
+                // -1 if the app is already gone or its /proc/pid/fd is not readable
+                if (openedFiles >= 0) {
+                    logBuilder.openedFiles(openedFiles);
+                }
+                if (sampler != null) {
+                    sampler.close();
+                    logBuilder.procSamples(sampler);
+                    sampler.writeCSV(app.toString(), Paths.get(Logs.getLogsDir(cn, mn).toString(), "proc-samples.csv"));
+                }
+                processStopper(process, false);
+                log = logBuilder.build();
                 // Running as a container
             } else {
                 //  -runner is a Quarkus specific name, but we don't test Helidon in container anyway...
                 executableSizeKb = findExecutable(Path.of(appDir.getAbsolutePath(), "target"),
                         Pattern.compile(".*-runner")).length() / 1024L;
                 rssKb = getContainerMemoryKb(app.runtimeContainer.name);
-                stopRunningContainer(app.runtimeContainer.name);
-                log = new LogBuilder()
+                final LogBuilder logBuilder = new LogBuilder()
                         .app(app)
                         .buildTimeMs(buildEnds - buildStarts)
                         .timeToFirstOKRequestMs(timeToFirstOKRequest)
                         .executableSizeKb(executableSizeKb)
-                        .rssKb(rssKb)
-                        .build();
+                        .rssKb(rssKb);
+                if (containerSampler != null) {
+                    containerSampler.close();
+                    logBuilder.containerSamples(containerSampler);
+                    containerSampler.writeCSV(app.toString(), Paths.get(Logs.getLogsDir(cn, mn).toString(), "container-samples.csv"));
+                }
+                stopRunningContainer(app.runtimeContainer.name);
+                log = logBuilder.build();
             }
 
             LOGGER.info("Gonna wait for ports closed...");
             // Release ports
             Assertions.assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
                     "Main port is still open");
+
+            final long[] timeToFirstOKRequests = new long[PERF_TRIALS];
+            final long[] rssTrials = new long[PERF_TRIALS];
+            timeToFirstOKRequests[0] = timeToFirstOKRequest;
+            rssTrials[0] = rssKb;
+            // Further trials just restart the already built app
+            for (int t = 1; t < PERF_TRIALS; t++) {
+                LOGGER.info("Trial " + t + " of " + PERF_TRIALS + "...");
+                Logs.appendlnSection(report, "Trial " + t + ": " + String.join(" ", cmd));
+                final long[] trial = restartAndMeasure(app, cmd, appDir, processLog);
+                timeToFirstOKRequests[t] = trial[0];
+                rssTrials[t] = trial[1];
+            }
+            final long[] timeToFirstOKRequestsChecked = Logs.remeasure(app,
+                    Logs.thresholdPrefix(app, Logs.Mode.NONE) + ".time.to.first.ok.request.threshold.ms", timeToFirstOKRequests,
+                    () -> restartAndMeasure(app, cmd, appDir, processLog)[0]);
             Logs.checkLog(cn, mn, app, processLog);
+            // Previous runs on this host, read before this one is recorded
+            final long[] rssHistory = History.baseline(app.toString(), "none", "RSSKb");
+            final long[] timeToFirstOKRequestHistory = History.baseline(app.toString(), "none", "timeToFirstOKRequestMs");
             Path measurementsLog = Paths.get(Logs.getLogsDir(cn, mn).toString(), "measurements.csv");
             Logs.logMeasurements(log, measurementsLog);
             Logs.appendln(report, "Measurements:");
             Logs.appendln(report, log.headerMarkdown + "\n" + log.lineMarkdown);
-            Logs.checkThreshold(app, executableSizeKb, rssKb, timeToFirstOKRequest);
+            if (PERF_TRIALS > 1) {
+                Logs.appendln(report, "timeToFirstOKRequest trials: " + Arrays.toString(timeToFirstOKRequests) + ", RSS trials: " + Arrays.toString(rssTrials));
+            }
+            if (timeToFirstOKRequestsChecked != timeToFirstOKRequests) {
+                Logs.appendln(report, "timeToFirstOKRequest re-measured: " + Arrays.toString(timeToFirstOKRequestsChecked));
+            }
+            Logs.checkThreshold(app, Logs.Mode.NONE, new long[]{executableSizeKb}, rssTrials, timeToFirstOKRequestsChecked, null, null, null, null);
+            if (History.ENABLED) {
+                final String prefix = Logs.thresholdPrefix(app, Logs.Mode.NONE);
+                Logs.checkAgainstBaseline(app, prefix + ".RSS.threshold.kB", rssTrials, rssHistory, false);
+                Logs.checkAgainstBaseline(app, prefix + ".time.to.first.ok.request.threshold.ms", timeToFirstOKRequestsChecked,
+                        timeToFirstOKRequestHistory, true);
+            }
         } finally {
+            if (sampler != null) {
+                sampler.close();
+            }
+            if (containerSampler != null) {
+                containerSampler.close();
+            }
             // Make sure processes are down even if there was an exception / failure
             if (process != null) {
                 processStopper(process, true);
@@ -190,6 +253,47 @@ public class RuntimesSmokeTest {
         }
     }
 
+    /**
+     * Apps are measured from spawn, the probe is to run before anything else waits for the app.
+     * Apps in containers are measured from when the container logged the app started, like the
+     * linux.container.time.to.first.ok.request thresholds expect, pulling the image and creating
+     * the container is not the app's startup.
+     */
+    private static StartupProbe.Startup probe(Apps app, Process process) throws IOException, InterruptedException {
+        if (app.runtimeContainer == ContainerNames.NONE) {
+            return StartupProbe.probe(process, app, 10);
+        }
+        waitForContainerLogToMatch(app.runtimeContainer.name, Pattern.compile(".*started.*"), 3000, 500, TimeUnit.MILLISECONDS);
+        return StartupProbe.probeFromNow(process, app, 10);
+    }
+
+    /**
+     * Starts the already built app once more.
+     *
+     * @return {time to first OK request ms, RSS kB}
+     */
+    private static long[] restartAndMeasure(Apps app, List<String> cmd, File appDir, File processLog) throws IOException, InterruptedException {
+        final Process process = runCommand(cmd, appDir, processLog, app);
+        try {
+            final long timeToFirstOKRequest = probe(app, process).timeToFirstOKRequestMs();
+            final long rssKb;
+            if (app.runtimeContainer == ContainerNames.NONE) {
+                rssKb = getRSSkB(process.pid());
+                processStopper(process, false);
+            } else {
+                rssKb = getContainerMemoryKb(app.runtimeContainer.name);
+                stopRunningContainer(app.runtimeContainer.name);
+            }
+            Assertions.assertTrue(waitForTcpClosed("localhost", parsePort(app.urlContent.urlContent[0][0]), 60),
+                    "Main port is still open");
+            return new long[]{timeToFirstOKRequest, rssKb};
+        } finally {
+            if (process.isAlive()) {
+                processStopper(process, true);
+            }
+        }
+    }
+
     @Test
     @Tag("quarkus")
     public void quarkusFullMicroProfile(TestInfo testInfo) throws IOException, InterruptedException {
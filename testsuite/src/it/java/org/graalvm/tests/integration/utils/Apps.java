@@ -144,6 +144,11 @@ public enum Apps {
             WhitelistLogLines.JFR,
             BuildAndRunCmds.JFR_PERFORMANCE,
             ContainerNames.NONE),
+    JFR_EVENTS("apps" + File.separator + "jfr-native-image-performance",
+            URLContent.JFR_PERF,
+            WhitelistLogLines.JFR,
+            BuildAndRunCmds.JFR_EVENTS,
+            ContainerNames.NONE),
     JFR_PERFORMANCE_BUILDER_IMAGE("apps" + File.separator + "jfr-native-image-performance",
             URLContent.JFR_PERF,
             WhitelistLogLines.JFR,
@@ -47,6 +47,7 @@ import static org.graalvm.tests.integration.utils.Commands.IS_THIS_MACOS;
 import static org.graalvm.tests.integration.utils.Commands.IS_THIS_WINDOWS;
 import static org.graalvm.tests.integration.utils.Commands.QUARKUS_VERSION;
 import static org.graalvm.tests.integration.utils.Commands.getUnixUIDGID;
+import static org.graalvm.tests.integration.utils.Commands.perfStat;
 
 /**
  * BuildAndRunCmds
@@ -157,8 +158,8 @@ public enum BuildAndRunCmds {
                     // -XX:+UseG1GC
                     // Profile capture:
                     // No "--delay", "2000",  for perf o capture startup too...
-                    { "perf", "stat", "java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar" },
-                    { "perf", "stat", "./target/quarkus-runner", "-XX:+PrintGC" } }
+                    perfStat("java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar"),
+                    perfStat("./target/quarkus-runner", "-XX:+PrintGC") }
     ),
     QUARKUS_FULL_MICROPROFILE_GC(
             new String[][] {
@@ -199,9 +200,9 @@ public enum BuildAndRunCmds {
                     //-XX:+UseShenandoahGC
                     //-XX:+UseSerialGC
                     //-XX:+UseG1GC
-                    { "perf", "stat", "--delay", "2000", "java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar" },
-                    { "perf", "stat", "--delay", "1000", "./target/quarkus-json_-ParseOnce-runner", "-XX:+PrintGC" },
-                    { "perf", "stat", "--delay", "1000", "./target/quarkus-json_+ParseOnce-runner", "-XX:+PrintGC" } }
+                    perfStat("--delay", "2000", "java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar"),
+                    perfStat("--delay", "1000", "./target/quarkus-json_-ParseOnce-runner", "-XX:+PrintGC"),
+                    perfStat("--delay", "1000", "./target/quarkus-json_+ParseOnce-runner", "-XX:+PrintGC") }
     ),
     QUARKUS_JSON_PERF(
             new String[][] {
@@ -215,8 +216,8 @@ public enum BuildAndRunCmds {
                             "-Dcustom.final.name=quarkus-json" },
                     { "mvn", "--batch-mode", "package", "-Dcustom.final.name=quarkus-json", "-Dquarkus.version=" + QUARKUS_VERSION.getVersionString() } },
             new String[][] {
-                    { "perf", "stat", "--delay", "2000", "java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar" },
-                    { "perf", "stat", "--delay", "1000", "./target/quarkus-json-runner", "-XX:+PrintGC" } }
+                    perfStat("--delay", "2000", "java", "-Xlog:gc", "-XX:+UseSerialGC", "-Xmx" + MX_HEAP_MB + "m", "-jar", "target/quarkus-app/quarkus-run.jar"),
+                    perfStat("--delay", "1000", "./target/quarkus-json-runner", "-XX:+PrintGC") }
     ),
     QUARKUS_BUILDER_IMAGE_ENCODING(
             new String[][] {
@@ -400,6 +401,16 @@ public enum BuildAndRunCmds {
                     { "./target/jfr-plaintext-runner" },
                     hyperfoil() }
     ),
+    JFR_EVENTS(
+            new String[][] {
+                    { "mvn", "--batch-mode", "package", "-Pnative", "-Dquarkus.version=" + QUARKUS_VERSION.getVersionString(), "-Dquarkus.native.monitoring=jfr",
+                            "-Dquarkus.native.additional-build-args=-J--add-opens=java.base/java.lang=ALL-UNNAMED,-J--enable-native-access=ALL-UNNAMED",
+                            "-DfinalName=jfr-events" },
+                    { "mvn", "--batch-mode", "package", "-Dquarkus.version=" + QUARKUS_VERSION.getVersionString(), "-DfinalName=jfr-events" } },
+            new String[][] {
+                    { "java", "-XX:StartFlightRecording=filename=logs/flight-jvm.jfr", "-jar", "target/quarkus-app/quarkus-run.jar" },
+                    { "./target/jfr-events-runner", "-XX:+FlightRecorder", "-XX:StartFlightRecording=filename=logs/flight-native.jfr" } }
+    ),
     JFR_PERFORMANCE_BUILDER_IMAGE(
             new String[][] {
                     { "mvn", "--batch-mode", "package", "-Pnative", "-Dquarkus.native.container-build=true",
@@ -0,0 +1,207 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.apache.commons.io.FileUtils;
+import org.graalvm.tests.integration.utils.versions.UsedVersion;
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.ARCH;
+import static org.graalvm.tests.integration.utils.Commands.BUILDER_IMAGE;
+import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
+import static org.graalvm.tests.integration.utils.Commands.QUARKUS_VERSION;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Content addressed cache of build results, i.e. of target/ (and sources/ of debug info builds) together
+ * with the builder output, keyed by everything that goes into a build:
+ * app sources and pom, the build commands with switches replaced, env, Mandrel and JDK version,
+ * the native-image binary itself, builder image, Quarkus version and arch. Not the Apps entry, entries building
+ * the same dir the same way share the build.
+ *
+ * Enabled with BUILD_CACHE=true, entries are kept in BUILD_CACHE_DIR. Builds that make container images
+ * are not cached as the image would not be restored.
+ */
+public class BuildCache {
+    private static final Logger LOGGER = Logger.getLogger(BuildCache.class.getName());
+    public static final boolean ENABLED = Boolean.parseBoolean(getProperty("BUILD_CACHE", "false"));
+    public static final Path DIR = Path.of(getProperty("BUILD_CACHE_DIR",
+            Path.of(System.getProperty("java.io.tmpdir"), "mandrel-it-build-cache").toString()));
+    // Build outputs, not sources, cleanTarget wipes the same
+    private static final Set<String> NOT_SOURCES = Set.of("target", "logs", "sources", "reports");
+    private static final String[] CACHED_DIRS = new String[]{"target", "sources"};
+    private static final String BUILD_LOG = "build.log";
+
+    /**
+     * @return hex key of the build or null if the build is not cacheable
+     */
+    public static String key(Apps app, File appDir, List<List<String>> commands, Map<String, String> env) throws IOException {
+        if (commands.stream().anyMatch(c -> c.contains(CONTAINER_RUNTIME))) {
+            return null;
+        }
+        final boolean inContainer = app.runtimeContainer != ContainerNames.NONE;
+        final List<String> identity = new ArrayList<>();
+        commands.forEach(c -> identity.add(String.join(" ", c)));
+        new TreeMap<>(env == null ? Map.of() : env).forEach((k, v) -> identity.add(k + "=" + v));
+        identity.add(UsedVersion.getVersion(inContainer).toString());
+        identity.add(UsedVersion.jdkFeature(inContainer) + "." + UsedVersion.jdkInterim(inContainer) + "." + UsedVersion.jdkUpdate(inContainer));
+        identity.add(BUILDER_IMAGE);
+        identity.add(QUARKUS_VERSION.isSnapshot() ? QUARKUS_VERSION.getGitSHA() + "." + QUARKUS_VERSION.getVersionString() : QUARKUS_VERSION.getVersionString());
+        identity.add(ARCH + " " + System.getProperty("os.name"));
+        // Dev builds of Mandrel might share the version string
+        final String graalHome = System.getenv("GRAALVM_HOME");
+        if (graalHome != null) {
+            final Path nativeImage = Path.of(graalHome, "bin", "native-image");
+            if (Files.exists(nativeImage)) {
+                identity.add(graalHome + " " + Files.getLastModifiedTime(nativeImage).toMillis());
+            }
+        }
+        return key(identity, appDir);
+    }
+
+    /**
+     * @param identity everything but sources that makes the build what it is
+     * @return hex SHA-256 of the identity and of the app sources
+     */
+    static String key(List<String> identity, File appDir) throws IOException {
+        final MessageDigest md = sha256();
+        identity.forEach(i -> update(md, i));
+        final Path root = appDir.toPath();
+        final List<Path> sources;
+        try (Stream<Path> s = Files.walk(root)) {
+            sources = s.filter(Files::isRegularFile)
+                    .filter(p -> !NOT_SOURCES.contains(root.relativize(p).getName(0).toString()))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+        final byte[] buffer = new byte[8192];
+        for (Path p : sources) {
+            update(md, root.relativize(p).toString().replace(File.separatorChar, '/'));
+            try (InputStream is = Files.newInputStream(p)) {
+                int r;
+                while ((r = is.read(buffer)) != -1) {
+                    md.update(buffer, 0, r);
+                }
+            }
+        }
+        final StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Restores target/ and sources/ of a cached build into the app dir and appends the cached builder output to the log.
+     *
+     * @return true on a cache hit
+     */
+    public static boolean restore(String key, File appDir, File processLog) throws IOException {
+        return restore(DIR, key, appDir, processLog);
+    }
+
+    static boolean restore(Path dir, String key, File appDir, File processLog) throws IOException {
+        final Path entry = dir.resolve(key);
+        if (!Files.isRegularFile(entry.resolve(BUILD_LOG))) {
+            return false;
+        }
+        for (String d : CACHED_DIRS) {
+            final File dst = new File(appDir, d);
+            FileUtils.deleteDirectory(dst);
+            final File src = entry.resolve(d).toFile();
+            if (src.isDirectory()) {
+                FileUtils.copyDirectory(src, dst);
+            }
+        }
+        Files.write(processLog.toPath(), Files.readAllBytes(entry.resolve(BUILD_LOG)), StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+        LOGGER.info("Build restored from cache " + entry);
+        return true;
+    }
+
+    /**
+     * Stores target/ and sources/ of a successful build.
+     *
+     * @param logOffset where the build's output starts in the log
+     */
+    public static void store(String key, File appDir, File processLog, long logOffset) throws IOException {
+        store(DIR, key, appDir, processLog, logOffset);
+    }
+
+    static void store(Path dir, String key, File appDir, File processLog, long logOffset) throws IOException {
+        final Path entry = dir.resolve(key);
+        if (Files.exists(entry)) {
+            return;
+        }
+        final Path tmp = Files.createDirectories(dir).resolve(key + ".tmp-" + ProcessHandle.current().pid());
+        FileUtils.deleteDirectory(tmp.toFile());
+        for (String d : CACHED_DIRS) {
+            final File src = new File(appDir, d);
+            if (src.isDirectory()) {
+                FileUtils.copyDirectory(src, tmp.resolve(d).toFile());
+            }
+        }
+        try (FileChannel in = FileChannel.open(processLog.toPath(), StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(tmp.resolve(BUILD_LOG), StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+            in.transferTo(logOffset, in.size() - logOffset, out);
+        }
+        try {
+            // Whoever comes first wins, the contents are the same
+            Files.move(tmp, entry, StandardCopyOption.ATOMIC_MOVE);
+            LOGGER.info("Build stored in cache " + entry);
+        } catch (IOException e) {
+            FileUtils.deleteDirectory(tmp.toFile());
+            if (!Files.exists(entry)) {
+                throw e;
+            }
+        }
+    }
+
+    private static void update(MessageDigest md, String s) {
+        md.update(s.getBytes(UTF_8));
+        md.update((byte) 0);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
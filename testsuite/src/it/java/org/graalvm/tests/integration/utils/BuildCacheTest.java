@@ -0,0 +1,81 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Build cache keys follow sources but not build outputs, restored builds come with their log.
+ */
+@Tag("testing-testsuite")
+public class BuildCacheTest {
+
+    @Test
+    public void keyStoreRestore() throws IOException {
+        final Path app = Files.createTempDirectory(BuildCacheTest.class.getSimpleName());
+        // Not the shared BUILD_CACHE_DIR, leftovers there would turn the first restore into a hit
+        final Path cache = Files.createTempDirectory(BuildCacheTest.class.getSimpleName() + "-cache");
+        final File appDir = app.toFile();
+        final File log = app.resolve("logs").resolve("build-and-run.log").toFile();
+        try {
+            Files.createDirectories(app.resolve("src"));
+            Files.writeString(app.resolve("pom.xml"), "<project/>", UTF_8);
+            Files.writeString(app.resolve("src").resolve("Main.java"), "class Main {}", UTF_8);
+            final List<String> identity = List.of("mvn package -Pnative", "25.0.1.0-Final");
+            final String key = BuildCache.key(identity, appDir);
+            assertEquals(64, key.length());
+
+            // Build outputs must not change the key
+            Files.createDirectories(app.resolve("target"));
+            Files.writeString(app.resolve("target").resolve("app-runner"), "ELF", UTF_8);
+            Files.createDirectories(log.getParentFile().toPath());
+            Files.writeString(log.toPath(), "Before the build\nCommand: mvn package -Pnative\nBUILD SUCCESS\n", UTF_8);
+            assertEquals(key, BuildCache.key(identity, appDir));
+            assertNotEquals(key, BuildCache.key(List.of("mvn package -Pnative", "25.0.2.0-Final"), appDir));
+
+            assertFalse(BuildCache.restore(cache, key, appDir, log));
+            BuildCache.store(cache, key, appDir, log, "Before the build\n".length());
+            Files.delete(app.resolve("target").resolve("app-runner"));
+            Files.delete(log.toPath());
+            assertTrue(BuildCache.restore(cache, key, appDir, log));
+            assertEquals("ELF", Files.readString(app.resolve("target").resolve("app-runner"), UTF_8));
+            assertEquals(List.of("Command: mvn package -Pnative", "BUILD SUCCESS"), Files.readAllLines(log.toPath(), UTF_8));
+
+            Files.writeString(app.resolve("src").resolve("Main.java"), "class Main { }", UTF_8);
+            assertNotEquals(key, BuildCache.key(identity, appDir), "Changed sources must change the key");
+        } finally {
+            Commands.cleanDirOrFile(cache.toString(), app.toString());
+        }
+    }
+}
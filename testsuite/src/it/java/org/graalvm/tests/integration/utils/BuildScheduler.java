@@ -0,0 +1,312 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import com.sun.management.OperatingSystemMXBean;
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.PerfCheckTest.NATIVE_IMAGE_XMX_GB;
+import static org.graalvm.tests.integration.RuntimesSmokeTest.BASE_DIR;
+import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
+import static org.graalvm.tests.integration.utils.Commands.cleanDirOrFile;
+import static org.graalvm.tests.integration.utils.Commands.getBuildCommands;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Commands.getRunCommand;
+import static org.graalvm.tests.integration.utils.Commands.runCommand;
+
+/**
+ * Runs native-image builds, possibly several at once.
+ *
+ * Every build, be it a test's own build in {@link Commands#builderRoutine} or a prebuild, takes one of
+ * {@link #MAX_PARALLEL_BUILDS} slots. The number of slots is given by available RAM, each build is expected
+ * to take BUILD_MEMORY_GB (defaults to PERFCHECK_TEST_NATIVE_IMAGE_XMX_GB), and by cores, BUILD_CORES per build.
+ *
+ * With PREBUILD_APPS=true, a test class can register apps to be built in the background while other tests run,
+ * see {@link #prebuild(Apps, Map, Map, String)}. The test then finds the build done when it calls builderRoutine.
+ * Apps sharing a directory share target/ too, so only one app per directory is prebuilt.
+ */
+public class BuildScheduler {
+    private static final Logger LOGGER = Logger.getLogger(BuildScheduler.class.getName());
+    public static final boolean PREBUILD = Boolean.parseBoolean(getProperty("PREBUILD_APPS", "false"));
+    public static final int BUILD_MEMORY_GB = Integer.parseInt(getProperty("BUILD_MEMORY_GB", Integer.toString(NATIVE_IMAGE_XMX_GB)));
+    public static final int BUILD_CORES = Integer.parseInt(getProperty("BUILD_CORES", "4"));
+    // Left for the test suite itself and for the app under test
+    public static final int RESERVED_MEMORY_GB = Integer.parseInt(getProperty("BUILD_RESERVED_MEMORY_GB", "2"));
+    public static final int MAX_PARALLEL_BUILDS = Math.max(1, Math.min(
+            (int) ((availableMemoryGb() - RESERVED_MEMORY_GB) / BUILD_MEMORY_GB),
+            Runtime.getRuntime().availableProcessors() / BUILD_CORES));
+
+    private static final Semaphore SLOTS = new Semaphore(MAX_PARALLEL_BUILDS, true);
+    private static final AtomicInteger THREAD_COUNTER = new AtomicInteger();
+    private static final ExecutorService PREBUILDER = Executors.newFixedThreadPool(MAX_PARALLEL_BUILDS, r -> {
+        final Thread t = new Thread(r, "prebuild-" + THREAD_COUNTER.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+    // app.dir -> the one prebuild living in that directory
+    private static final Map<String, Prebuild> PREBUILDS = new ConcurrentHashMap<>();
+
+    private static class Prebuild {
+        final Apps app;
+        final List<List<String>> commands;
+        final Map<String, String> env;
+        final File log;
+        CompletableFuture<Void> done;
+        volatile long buildTimeMs = -1L;
+        // All build commands exited with 0
+        volatile boolean ok = false;
+        volatile boolean claimed = false;
+
+        Prebuild(Apps app, List<List<String>> commands, Map<String, String> env, File log) {
+            this.app = app;
+            this.commands = commands;
+            this.env = env == null ? Map.of() : env;
+            this.log = log;
+        }
+    }
+
+    /**
+     * Build steps of one app, run while holding a build slot.
+     */
+    public interface Steps<T> {
+        T run() throws IOException;
+    }
+
+    /**
+     * Runs the steps once a build slot is free.
+     *
+     * @return whatever the steps return
+     */
+    public static <T> T admit(Steps<T> steps) throws IOException {
+        try {
+            SLOTS.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a build slot", e);
+        }
+        try {
+            return steps.run();
+        } finally {
+            SLOTS.release();
+        }
+    }
+
+    /**
+     * Runs build commands one after another, each is written to the log first, just like builderRoutine does.
+     *
+     * @param beforeEach called with each command before it runs, e.g. to add it to a report
+     * @return true if all the commands finished with exit value 0
+     */
+    public static boolean runBuild(File appDir, File log, List<List<String>> commands, Map<String, String> env,
+                                   Consumer<List<String>> beforeEach) throws IOException {
+        boolean ok = true;
+        for (List<String> cmd : commands) {
+            Files.writeString(log.toPath(), String.join(" ", cmd) + "\n", StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            beforeEach.accept(cmd);
+            // Native image build might take a long time....
+            final Commands.ProcessRunner runner = new Commands.ProcessRunner(appDir, log, cmd, 20, env);
+            runner.run();
+            ok &= runner.exitValue() == 0;
+        }
+        return ok;
+    }
+
+    /**
+     * Starts building the app in the background, into a log of its own. No-op unless PREBUILD_APPS is true.
+     * Apps built in containers are never prebuilt as tests stop and remove containers.
+     *
+     * @param env                as for builderRoutine
+     * @param switchReplacements as for builderRoutine
+     * @param patch              patch the test applies before building, applied for the build and reverted afterwards, may be null
+     */
+    public static void prebuild(Apps app, Map<String, String> env, Map<String, String> switchReplacements, String patch) {
+        if (!PREBUILD) {
+            return;
+        }
+        final List<List<String>> commands = getBuildCommands(app, switchReplacements);
+        if (app.runtimeContainer != ContainerNames.NONE || commands.stream().anyMatch(c -> c.contains(CONTAINER_RUNTIME)
+                || c.stream().anyMatch(s -> s.contains("container-build=true")))) {
+            LOGGER.info("Not prebuilding " + app + ", it is built in a container.");
+            return;
+        }
+        PREBUILDS.computeIfAbsent(app.dir, dir -> {
+            final File appDir = Path.of(BASE_DIR, dir).toFile();
+            final Prebuild p;
+            try {
+                p = new Prebuild(app, commands, env, Files.createTempFile("prebuild-" + app.name(), ".log").toFile());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            LOGGER.info("Prebuilding " + app + ", up to " + MAX_PARALLEL_BUILDS + " builds at once.");
+            p.done = CompletableFuture.runAsync(() -> {
+                try {
+                    admit(() -> {
+                        final long start = System.currentTimeMillis();
+                        cleanDirOrFile(new File(appDir, "target").getAbsolutePath(),
+                                new File(appDir, "sources").getAbsolutePath(), new File(appDir, "reports").getAbsolutePath());
+                        if (patch != null) {
+                            runCommand(getRunCommand("git", "apply", patch), appDir);
+                        }
+                        try {
+                            p.ok = runBuild(appDir, p.log, p.commands, env, c -> {
+                            });
+                        } finally {
+                            if (patch != null) {
+                                runCommand(getRunCommand("git", "apply", "-R", patch), appDir);
+                            }
+                        }
+                        p.buildTimeMs = System.currentTimeMillis() - start;
+                        return null;
+                    });
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, PREBUILDER);
+            return p;
+        });
+    }
+
+    /**
+     * Hands a finished prebuild over to the test: its log is appended to the test's log.
+     *
+     * A failed prebuild is dropped, its log is moved next to the test's log as prebuild-failed.log.
+     *
+     * @return build time in ms if the app was prebuilt successfully with the very same commands and env, -1 otherwise
+     */
+    public static long claim(Apps app, List<List<String>> commands, Map<String, String> env, File processLog) throws IOException {
+        final Prebuild p = PREBUILDS.get(app.dir);
+        if (p == null || p.app != app || p.claimed) {
+            return -1L;
+        }
+        await(p);
+        if (!p.ok) {
+            final Path failedLog = processLog.toPath().resolveSibling("prebuild-failed.log");
+            LOGGER.warn("Prebuild of " + app + " failed, building again. See " + failedLog);
+            Files.move(p.log.toPath(), failedLog, StandardCopyOption.REPLACE_EXISTING);
+            discard(p);
+            return -1L;
+        }
+        if (!p.commands.equals(commands) || !p.env.equals(env == null ? Map.of() : env)) {
+            LOGGER.warn("Prebuild of " + app + " used different build commands or env, building again.");
+            discard(p);
+            return -1L;
+        }
+        p.claimed = true;
+        Files.write(processLog.toPath(), Files.readAllBytes(p.log.toPath()), StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+        Files.deleteIfExists(p.log.toPath());
+        return p.buildTimeMs;
+    }
+
+    /**
+     * Called by {@link Commands#cleanTarget(Apps)}. A prebuild waiting for its test is kept, anything else built
+     * in the app's directory is waited for and dropped so that the directory can be wiped.
+     *
+     * @return true if the app's target must be kept
+     */
+    static boolean keepPrebuilt(Apps app) {
+        final Prebuild p = PREBUILDS.get(app.dir);
+        if (p == null) {
+            return false;
+        }
+        // Must not wipe a directory under a running build
+        await(p);
+        if (p.app == app && !p.claimed) {
+            return true;
+        }
+        PREBUILDS.remove(app.dir, p);
+        try {
+            Files.deleteIfExists(p.log.toPath());
+        } catch (IOException e) {
+            LOGGER.debug("Cannot delete " + p.log + ": " + e.getMessage());
+        }
+        return false;
+    }
+
+    /**
+     * Waits for all prebuilds, e.g. before measuring anything so that builds do not skew the numbers.
+     */
+    public static void awaitIdle() {
+        PREBUILDS.values().forEach(BuildScheduler::await);
+    }
+
+    /**
+     * Waits for and drops all prebuilds, wiping the ones no test claimed, e.g. because the test was disabled.
+     */
+    public static void discardAll() {
+        PREBUILDS.values().forEach(BuildScheduler::discard);
+    }
+
+    private static void discard(Prebuild p) {
+        await(p);
+        PREBUILDS.remove(p.app.dir, p);
+        final File appDir = Path.of(BASE_DIR, p.app.dir).toFile();
+        cleanDirOrFile(new File(appDir, "target").getAbsolutePath(),
+                new File(appDir, "sources").getAbsolutePath(), new File(appDir, "reports").getAbsolutePath());
+        try {
+            Files.deleteIfExists(p.log.toPath());
+        } catch (IOException e) {
+            LOGGER.debug("Cannot delete " + p.log + ": " + e.getMessage());
+        }
+    }
+
+    private static void await(Prebuild p) {
+        try {
+            p.done.join();
+        } catch (CompletionException e) {
+            LOGGER.error("Prebuild of " + p.app + " failed, see " + p.log, e.getCause());
+        }
+    }
+
+    private static long availableMemoryGb() {
+        final Path meminfo = Path.of("/proc/meminfo");
+        if (Files.isReadable(meminfo)) {
+            try {
+                for (String l : Files.readAllLines(meminfo, UTF_8)) {
+                    if (l.startsWith("MemAvailable:")) {
+                        return Long.parseLong(l.replaceAll("[^0-9]", "")) / 1024 / 1024;
+                    }
+                }
+            } catch (IOException | NumberFormatException e) {
+                LOGGER.debug("Cannot read " + meminfo + ": " + e.getMessage());
+            }
+        }
+        return ((OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean()).getFreeMemorySize() / 1024 / 1024 / 1024;
+    }
+}
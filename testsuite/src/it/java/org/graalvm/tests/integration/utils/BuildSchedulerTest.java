@@ -0,0 +1,75 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Build commands run in a slot and log the same way builderRoutine always did.
+ */
+@Tag("testing-testsuite")
+@DisabledOnOs({OS.WINDOWS})
+public class BuildSchedulerTest {
+
+    @Test
+    public void runBuildInSlot() throws IOException {
+        assertTrue(BuildScheduler.MAX_PARALLEL_BUILDS >= 1, "There is always at least one build slot");
+        final Path log = Files.createTempFile(BuildSchedulerTest.class.getSimpleName(), ".log");
+        final List<List<String>> reported = new ArrayList<>();
+        try {
+            final List<List<String>> commands = List.of(
+                    List.of("sh", "-c", "echo first ${BUILD_SCHEDULER_TEST}"),
+                    List.of("echo", "second"));
+            assertTrue(BuildScheduler.admit(() -> BuildScheduler.runBuild(new File("."), log.toFile(), commands,
+                    Map.of("BUILD_SCHEDULER_TEST", "env"), reported::add)));
+            assertEquals(commands, reported);
+            final List<String> lines = Files.readAllLines(log, UTF_8);
+            assertEquals(List.of(
+                    "sh -c echo first ${BUILD_SCHEDULER_TEST}",
+                    "Command: sh -c echo first ${BUILD_SCHEDULER_TEST}",
+                    "first env",
+                    "echo second",
+                    "Command: echo second",
+                    "second"), lines);
+            // A failed prebuild must not be handed over as a build
+            assertFalse(BuildScheduler.runBuild(new File("."), log.toFile(), List.of(List.of("false"), List.of("true")), null, c -> {
+            }), "One failed command fails the build");
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+}
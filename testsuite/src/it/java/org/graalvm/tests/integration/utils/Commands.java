@@ -22,14 +22,11 @@ package org.graalvm.tests.integration.utils;
 import com.sun.security.auth.module.UnixSystem;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.graalvm.home.Version;
 import org.graalvm.tests.integration.utils.versions.QuarkusVersion;
-import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.jboss.logging.Logger;
 
 import java.io.BufferedInputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -53,6 +50,7 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -91,6 +89,16 @@ public class Commands {
     public static final boolean DOCKER_GHA_BUILDX = Boolean.parseBoolean(getProperty("DOCKER_GHA_BUILDX", "false"));
     public static final String DOCKER_GHA_SUMMARY_NAME = getProperty("DOCKER_GHA_SUMMARY_NAME", null);
     public static final FailOnPerfRegressionEnum FAIL_ON_PERF_REGRESSION = FailOnPerfRegressionEnum.valueOf(getProperty("FAIL_ON_PERF_REGRESSION", "true").toUpperCase());
+    // How many times the built app is started to measure runtime metrics, thresholds are then checked against the median
+    public static final int PERF_TRIALS = Math.max(1, Integer.parseInt(getProperty("PERF_TRIALS", "1")));
+    // perf stat in run commands, see perfStat(String...). Events perf does not know on the host are reported as <not supported>.
+    public static final String PERF_STAT_EVENTS = getProperty("PERF_STAT_EVENTS", "duration_time,task-clock,context-switches," +
+            "cpu-migrations,page-faults,cycles,instructions,branches,branch-misses,cache-misses,LLC-load-misses," +
+            "stalled-cycles-frontend,stalled-cycles-backend");
+    // 0 for totals only
+    public static final int PERF_STAT_INTERVAL_MS = Integer.parseInt(getProperty("PERF_STAT_INTERVAL_MS", "100"));
+    // Not a comma, so that a decimal comma of whatever locale perf runs in does not split values
+    public static final String PERF_STAT_SEPARATOR = ";";
 
     public static final boolean IS_THIS_WINDOWS = System.getProperty("os.name").matches(".*[Ww]indows.*");
     public static final boolean IS_THIS_MACOS = System.getProperty("os.name").matches(".*[Mm]ac.*");
@@ -180,6 +188,11 @@ public class Commands {
         final String target = BASE_DIR + File.separator + app.dir + File.separator + "target";
         // Apps logging
         final String logs = BASE_DIR + File.separator + app.dir + File.separator + "logs";
+        // The app was prebuilt in the background and its test is about to use it
+        if (BuildScheduler.keepPrebuilt(app)) {
+            cleanDirOrFile(logs);
+            return;
+        }
         // Dir generated by debug symbols build
         final String sources = BASE_DIR + File.separator + app.dir + File.separator + "sources";
         // Diagnostic data
@@ -289,7 +302,7 @@ public class Commands {
         if (app != null && app.runtimeContainer == ContainerNames.NONE) {
             waitForExecutable(command, directory);
         }
-        final ProcessBuilder processBuilder = new ProcessBuilder(command);
+        final ProcessBuilder processBuilder = new ProcessBuilder(RunEnvironment.pinned(command, app));
         final Map<String, String> envA = processBuilder.environment();
         envA.put("PATH", System.getenv("PATH"));
         if (env != null) {
@@ -306,12 +319,15 @@ public class Commands {
         if (input != null) {
             processBuilder.redirectInput(input);
         }
+        final long logOffset = logFile != null ? logFile.length() : 0L;
         Process pA = null;
+        final long startNs = System.nanoTime();
         try {
             pA = processBuilder.start();
         } catch (IOException e) {
             e.printStackTrace();
         }
+        StartupProbe.spawned(pA, startNs, logFile, logOffset);
         return pA;
     }
 
@@ -483,8 +499,17 @@ public class Commands {
     $ docker stats --no-stream --format "table {{.MemUsage}}" my-quarkus-mandrel-app-container
     MEM USAGE / LIMIT
     13.43MiB / 11.28GiB
+
+    The container's cgroup is read directly when possible, it is the same number without the rounding.
      */
     public static long getContainerMemoryKb(String containerName) throws IOException, InterruptedException {
+        final Path cgroup = ContainerSampler.cgroupDir(containerName);
+        if (cgroup != null) {
+            final long usageKb = ContainerSampler.usageKb(cgroup);
+            if (usageKb != -1L) {
+                return usageKb;
+            }
+        }
         final List<String> cmd = getRunCommand(
                 CONTAINER_RUNTIME, "stats", "--no-stream", "--format", "table {{.MemUsage}}", containerName);
         LOGGER.infof("Command: %s", cmd);
@@ -511,9 +536,9 @@ public class Commands {
                     String unit = m.group(2);
                     // Yes, precision is just fine here.
                     if (unit.startsWith("M")) {
-                        return (long) value * 1024;
+                        return (long) (value * 1024);
                     } else if (unit.startsWith("G")) {
-                        return (long) value * 1024 * 1024;
+                        return (long) (value * 1024 * 1024);
                     } else if (unit.startsWith("k") || unit.startsWith("K")) {
                         return (long) value;
                     } else {
@@ -527,6 +552,10 @@ public class Commands {
     }
 
     public static long getRSSkB(long pid) throws IOException, InterruptedException {
+        if (ProcSampler.isSupported()) {
+            // Same value as ps rss, without forking a process
+            return ProcSampler.rssKb(pid);
+        }
         ProcessBuilder pa;
         if (IS_THIS_WINDOWS) {
             // Note that PeakWorkingSetSize might be better, but we would need to change it on Linux too...
@@ -558,6 +587,10 @@ public class Commands {
     }
 
     public static long getOpenedFDs(long pid) throws IOException, InterruptedException {
+        if (ProcSampler.isSupported()) {
+            // Counts file descriptors only, lsof also lists memory mapped files, cwd etc.
+            return ProcSampler.fds(pid);
+        }
         ProcessBuilder pa;
         long count = 0;
         if (IS_THIS_WINDOWS) {
@@ -639,6 +672,10 @@ public class Commands {
     }
 
     public static void disableTurbo() throws IOException {
+        if (RunEnvironment.isActive()) {
+            LOGGER.infof("Turbo is kept off by RunEnvironment");
+            return;
+        }
         if (IS_THIS_WINDOWS || IS_THIS_MACOS) {
             LOGGER.infof("Not implemented for Windows and Mac");
             return;
@@ -659,6 +696,10 @@ public class Commands {
     }
 
     public static void enableTurbo() throws IOException {
+        if (RunEnvironment.isActive()) {
+            LOGGER.infof("Turbo is kept off by RunEnvironment");
+            return;
+        }
         if (IS_THIS_WINDOWS || IS_THIS_MACOS) {
             LOGGER.infof("Not implemented for Windows and Mac");
         }
@@ -683,6 +724,7 @@ public class Commands {
         final List<String> command;
         final long timeoutMinutes;
         final Map<String, String> envProps;
+        private volatile int exitValue = -1;
 
         public ProcessRunner(File directory, File log, List<String> command, long timeoutMinutes) {
             this.directory = directory;
@@ -702,7 +744,8 @@ public class Commands {
 
         @Override
         public void run() {
-            final ProcessBuilder pb = new ProcessBuilder(command);
+            // Builds get all the CPUs even while the test suite is pinned
+            final ProcessBuilder pb = new ProcessBuilder(RunEnvironment.unpinned(command));
             final Map<String, String> env = pb.environment();
             env.put("PATH", System.getenv("PATH"));
             if (envProps != null) {
@@ -724,13 +767,22 @@ public class Commands {
                 e.printStackTrace();
             }
             try {
-                Objects.requireNonNull(p, "command " + command + " not found/invalid")
-                        .waitFor(timeoutMinutes, TimeUnit.MINUTES);
+                if (Objects.requireNonNull(p, "command " + command + " not found/invalid")
+                        .waitFor(timeoutMinutes, TimeUnit.MINUTES)) {
+                    exitValue = p.exitValue();
+                }
             } catch (InterruptedException e) {
                 e.printStackTrace();
                 Thread.currentThread().interrupt();
             }
         }
+
+        /**
+         * @return exit value of the finished command, -1 if it did not start or did not finish in time
+         */
+        public int exitValue() {
+            return exitValue;
+        }
     }
 
     private static void dumpAndLogProcessOutput(File logFile, Process pA, long timeoutMinutes) {
@@ -739,11 +791,12 @@ public class Commands {
         final ExecutorService dumpService = Executors.newSingleThreadExecutor();
         dumpService.submit(() -> {
             InputStream output = pA.getInputStream();
-            try (BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(output))) {
+            // The sink keeps the log open and writes in batches, builder output can be hundreds of thousands of lines.
+            try (LogSink sink = LogSink.open(logFile.toPath());
+                 BufferedReader bufferedReader = new BufferedReader(new InputStreamReader(output))) {
                 String line = bufferedReader.readLine();
                 while (line != null) {
-                    System.out.println(line);
-                    Files.writeString(logFile.toPath(), line + "\n", StandardOpenOption.APPEND);
+                    sink.append(line);
                     line = bufferedReader.readLine();
                 }
             } catch (IOException e) {
@@ -847,6 +900,34 @@ public class Commands {
         return false;
     }
 
+    /**
+     * perf stat prefix of a run command: machine-readable output, every PERF_STAT_INTERVAL_MS, of PERF_STAT_EVENTS.
+     *
+     * @param command perf stat options such as --delay followed by the measured command
+     */
+    public static String[] perfStat(String... command) {
+        final List<String> cmd = new ArrayList<>(List.of("perf", "stat", "-x", PERF_STAT_SEPARATOR, "-e", PERF_STAT_EVENTS));
+        if (PERF_STAT_INTERVAL_MS > 0) {
+            cmd.add("-I");
+            cmd.add(Integer.toString(PERF_STAT_INTERVAL_MS));
+        }
+        cmd.addAll(Arrays.asList(command));
+        return cmd.toArray(new String[0]);
+    }
+
+    /**
+     * @return the command perf stat measures, e.g. "./target/app-runner -XX:+PrintGC" of
+     * "perf stat -x ; -e cycles --delay 1000 ./target/app-runner -XX:+PrintGC"
+     */
+    public static String perfStatTarget(String[] command) {
+        final Set<String> withValue = Set.of("-x", "-e", "-I", "-D", "--delay", "-o", "-r");
+        int i = 2;
+        while (i < command.length && command[i].startsWith("-")) {
+            i += withValue.contains(command[i]) ? 2 : 1;
+        }
+        return String.join(" ", Arrays.asList(command).subList(Math.min(i, command.length), command.length)).trim();
+    }
+
     public static class PerfRecord {
         public String file;
         public double taskClock = -1;
@@ -858,134 +939,106 @@ public class Commands {
         public long branches = -1;
         public long branchMisses = -1;
         public double secondsTimeElapsed = -1;
-    }
-
-    public static PerfRecord parsePerfRecord(Path path, String statsFor) throws IOException {
-        /*
-        An alternative would be to read it all in a one scary chunk:
-        final Pattern p = Pattern.compile(".*Performance counter stats for '(?<file>" + filename + ")':\\s*$+" +
-                        "\\s*(?<taskclock>[0-9\\.,]*)\\s*msec\\s*task-clock.*$" +
-                        "\\s*(?<contextswitches>[0-9\\.,]*)\\s*context-switches.*$" +
-                        "\\s*(?<cpumigrations>[0-9\\.,]*)\\s*cpu-migrations.*$" +
-                        "\\s*(?<pagefaults>[0-9\\.,]*)\\s*page-faults.*$" +
-                        "\\s*(?<cycles>[0-9\\.,]*)\\s*cycles.*$" +
-                        "\\s*(?<instructions>[0-9\\.,]*)\\s*instructions.*$" +
-                        "\\s*(?<branches>[0-9\\.,]*)\\s*branches.*$" +
-                        "\\s*(?<branchmisses>[0-9\\.,]*)\\s*branch-misses.*$+" +
-                        "\\s*(?<secondstimeelapsed>[0-9\\.,]*)\\s*seconds time elapsed.*$"
-                , Pattern.DOTALL | Pattern.MULTILINE);
-       */
-        final Pattern begin = Pattern.compile(".*Performance counter stats for\\s+'\\Q" + statsFor + "\\E':.*");
-        final Pattern taskClock = Pattern.compile("\\s*([0-9\\.,]+)\\s*msec\\s*task-clock.*$");
-        final Pattern contextSwitches = Pattern.compile("\\s*([0-9\\.,]+)\\s*context-switches.*$");
-        final Pattern cpuMigrations = Pattern.compile("\\s*([0-9\\.,]+)\\s*cpu-migrations.*$");
-        final Pattern pageFaults = Pattern.compile("\\s*([0-9\\.,]+)\\s*page-faults.*$");
-        final Pattern cycles = Pattern.compile("\\s*([0-9\\.,]+)\\s*cycles.*$");
-        final Pattern instructions = Pattern.compile("\\s*([0-9\\.,]+)\\s*instructions.*$");
-        final Pattern branches = Pattern.compile("\\s*([0-9\\.,]+)\\s*branches.*$");
-        final Pattern branchMisses = Pattern.compile("\\s*([0-9\\.,]+)\\s*branch-misses.*$");
-        final Pattern secondsTimeElapsed = Pattern.compile("\\s*([0-9\\.,]+)\\s*seconds time elapsed.*$");
-        try (Scanner sc = new Scanner(path, UTF_8)) {
-            while (sc.hasNextLine()) {
-                if (begin.matcher(sc.nextLine()).matches()) {
-                    break;
-                }
-            }
-            final PerfRecord pr = new PerfRecord();
-            pr.file = statsFor;
-            while (sc.hasNextLine() && pr.secondsTimeElapsed == -1) {
-                final String line = sc.nextLine().replaceAll(",", "");
-                Matcher m = taskClock.matcher(line);
-                if (m.matches()) {
-                    pr.taskClock = Double.parseDouble(m.group(1));
-                    continue;
-                }
-                m = contextSwitches.matcher(line);
-                if (m.matches()) {
-                    pr.contextSwitches = Long.parseLong(m.group(1));
-                    continue;
-                }
-                m = cpuMigrations.matcher(line);
-                if (m.matches()) {
-                    pr.cpuMigrations = Long.parseLong(m.group(1));
-                    continue;
-                }
-                m = pageFaults.matcher(line);
-                if (m.matches()) {
-                    pr.pageFaults = Long.parseLong(m.group(1));
-                    continue;
+        // Totals of any events perf stat -x reported, summed over intervals and over PMUs of hybrid CPUs, e.g. cpu_core and cpu_atom
+        public final Map<String, Double> counters = new LinkedHashMap<>();
+        // Event -> {ms since perf started counting, value} per interval, perf stat -I only
+        public final Map<String, List<double[]>> series = new LinkedHashMap<>();
+
+        /**
+         * Adds the counters to a perf report, those beyond the fixed fields under camel case names, e.g. llcLoadMisses,
+         * and interval series as "ms:value" pairs separated by a space, e.g. cacheMissesSeries and ipcSeries.
+         */
+        public void toReport(Report report) {
+            report.put("taskClock", taskClock, "ms");
+            report.put("contextSwitches", contextSwitches);
+            report.put("cpuMigrations", cpuMigrations);
+            report.put("pageFaults", pageFaults);
+            report.put("cycles", cycles);
+            report.put("instructions", instructions);
+            report.put("branches", branches);
+            report.put("branchMisses", branchMisses);
+            report.put("secondsTimeElapsed", secondsTimeElapsed, "s");
+            final Set<String> fixed = Set.of("duration_time", "task-clock", "context-switches", "cpu-migrations", "page-faults",
+                    "cycles", "instructions", "branches", "branch-misses");
+            counters.forEach((event, v) -> {
+                if (!fixed.contains(event)) {
+                    report.put(camelCase(event), Math.round(v));
                 }
-                m = cycles.matcher(line);
-                if (m.matches()) {
-                    pr.cycles = Long.parseLong(m.group(1));
-                    continue;
-                }
-                m = instructions.matcher(line);
-                if (m.matches()) {
-                    pr.instructions = Long.parseLong(m.group(1));
-                    continue;
-                }
-                m = branches.matcher(line);
-                if (m.matches()) {
-                    pr.branches = Long.parseLong(m.group(1));
-                    continue;
+            });
+            series.forEach((event, s) -> {
+                if (!"duration_time".equals(event)) {
+                    report.put(camelCase(event) + "Series", series(s));
                 }
-                m = branchMisses.matcher(line);
-                if (m.matches()) {
-                    pr.branchMisses = Long.parseLong(m.group(1));
-                    continue;
+            });
+            final List<double[]> c = series.get("cycles");
+            final List<double[]> in = series.get("instructions");
+            if (c != null && in != null && c.size() == in.size()) {
+                final List<double[]> ipc = new ArrayList<>(c.size());
+                for (int i = 0; i < c.size(); i++) {
+                    ipc.add(new double[]{c.get(i)[0], c.get(i)[1] > 0 ? Math.round(in.get(i)[1] / c.get(i)[1] * 1000d) / 1000d : 0});
                 }
-                m = secondsTimeElapsed.matcher(line);
-                if (m.matches()) {
-                    pr.secondsTimeElapsed = Double.parseDouble(m.group(1));
+                report.put("ipcSeries", series(ipc));
+            }
+        }
+
+        private static String series(List<double[]> s) {
+            return s.stream().map(x -> Math.round(x[0]) + ":" + format(x[1])).collect(Collectors.joining(" "));
+        }
+
+        private static String format(double v) {
+            return v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v);
+        }
+
+        // e.g. LLC-load-misses to llcLoadMisses
+        static String camelCase(String event) {
+            final String[] parts = event.split("[-_.]");
+            final StringBuilder sb = new StringBuilder(parts[0].toLowerCase());
+            for (int i = 1; i < parts.length; i++) {
+                if (!parts[i].isEmpty()) {
+                    sb.append(Character.toUpperCase(parts[i].charAt(0))).append(parts[i].substring(1).toLowerCase());
                 }
             }
+            return sb.toString();
+        }
+    }
+
+    public static PerfRecord parsePerfRecord(Path path, String statsFor) throws IOException {
+        return parsePerfRecord(new LogScanner().perfStat(statsFor).scan(path), statsFor);
+    }
+
+    /**
+     * @param sections scan with {@link LogScanner#perfStat(String)} registered
+     */
+    public static PerfRecord parsePerfRecord(LogScanner.Sections sections, String statsFor) {
+        final PerfRecord pr = sections.first(LogScanner.PERF_STAT);
+        if (pr != null) {
             return pr;
         }
+        final PerfRecord empty = new PerfRecord();
+        empty.file = statsFor;
+        return empty;
     }
 
     public static class SerialGCLog {
         public double timeSpentInGCs = 0;
         public int incrementalGCevents = 0;
         public int fullGCevents = 0;
+        // Each pause, for the pause distribution and rates
+        public final GCLog gc = new GCLog();
+        // Events of each phase of the run, see Phases
+        public final Map<String, SerialGCLog> phases = new LinkedHashMap<>();
     }
 
-    public static SerialGCLog parseSerialGCLog(Path path, String statsFor, boolean isJVM) throws IOException {
-        // there is a new log format for GC cycles in native, starting Mandrel 23.1
-        boolean newLogFormat = UsedVersion.getVersion(false).compareTo(Version.create(23, 1, 0)) >= 0;
+    public static SerialGCLog parseSerialGCLog(Path path, String statsFor) throws IOException {
+        return parseSerialGCLog(new LogScanner().serialGC(statsFor).scan(path));
+    }
 
-        final Pattern begin = Pattern.compile(".*\\s+\\Q" + statsFor + "\\E$");
-        final Pattern incremental = isJVM ? Pattern.compile("\\[[^]]*]\\[info]\\[gc] GC\\([0-9]+\\) Pause Young \\(Allocation[^)]*\\)[^)]*\\)\\s+([0-9\\.]+)ms$") :
-                (newLogFormat ? Pattern.compile("\\[[^]]*]\\sGC\\([0-9]+\\)\\s(?:Pause\\s)?Incremental\\sGC\\s\\(Collect\\son\\sallocation\\)\\s[0-9\\.]+M->[0-9\\.]+M\\s([0-9\\.]+)ms$") :
-                        Pattern.compile("^\\[Incremental\\s+GC\\s+\\(CollectOnAllocation\\)[^,]*,\\s+([0-9\\.]+)\\s+secs\\]$"));
-        final Pattern full = isJVM ? Pattern.compile("\\[[^]]*]\\[info]\\[gc] GC\\([0-9]+\\) Pause Full \\(Allocation[^)]*\\)[^)]*\\)\\s+([0-9\\.]+)ms$") :
-                (newLogFormat ? Pattern.compile("\\[[^]]*]\\sGC\\([0-9]+\\)\\s(?:Pause\\s)?Full\\sGC\\s\\(Collect\\son\\sallocation\\)\\s[0-9\\.]+M->[0-9\\.]+M\\s([0-9\\.]+)ms$") :
-                        Pattern.compile("^\\[Full\\s+GC\\s+\\(CollectOnAllocation\\)[^,]*,\\s+([0-9\\.]+)\\s+secs\\]$"));
-        final Pattern end = Pattern.compile(".*quarkus.*stopped.*");
-        try (Scanner sc = new Scanner(path, UTF_8)) {
-            while (sc.hasNextLine()) {
-                final String l = sc.nextLine();
-                if (begin.matcher(l).matches()) {
-                    break;
-                }
-            }
-            final SerialGCLog l = new SerialGCLog();
-            String line;
-            while (sc.hasNextLine() && !end.matcher(line = sc.nextLine()).matches()) {
-                Matcher m = incremental.matcher(line);
-                if (m.matches()) {
-                    l.incrementalGCevents = l.incrementalGCevents + 1;
-                    l.timeSpentInGCs = l.timeSpentInGCs + (isJVM || newLogFormat ? Double.parseDouble(m.group(1)) / 1000.0 : Double.parseDouble(m.group(1)));
-                    continue;
-                }
-                m = full.matcher(line);
-                if (m.matches()) {
-                    l.fullGCevents = l.fullGCevents + 1;
-                    l.timeSpentInGCs = l.timeSpentInGCs + (isJVM || newLogFormat ? Double.parseDouble(m.group(1)) / 1000.0 : Double.parseDouble(m.group(1)));
-                }
-            }
-            return l;
-        }
+    /**
+     * @param sections scan with {@link LogScanner#serialGC(String)} registered
+     */
+    public static SerialGCLog parseSerialGCLog(LogScanner.Sections sections) {
+        final SerialGCLog l = sections.first(LogScanner.SERIAL_GC);
+        return l != null ? l : new SerialGCLog();
     }
 
     /**
@@ -1027,64 +1080,15 @@ public class Commands {
         }
     }
 
-    public static String mapToJSON(List<Map<String, String>> maps) {
-        final Pattern num = Pattern.compile("\\d+");
-        final StringBuilder sb = new StringBuilder();
-        sb.append("[");
-        maps.forEach(map -> {
-            sb.append("{");
-            map.forEach((k, v) -> {
-                sb.append("\"");
-                sb.append(k);
-                sb.append("\":");
-                if (num.matcher(v).matches()) {
-                    sb.append(v);
-                } else {
-                    sb.append("\"");
-                    sb.append(v);
-                    sb.append("\"");
-                }
-                sb.append(",");
-            });
-            sb.setLength(sb.length() - 1);
-            sb.append("}");
-            sb.append(",");
-        });
-        sb.setLength(sb.length() - 1);
-        sb.append("]");
-        return sb.toString();
-    }
-
     public static int waitForFileToMatch(Pattern lineMatchRegexp, Path path, int skipLines, long timeout, long sleep, TimeUnit unit) throws IOException {
-        long timeoutMillis = unit.toMillis(timeout);
-        long sleepMillis = unit.toMillis(sleep);
-        long startMillis = System.currentTimeMillis();
         LOGGER.infof("Waiting for file %s to have a line matching this regexp: %s", path, lineMatchRegexp);
-        // Reading the file again and again, could hurt on huge files...
-        while (System.currentTimeMillis() - startMillis < timeoutMillis) {
-            if (Files.exists(path)) {
-                try (final BufferedReader reader = new BufferedReader(
-                        new InputStreamReader(new ByteArrayInputStream(Files.readAllBytes(path)), StandardCharsets.UTF_8))) {
-                    String line;
-                    int c = 0;
-                    while ((line = reader.readLine()) != null) {
-                        c++;
-                        if (c > skipLines && lineMatchRegexp.matcher(line).matches()) {
-                            return c;
-                        }
-                    }
-                }
-            } else {
-                LOGGER.error("File " + path + " is missing");
-            }
-            try {
-                Thread.sleep(sleepMillis);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-                Thread.currentThread().interrupt();
-            }
-        }
-        return -1;
+        // The tailer reads only what was appended since the last call, see FileTailer.
+        return FileTailer.of(path).waitFor(lineMatchRegexp, skipLines, timeout, sleep, unit);
+    }
+
+    public static int[] waitForFileToMatchAll(Pattern[] lineMatchRegexps, Path path, int skipLines, long timeout, long sleep, TimeUnit unit) throws IOException {
+        LOGGER.infof("Waiting for file %s to have lines matching these regexps: %s", path, Arrays.toString(lineMatchRegexps));
+        return FileTailer.of(path).waitForAll(lineMatchRegexps, skipLines, timeout, sleep, unit);
     }
 
     public static boolean waitForBufferToMatch(StringBuilder report, StringBuffer stringBuffer, Pattern pattern, long timeout, long sleep, TimeUnit unit) {
@@ -1143,41 +1147,85 @@ public class Commands {
      *               "-Dcustom.final.name=quarkus-json_-ParseOnce"},
      * //@formatter:on
      */
-    public static void builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir,
-                                      File processLog, Map<String, String> env, Map<String, String> switchReplacements) throws IOException {
-        final String[][] buildCommands = app.buildAndRunCmds.buildCommands;
-        assertTrue(buildCommands.length > 0);
+    public static boolean builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir,
+                                         File processLog, Map<String, String> env, Map<String, String> switchReplacements) throws IOException {
+        return builderRoutine(app, report, cn, mn, appDir, processLog, env, switchReplacements, BuildCache.ENABLED);
+    }
+
+    /**
+     * @param useCache restore the build from {@link BuildCache} if there is one, false forces a cold build
+     * @return true if the build was restored from the cache
+     */
+    public static boolean builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir, File processLog,
+                                         Map<String, String> env, Map<String, String> switchReplacements, boolean useCache) throws IOException {
+        final List<List<String>> buildCommands = getBuildCommands(app, switchReplacements);
+        assertTrue(buildCommands.size() > 0);
         if (report != null) {
             Logs.appendln(report, "# " + cn + ", " + mn);
         }
-        for (int i = 0; i < buildCommands.length; i++) {
-            // We cannot run commands in parallel, we need them to follow one after another
-            final ExecutorService buildService = Executors.newFixedThreadPool(1);
-            final List<String> cmd;
-            // Replace possible placeholders with actual switches
-            if (switchReplacements != null && !switchReplacements.isEmpty()) {
-                cmd = replaceSwitchesInCmd(getRunCommand(buildCommands[i]), switchReplacements);
-            } else {
-                cmd = getRunCommand(buildCommands[i]);
+        final long prebuildTimeMs = BuildScheduler.claim(app, buildCommands, env, processLog);
+        if (prebuildTimeMs != -1L) {
+            if (report != null) {
+                Logs.appendln(report, "Prebuilt in the background in " + prebuildTimeMs + " ms");
+                Logs.appendln(report, appDir.getAbsolutePath());
+                for (List<String> cmd : buildCommands) {
+                    Logs.appendlnSection(report, String.join(" ", cmd));
+                }
             }
-            Files.writeString(processLog.toPath(), String.join(" ", cmd) + "\n", StandardOpenOption.APPEND, StandardOpenOption.CREATE);
-            buildService.submit(new Commands.ProcessRunner(appDir, processLog, cmd, 20, env)); // might take a long time....
+            assertTrue(processLog.exists());
+            return false;
+        }
+        final String cacheKey = useCache ? BuildCache.key(app, appDir, buildCommands, env) : null;
+        if (cacheKey != null && BuildCache.restore(cacheKey, appDir, processLog)) {
+            if (report != null) {
+                Logs.appendln(report, "Restored from build cache " + cacheKey);
+                Logs.appendln(report, appDir.getAbsolutePath());
+                for (List<String> cmd : buildCommands) {
+                    Logs.appendlnSection(report, String.join(" ", cmd));
+                }
+            }
+            assertTrue(processLog.exists());
+            return true;
+        }
+        final long logOffset = processLog.exists() ? processLog.length() : 0L;
+        // We cannot run commands in parallel, we need them to follow one after another,
+        // other apps might be building at the same time though.
+        final boolean ok = BuildScheduler.admit(() -> BuildScheduler.runBuild(appDir, processLog, buildCommands, env, cmd -> {
             if (report != null) {
                 Logs.appendln(report, (new Date()).toString());
                 Logs.appendln(report, appDir.getAbsolutePath());
                 Logs.appendlnSection(report, String.join(" ", cmd));
             }
-            shutdownAndAwaitTermination(buildService, 20, TimeUnit.MINUTES); // Native image build might take a long time....
+        }));
+        if (cacheKey != null && ok) {
+            BuildCache.store(cacheKey, appDir, processLog, logOffset);
         }
         assertTrue(processLog.exists());
+        return false;
+    }
+
+    /**
+     * @return app's build commands with possible placeholders replaced with actual switches
+     */
+    public static List<List<String>> getBuildCommands(Apps app, Map<String, String> switchReplacements) {
+        final String[][] buildCommands = app.buildAndRunCmds.buildCommands;
+        final List<List<String>> cmds = new ArrayList<>(buildCommands.length);
+        for (String[] buildCommand : buildCommands) {
+            if (switchReplacements != null && !switchReplacements.isEmpty()) {
+                cmds.add(replaceSwitchesInCmd(getRunCommand(buildCommand), switchReplacements));
+            } else {
+                cmds.add(getRunCommand(buildCommand));
+            }
+        }
+        return cmds;
     }
 
-    public static void builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir, File processLog) throws IOException {
-        builderRoutine(app, report, cn, mn, appDir, processLog, null, null);
+    public static boolean builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir, File processLog) throws IOException {
+        return builderRoutine(app, report, cn, mn, appDir, processLog, null, null);
     }
 
-    public static void builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir, File processLog, Map<String, String> env) throws IOException {
-        builderRoutine(app, report, cn, mn, appDir, processLog, env, null);
+    public static boolean builderRoutine(Apps app, StringBuilder report, String cn, String mn, File appDir, File processLog, Map<String, String> env) throws IOException {
+        return builderRoutine(app, report, cn, mn, appDir, processLog, env, null);
     }
 
     public static List<String> replaceSwitchesInCmd(final List<String> cmd, final Map<String, String> switchReplacements) {
@@ -0,0 +1,366 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Commands.getRunCommand;
+import static org.graalvm.tests.integration.utils.Commands.runCommand;
+
+/**
+ * Samples memory and CPU of a running container straight from its cgroup v2 files,
+ * i.e. without calling podman/docker stats which takes a second or two per call and
+ * returns rounded, human formatted values.
+ *
+ * The cgroup is resolved once: container name -> inspect -> pid -> /proc/pid/cgroup -> /sys/fs/cgroup/...
+ * Samples are taken every CONTAINER_SAMPLER_INTERVAL_MS on a background daemon thread until {@link #close()}
+ * or until the cgroup is gone. memory.peak and cpu.stat cover the whole life of the container,
+ * so the sampler can be started after the app is up without losing its startup.
+ *
+ * e.g.
+ * <pre>
+ * final ContainerSampler sampler = ContainerSampler.start(app.runtimeContainer.name);
+ * if (sampler != null) {
+ *     ...load the app...
+ *     sampler.close();
+ *     sampler.toReport(report);
+ * }
+ * </pre>
+ */
+public class ContainerSampler implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ContainerSampler.class.getName());
+    public static final long INTERVAL_MS = Long.parseLong(getProperty("CONTAINER_SAMPLER_INTERVAL_MS", "100"));
+    private static final Path PROC = Path.of("/proc");
+    private static final Path CGROUP_ROOT = Path.of("/sys/fs/cgroup");
+    private static final Map<String, Path> RESOLVED = new ConcurrentHashMap<>();
+
+    public static class Sample {
+        public final long timestampMs;
+        // memory.current, includes page cache
+        public final long currentKb;
+        // memory.current - inactive_file, i.e. what podman/docker stats report as usage
+        public final long usageKb;
+        // memory.peak, -1 on kernels < 5.19
+        public final long peakKb;
+        public final long anonKb;
+        public final long fileKb;
+        public final long cpuUsageUsec;
+        public final long cpuUserUsec;
+        public final long cpuSystemUsec;
+        public final long nrThrottled;
+        public final long throttledUsec;
+
+        public Sample(long timestampMs, long currentKb, long usageKb, long peakKb, long anonKb, long fileKb,
+                      long cpuUsageUsec, long cpuUserUsec, long cpuSystemUsec, long nrThrottled, long throttledUsec) {
+            this.timestampMs = timestampMs;
+            this.currentKb = currentKb;
+            this.usageKb = usageKb;
+            this.peakKb = peakKb;
+            this.anonKb = anonKb;
+            this.fileKb = fileKb;
+            this.cpuUsageUsec = cpuUsageUsec;
+            this.cpuUserUsec = cpuUserUsec;
+            this.cpuSystemUsec = cpuSystemUsec;
+            this.nrThrottled = nrThrottled;
+            this.throttledUsec = throttledUsec;
+        }
+    }
+
+    private final String containerName;
+    private final Path cgroup;
+    private final long startMs;
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+    private final ScheduledExecutorService executor;
+
+    private ContainerSampler(String containerName, Path cgroup, long intervalMs) {
+        this.containerName = containerName;
+        this.cgroup = cgroup;
+        this.startMs = System.currentTimeMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "container-sampler-" + containerName);
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleAtFixedRate(this::takeSample, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @return running sampler or null if the container's cgroup cannot be read, e.g. cgroup v1 host
+     * or a podman machine on macOS; callers are expected to fall back to {@link Commands#getContainerMemoryKb(String)}.
+     */
+    public static ContainerSampler start(String containerName, long intervalMs) {
+        final Path cgroup = cgroupDir(containerName);
+        if (cgroup == null) {
+            LOGGER.warn("Cannot read cgroup of container " + containerName + ", not sampling it.");
+            return null;
+        }
+        return new ContainerSampler(containerName, cgroup, intervalMs);
+    }
+
+    public static ContainerSampler start(String containerName) {
+        return start(containerName, INTERVAL_MS);
+    }
+
+    /**
+     * Resolves the cgroup v2 directory of a running container. The result is remembered
+     * for as long as the directory exists, a new container of the same name gets a new cgroup.
+     *
+     * @return directory with memory.current and cpu.stat or null if it cannot be resolved
+     */
+    public static Path cgroupDir(String containerName) {
+        final Path known = RESOLVED.get(containerName);
+        if (known != null && Files.isReadable(known.resolve("memory.current"))) {
+            return known;
+        }
+        final long pid = containerPid(containerName);
+        if (pid <= 0) {
+            return null;
+        }
+        try {
+            final Path dir = cgroupDir(Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("cgroup"), UTF_8), CGROUP_ROOT);
+            if (dir != null) {
+                RESOLVED.put(containerName, dir);
+            }
+            return dir;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read /proc/" + pid + "/cgroup: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * @param procCgroup lines of /proc/pid/cgroup
+     * @param root       cgroup v2 mount point
+     * @return cgroup directory or null if the process is not in a readable cgroup v2 hierarchy
+     */
+    static Path cgroupDir(List<String> procCgroup, Path root) {
+        for (String l : procCgroup) {
+            // cgroup v2 has just the one unified hierarchy, e.g. "0::/machine.slice/libpod-6f1c...scope"
+            if (l.startsWith("0::")) {
+                final Path dir = root.resolve(l.substring(3).replaceFirst("^/+", ""));
+                return Files.isReadable(dir.resolve("memory.current")) ? dir : null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return host pid of the container's main process or -1 if the container is not running
+     */
+    public static long containerPid(String containerName) {
+        final List<String> cmd = getRunCommand(CONTAINER_RUNTIME, "inspect", "--format", "{{.State.Pid}}", containerName);
+        LOGGER.infof("Command: %s", cmd);
+        try {
+            final String out = runCommand(cmd).trim();
+            return out.matches("[0-9]+") ? Long.parseLong(out) : -1L;
+        } catch (IOException e) {
+            LOGGER.error("Failed to inspect container " + containerName, e);
+            return -1L;
+        }
+    }
+
+    /**
+     * One sample right now.
+     *
+     * @return sample or null if the cgroup does not exist
+     */
+    public static Sample sample(Path cgroup) throws IOException {
+        final long current;
+        final Map<String, Long> memoryStat;
+        final Map<String, Long> cpuStat;
+        try {
+            current = Long.parseLong(Files.readString(cgroup.resolve("memory.current"), UTF_8).trim());
+            memoryStat = keyValues(cgroup.resolve("memory.stat"));
+            cpuStat = keyValues(cgroup.resolve("cpu.stat"));
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        final long inactiveFile = memoryStat.getOrDefault("inactive_file", 0L);
+        return new Sample(System.currentTimeMillis(),
+                current / 1024,
+                (current - Math.min(inactiveFile, current)) / 1024,
+                peak(cgroup),
+                memoryStat.getOrDefault("anon", -1024L) / 1024,
+                memoryStat.getOrDefault("file", -1024L) / 1024,
+                cpuStat.getOrDefault("usage_usec", -1L),
+                cpuStat.getOrDefault("user_usec", -1L),
+                cpuStat.getOrDefault("system_usec", -1L),
+                cpuStat.getOrDefault("nr_throttled", -1L),
+                cpuStat.getOrDefault("throttled_usec", -1L));
+    }
+
+    /**
+     * @return memory usage in kB as podman/docker stats report it or -1 if the cgroup does not exist
+     */
+    public static long usageKb(Path cgroup) throws IOException {
+        final Sample s = sample(cgroup);
+        return s == null ? -1L : s.usageKb;
+    }
+
+    private static long peak(Path cgroup) throws IOException {
+        final Path p = cgroup.resolve("memory.peak");
+        if (!Files.isReadable(p)) {
+            return -1L;
+        }
+        return Long.parseLong(Files.readString(p, UTF_8).trim()) / 1024;
+    }
+
+    // e.g. memory.stat and cpu.stat, "anon 12345678" per line
+    private static Map<String, Long> keyValues(Path file) throws IOException {
+        final Map<String, Long> m = new HashMap<>();
+        for (String l : Files.readAllLines(file, UTF_8)) {
+            final int space = l.indexOf(' ');
+            if (space > 0) {
+                m.put(l.substring(0, space), Long.parseLong(l.substring(space + 1).trim()));
+            }
+        }
+        return m;
+    }
+
+    private void takeSample() {
+        try {
+            final Sample s = sample(cgroup);
+            if (s == null) {
+                LOGGER.debug("Cgroup of container " + containerName + " is gone, stopping sampling.");
+                executor.shutdown();
+                return;
+            }
+            samples.add(s);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to sample " + cgroup, e);
+        }
+    }
+
+    public List<Sample> samples() {
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+
+    public long peakUsageKb() {
+        return peak(s -> s.usageKb);
+    }
+
+    /**
+     * @return memory.peak if the kernel provides it, otherwise the highest sampled memory.current
+     */
+    public long peakMemoryKb() {
+        final long kernelPeak = peak(s -> s.peakKb);
+        return kernelPeak != -1L ? kernelPeak : peak(s -> s.currentKb);
+    }
+
+    public long peakAnonKb() {
+        return peak(s -> s.anonKb);
+    }
+
+    /**
+     * @return CPU time consumed by the container since it started, in ms, or -1 if nothing was sampled
+     */
+    public long cpuUserMs() {
+        return last(s -> s.cpuUserUsec / 1000);
+    }
+
+    public long cpuSystemMs() {
+        return last(s -> s.cpuSystemUsec / 1000);
+    }
+
+    public long throttledMs() {
+        return last(s -> s.throttledUsec < 0 ? -1L : s.throttledUsec / 1000);
+    }
+
+    private long peak(ToLongFunction<Sample> f) {
+        return samples().stream().mapToLong(f).max().orElse(-1L);
+    }
+
+    private long last(ToLongFunction<Sample> f) {
+        final List<Sample> s = samples();
+        return s.isEmpty() ? -1L : f.applyAsLong(s.get(s.size() - 1));
+    }
+
+    /**
+     * Adds peaks, CPU times and the time series, "msFromStart:value" pairs separated by a space, to a perf report.
+     */
+    public void toReport(Report report) {
+        final List<Sample> s = samples();
+        report.put("containerPeakUsageKb", peakUsageKb(), "kB");
+        report.put("containerPeakMemoryKb", peakMemoryKb(), "kB");
+        report.put("containerPeakAnonKb", peakAnonKb(), "kB");
+        report.put("containerCpuUserMs", cpuUserMs(), "ms");
+        report.put("containerCpuSystemMs", cpuSystemMs(), "ms");
+        report.put("containerThrottledMs", throttledMs(), "ms");
+        report.put("containerUsageKbSeries", series(s, x -> x.usageKb));
+        report.put("containerCpuUsageMsSeries", series(s, x -> x.cpuUsageUsec / 1000));
+    }
+
+    private String series(List<Sample> s, ToLongFunction<Sample> f) {
+        return s.stream().map(x -> (x.timestampMs - startMs) + ":" + f.applyAsLong(x)).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Appends the samples to a CSV file, e.g. next to measurements.csv in archived logs.
+     */
+    public void writeCSV(String label, Path path) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        if (Files.notExists(path)) {
+            sb.append("label,container,msFromStart,usageKb,currentKb,anonKb,fileKb,cpuUsageUsec,cpuUserUsec,cpuSystemUsec,nrThrottled\n");
+        }
+        for (Sample s : samples()) {
+            sb.append(label).append(',').append(containerName).append(',').append(s.timestampMs - startMs).append(',')
+                    .append(s.usageKb).append(',').append(s.currentKb).append(',').append(s.anonKb).append(',').append(s.fileKb).append(',')
+                    .append(s.cpuUsageUsec).append(',').append(s.cpuUserUsec).append(',').append(s.cpuSystemUsec).append(',')
+                    .append(s.nrThrottled).append('\n');
+        }
+        Files.writeString(path, sb, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Stops sampling, collected samples remain available.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
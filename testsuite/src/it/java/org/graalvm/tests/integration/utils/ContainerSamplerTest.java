@@ -0,0 +1,88 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testing test suite...
+ * Reading a container's cgroup v2 files, a fake cgroup tree is used so no container runtime is needed.
+ */
+@Tag("testing-testsuite")
+public class ContainerSamplerTest {
+
+    @Test
+    public void cgroupFiles() throws IOException {
+        final Path root = Files.createTempDirectory(ContainerSamplerTest.class.getSimpleName());
+        final Path dir = root.resolve("machine.slice").resolve("libpod-6f1c.scope");
+        try {
+            Files.createDirectories(dir);
+            Files.writeString(dir.resolve("memory.current"), "18939904\n", UTF_8);
+            Files.writeString(dir.resolve("memory.peak"), "25165824\n", UTF_8);
+            Files.writeString(dir.resolve("memory.stat"), String.join("\n",
+                    "anon 14680064",
+                    "file 4194304",
+                    "inactive_file 1048576",
+                    ""), UTF_8);
+            Files.writeString(dir.resolve("cpu.stat"), String.join("\n",
+                    "usage_usec 152000",
+                    "user_usec 120000",
+                    "system_usec 32000",
+                    "nr_periods 0",
+                    "nr_throttled 0",
+                    "throttled_usec 0",
+                    ""), UTF_8);
+
+            assertEquals(dir, ContainerSampler.cgroupDir(List.of("0::/machine.slice/libpod-6f1c.scope"), root));
+            assertNull(ContainerSampler.cgroupDir(List.of("4:memory:/machine.slice/libpod-6f1c.scope"), root),
+                    "cgroup v1 is not supported");
+            assertNull(ContainerSampler.cgroupDir(List.of("0::/gone.scope"), root));
+
+            final ContainerSampler.Sample s = ContainerSampler.sample(dir);
+            assertEquals(18496, s.currentKb);
+            // What podman/docker stats report, i.e. without inactive page cache
+            assertEquals(18496 - 1024, s.usageKb);
+            assertEquals(24576, s.peakKb);
+            assertEquals(14336, s.anonKb);
+            assertEquals(120000, s.cpuUserUsec);
+            assertEquals(32000, s.cpuSystemUsec);
+            assertEquals(0, s.nrThrottled);
+            assertEquals(18496 - 1024, ContainerSampler.usageKb(dir));
+            assertNull(ContainerSampler.sample(root.resolve("gone.scope")), "Removed container has no sample");
+        } finally {
+            for (String f : new String[]{"memory.current", "memory.peak", "memory.stat", "cpu.stat"}) {
+                Files.deleteIfExists(dir.resolve(f));
+            }
+            Files.deleteIfExists(dir);
+            Files.deleteIfExists(dir.getParent());
+            Files.deleteIfExists(root);
+        }
+    }
+}
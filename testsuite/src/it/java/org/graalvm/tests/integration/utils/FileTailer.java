@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Incremental reader of a growing text file, e.g. build-and-run.log.
+ *
+ * Remembers the byte offset and the number of complete lines read so far, so that each
+ * wait only reads the bytes appended since the previous one. Waiting threads are woken
+ * up by {@link WatchService} events on the parent directory; the sleep passed in is
+ * just a fallback poll interval for file systems without native notifications.
+ *
+ * A sparse index of line start offsets is kept so that waiting from an already seen
+ * line (skipLines) seeks close to it instead of re-reading the file from the start.
+ *
+ * Several patterns can be awaited at once, see {@link #waitForAll(Pattern[], int, long, long, TimeUnit)},
+ * and several threads can wait on the same tailer; whoever reads new bytes dispatches
+ * them to all registered waiters.
+ *
+ * Tailers are kept per file for the whole run, they hold just offsets. The WatchService, i.e. an inotify fd
+ * and a poller thread, lives only while somebody waits and is closed when the last waiter is done.
+ */
+public class FileTailer implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(FileTailer.class.getName());
+    private static final Map<Path, FileTailer> TAILERS = new ConcurrentHashMap<>();
+    // Remember the byte offset of every n-th line start
+    private static final int CHECKPOINT_EVERY_LINES = 1024;
+    private static final int READ_BUFFER_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final TreeMap<Integer, Long> checkpoints = new TreeMap<>();
+    private final List<Waiter> waiters = new ArrayList<>();
+    private final ByteArrayOutputStream partialLine = new ByteArrayOutputStream();
+    private final ByteBuffer buffer = ByteBuffer.allocate(READ_BUFFER_BYTES);
+    private WatchService watchService;
+    private WatchKey watchKey;
+    private Object fileKey;
+    private long offset = 0;
+    private int lines = 0;
+    private boolean missingReported = false;
+
+    private static final class Waiter {
+        final Pattern pattern;
+        final int skipLines;
+        int matchedLine = -1;
+
+        Waiter(Pattern pattern, int skipLines) {
+            this.pattern = pattern;
+            this.skipLines = skipLines;
+        }
+    }
+
+    private FileTailer(Path path) {
+        this.path = path;
+        checkpoints.put(0, 0L);
+    }
+
+    /**
+     * @param path file to tail
+     * @return the tailer for the file, shared by all callers
+     */
+    public static FileTailer of(Path path) {
+        return TAILERS.computeIfAbsent(path.toAbsolutePath().normalize(), FileTailer::new);
+    }
+
+    /**
+     * Same contract as the former full re-read implementation of Commands#waitForFileToMatch.
+     *
+     * @param lineMatchRegexp pattern the whole line must match
+     * @param skipLines       lines up to and including this 1-based line number are ignored
+     * @return 1-based number of the first matching line after skipLines or -1 on timeout
+     */
+    public int waitFor(Pattern lineMatchRegexp, int skipLines, long timeout, long sleep, TimeUnit unit) throws IOException {
+        return waitForAll(new Pattern[]{lineMatchRegexp}, skipLines, timeout, sleep, unit)[0];
+    }
+
+    /**
+     * Waits until all the patterns matched a line after skipLines. All patterns are checked
+     * against each line in a single read of the file.
+     *
+     * @return 1-based line numbers, one per pattern, -1 for those that did not match before timeout
+     */
+    public int[] waitForAll(Pattern[] patterns, int skipLines, long timeout, long sleep, TimeUnit unit) throws IOException {
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        final Waiter[] mine = new Waiter[patterns.length];
+        synchronized (this) {
+            for (int i = 0; i < patterns.length; i++) {
+                mine[i] = new Waiter(Objects.requireNonNull(patterns[i]), skipLines);
+            }
+            // Catches up first, so that a replaced file is not scanned with the old offsets.
+            readNewBytes();
+            // Lines already read before this call are scanned from the nearest checkpoint.
+            if (skipLines < lines && Files.exists(path)) {
+                scanBacklog(mine, skipLines);
+            }
+            // The unterminated last line went to the waiters of the time it was read, the app may print nothing more.
+            if (!allMatched(mine) && partialLine.size() > 0) {
+                dispatch(mine, decode(partialLine), lines + 1);
+            }
+            waiters.addAll(Arrays.asList(mine));
+        }
+        try {
+            while (true) {
+                synchronized (this) {
+                    readNewBytes();
+                    if (allMatched(mine)) {
+                        break;
+                    }
+                }
+                final long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    break;
+                }
+                awaitChange(Math.min(remainingNanos, unit.toNanos(sleep)));
+            }
+        } finally {
+            synchronized (this) {
+                waiters.removeAll(Arrays.asList(mine));
+                if (waiters.isEmpty()) {
+                    closeWatchService();
+                }
+            }
+        }
+        final int[] result = new int[mine.length];
+        for (int i = 0; i < mine.length; i++) {
+            result[i] = mine[i].matchedLine;
+        }
+        return result;
+    }
+
+    private static boolean allMatched(Waiter[] ws) {
+        for (Waiter w : ws) {
+            if (w.matchedLine == -1) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void scanBacklog(Waiter[] ws, int skipLines) throws IOException {
+        final Map.Entry<Integer, Long> start = checkpoints.floorEntry(skipLines);
+        int lineNo = start.getKey();
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ch.position(start.getValue());
+            final ByteBuffer b = ByteBuffer.allocate(READ_BUFFER_BYTES);
+            long position = start.getValue();
+            // Only complete lines known to the tailer are scanned here, the rest is left to readNewBytes.
+            while (lineNo < lines && position < offset && ch.read(b) > 0) {
+                b.flip();
+                while (b.hasRemaining() && lineNo < lines) {
+                    final byte c = b.get();
+                    position++;
+                    if (c == '\n') {
+                        lineNo++;
+                        if (lineNo > skipLines) {
+                            dispatch(ws, decode(line), lineNo);
+                            if (allMatched(ws)) {
+                                return;
+                            }
+                        }
+                        line.reset();
+                    } else {
+                        line.write(c);
+                    }
+                }
+                b.clear();
+            }
+        }
+    }
+
+    private void readNewBytes() throws IOException {
+        if (!Files.exists(path)) {
+            if (!missingReported) {
+                LOGGER.error("File " + path + " is missing");
+                missingReported = true;
+            }
+            return;
+        }
+        missingReported = false;
+        final BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        if (attrs.size() < offset || (fileKey != null && !fileKey.equals(attrs.fileKey()))) {
+            // The file was truncated or replaced, e.g. by cleanTarget between tests.
+            reset();
+        }
+        fileKey = attrs.fileKey();
+        if (attrs.size() == offset) {
+            return;
+        }
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            ch.position(offset);
+            buffer.clear();
+            while (ch.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    final byte c = buffer.get();
+                    offset++;
+                    if (c == '\n') {
+                        lines++;
+                        if (lines % CHECKPOINT_EVERY_LINES == 0) {
+                            checkpoints.put(lines, offset);
+                        }
+                        if (!waiters.isEmpty()) {
+                            dispatch(waiters, decode(partialLine), lines);
+                        }
+                        partialLine.reset();
+                    } else {
+                        partialLine.write(c);
+                    }
+                }
+                buffer.clear();
+            }
+        }
+        // The last line need not be terminated yet, it is still worth matching.
+        if (partialLine.size() > 0 && !waiters.isEmpty()) {
+            dispatch(waiters, decode(partialLine), lines + 1);
+        }
+    }
+
+    private static void dispatch(Iterable<Waiter> ws, String line, int lineNo) {
+        for (Waiter w : ws) {
+            if (w.matchedLine == -1 && lineNo > w.skipLines && w.pattern.matcher(line).matches()) {
+                w.matchedLine = lineNo;
+            }
+        }
+    }
+
+    private static void dispatch(Waiter[] ws, String line, int lineNo) {
+        dispatch(Arrays.asList(ws), line, lineNo);
+    }
+
+    private static String decode(ByteArrayOutputStream line) {
+        final String s = line.toString(UTF_8);
+        return s.endsWith("\r") ? s.substring(0, s.length() - 1) : s;
+    }
+
+    private void reset() {
+        offset = 0;
+        lines = 0;
+        checkpoints.clear();
+        checkpoints.put(0, 0L);
+        partialLine.reset();
+    }
+
+    private void awaitChange(long nanos) {
+        try {
+            final WatchService ws = watchService();
+            if (ws == null) {
+                TimeUnit.NANOSECONDS.sleep(nanos);
+                return;
+            }
+            final WatchKey key = ws.poll(nanos, TimeUnit.NANOSECONDS);
+            if (key != null) {
+                key.pollEvents();
+                key.reset();
+            }
+        } catch (InterruptedException e) {
+            e.printStackTrace();
+            Thread.currentThread().interrupt();
+        } catch (ClosedWatchServiceException e) {
+            // Closed by another thread, the caller loop re-checks the deadline.
+        }
+    }
+
+    private synchronized WatchService watchService() {
+        try {
+            if (watchService == null) {
+                watchService = FileSystems.getDefault().newWatchService();
+            }
+            if (watchKey == null || !watchKey.isValid()) {
+                final Path dir = path.getParent();
+                if (dir == null || !Files.isDirectory(dir)) {
+                    return null;
+                }
+                watchKey = dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            }
+            return watchService;
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.debug("Falling back to polling " + path + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    synchronized boolean watching() {
+        return watchService != null;
+    }
+
+    private void closeWatchService() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+            watchKey = null;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        TAILERS.remove(path, this);
+        closeWatchService();
+    }
+}
@@ -0,0 +1,87 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Testing test suite...
+ * Incremental tailing of a growing log file.
+ */
+@Tag("testing-testsuite")
+public class FileTailerTest {
+
+    @Test
+    public void waitForGrowingFile() throws IOException, InterruptedException {
+        final Path log = Files.createTempFile(FileTailerTest.class.getSimpleName(), ".log");
+        try (FileTailer tailer = FileTailer.of(log)) {
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 1; i <= 5000; i++) {
+                sb.append("line ").append(i).append('\n');
+            }
+            Files.writeString(log, sb, UTF_8);
+            assertEquals(4000, tailer.waitFor(Pattern.compile("line 4000"), 0, 1, 10, TimeUnit.MILLISECONDS));
+            // Already read lines are scanned again from the nearest checkpoint.
+            assertEquals(3000, tailer.waitFor(Pattern.compile("line 3000"), 2500, 1, 10, TimeUnit.MILLISECONDS));
+            assertEquals(-1, tailer.waitFor(Pattern.compile("line 3000"), 3000, 50, 10, TimeUnit.MILLISECONDS));
+
+            final Thread writer = new Thread(() -> {
+                try {
+                    Thread.sleep(100);
+                    Files.writeString(log, "Events enabled\n", UTF_8, StandardOpenOption.APPEND);
+                    Thread.sleep(100);
+                    Files.writeString(log, "Performance counter stats for 'app':", UTF_8, StandardOpenOption.APPEND);
+                } catch (IOException | InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            writer.start();
+            final int[] lines = tailer.waitForAll(new Pattern[]{
+                    Pattern.compile(".*Performance counter stats for.*"),
+                    Pattern.compile(".*Events enabled.*")}, 5000, 10, 1, TimeUnit.SECONDS);
+            writer.join();
+            assertArrayEquals(new int[]{5002, 5001}, lines, "Unterminated last line is expected to match too.");
+            assertFalse(tailer.watching(), "No fd or poller thread is to be kept between waits.");
+            // The unterminated line was read by the previous wait, nothing more is coming.
+            assertEquals(5002, tailer.waitFor(Pattern.compile(".*Performance counter stats for.*"), 5000, 1, 10, TimeUnit.SECONDS),
+                    "Unterminated last line read before the wait is expected to match too.");
+
+            // Replaced file starts over.
+            Files.delete(log);
+            Files.writeString(log, "fresh\n", UTF_8);
+            assertEquals(1, tailer.waitFor(Pattern.compile("fresh"), 0, 1, 10, TimeUnit.MILLISECONDS));
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Pauses of a GC log and what they tell: pause distribution, allocation and promotion rate and GC overhead.
+ *
+ * Reads the JVM's unified logging, -Xlog:gc, of Serial, Parallel, G1 and Epsilon, also of native G1 where available,
+ * and native Serial GC logs, -XX:+PrintGC, both the old format and the one since Mandrel 23.1.
+ * Native epsilon logs nothing, such a run has no pauses and unknown rates.
+ *
+ * -Xlog:gc and -XX:+PrintGC tell just the total heap occupancy, so the rates are estimates: allocated is the heap
+ * growth between the end of one pause and the start of the next, promoted is the growth of the occupancy left
+ * after young pauses, i.e. survivors count as promoted too. Old native logs have no timestamps, rates are -1 then.
+ */
+public class GCLog {
+    private static final String SIZE = "([0-9.]+)([BKMG])";
+    // e.g. [3.314s][info][gc] GC(0) Pause Young (Allocation Failure) 132M->16M(479M) 56.720ms
+    // [1.2s][info][gc] GC(7) Pause Young (Normal) (G1 Evacuation Pause) 24M->4M(256M) 3.123ms
+    private static final Pattern JVM = Pattern.compile("\\[([^]]*)]\\[info]\\s*\\[gc\\s*] GC\\([0-9]+\\) Pause (Young|Full|Remark|Cleanup)(.*) " +
+            SIZE + "->" + SIZE + "\\(" + SIZE + "\\) ([0-9.]+)ms");
+    // e.g. [2.151s] GC(2) Incremental GC (Collect on allocation) 86.00M->49.50M 32.289ms
+    private static final Pattern NATIVE = Pattern.compile("\\[([^]]*)]\\sGC\\([0-9]+\\)\\s(?:Pause\\s)?(Incremental|Full)\\sGC\\s\\(([^)]*)\\)\\s" +
+            SIZE + "->" + SIZE + "\\s([0-9.]+)ms");
+    // e.g. [Incremental GC (CollectOnAllocation) 262144K->84992K, 0.2600996 secs]
+    private static final Pattern NATIVE_OLD = Pattern.compile("\\[(Incremental|Full)\\s+GC\\s+\\(([^)]*)\\)\\s+" +
+            SIZE + "->" + SIZE + ",\\s+([0-9.]+)\\s+secs]");
+    // e.g. [5.1s][info][gc] Heap: 64M reserved, 64M (100.00%) committed, 12M (19.34%) used
+    private static final Pattern EPSILON_HEAP = Pattern.compile("\\[([^]]*)]\\[info]\\s*\\[gc\\s*] Heap: .* committed, " +
+            SIZE + " \\([0-9.]+%\\) used");
+    private static final Pattern COLLECTOR = Pattern.compile("\\[[^]]*]\\[info]\\s*\\[gc\\s*] Using (.*)");
+    private static final Pattern UPTIME = Pattern.compile("([0-9.]+)s");
+
+    public enum Kind {
+        // Native incremental collections and G1 mixed ones are young too
+        YOUNG,
+        FULL,
+        // G1 Remark and Cleanup
+        OTHER
+    }
+
+    public static class Pause {
+        // Since the start of the process, -1 if the log has no timestamps
+        public final double timestampMs;
+        public final Kind kind;
+        public final String cause;
+        public final double heapBeforeKb;
+        public final double heapAfterKb;
+        // -1 if not logged
+        public final double heapCapacityKb;
+        public final double pauseMs;
+
+        public Pause(double timestampMs, Kind kind, String cause, double heapBeforeKb, double heapAfterKb, double heapCapacityKb, double pauseMs) {
+            this.timestampMs = timestampMs;
+            this.kind = kind;
+            this.cause = cause;
+            this.heapBeforeKb = heapBeforeKb;
+            this.heapAfterKb = heapAfterKb;
+            this.heapCapacityKb = heapCapacityKb;
+            this.pauseMs = pauseMs;
+        }
+    }
+
+    public final List<Pause> pauses = new ArrayList<>();
+    // e.g. Serial or G1, null if not logged, i.e. native
+    public String collector;
+    // Last heap summary of Epsilon, the only way to tell how much it allocated
+    private double epsilonUsedKb = -1;
+    private double epsilonMs = -1;
+
+    /**
+     * Parses a line of a GC log, pauses are added to {@link #pauses}.
+     *
+     * @return the pause or null if the line is not a pause
+     */
+    public Pause accept(String line) {
+        Matcher m = JVM.matcher(line);
+        if (m.matches()) {
+            final Kind kind = "Young".equals(m.group(2)) ? Kind.YOUNG : "Full".equals(m.group(2)) ? Kind.FULL : Kind.OTHER;
+            return add(new Pause(uptimeMs(m.group(1)), kind, m.group(3).trim(),
+                    kb(m.group(4), m.group(5)), kb(m.group(6), m.group(7)), kb(m.group(8), m.group(9)), Double.parseDouble(m.group(10))));
+        }
+        m = NATIVE.matcher(line);
+        if (m.matches()) {
+            return add(new Pause(uptimeMs(m.group(1)), "Full".equals(m.group(2)) ? Kind.FULL : Kind.YOUNG, m.group(3),
+                    kb(m.group(4), m.group(5)), kb(m.group(6), m.group(7)), -1, Double.parseDouble(m.group(8))));
+        }
+        m = NATIVE_OLD.matcher(line);
+        if (m.matches()) {
+            return add(new Pause(-1, "Full".equals(m.group(1)) ? Kind.FULL : Kind.YOUNG, m.group(2),
+                    kb(m.group(3), m.group(4)), kb(m.group(5), m.group(6)), -1, Double.parseDouble(m.group(7)) * 1000d));
+        }
+        m = EPSILON_HEAP.matcher(line);
+        if (m.matches()) {
+            epsilonMs = uptimeMs(m.group(1));
+            epsilonUsedKb = kb(m.group(2), m.group(3));
+            return null;
+        }
+        m = COLLECTOR.matcher(line);
+        if (m.matches()) {
+            collector = m.group(1).trim();
+        }
+        return null;
+    }
+
+    public Pause add(Pause p) {
+        pauses.add(p);
+        return p;
+    }
+
+    public double totalPauseMs() {
+        return pauses.stream().mapToDouble(p -> p.pauseMs).sum();
+    }
+
+    /**
+     * @return pause at the percentile, nearest rank, 0 if there was no pause
+     */
+    public double pauseMs(double percentile) {
+        final double[] sorted = pauses.stream().mapToDouble(p -> p.pauseMs).sorted().toArray();
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    /**
+     * @return MB allocated per second until the last pause, or until the last heap summary of Epsilon, -1 if unknown
+     */
+    public double allocationRateMBs() {
+        if (pauses.isEmpty()) {
+            return epsilonMs > 0 ? epsilonUsedKb / 1024d / (epsilonMs / 1000d) : -1;
+        }
+        final double windowMs = windowMs();
+        if (windowMs <= 0) {
+            return -1;
+        }
+        double allocatedKb = 0;
+        double occupancyKb = 0;
+        for (Pause p : pauses) {
+            allocatedKb += Math.max(0, p.heapBeforeKb - occupancyKb);
+            occupancyKb = p.heapAfterKb;
+        }
+        return allocatedKb / 1024d / (windowMs / 1000d);
+    }
+
+    /**
+     * @return MB surviving young pauses per second until the last pause, -1 if unknown
+     */
+    public double promotionRateMBs() {
+        final double windowMs = windowMs();
+        if (windowMs <= 0) {
+            return -1;
+        }
+        double promotedKb = 0;
+        double occupancyKb = 0;
+        for (Pause p : pauses) {
+            if (p.kind == Kind.YOUNG) {
+                promotedKb += Math.max(0, p.heapAfterKb - occupancyKb);
+            }
+            occupancyKb = p.heapAfterKb;
+        }
+        return promotedKb / 1024d / (windowMs / 1000d);
+    }
+
+    /**
+     * @param elapsedMs how long the app ran, if not known, the time of the last pause is used
+     * @return percentage of the time the app was paused, -1 if unknown
+     */
+    public double overheadPct(double elapsedMs) {
+        final double windowMs = elapsedMs > 0 ? elapsedMs : windowMs();
+        if (windowMs <= 0) {
+            return pauses.isEmpty() ? 0 : -1;
+        }
+        return 100d * totalPauseMs() / windowMs;
+    }
+
+    /**
+     * Adds gcPauses, gcPauseP50Ms, gcPauseP99Ms, gcPauseMaxMs, gcAllocationRateMBs, gcPromotionRateMBs
+     * and gcOverheadPct to a perf report.
+     *
+     * @param elapsedMs as for {@link #overheadPct(double)}
+     */
+    public void toReport(Report report, double elapsedMs) {
+        report.put("gcPauses", pauses.size());
+        report.put("gcPauseP50Ms", round(pauseMs(50)), "ms");
+        report.put("gcPauseP99Ms", round(pauseMs(99)), "ms");
+        report.put("gcPauseMaxMs", round(pauseMs(100)), "ms");
+        report.put("gcAllocationRateMBs", round(allocationRateMBs()), "MB/s");
+        report.put("gcPromotionRateMBs", round(promotionRateMBs()), "MB/s");
+        report.put("gcOverheadPct", round(overheadPct(elapsedMs)), "%");
+    }
+
+    private double windowMs() {
+        if (pauses.isEmpty() || pauses.stream().anyMatch(p -> p.timestampMs < 0)) {
+            return -1;
+        }
+        return pauses.get(pauses.size() - 1).timestampMs;
+    }
+
+    private static double uptimeMs(String decoration) {
+        final Matcher m = UPTIME.matcher(decoration);
+        return m.matches() ? Double.parseDouble(m.group(1)) * 1000d : -1;
+    }
+
+    private static double kb(String value, String unit) {
+        final double v = Double.parseDouble(value);
+        switch (unit) {
+            case "B":
+                return v / 1024d;
+            case "M":
+                return v * 1024d;
+            case "G":
+                return v * 1024d * 1024d;
+            default:
+                return v;
+        }
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000d) / 1000d;
+    }
+}
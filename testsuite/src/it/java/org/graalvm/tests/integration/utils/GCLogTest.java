@@ -0,0 +1,122 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testing test suite...
+ * GC pauses of JVM and native collectors and the pause distribution and rates derived from them.
+ */
+@Tag("testing-testsuite")
+public class GCLogTest {
+
+    @Test
+    public void g1() throws IOException {
+        final String statsFor = "java -Xlog:gc -XX:+UseG1GC -jar target/app-runner.jar";
+        final Path log = Files.createTempFile("gc-log-test", ".log");
+        try {
+            Files.write(log, List.of(
+                    "Command: " + statsFor,
+                    "[0.100s][info][gc] Using G1",
+                    "[1.000s][info][gc] GC(0) Pause Young (Normal) (G1 Evacuation Pause) 24M->4M(256M) 2.000ms",
+                    "[2.000s][info][gc] GC(1) Pause Young (Concurrent Start) (G1 Humongous Allocation) 30M->10M(256M) 4.000ms",
+                    "[2.010s][info][gc] GC(2) Concurrent Mark Cycle",
+                    "[2.050s][info][gc] GC(2) Pause Remark 12M->12M(256M) 1.000ms",
+                    "[2.060s][info][gc] GC(2) Concurrent Mark Cycle 50.000ms",
+                    "[3.000s][info][gc] GC(3) Pause Young (Mixed) (G1 Evacuation Pause) 40M->8M(256M) 3.000ms",
+                    "[4.000s][info][gc] GC(4) Pause Full (System.gc()) 20M->6M(256M) 10.000ms",
+                    "2024-01-01 10:00:00,000 INFO  [io.quarkus] (Shutdown thread) app stopped in 0.010s"), UTF_8);
+            final Commands.SerialGCLog l = Commands.parseSerialGCLog(log, statsFor);
+            assertEquals(3, l.incrementalGCevents);
+            assertEquals(1, l.fullGCevents);
+            assertEquals(0.020, l.timeSpentInGCs, 1e-9);
+            final GCLog gc = l.gc;
+            assertEquals("G1", gc.collector);
+            assertEquals(5, gc.pauses.size());
+            assertEquals(GCLog.Kind.OTHER, gc.pauses.get(2).kind);
+            assertEquals("(Normal) (G1 Evacuation Pause)", gc.pauses.get(0).cause);
+            assertEquals(256 * 1024d, gc.pauses.get(0).heapCapacityKb, 1e-9);
+            assertEquals(3.0, gc.pauseMs(50), 1e-9);
+            assertEquals(10.0, gc.pauseMs(99), 1e-9);
+            assertEquals(10.0, gc.pauseMs(100), 1e-9);
+            // 24 + (30 - 4) + (12 - 10) + (40 - 12) + (20 - 8) MB in 4 s
+            assertEquals(23.0, gc.allocationRateMBs(), 1e-9);
+            // Occupancy after young pauses grew by 4 and 6 MB
+            assertEquals(2.5, gc.promotionRateMBs(), 1e-9);
+            assertEquals(0.4, gc.overheadPct(5000), 1e-9);
+            assertEquals(0.5, gc.overheadPct(-1), 1e-9);
+
+            final Report report = new Report();
+            gc.toReport(report, 5000);
+            assertEquals(5L, report.getLong("gcPauses"));
+            assertEquals(10.0, report.getDouble("gcPauseP99Ms"), 1e-9);
+            assertEquals("MB/s", report.unit("gcAllocationRateMBs"));
+        } finally {
+            Files.delete(log);
+        }
+    }
+
+    @Test
+    public void parallelEpsilonAndNative() {
+        final GCLog parallel = new GCLog();
+        parallel.accept("[0.500s][info][gc] GC(0) Pause Young (Allocation Failure) 64M->8M(245M) 5.100ms");
+        parallel.accept("[1.000s][info][gc] GC(1) Pause Full (Ergonomics) 100M->50M(245M) 20.500ms");
+        assertEquals(GCLog.Kind.YOUNG, parallel.pauses.get(0).kind);
+        assertEquals(GCLog.Kind.FULL, parallel.pauses.get(1).kind);
+        assertEquals(25.6, parallel.totalPauseMs(), 1e-9);
+        // 64 + (100 - 8) MB in 1 s
+        assertEquals(156.0, parallel.allocationRateMBs(), 1e-9);
+
+        final GCLog epsilon = new GCLog();
+        epsilon.accept("[0.002s][info][gc] Using Epsilon");
+        assertNull(epsilon.accept("[5.000s][info][gc] Heap: 64M reserved, 64M (100.00%) committed, 50M (78.13%) used"));
+        assertEquals("Epsilon", epsilon.collector);
+        assertEquals(0, epsilon.pauses.size());
+        assertEquals(10.0, epsilon.allocationRateMBs(), 1e-9);
+        assertEquals(-1, epsilon.promotionRateMBs(), 1e-9);
+        assertEquals(0, epsilon.overheadPct(-1), 1e-9);
+        assertEquals(0, epsilon.pauseMs(99), 1e-9);
+
+        final GCLog nativeNew = new GCLog();
+        nativeNew.accept("[2.151s] GC(2) Incremental GC (Collect on allocation) 86.00M->49.50M 32.289ms");
+        assertEquals(2151.0, nativeNew.pauses.get(0).timestampMs, 1e-9);
+        assertEquals(49.5 * 1024, nativeNew.pauses.get(0).heapAfterKb, 1e-9);
+        assertEquals(-1, nativeNew.pauses.get(0).heapCapacityKb, 1e-9);
+
+        // No timestamps, no rates
+        final GCLog nativeOld = new GCLog();
+        nativeOld.accept("[Incremental GC (CollectOnAllocation) 262144K->84992K, 0.2600996 secs]");
+        assertEquals(260.0996, nativeOld.pauseMs(100), 1e-9);
+        assertEquals(-1, nativeOld.allocationRateMBs(), 1e-9);
+        assertEquals(-1, nativeOld.overheadPct(-1), 1e-9);
+        assertEquals(26.00996, nativeOld.overheadPct(1000), 1e-9);
+    }
+}
@@ -0,0 +1,391 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.graalvm.tests.integration.utils.versions.UsedVersion;
+import org.jboss.logging.Logger;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.ARCH;
+import static org.graalvm.tests.integration.utils.Commands.QUARKUS_VERSION;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Uploader.PERF_APP_RUNNER_INFO_ID;
+
+/**
+ * Local, append-only history of measurements that outlives target/, so that thresholds can be checked
+ * against a rolling baseline of previous runs on the same host without the collector behind PERF_APP_ENDPOINT.
+ *
+ * Every series is keyed by app, mode, Mandrel, Quarkus and JDK version and runner fingerprint and lives in
+ * PERF_HISTORY_DIR/runner/app/mode/mandrel/quarkus/jdk/. Each metric is a column file of its own made of
+ * fixed size records, {epoch ms, value} as two big endian longs, so the last n values of a metric are read
+ * by mapping just the tail of one file. Fractional values, e.g. from build output JSON, are kept in thousandths
+ * under the metric's name with a .milli suffix.
+ *
+ * Enabled with PERF_HISTORY=true. Recording never fails a test, it only logs a warning.
+ */
+public class History {
+    private static final Logger LOGGER = Logger.getLogger(History.class.getName());
+    public static final boolean ENABLED = Boolean.parseBoolean(getProperty("PERF_HISTORY", "false"));
+    public static final Path DIR = Path.of(getProperty("PERF_HISTORY_DIR",
+            Path.of(System.getProperty("user.home"), ".mandrel-it-history").toString()));
+    public static final int BASELINE_RUNS = Integer.parseInt(getProperty("PERF_HISTORY_BASELINE_RUNS", "20"));
+    public static final String RUNNER = runnerFingerprint();
+    static final String COLUMN_SUFFIX = ".col";
+    static final int RECORD_BYTES = 2 * Long.BYTES;
+    static final String MILLI_SUFFIX = ".milli";
+
+    /**
+     * Identifies a series. In a query, null matches anything.
+     */
+    public static class Key {
+        public final String app;
+        public final String mode;
+        public final String mandrelVersion;
+        public final String quarkusVersion;
+        public final String jdkVersion;
+        public final String runner;
+
+        public Key(String app, String mode, String mandrelVersion, String quarkusVersion, String jdkVersion, String runner) {
+            this.app = app;
+            this.mode = mode;
+            this.mandrelVersion = mandrelVersion;
+            this.quarkusVersion = quarkusVersion;
+            this.jdkVersion = jdkVersion;
+            this.runner = runner;
+        }
+
+        List<String> segments() {
+            return Arrays.asList(runner, app, mode, mandrelVersion, quarkusVersion, jdkVersion);
+        }
+
+        @Override
+        public String toString() {
+            return segments().stream().map(s -> s == null ? "*" : s).collect(Collectors.joining("/"));
+        }
+    }
+
+    /**
+     * @return key of a run of the app on this host with the versions in use
+     */
+    public static Key current(String app, String mode, boolean inContainer) {
+        String mandrel = "unknown";
+        String jdk = "unknown";
+        try {
+            mandrel = UsedVersion.getVersion(inContainer).toString();
+            jdk = UsedVersion.jdkFeature(inContainer) + "." + UsedVersion.jdkInterim(inContainer) + "." + UsedVersion.jdkUpdate(inContainer);
+        } catch (RuntimeException | LinkageError e) {
+            LOGGER.debug("Cannot tell Mandrel version for history: " + e.getMessage());
+        }
+        return new Key(app, mode, mandrel, quarkusVersion(), jdk, RUNNER);
+    }
+
+    /**
+     * @return query for the last runs of the app in the mode on this host, whatever the versions
+     */
+    public static Key onThisHost(String app, String mode) {
+        return new Key(app, mode, null, null, null, RUNNER);
+    }
+
+    /**
+     * Records a {@link LogBuilder.Log} line, its App column is the app, mode is "none".
+     */
+    public static void record(LogBuilder.Log log) {
+        if (!ENABLED) {
+            return;
+        }
+        final String[] header = log.headerCSV.split(",");
+        final String[] line = log.lineCSV.split(",");
+        String app = "unknown";
+        final Map<String, String> values = new LinkedHashMap<>();
+        for (int i = 0; i < header.length && i < line.length; i++) {
+            if ("App".equals(header[i])) {
+                app = line[i];
+            } else {
+                values.put(header[i], line[i]);
+            }
+        }
+        record(current(app, "none", inContainer(app)), values);
+    }
+
+    /**
+     * Records numbers of a PerfCheckTest report, versions are taken from the report itself.
+     */
+    public static void record(String app, String mode, Report report) {
+        if (!ENABLED) {
+            return;
+        }
+        final Map<String, String> values = new LinkedHashMap<>();
+        for (String name : report.names()) {
+            if (report.get(name) instanceof Number) {
+                values.put(name, report.get(name).toString());
+            }
+        }
+        record(new Key(app, mode, metadata(report, "mandrelVersion"), metadata(report, "quarkusVersion"),
+                metadata(report, "jdkVersion"), RUNNER), values);
+    }
+
+    private static String metadata(Report report, String name) {
+        return report.get(name) instanceof String ? (String) report.get(name) : "unknown";
+    }
+
+    /**
+     * Records numeric leaves of a build output JSON, e.g. resource_usage.memory.peak_rss_bytes.
+     */
+    public static void recordBuildOutput(Key key, Path json) {
+        if (!ENABLED) {
+            return;
+        }
+        try {
+            final Map<String, String> values = new LinkedHashMap<>();
+            flatten("", new JSONObject(Files.readString(json)), values);
+            record(key, values);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.warn("Cannot record " + json + " in history: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return values of the metric recorded last, at most n, oldest first, empty if history is disabled
+     */
+    public static long[] last(Key query, String metric, int n) {
+        if (!ENABLED) {
+            return new long[0];
+        }
+        try {
+            return last(DIR, query, metric, n);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot read " + metric + " of " + query + " from history: " + e.getMessage());
+            return new long[0];
+        }
+    }
+
+    /**
+     * @return the last PERF_HISTORY_BASELINE_RUNS values of the metric for the app in the mode on this host
+     */
+    public static long[] baseline(String app, String mode, String metric) {
+        return last(onThisHost(app, mode), metric, BASELINE_RUNS);
+    }
+
+    private static void record(Key key, Map<String, String> values) {
+        final Map<String, Long> metrics = new LinkedHashMap<>();
+        values.forEach((k, v) -> {
+            try {
+                metrics.put(k, Long.parseLong(v.trim()));
+            } catch (NumberFormatException e) {
+                try {
+                    metrics.put(k + MILLI_SUFFIX, Math.round(Double.parseDouble(v.trim()) * 1000d));
+                } catch (NumberFormatException ignored) {
+                    // Not a measurement, e.g. os or file
+                }
+            }
+        });
+        // -1 stands for not measured all over the test suite
+        metrics.values().removeIf(v -> v == -1L);
+        try {
+            append(DIR, key, System.currentTimeMillis(), metrics);
+        } catch (IOException e) {
+            LOGGER.warn("Cannot record " + key + " in history: " + e.getMessage());
+        }
+    }
+
+    static void append(Path root, Key key, long epochMs, Map<String, Long> metrics) throws IOException {
+        final Path series = Files.createDirectories(dir(root, key));
+        final ByteBuffer record = ByteBuffer.allocate(RECORD_BYTES);
+        for (Map.Entry<String, Long> m : metrics.entrySet()) {
+            record.clear();
+            record.putLong(epochMs).putLong(m.getValue()).flip();
+            final Path column = series.resolve(sanitize(m.getKey()) + COLUMN_SUFFIX);
+            // Test JVMs on the same host might append at once
+            try (FileChannel ch = FileChannel.open(column, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+                 FileLock lock = ch.lock()) {
+                // A JVM killed in the middle of an append leaves a torn record, everything after it would be misread
+                final long size = lock.channel().size();
+                if (size % RECORD_BYTES != 0) {
+                    LOGGER.warn("Dropping " + size % RECORD_BYTES + " bytes of a torn record at the end of " + column);
+                    ch.truncate(size - size % RECORD_BYTES);
+                }
+                while (record.hasRemaining()) {
+                    ch.write(record);
+                }
+            }
+        }
+    }
+
+    static long[] last(Path root, Key query, String metric, int n) throws IOException {
+        final List<Path> columns = new ArrayList<>();
+        find(root, query.segments(), 0, sanitize(metric) + COLUMN_SUFFIX, columns);
+        final List<long[]> records = new ArrayList<>();
+        for (Path column : columns) {
+            try (FileChannel ch = FileChannel.open(column, StandardOpenOption.READ)) {
+                final long count = ch.size() / RECORD_BYTES;
+                final long from = Math.max(0, count - n);
+                if (count == from) {
+                    continue;
+                }
+                final MappedByteBuffer tail = ch.map(FileChannel.MapMode.READ_ONLY, from * RECORD_BYTES, (count - from) * RECORD_BYTES);
+                while (tail.hasRemaining()) {
+                    records.add(new long[]{tail.getLong(), tail.getLong()});
+                }
+            }
+        }
+        // Several series match a query with wildcards, merge them by time
+        records.sort(Comparator.comparingLong(r -> r[0]));
+        return records.subList(Math.max(0, records.size() - n), records.size()).stream().mapToLong(r -> r[1]).toArray();
+    }
+
+    private static void find(Path dir, List<String> segments, int depth, String column, List<Path> found) throws IOException {
+        if (depth == segments.size()) {
+            final Path c = dir.resolve(column);
+            if (Files.isRegularFile(c)) {
+                found.add(c);
+            }
+            return;
+        }
+        final String segment = segments.get(depth);
+        if (segment != null) {
+            final Path next = dir.resolve(sanitize(segment));
+            if (Files.isDirectory(next)) {
+                find(next, segments, depth + 1, column, found);
+            }
+            return;
+        }
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, Files::isDirectory)) {
+            for (Path next : ds) {
+                find(next, segments, depth + 1, column, found);
+            }
+        }
+    }
+
+    static Path dir(Path root, Key key) {
+        Path p = root;
+        for (String s : key.segments()) {
+            if (s == null) {
+                throw new IllegalArgumentException("Cannot record under a key with wildcards: " + key);
+            }
+            p = p.resolve(sanitize(s));
+        }
+        return p;
+    }
+
+    static String sanitize(String s) {
+        final String r = s.replaceAll("[^A-Za-z0-9._+-]", "_");
+        return r.isEmpty() || r.startsWith(".") ? "_" + r : r;
+    }
+
+    static void flatten(String prefix, Object o, Map<String, String> values) {
+        if (o instanceof JSONObject) {
+            final JSONObject j = (JSONObject) o;
+            for (String k : j.keySet()) {
+                flatten(prefix.isEmpty() ? k : prefix + "." + k, j.get(k), values);
+            }
+        } else if (o instanceof JSONArray) {
+            final JSONArray a = (JSONArray) o;
+            for (int i = 0; i < a.length(); i++) {
+                flatten(prefix + "." + i, a.get(i), values);
+            }
+        } else if (o instanceof Number) {
+            values.put(prefix, o.toString());
+        }
+    }
+
+    private static boolean inContainer(String app) {
+        // LogBuilder apps are Apps names, possibly with a suffix such as _NATIVE
+        for (Apps a : Apps.values()) {
+            if (app.equals(a.name()) || app.startsWith(a.name() + "_")) {
+                return a.runtimeContainer != ContainerNames.NONE;
+            }
+        }
+        return false;
+    }
+
+    private static String quarkusVersion() {
+        return QUARKUS_VERSION.isSnapshot() ?
+                QUARKUS_VERSION.getGitSHA() + '.' + QUARKUS_VERSION.getVersionString() : QUARKUS_VERSION.getVersionString();
+    }
+
+    /**
+     * PERF_APP_RUNNER_INFO_ID if set, a hash of what makes this host this host otherwise.
+     */
+    private static String runnerFingerprint() {
+        if (PERF_APP_RUNNER_INFO_ID != null && !PERF_APP_RUNNER_INFO_ID.isBlank()) {
+            return PERF_APP_RUNNER_INFO_ID;
+        }
+        final List<String> identity = new ArrayList<>();
+        try {
+            identity.add(InetAddress.getLocalHost().getHostName());
+        } catch (IOException e) {
+            identity.add(System.getenv().getOrDefault("HOSTNAME", "localhost"));
+        }
+        identity.add(System.getProperty("os.name"));
+        identity.add(ARCH);
+        identity.add(Integer.toString(Runtime.getRuntime().availableProcessors()));
+        identity.add(Long.toString(((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getTotalMemorySize() / 1024 / 1024 / 1024));
+        final Path cpuinfo = Path.of("/proc/cpuinfo");
+        if (Files.isReadable(cpuinfo)) {
+            try (Stream<String> lines = Files.lines(cpuinfo, UTF_8)) {
+                lines.filter(l -> l.startsWith("model name")).findFirst().ifPresent(identity::add);
+            } catch (IOException | UncheckedIOException e) {
+                LOGGER.debug("Cannot read " + cpuinfo + ": " + e.getMessage());
+            }
+        }
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        identity.forEach(i -> md.update((i + "\n").getBytes(UTF_8)));
+        final StringBuilder sb = new StringBuilder(12);
+        final byte[] d = md.digest();
+        for (int i = 0; i < 6; i++) {
+            sb.append(String.format("%02x", d[i]));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,96 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testing test suite...
+ * History keeps a column per metric and series, queries with wildcards merge series by time.
+ */
+@Tag("testing-testsuite")
+public class HistoryTest {
+
+    @Test
+    public void appendAndQuery() throws IOException {
+        final Path root = Files.createTempDirectory(HistoryTest.class.getSimpleName());
+        try {
+            final History.Key m25 = new History.Key("QUARKUS_JSON_PERF", "native", "25.0.1.0-Final", "3.27.0", "25.0.1", "host-a");
+            final History.Key m24 = new History.Key("QUARKUS_JSON_PERF", "native", "24.2.2.0-Final", "3.27.0", "23.0.2", "host-a");
+            final History.Key jvm = new History.Key("QUARKUS_JSON_PERF", "jvm", "25.0.1.0-Final", "3.27.0", "25.0.1", "host-a");
+            final History.Key other = new History.Key("QUARKUS_JSON_PERF", "native", "25.0.1.0-Final", "3.27.0", "25.0.1", "host-b");
+            for (int i = 0; i < 30; i++) {
+                History.append(root, i % 2 == 0 ? m25 : m24, 1000L + i, Map.of("rssKb", 100L + i, "timeToFirstOKRequestMs", 10L + i));
+                History.append(root, jvm, 1000L + i, Map.of("rssKb", 5000L + i));
+                History.append(root, other, 1000L + i, Map.of("rssKb", 9000L + i));
+            }
+            final History.Key anyVersionOnA = new History.Key("QUARKUS_JSON_PERF", "native", null, null, null, "host-a");
+            assertArrayEquals(new long[]{125, 126, 127, 128, 129}, History.last(root, anyVersionOnA, "rssKb", 5),
+                    "Series of both Mandrel versions must be merged by time");
+            assertArrayEquals(new long[]{124, 126, 128}, History.last(root, m25, "rssKb", 3));
+            assertEquals(30, History.last(root, anyVersionOnA, "timeToFirstOKRequestMs", 100).length);
+            assertEquals(0, History.last(root, anyVersionOnA, "peakRSSKb", 20).length);
+            assertEquals(0, History.last(root, new History.Key("QUARKUS_JSON_PERF", "native", null, null, null, "host-c"), "rssKb", 20).length);
+            assertThrows(IllegalArgumentException.class, () -> History.append(root, anyVersionOnA, 1L, Map.of("rssKb", 1L)));
+        } finally {
+            Commands.cleanDirOrFile(root.toString());
+        }
+    }
+
+    @Test
+    public void tornRecord() throws IOException {
+        final Path root = Files.createTempDirectory(HistoryTest.class.getSimpleName());
+        try {
+            final History.Key key = new History.Key("QUARKUS_JSON_PERF", "native", "25.0.1.0-Final", "3.27.0", "25.0.1", "host-a");
+            History.append(root, key, 1000L, Map.of("rssKb", 100L));
+            // Half a record from a JVM that died while appending
+            Files.write(History.dir(root, key).resolve("rssKb" + History.COLUMN_SUFFIX), new byte[]{1, 2, 3}, StandardOpenOption.APPEND);
+            History.append(root, key, 1001L, Map.of("rssKb", 101L));
+            assertArrayEquals(new long[]{100, 101}, History.last(root, key, "rssKb", 5));
+        } finally {
+            Commands.cleanDirOrFile(root.toString());
+        }
+    }
+
+    @Test
+    public void flattenBuildOutput() {
+        final Map<String, String> values = new LinkedHashMap<>();
+        History.flatten("image_details.total_bytes", 42L, values);
+        History.flatten("resource_usage.total_secs", 12.5d, values);
+        History.flatten("general_info.name", "quarkus-json", values);
+        assertEquals(Map.of("image_details.total_bytes", "42", "resource_usage.total_secs", "12.5"), values);
+        assertEquals("25.0.1.0-Final", History.sanitize("25.0.1.0-Final"));
+        assertEquals("abc123.999-SNAPSHOT", History.sanitize("abc123.999-SNAPSHOT"));
+        assertEquals("_..", History.sanitize(".."));
+        assertEquals("a_b", History.sanitize("a/b"));
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Throughput of user defined JFR events committed by the jfr-native-image-performance app's /hello/emit endpoints,
+ * native vs. JVM, from platform and virtual threads: events per second, per commit latency, slow commits, i.e. those
+ * over ten times the median where thread buffers get flushed and threads contend for global buffers, and dropped events,
+ * i.e. committed events missing in the recording.
+ *
+ * JFR_EVENTS_THREADS (default 4) threads commit JFR_EVENTS_PER_THREAD (default 25000) events each, at JFR_EVENTS_RATE
+ * (default 0, as fast as possible) events per second per thread, with JFR_EVENTS_PAYLOAD (default 256) chars long strings.
+ */
+public class JFREventThroughput {
+    private static final Logger LOGGER = Logger.getLogger(JFREventThroughput.class.getName());
+    public static final int JFR_EVENTS_THREADS = Integer.parseInt(getProperty("JFR_EVENTS_THREADS", "4"));
+    public static final int JFR_EVENTS_PER_THREAD = Integer.parseInt(getProperty("JFR_EVENTS_PER_THREAD", "25000"));
+    public static final int JFR_EVENTS_RATE = Integer.parseInt(getProperty("JFR_EVENTS_RATE", "0"));
+    public static final int JFR_EVENTS_PAYLOAD = Integer.parseInt(getProperty("JFR_EVENTS_PAYLOAD", "256"));
+    // Endpoint type -> event name in the recording, see the app's Events
+    public static final Map<String, String> TYPES = new LinkedHashMap<>();
+
+    static {
+        TYPES.put("small", "org.acme.Small");
+        TYPES.put("text", "org.acme.Text");
+        TYPES.put("wide", "org.acme.Wide");
+        TYPES.put("stack", "org.acme.Stack");
+    }
+
+    static final String HEADER = "mode,type,threads,events,eventsPerSecond,commitP50Ns,commitP99Ns,commitMaxNs,slowCommits";
+
+    public static class Run {
+        // jvm or native
+        public final String mode;
+        public final String type;
+        public final boolean virtual;
+        public final long events;
+        public final long eventsPerSecond;
+        public final long commitP50Ns;
+        public final long commitP99Ns;
+        public final long commitMaxNs;
+        public final long slowCommits;
+
+        Run(String mode, String type, boolean virtual, Map<String, Long> values) {
+            this.mode = mode;
+            this.type = type;
+            this.virtual = virtual;
+            this.events = values.getOrDefault("events", 0L);
+            this.eventsPerSecond = values.getOrDefault("eventsPerSecond", 0L);
+            this.commitP50Ns = values.getOrDefault("commitP50Ns", 0L);
+            this.commitP99Ns = values.getOrDefault("commitP99Ns", 0L);
+            this.commitMaxNs = values.getOrDefault("commitMaxNs", 0L);
+            this.slowCommits = values.getOrDefault("slowCommits", 0L);
+        }
+
+        /**
+         * @param body key=value lines, e.g. eventsPerSecond=123456
+         * @return null if the app cannot run the threads, e.g. virtual threads on JDK 17
+         */
+        public static Run parse(String mode, String type, boolean virtual, String body) {
+            final Map<String, Long> values = new HashMap<>();
+            for (String line : body.split("\\R")) {
+                final int eq = line.indexOf('=');
+                if (eq < 1) {
+                    continue;
+                }
+                final String key = line.substring(0, eq).trim();
+                if ("unsupported".equals(key)) {
+                    LOGGER.info(mode + " " + type + " unsupported: " + line.substring(eq + 1));
+                    return null;
+                }
+                values.put(key, Long.parseLong(line.substring(eq + 1).trim()));
+            }
+            return new Run(mode, type, virtual, values);
+        }
+
+        public String threads() {
+            return virtual ? "virtual" : "platform";
+        }
+
+        String csv() {
+            return String.join(",", mode, type, threads(), Long.toString(events), Long.toString(eventsPerSecond),
+                    Long.toString(commitP50Ns), Long.toString(commitP99Ns), Long.toString(commitMaxNs), Long.toString(slowCommits));
+        }
+    }
+
+    public final List<Run> runs = new ArrayList<>();
+    // e.g. native text -> 12
+    public final Map<String, Long> dropped = new LinkedHashMap<>();
+    // e.g. native -> jdk.DataLoss events
+    public final Map<String, Long> dataLoss = new LinkedHashMap<>();
+
+    public static String path(String type, boolean virtual) {
+        return "/hello/emit/" + type + "?threads=" + JFR_EVENTS_THREADS + "&virtual=" + virtual + "&events=" + JFR_EVENTS_PER_THREAD +
+                "&rate=" + JFR_EVENTS_RATE + "&payload=" + JFR_EVENTS_PAYLOAD;
+    }
+
+    public void add(Run run) {
+        if (run != null) {
+            runs.add(run);
+            LOGGER.info("JFR events " + run.csv());
+        }
+    }
+
+    /**
+     * Committed events of the mode, summed over runs, missing in its recording.
+     */
+    public void recorded(String mode, JFRRecording recording) {
+        TYPES.forEach((type, event) -> {
+            final long committed = runs.stream().filter(r -> r.mode.equals(mode) && r.type.equals(type)).mapToLong(r -> r.events).sum();
+            dropped.put(mode + " " + type, committed - recording.events(event));
+        });
+        dataLoss.put(mode, recording.events("jdk.DataLoss"));
+    }
+
+    /**
+     * @return native events per second as % of JVM ones, -1 if either is missing
+     */
+    public double nativeToJVMPct(String type, boolean virtual) {
+        final long jvm = eventsPerSecond("jvm", type, virtual);
+        final long nat = eventsPerSecond("native", type, virtual);
+        return jvm > 0 && nat > 0 ? nat * 100.0 / jvm : -1;
+    }
+
+    private long eventsPerSecond(String mode, String type, boolean virtual) {
+        return runs.stream().filter(r -> r.mode.equals(mode) && r.type.equals(type) && r.virtual == virtual)
+                .mapToLong(r -> r.eventsPerSecond).findFirst().orElse(0);
+    }
+
+    public String markdown() {
+        final StringBuilder s = new StringBuilder();
+        s.append('|').append(HEADER.replace(',', '|')).append("|\n");
+        s.append("|---".repeat(HEADER.split(",").length)).append("|\n");
+        runs.forEach(r -> s.append('|').append(r.csv().replace(',', '|')).append("|\n"));
+        s.append("\n|type|threads|native/JVM eventsPerSecond %|\n|---|---|---|\n");
+        for (String type : TYPES.keySet()) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                s.append(String.format(Locale.US, "|%s|%s|%.1f|\n", type, virtual ? "virtual" : "platform", nativeToJVMPct(type, virtual)));
+            }
+        }
+        s.append("\n|mode type|dropped events|\n|---|---|\n");
+        dropped.forEach((k, v) -> s.append('|').append(k).append('|').append(v).append("|\n"));
+        dataLoss.forEach((k, v) -> s.append('|').append(k).append(" jdk.DataLoss|").append(v).append("|\n"));
+        return s.toString();
+    }
+
+    public void toCSV(Path csv) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        runs.forEach(r -> lines.add(r.csv()));
+        Files.write(csv, lines, UTF_8);
+    }
+}
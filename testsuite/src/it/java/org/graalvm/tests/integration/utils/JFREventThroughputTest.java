@@ -0,0 +1,107 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.StackTrace;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Custom JFR event throughput results, native vs. JVM, and dropped events counted from the recording.
+ */
+@Tag("testing-testsuite")
+public class JFREventThroughputTest {
+
+    @Name("org.acme.Small")
+    @StackTrace(false)
+    static class Small extends Event {
+        long sequence;
+    }
+
+    private static String body(long events, long eventsPerSecond) {
+        return "events=" + events + "\n" +
+                "elapsedNs=1000000000\n" +
+                "eventsPerSecond=" + eventsPerSecond + "\n" +
+                "commitP50Ns=100\n" +
+                "commitP99Ns=900\n" +
+                "commitMaxNs=50000\n" +
+                "slowCommits=3\n";
+    }
+
+    @Test
+    public void runs() {
+        final JFREventThroughput.Run r = JFREventThroughput.Run.parse("native", "small", true, body(100, 200000));
+        assertEquals(100, r.events);
+        assertEquals(200000, r.eventsPerSecond);
+        assertEquals(100, r.commitP50Ns);
+        assertEquals(900, r.commitP99Ns);
+        assertEquals(50000, r.commitMaxNs);
+        assertEquals(3, r.slowCommits);
+        assertEquals("virtual", r.threads());
+        assertNull(JFREventThroughput.Run.parse("jvm", "small", true, "unsupported=virtual threads\n"));
+        assertTrue(JFREventThroughput.path("text", false).startsWith("/hello/emit/text?threads="));
+    }
+
+    @Test
+    public void dropped() throws IOException {
+        final JFREventThroughput t = new JFREventThroughput();
+        t.add(JFREventThroughput.Run.parse("jvm", "small", false, body(6, 100000)));
+        t.add(JFREventThroughput.Run.parse("jvm", "small", true, body(6, 150000)));
+        t.add(JFREventThroughput.Run.parse("native", "small", false, body(10, 80000)));
+        t.add(JFREventThroughput.Run.parse("native", "small", true, "unsupported=virtual threads"));
+        assertEquals(3, t.runs.size());
+        final Path jfr = Files.createTempFile("jfr-event-throughput-test", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(Small.class);
+            recording.start();
+            for (int i = 0; i < 10; i++) {
+                final Small e = new Small();
+                e.sequence = i;
+                e.commit();
+            }
+            recording.stop();
+            recording.dump(jfr);
+            t.recorded("jvm", new JFRRecording().read(jfr));
+        } finally {
+            Files.deleteIfExists(jfr);
+        }
+        assertEquals(Long.valueOf(2), t.dropped.get("jvm small"));
+        assertEquals(Long.valueOf(0), t.dropped.get("jvm text"));
+        assertEquals(Long.valueOf(0), t.dataLoss.get("jvm"));
+        assertEquals(80.0, t.nativeToJVMPct("small", false), 1e-9);
+        assertEquals(-1, t.nativeToJVMPct("small", true), 1e-9);
+        final String md = t.markdown();
+        assertTrue(md.contains("|native|small|platform|10|80000|100|900|50000|3|"), md);
+        assertTrue(md.contains("|small|platform|80.0|"), md);
+        assertTrue(md.contains("|jvm small|2|"), md);
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import jdk.jfr.consumer.RecordedClass;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordedThread;
+import jdk.jfr.consumer.RecordingFile;
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Counts of the events in a flight recording, read in one pass, in process.
+ *
+ * No jfr tool, no text output to grep: events are tallied by type, by type and thread and by type and the top
+ * stack frame, plus any number of named predicates, e.g. jdk.ThreadPark with parkedClass GreetingService.
+ * Works for native-image recordings in container mode too as the recording lands in the mounted app dir.
+ */
+public class JFRRecording {
+    private static final Logger LOGGER = Logger.getLogger(JFRRecording.class.getName());
+
+    private final Map<String, Predicate<RecordedEvent>> predicates = new LinkedHashMap<>();
+    // e.g. jdk.ThreadPark -> 1234
+    public final Map<String, Long> events = new TreeMap<>();
+    // e.g. jdk.ThreadPark executor-thread-1 -> 1000
+    public final Map<String, Long> threads = new TreeMap<>();
+    // e.g. jdk.ThreadPark java.util.concurrent.locks.LockSupport.parkNanos -> 1000
+    public final Map<String, Long> topFrames = new TreeMap<>();
+    // e.g. jdk.Flush -> summed duration of all flushes
+    public final Map<String, Long> durationsNs = new TreeMap<>();
+    public final Map<String, Long> matches = new LinkedHashMap<>();
+    public long total;
+    public long readMs;
+
+    /**
+     * @param name      of the count in {@link #matches}
+     * @param predicate e.g. {@link #field(String, String, String)}
+     * @return this
+     */
+    public JFRRecording count(String name, Predicate<RecordedEvent> predicate) {
+        predicates.put(name, predicate);
+        matches.put(name, 0L);
+        return this;
+    }
+
+    public JFRRecording read(Path recording) throws IOException {
+        final long start = System.currentTimeMillis();
+        try (RecordingFile f = new RecordingFile(recording)) {
+            while (f.hasMoreEvents()) {
+                accept(f.readEvent());
+            }
+        }
+        readMs = System.currentTimeMillis() - start;
+        LOGGER.info("Read " + total + " events from " + recording + " in " + readMs + " ms.");
+        return this;
+    }
+
+    void accept(RecordedEvent event) {
+        final String type = event.getEventType().getName();
+        total++;
+        events.merge(type, 1L, Long::sum);
+        durationsNs.merge(type, event.getDuration().toNanos(), Long::sum);
+        final RecordedThread thread = event.getThread();
+        if (thread != null) {
+            threads.merge(type + " " + name(thread), 1L, Long::sum);
+        }
+        final RecordedStackTrace stackTrace = event.getStackTrace();
+        if (stackTrace != null && !stackTrace.getFrames().isEmpty()) {
+            topFrames.merge(type + " " + name(stackTrace.getFrames().get(0)), 1L, Long::sum);
+        }
+        for (Map.Entry<String, Predicate<RecordedEvent>> p : predicates.entrySet()) {
+            if (p.getValue().test(event)) {
+                matches.merge(p.getKey(), 1L, Long::sum);
+            }
+        }
+    }
+
+    public long events(String type) {
+        return events.getOrDefault(type, 0L);
+    }
+
+    /**
+     * @return mean duration of the type's events, -1 if there are none
+     */
+    public long meanDurationNs(String type) {
+        final long n = events(type);
+        return n > 0 ? durationsNs.getOrDefault(type, 0L) / n : -1;
+    }
+
+    public long matches(String name) {
+        return matches.getOrDefault(name, 0L);
+    }
+
+    public static Predicate<RecordedEvent> type(String type) {
+        return e -> e.getEventType().getName().equals(type);
+    }
+
+    /**
+     * @param type  e.g. jdk.ThreadPark
+     * @param field e.g. parkedClass
+     * @param value e.g. org.acme.getting.started.GreetingService, classes and threads compare by name
+     * @return events of the type with the field of the value
+     */
+    public static Predicate<RecordedEvent> field(String type, String field, String value) {
+        return type(type).and(e -> e.hasField(field) && Objects.equals(value, name(e.getValue(field))));
+    }
+
+    /**
+     * @param type   e.g. jdk.ThreadPark
+     * @param prefix e.g. org.acme.getting.started.GreetingService
+     * @return events of the type with any frame of their stack starting with the prefix
+     */
+    public static Predicate<RecordedEvent> frame(String type, String prefix) {
+        return type(type).and(e -> e.getStackTrace() != null &&
+                e.getStackTrace().getFrames().stream().anyMatch(f -> name(f).startsWith(prefix)));
+    }
+
+    static String name(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof RecordedClass) {
+            return ((RecordedClass) value).getName();
+        }
+        if (value instanceof RecordedThread) {
+            final RecordedThread t = (RecordedThread) value;
+            return t.getJavaName() != null ? t.getJavaName() : t.getOSName();
+        }
+        if (value instanceof RecordedFrame) {
+            final RecordedMethod m = ((RecordedFrame) value).getMethod();
+            return m == null ? "unknown" : m.getType().getName() + "." + m.getName();
+        }
+        return String.valueOf(value);
+    }
+
+    public void toReport(StringBuilder report, String eventType) {
+        Logs.appendln(report, "Read " + total + " JFR events in " + readMs + " ms, " + eventType + ": " + events(eventType));
+        matches.forEach((k, v) -> Logs.appendln(report, k + ": " + v));
+        topFrames.entrySet().stream()
+                .filter(e -> e.getKey().startsWith(eventType + " "))
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(5)
+                .forEach(e -> Logs.appendln(report, "Top frame " + e.getKey() + ": " + e.getValue()));
+    }
+}
@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.graalvm.tests.integration.utils.thresholds.Statistics;
+import org.graalvm.tests.integration.utils.thresholds.Thresholds;
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * What a flight recording costs in I/O: its size, chunks and bytes per event, the mean jdk.Flush duration
+ * and the bytes the app wrote to storage during the load, read from /proc/pid/io write_bytes, see {@link Writes}.
+ *
+ * Chunks are counted by walking chunk headers, no need to parse the events for that.
+ * jdk.Flush is off in default.jfc, it must be enabled, e.g. jdk.Flush#enabled=true in jfr configure, else the mean is -1.
+ * Writes of the same app without JFR make the baseline, so that log files and such are not blamed on JFR.
+ *
+ * Thresholds are optional, e.g. linux.native.jfr.bytes.per.event.threshold in the app's threshold.conf, see {@link #checkThresholds(Apps, Logs.Mode)}.
+ */
+public class JFRRecordingIO {
+    private static final Logger LOGGER = Logger.getLogger(JFRRecordingIO.class.getName());
+    // "FLR\0"
+    private static final int MAGIC = 0x464c5200;
+    // magic, major, minor, size, constant pool offset, metadata offset, start nanos, duration nanos
+    private static final int HEADER_BYTES = 4 + 2 + 2 + 8 + 8 + 8 + 8 + 8;
+
+    public static class Chunk {
+        public final long sizeBytes;
+        public final long startNanos;
+        public final long durationNanos;
+
+        public Chunk(long sizeBytes, long startNanos, long durationNanos) {
+            this.sizeBytes = sizeBytes;
+            this.startNanos = startNanos;
+            this.durationNanos = durationNanos;
+        }
+    }
+
+    /**
+     * Samples write_bytes of /proc/pid/io on a background daemon thread, every PROC_SAMPLER_INTERVAL_MS,
+     * until {@link #close()} or until the process is gone. Needs the same user as the process, i.e. not for containers.
+     */
+    public static class Writes implements Closeable {
+        private final long pid;
+        private final List<long[]> samples = Collections.synchronizedList(new ArrayList<>());
+        private final ScheduledExecutorService executor;
+
+        private Writes(long pid, long intervalMs) {
+            this.pid = pid;
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                final Thread t = new Thread(r, "io-sampler-" + pid);
+                t.setDaemon(true);
+                return t;
+            });
+            executor.scheduleAtFixedRate(this::takeSample, 0, intervalMs, TimeUnit.MILLISECONDS);
+        }
+
+        /**
+         * @return sampler or null if /proc/pid/io cannot be read
+         */
+        public static Writes start(long pid, long intervalMs) throws IOException {
+            if (!ProcSampler.isSupported() || writeBytes(pid) < 0) {
+                LOGGER.info("Cannot read /proc/" + pid + "/io, not sampling writes.");
+                return null;
+            }
+            return new Writes(pid, intervalMs);
+        }
+
+        public static Writes start(long pid) throws IOException {
+            return start(pid, ProcSampler.INTERVAL_MS);
+        }
+
+        private void takeSample() {
+            try {
+                final long b = writeBytes(pid);
+                if (b < 0) {
+                    executor.shutdown();
+                    return;
+                }
+                samples.add(new long[]{System.currentTimeMillis(), b});
+            } catch (IOException | RuntimeException e) {
+                LOGGER.error("Failed to sample /proc/" + pid + "/io", e);
+            }
+        }
+
+        void add(long timestampMs, long writeBytes) {
+            samples.add(new long[]{timestampMs, writeBytes});
+        }
+
+        /**
+         * @return bytes written between the first and the last sample
+         */
+        public long writtenBytes() {
+            synchronized (samples) {
+                return samples.size() < 2 ? 0 : samples.get(samples.size() - 1)[1] - samples.get(0)[1];
+            }
+        }
+
+        public long durationMs() {
+            synchronized (samples) {
+                return samples.size() < 2 ? 0 : samples.get(samples.size() - 1)[0] - samples.get(0)[0];
+            }
+        }
+
+        public long meanKBps() {
+            final long ms = durationMs();
+            return ms > 0 ? writtenBytes() * 1000L / 1024L / ms : 0;
+        }
+
+        public long peakKBps() {
+            long peak = 0;
+            synchronized (samples) {
+                for (int i = 1; i < samples.size(); i++) {
+                    final long ms = samples.get(i)[0] - samples.get(i - 1)[0];
+                    if (ms > 0) {
+                        peak = Math.max(peak, (samples.get(i)[1] - samples.get(i - 1)[1]) * 1000L / 1024L / ms);
+                    }
+                }
+            }
+            return peak;
+        }
+
+        @Override
+        public void close() {
+            // One last reading so that the tail of the run is not lost between samples
+            if (!executor.isShutdown()) {
+                takeSample();
+            }
+            executor.shutdownNow();
+            try {
+                executor.awaitTermination(1, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    public final long recordingSizeKb;
+    public final List<Chunk> chunks;
+    public final long events;
+    public final long bytesPerEvent;
+    public final long flushes;
+    // -1 if there are no jdk.Flush events
+    public final long meanFlushUs;
+    // Written by the app with JFR during the load minus the app without JFR, -1 if not sampled
+    public final long writeKb;
+    public final long writeKBps;
+    public final long peakWriteKBps;
+
+    /**
+     * @param measurementsJfr   runBenchmarkForApp measurements of the app with JFR, writeKb etc.
+     * @param measurementsNoJfr the same without JFR, the baseline
+     */
+    public JFRRecordingIO(Path recording, JFRRecording jfr, Map<String, Integer> measurementsJfr, Map<String, Integer> measurementsNoJfr) throws IOException {
+        final long size = Files.size(recording);
+        this.recordingSizeKb = size / 1024L;
+        this.chunks = chunks(recording);
+        this.events = jfr.total;
+        this.bytesPerEvent = events > 0 ? size / events : -1;
+        this.flushes = jfr.events("jdk.Flush");
+        final long flushNs = jfr.meanDurationNs("jdk.Flush");
+        this.meanFlushUs = flushNs < 0 ? -1 : flushNs / 1000L;
+        final int written = measurementsJfr.getOrDefault("writeKb", -1);
+        this.writeKb = written < 0 ? -1 : Math.max(0, written - Math.max(0, measurementsNoJfr.getOrDefault("writeKb", 0)));
+        this.writeKBps = measurementsJfr.getOrDefault("writeKBps", -1);
+        this.peakWriteKBps = measurementsJfr.getOrDefault("peakWriteKBps", -1);
+    }
+
+    /**
+     * Walks chunk headers, each chunk starts with FLR\0, major and minor version and its size.
+     */
+    public static List<Chunk> chunks(Path recording) throws IOException {
+        final List<Chunk> chunks = new ArrayList<>();
+        try (RandomAccessFile f = new RandomAccessFile(recording.toFile(), "r")) {
+            long position = 0;
+            while (position + HEADER_BYTES <= f.length()) {
+                f.seek(position);
+                if (f.readInt() != MAGIC) {
+                    LOGGER.warn("No chunk header at " + position + " in " + recording);
+                    break;
+                }
+                f.readShort();
+                f.readShort();
+                final long size = f.readLong();
+                f.readLong();
+                f.readLong();
+                final long startNanos = f.readLong();
+                final long durationNanos = f.readLong();
+                if (size <= 0) {
+                    // Chunk still being written
+                    break;
+                }
+                chunks.add(new Chunk(size, startNanos, durationNanos));
+                position += size;
+            }
+        }
+        return chunks;
+    }
+
+    /**
+     * @return write_bytes of /proc/pid/io, -1 if the process is gone or the file is not readable
+     */
+    public static long writeBytes(long pid) throws IOException {
+        try {
+            for (String l : Files.readAllLines(Path.of("/proc", Long.toString(pid), "io"), UTF_8)) {
+                if (l.startsWith("write_bytes:")) {
+                    return Long.parseLong(l.substring("write_bytes:".length()).trim());
+                }
+            }
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    public void toReport(StringBuilder report) {
+        Logs.appendln(report, "|recordingSizeKb|chunks|events|bytesPerEvent|flushes|meanFlushUs|writeKb|writeKBps|peakWriteKBps|");
+        Logs.appendln(report, "|---|---|---|---|---|---|---|---|---|");
+        Logs.appendln(report, "|" + recordingSizeKb + "|" + chunks.size() + "|" + events + "|" + bytesPerEvent + "|" + flushes + "|" +
+                meanFlushUs + "|" + writeKb + "|" + writeKBps + "|" + peakWriteKBps + "|");
+    }
+
+    /**
+     * Optional thresholds, absolute values, e.g. with Logs.Mode.NATIVE:
+     * <pre>
+     * linux.native.jfr.recording.size.threshold.kB=50000
+     * linux.native.jfr.bytes.per.event.threshold=100
+     * linux.native.jfr.flush.threshold.us=5000
+     * linux.native.jfr.write.throughput.threshold.kB=10000
+     * </pre>
+     * The last one is kB/s, values not measured, i.e. -1, are not checked.
+     */
+    public void checkThresholds(Apps app, Logs.Mode mode) {
+        final String prefix = Logs.thresholdPrefix(app, mode) + ".jfr";
+        final List<String> failures = new ArrayList<>();
+        check(app, failures, prefix + ".recording.size.threshold.kB", recordingSizeKb, "kB recording size", false);
+        check(app, failures, prefix + ".bytes.per.event.threshold", bytesPerEvent, "bytes per event", false);
+        check(app, failures, prefix + ".flush.threshold.us", meanFlushUs, "us mean flush", true);
+        check(app, failures, prefix + ".write.throughput.threshold.kB", writeKBps, "kB/s written", true);
+        assertTrue(failures.isEmpty(), "\n" + String.join("\n", failures) + "\n");
+    }
+
+    private static void check(Apps app, List<String> failures, String key, long value, String what, boolean timeSensitive) {
+        final Long threshold = app.thresholdProperties.get(key);
+        if (threshold == null || value < 0) {
+            return;
+        }
+        final long tolerance = app.thresholdProperties.getOrDefault(key + Thresholds.TOLERANCE_SUFFIX, 0L);
+        Logs.assertThreshold(failures, Statistics.withinThreshold(new long[]{value}, threshold, tolerance),
+                "Application " + app + " JFR recording " + value + " " + what + " is over " + threshold + " (" + key + ").", timeSensitive);
+    }
+}
@@ -0,0 +1,116 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import jdk.jfr.Event;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * JFR recording size, chunks, bytes per event and storage writes of the recording app.
+ */
+@Tag("testing-testsuite")
+public class JFRRecordingIOTest {
+
+    @Name("org.acme.Small")
+    static class Small extends Event {
+        long sequence;
+    }
+
+    private static void record(Path jfr, int events) throws IOException {
+        try (Recording r = new Recording()) {
+            r.enable(Small.class);
+            r.start();
+            for (int i = 0; i < events; i++) {
+                final Small e = new Small();
+                e.sequence = i;
+                e.commit();
+            }
+            r.stop();
+            r.dump(jfr);
+        }
+    }
+
+    @Test
+    public void chunks() throws IOException {
+        final Path first = Files.createTempFile("jfr-recording-io-test", ".jfr");
+        final Path second = Files.createTempFile("jfr-recording-io-test", ".jfr");
+        try {
+            record(first, 100);
+            record(second, 200);
+            // A recording is a sequence of chunks, two of them make a valid recording of two chunks
+            try (OutputStream out = Files.newOutputStream(first, StandardOpenOption.APPEND)) {
+                Files.copy(second, out);
+            }
+            final List<JFRRecordingIO.Chunk> chunks = JFRRecordingIO.chunks(first);
+            assertEquals(2, chunks.size());
+            assertEquals(Files.size(first), chunks.get(0).sizeBytes + chunks.get(1).sizeBytes);
+            assertTrue(chunks.get(1).startNanos >= chunks.get(0).startNanos);
+
+            final JFRRecording jfr = new JFRRecording().read(first);
+            assertEquals(300, jfr.events("org.acme.Small"));
+            final JFRRecordingIO io = new JFRRecordingIO(first, jfr,
+                    Map.of("writeKb", 1500, "writeKBps", 300, "peakWriteKBps", 900), Map.of("writeKb", 500));
+            assertEquals(2, io.chunks.size());
+            assertEquals(Files.size(first) / jfr.total, io.bytesPerEvent);
+            assertEquals(-1, io.meanFlushUs, "jdk.Flush was not enabled");
+            assertEquals(1000, io.writeKb);
+            assertEquals(300, io.writeKBps);
+            assertEquals(900, io.peakWriteKBps);
+            final StringBuilder report = new StringBuilder();
+            io.toReport(report);
+            assertTrue(report.toString().contains("|" + io.recordingSizeKb + "|2|" + jfr.total + "|"), report.toString());
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+        }
+    }
+
+    @Test
+    public void writes() throws IOException {
+        assertEquals(-1, JFRRecordingIO.writeBytes(Long.MAX_VALUE), "Nonexistent process has no io");
+        assertTrue(JFRRecordingIO.writeBytes(ProcessHandle.current().pid()) >= 0);
+        final JFRRecordingIO.Writes w = JFRRecordingIO.Writes.start(ProcessHandle.current().pid(), 60_000);
+        try {
+            w.add(1000, 0);
+            w.add(2000, 1024 * 1024);
+            w.add(4000, 2 * 1024 * 1024);
+        } finally {
+            w.close();
+        }
+        assertTrue(w.writtenBytes() >= 0);
+        assertTrue(w.durationMs() >= 0);
+        assertEquals(1024, w.peakKBps());
+    }
+}
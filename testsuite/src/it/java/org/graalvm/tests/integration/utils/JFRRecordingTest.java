@@ -0,0 +1,79 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import jdk.jfr.Recording;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Counting events of a flight recording in process, by type, thread, top frame and field.
+ */
+@Tag("testing-testsuite")
+public class JFRRecordingTest {
+
+    private static class Blocker {
+    }
+
+    private static void parkSome(Object blocker, int times) {
+        for (int i = 0; i < times; i++) {
+            LockSupport.parkNanos(blocker, 1000);
+        }
+    }
+
+    @Test
+    public void threadPark() throws IOException {
+        final Path jfr = Files.createTempFile("jfr-recording-test", ".jfr");
+        try (Recording r = new Recording()) {
+            r.enable("jdk.ThreadPark").withThreshold(Duration.ZERO).withStackTrace();
+            r.start();
+            parkSome(new Blocker(), 500);
+            parkSome(new Object(), 100);
+            r.stop();
+            r.dump(jfr);
+            final JFRRecording recording = new JFRRecording()
+                    .count("blocker", JFRRecording.field("jdk.ThreadPark", "parkedClass", Blocker.class.getName()))
+                    .count("parkSome", JFRRecording.frame("jdk.ThreadPark", JFRRecordingTest.class.getName() + ".parkSome"))
+                    .count("missing", JFRRecording.field("jdk.ThreadPark", "noSuchField", "x"))
+                    .read(jfr);
+            assertEquals(500, recording.matches("blocker"));
+            assertTrue(recording.events("jdk.ThreadPark") >= 600, "All parks must be counted, got " + recording.events("jdk.ThreadPark"));
+            assertEquals(600, recording.matches("parkSome"));
+            assertEquals(0, recording.matches("missing"));
+            assertTrue(recording.threads.getOrDefault("jdk.ThreadPark " + Thread.currentThread().getName(), 0L) >= 600);
+            assertTrue(recording.topFrames.keySet().stream().allMatch(k -> k.startsWith("jdk.ThreadPark ")));
+            final StringBuilder report = new StringBuilder();
+            recording.toReport(report, "jdk.ThreadPark");
+            assertTrue(report.toString().contains("blocker: 500"), report.toString());
+        } finally {
+            Files.deleteIfExists(jfr);
+        }
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * A matrix of JFR settings, each measured against the very same app built without JFR, so that one can tell
+ * which native JFR events are affordable in production.
+ *
+ * JFR_SWEEP=true switches it on, JFR_SWEEP_CONF (default jfr-sweep.conf in the app dir) lists the settings,
+ * one per line: name=jfr configure options[|runtime options], e.g.
+ * <pre>
+ * thread-park-10ms=jdk.ThreadPark#threshold=10ms
+ * stack-depth-16=method-profiling=max|-XX:FlightRecorderOptions=stackdepth=16
+ * </pre>
+ * JFR_SWEEP_ENDPOINT (default regular) picks the endpoint, JFR_SWEEP_TRIALS (default 1) the number of starts
+ * for startup and RSS. Diffs are signed percents, (JFR - no JFR) / no JFR, RSS is also an absolute delta in kB.
+ */
+public class JFRSweep {
+    private static final Logger LOGGER = Logger.getLogger(JFRSweep.class.getName());
+    public static final boolean JFR_SWEEP = Boolean.parseBoolean(getProperty("JFR_SWEEP", "false"));
+    public static final String JFR_SWEEP_CONF = getProperty("JFR_SWEEP_CONF", "jfr-sweep.conf");
+    public static final String JFR_SWEEP_ENDPOINT = getProperty("JFR_SWEEP_ENDPOINT", "regular");
+    public static final int JFR_SWEEP_TRIALS = Integer.parseInt(getProperty("JFR_SWEEP_TRIALS", "1"));
+    static final String HEADER = "setting,throughputDiffPct,meanDiffPct,p50DiffPct,p90DiffPct,p99DiffPct,rssDiffKb,rssDiffPct,noisy";
+
+    public static class Setting {
+        public final String name;
+        // e.g. jdk.ThreadPark#threshold=0ns, passed to jfr configure
+        public final List<String> configure;
+        // e.g. -XX:FlightRecorderOptions=stackdepth=16, appended to the app's command line
+        public final List<String> runtime;
+
+        public Setting(String name, List<String> configure, List<String> runtime) {
+            this.name = name;
+            this.configure = configure;
+            this.runtime = runtime;
+        }
+
+        @Override
+        public String toString() {
+            return name + " " + configure + (runtime.isEmpty() ? "" : " " + runtime);
+        }
+    }
+
+    /**
+     * Differences of the JFR build against the no-JFR one, NaN where a measurement is missing or 0,
+     * left empty in the CSV and the markdown table.
+     */
+    public static class Result {
+        public final Setting setting;
+        public final double throughputDiffPct;
+        public final double meanDiffPct;
+        public final double p50DiffPct;
+        public final double p90DiffPct;
+        public final double p99DiffPct;
+        // Meaningless if rssDiffPct is NaN
+        public final long rssDiffKb;
+        public final double rssDiffPct;
+        public final boolean noisy;
+
+        Result(Setting setting, Map<String, Integer> jfr, Map<String, Integer> noJfr) {
+            this.setting = setting;
+            this.throughputDiffPct = diffPct("throughput", jfr, noJfr);
+            this.meanDiffPct = diffPct("mean", jfr, noJfr);
+            this.p50DiffPct = diffPct("p50", jfr, noJfr);
+            this.p90DiffPct = diffPct("p90", jfr, noJfr);
+            this.p99DiffPct = diffPct("p99", jfr, noJfr);
+            this.rssDiffKb = jfr.getOrDefault("rss", 0) - noJfr.getOrDefault("rss", 0);
+            this.rssDiffPct = diffPct("rss", jfr, noJfr);
+            this.noisy = jfr.getOrDefault("noisy", 0) == 1 || noJfr.getOrDefault("noisy", 0) == 1;
+        }
+
+        String csv() {
+            return String.join(",", setting.name, cell(throughputDiffPct), cell(meanDiffPct), cell(p50DiffPct),
+                    cell(p90DiffPct), cell(p99DiffPct), Double.isNaN(rssDiffPct) ? "" : Long.toString(rssDiffKb),
+                    cell(rssDiffPct), Boolean.toString(noisy));
+        }
+
+        private static String cell(double pct) {
+            return Double.isNaN(pct) ? "" : String.format(Locale.US, "%.2f", pct);
+        }
+    }
+
+    public final List<Setting> settings;
+    public final List<Result> results = new ArrayList<>();
+
+    public JFRSweep(List<Setting> settings) {
+        this.settings = settings;
+    }
+
+    public static JFRSweep of(Path appDir) throws IOException {
+        final Path conf = appDir.resolve(JFR_SWEEP_CONF);
+        final List<Setting> settings = parse(Files.readAllLines(conf, UTF_8));
+        LOGGER.info("JFR sweep of " + settings.size() + " settings from " + conf);
+        return new JFRSweep(settings);
+    }
+
+    static List<Setting> parse(List<String> lines) {
+        final List<Setting> settings = new ArrayList<>();
+        for (String line : lines) {
+            final String l = line.trim();
+            if (l.isEmpty() || l.startsWith("#")) {
+                continue;
+            }
+            final int eq = l.indexOf('=');
+            if (eq < 1) {
+                throw new IllegalArgumentException("Expected name=jfr configure options[|runtime options], got: " + line);
+            }
+            final String[] options = l.substring(eq + 1).split("\\|", 2);
+            settings.add(new Setting(l.substring(0, eq).trim(), split(options[0]), options.length > 1 ? split(options[1]) : List.of()));
+        }
+        return settings;
+    }
+
+    private static List<String> split(String options) {
+        return options.isBlank() ? List.of() : Arrays.asList(options.trim().split("\\s+"));
+    }
+
+    /**
+     * @return signed % difference, NaN if either is missing or 0, -1 % is a difference like any other
+     */
+    static double diffPct(String measurement, Map<String, Integer> jfr, Map<String, Integer> noJfr) {
+        final int j = jfr.getOrDefault(measurement, 0);
+        final int n = noJfr.getOrDefault(measurement, 0);
+        if (j == 0 || n == 0) {
+            LOGGER.error(measurement + " should not be 0! JFR: " + j + " No JFR: " + n);
+            return Double.NaN;
+        }
+        return (j - n) * 100.0 / n;
+    }
+
+    public Result add(Setting setting, Map<String, Integer> jfr, Map<String, Integer> noJfr) {
+        final Result r = new Result(setting, jfr, noJfr);
+        results.add(r);
+        LOGGER.info("JFR sweep " + r.csv());
+        return r;
+    }
+
+    public String markdown() {
+        final StringBuilder s = new StringBuilder();
+        s.append('|').append(HEADER.replace(',', '|')).append("|\n");
+        s.append("|---".repeat(HEADER.split(",").length)).append("|\n");
+        results.forEach(r -> s.append('|').append(r.csv().replace(',', '|')).append("|\n"));
+        return s.toString();
+    }
+
+    public void toCSV(Path csv) throws IOException {
+        final List<String> lines = new ArrayList<>();
+        lines.add(HEADER);
+        results.forEach(r -> lines.add(r.csv()));
+        Files.write(csv, lines, UTF_8);
+    }
+}
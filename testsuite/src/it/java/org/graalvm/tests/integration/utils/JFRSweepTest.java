@@ -0,0 +1,101 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * JFR settings sweep: the settings file and the per setting diffs against no JFR.
+ */
+@Tag("testing-testsuite")
+public class JFRSweepTest {
+
+    @Test
+    public void settings() {
+        final List<JFRSweep.Setting> settings = JFRSweep.parse(List.of(
+                "# comment",
+                "",
+                "defaults=",
+                "thread-park-0ns=jdk.ThreadPark#threshold=0ns jdk.ThreadPark#stackTrace=false",
+                " stack-depth-16 = method-profiling=max | -XX:FlightRecorderOptions=stackdepth=16 "));
+        assertEquals(3, settings.size());
+        assertEquals("defaults", settings.get(0).name);
+        assertTrue(settings.get(0).configure.isEmpty());
+        assertTrue(settings.get(0).runtime.isEmpty());
+        assertEquals(List.of("jdk.ThreadPark#threshold=0ns", "jdk.ThreadPark#stackTrace=false"), settings.get(1).configure);
+        assertEquals("stack-depth-16", settings.get(2).name);
+        assertEquals(List.of("method-profiling=max"), settings.get(2).configure);
+        assertEquals(List.of("-XX:FlightRecorderOptions=stackdepth=16"), settings.get(2).runtime);
+        assertThrows(IllegalArgumentException.class, () -> JFRSweep.parse(List.of("method-profiling")));
+    }
+
+    @Test
+    public void results() throws IOException {
+        final JFRSweep sweep = new JFRSweep(JFRSweep.parse(List.of("thread-park-0ns=jdk.ThreadPark#threshold=0ns")));
+        final Map<String, Integer> noJfr = Map.of("throughput", 1000, "mean", 10, "p50", 8, "p90", 20, "p99", 40, "rss", 50000, "noisy", 0);
+        final Map<String, Integer> jfr = Map.of("throughput", 900, "mean", 12, "p50", 8, "p90", 25, "p99", 60, "rss", 60000, "noisy", 0);
+        final JFRSweep.Result r = sweep.add(sweep.settings.get(0), jfr, noJfr);
+        assertEquals(-10.0, r.throughputDiffPct, 1e-9);
+        assertEquals(20.0, r.meanDiffPct, 1e-9);
+        assertEquals(0.0, r.p50DiffPct, 1e-9);
+        assertEquals(25.0, r.p90DiffPct, 1e-9);
+        assertEquals(50.0, r.p99DiffPct, 1e-9);
+        assertEquals(10000, r.rssDiffKb);
+        assertEquals(20.0, r.rssDiffPct, 1e-9);
+        assertFalse(r.noisy);
+        assertTrue(sweep.markdown().contains("|thread-park-0ns|-10.00|20.00|0.00|25.00|50.00|10000|20.00|false|"), sweep.markdown());
+        final Path csv = Files.createTempFile("jfr-sweep-test", ".csv");
+        try {
+            sweep.toCSV(csv);
+            assertEquals(List.of(JFRSweep.HEADER, "thread-park-0ns,-10.00,20.00,0.00,25.00,50.00,10000,20.00,false"),
+                    Files.readAllLines(csv, UTF_8));
+        } finally {
+            Files.deleteIfExists(csv);
+        }
+
+        // -1 % is a measured difference, a missing measurement is no difference at all
+        final Map<String, Integer> noRss = Map.of("throughput", 990, "mean", 10, "p50", 8, "p90", 20, "p99", 40, "noisy", 1);
+        final JFRSweep.Result missing = sweep.add(sweep.settings.get(0), noRss, noJfr);
+        assertEquals(-1.0, missing.throughputDiffPct, 1e-9);
+        assertTrue(Double.isNaN(missing.rssDiffPct));
+        assertTrue(sweep.markdown().contains("|thread-park-0ns|-1.00|0.00|0.00|0.00|0.00|||true|"), sweep.markdown());
+    }
+
+    @Test
+    public void conf() throws IOException {
+        final JFRSweep sweep = JFRSweep.of(Path.of(Commands.getBaseDir(), Apps.JFR_PERFORMANCE.dir));
+        assertTrue(sweep.settings.stream().anyMatch(s -> s.name.equals("thread-park-0ns")));
+        assertTrue(sweep.settings.stream().anyMatch(s -> !s.runtime.isEmpty()));
+    }
+}
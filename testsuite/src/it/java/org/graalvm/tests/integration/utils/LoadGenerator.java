@@ -0,0 +1,568 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * In-JVM open model HTTP load generator standing in for the Hyperfoil controller container.
+ *
+ * It runs the subset of benchmark.hf.yaml the apps use: http host and sharedConnections, usersPerSec, duration
+ * and a scenario of sequences made of randomItem, httpRequest (with status range check) and awaitVar steps,
+ * values may use !param and !concat. Users arrive at usersPerSec for the duration regardless of how fast the app
+ * responds, each user runs the sequences in order, one request at a time, over one of sharedConnections connections.
+ *
+ * Results come in the shape of Hyperfoil's /run/{id}/stats/all/json, i.e. stats[0].total.summary with
+ * meanResponseTime, maxResponseTime, percentileResponseTime (ns), requestCount, responseCount, requestTimeouts,
+ * internalErrors etc., so that the rest of the test does not care which one ran.
+ *
+ * LOAD_GENERATOR=hyperfoil switches tests back to the Hyperfoil container.
+ */
+public class LoadGenerator {
+    private static final Logger LOGGER = Logger.getLogger(LoadGenerator.class.getName());
+    public static final boolean EMBEDDED = !"hyperfoil".equalsIgnoreCase(getProperty("LOAD_GENERATOR", "embedded"));
+    public static final long REQUEST_TIMEOUT_MS = Long.parseLong(getProperty("LOAD_GENERATOR_REQUEST_TIMEOUT_MS", "30000"));
+    private static final String[] PERCENTILES = new String[]{"50.0", "90.0", "99.0", "99.9", "99.99"};
+    private static final Pattern KEY = Pattern.compile("^([A-Za-z_][\\w-]*):(?: (.*))?$");
+    private static final Pattern VAR = Pattern.compile("\\$\\{([^}]+)}");
+    private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ms|s|m)");
+
+    public static class Benchmark {
+        public final String name;
+        public final URI host;
+        public final int sharedConnections;
+        public final double usersPerSec;
+        public final long durationMs;
+        final List<List<Step>> sequences;
+
+        Benchmark(String name, URI host, int sharedConnections, double usersPerSec, long durationMs, List<List<Step>> sequences) {
+            this.name = name;
+            this.host = host;
+            this.sharedConnections = sharedConnections;
+            this.usersPerSec = usersPerSec;
+            this.durationMs = durationMs;
+            this.sequences = sequences;
+        }
+    }
+
+    interface Step {
+    }
+
+    static class RandomItem implements Step {
+        final List<String> list;
+        final String toVar;
+
+        RandomItem(List<String> list, String toVar) {
+            this.list = list;
+            this.toVar = toVar;
+        }
+    }
+
+    static class Request implements Step {
+        final String method;
+        final String path;
+        final int minStatus;
+        final int maxStatus;
+
+        Request(String method, String path, int minStatus, int maxStatus) {
+            this.method = method;
+            this.path = path;
+            this.minStatus = minStatus;
+            this.maxStatus = maxStatus;
+        }
+    }
+
+    public static class Stats {
+        private long[] responseTimesNs = new long[1024];
+        private int responses = 0;
+        private final AtomicInteger requestCount = new AtomicInteger();
+        private final AtomicInteger requestTimeouts = new AtomicInteger();
+        private final AtomicInteger connectionErrors = new AtomicInteger();
+        private final AtomicInteger internalErrors = new AtomicInteger();
+        private final AtomicInteger invalid = new AtomicInteger();
+        private final int[] statusCounts = new int[6];
+        private long blockedTimeNs = 0;
+        private long startTime;
+        private long endTime;
+
+        synchronized void response(int status, long responseTimeNs) {
+            if (responses == responseTimesNs.length) {
+                responseTimesNs = Arrays.copyOf(responseTimesNs, responses * 2);
+            }
+            responseTimesNs[responses++] = responseTimeNs;
+            statusCounts[status / 100 > 0 && status / 100 < 6 ? status / 100 : 0]++;
+        }
+
+        synchronized void blocked(long ns) {
+            blockedTimeNs += ns;
+        }
+
+        public synchronized int responseCount() {
+            return responses;
+        }
+
+        public int requestCount() {
+            return requestCount.get();
+        }
+
+        public synchronized long blockedTimeNs() {
+            return blockedTimeNs;
+        }
+
+        /**
+         * @return Hyperfoil like stats, see the class doc
+         */
+        public synchronized JSONObject toJSON(String name) {
+            final long[] sorted = Arrays.copyOf(responseTimesNs, responses);
+            Arrays.sort(sorted);
+            final Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("startTime", startTime);
+            summary.put("endTime", endTime);
+            summary.put("minResponseTime", responses == 0 ? 0 : sorted[0]);
+            summary.put("meanResponseTime", responses == 0 ? 0 : Arrays.stream(sorted).sum() / responses);
+            summary.put("maxResponseTime", responses == 0 ? 0 : sorted[responses - 1]);
+            final Map<String, Long> percentiles = new LinkedHashMap<>();
+            for (String p : PERCENTILES) {
+                percentiles.put(p, percentile(sorted, Double.parseDouble(p)));
+            }
+            summary.put("percentileResponseTime", percentiles);
+            summary.put("requestCount", requestCount.get());
+            summary.put("responseCount", responses);
+            summary.put("status_2xx", statusCounts[2]);
+            summary.put("status_3xx", statusCounts[3]);
+            summary.put("status_4xx", statusCounts[4]);
+            summary.put("status_5xx", statusCounts[5]);
+            summary.put("status_other", statusCounts[0] + statusCounts[1]);
+            summary.put("invalid", invalid.get());
+            summary.put("connectionErrors", connectionErrors.get());
+            summary.put("requestTimeouts", requestTimeouts.get());
+            summary.put("internalErrors", internalErrors.get());
+            summary.put("blockedTime", blockedTimeNs);
+            final JSONObject stat = new JSONObject();
+            stat.put("name", name);
+            stat.put("phase", "main");
+            stat.put("metric", "all");
+            stat.put("total", new JSONObject().put("summary", new JSONObject(summary)));
+            return new JSONObject().put("stats", List.of(stat));
+        }
+    }
+
+    /**
+     * Nearest rank percentile of sorted values.
+     */
+    static long percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        final int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.min(sorted.length, Math.max(1, rank)) - 1];
+    }
+
+    public static Benchmark parse(Path benchmarkYaml, Map<String, String> params) throws IOException {
+        return benchmark(yaml(Files.readAllLines(benchmarkYaml, UTF_8), params));
+    }
+
+    /**
+     * A user waiting for a free connection.
+     */
+    private static class Arrival implements Runnable {
+        final long arrivalNs = System.nanoTime();
+        final LongConsumer user;
+
+        Arrival(LongConsumer user) {
+            this.user = user;
+        }
+
+        @Override
+        public void run() {
+            user.accept(arrivalNs);
+        }
+    }
+
+    /**
+     * Runs the benchmark for its duration. Users still waiting for a connection by then are dropped, the time they
+     * waited counts as blocked. Requests already in flight are waited for, at most REQUEST_TIMEOUT_MS, and their users
+     * send no further requests.
+     */
+    public static Stats run(Benchmark b) throws InterruptedException {
+        final Stats stats = new Stats();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final AtomicBoolean over = new AtomicBoolean();
+        // One thread per shared connection, a blocking send on each keeps the connections count in check
+        final ThreadPoolExecutor connections = new ThreadPoolExecutor(b.sharedConnections, b.sharedConnections,
+                0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            final Thread t = new Thread(r, "load-generator-" + threadCounter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        final ScheduledExecutorService arrivals = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "load-generator-arrivals");
+            t.setDaemon(true);
+            return t;
+        });
+        final HttpClient hc = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(REQUEST_TIMEOUT_MS))
+                .build();
+        LOGGER.infof("Running benchmark %s against %s, %.1f users/s for %d ms over %d connections.",
+                b.name, b.host, b.usersPerSec, b.durationMs, b.sharedConnections);
+        stats.startTime = System.currentTimeMillis();
+        arrivals.scheduleAtFixedRate(() -> connections.execute(new Arrival(arrivalNs -> {
+            stats.blocked(System.nanoTime() - arrivalNs);
+            user(b, hc, stats, over);
+        })), 0, (long) (1_000_000_000L / b.usersPerSec), TimeUnit.NANOSECONDS);
+        Thread.sleep(b.durationMs);
+        arrivals.shutdownNow();
+        arrivals.awaitTermination(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        over.set(true);
+        final List<Runnable> dropped = new ArrayList<>();
+        connections.getQueue().drainTo(dropped);
+        final long now = System.nanoTime();
+        for (Runnable r : dropped) {
+            stats.blocked(now - ((Arrival) r).arrivalNs);
+        }
+        if (!dropped.isEmpty()) {
+            LOGGER.infof("Benchmark %s dropped %d users still waiting for a connection.", b.name, dropped.size());
+        }
+        connections.shutdown();
+        if (!connections.awaitTermination(REQUEST_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+            LOGGER.warn("Benchmark " + b.name + " requests did not finish in " + REQUEST_TIMEOUT_MS + " ms after the run, stopping them.");
+            connections.shutdownNow();
+        }
+        stats.endTime = System.currentTimeMillis();
+        LOGGER.infof("Benchmark %s done, requests: %d, responses: %d, timeouts: %d, connection errors: %d, internal errors: %d, invalid: %d.",
+                b.name, stats.requestCount.get(), stats.responseCount(), stats.requestTimeouts.get(), stats.connectionErrors.get(),
+                stats.internalErrors.get(), stats.invalid.get());
+        return stats;
+    }
+
+    private static void user(Benchmark b, HttpClient hc, Stats stats, AtomicBoolean over) {
+        final Map<String, String> session = new HashMap<>();
+        for (List<Step> sequence : b.sequences) {
+            for (Step step : sequence) {
+                if (step instanceof RandomItem) {
+                    final RandomItem r = (RandomItem) step;
+                    session.put(r.toVar, r.list.get(ThreadLocalRandom.current().nextInt(r.list.size())));
+                    continue;
+                }
+                if (over.get()) {
+                    return;
+                }
+                final Request r = (Request) step;
+                final HttpRequest request;
+                try {
+                    request = HttpRequest.newBuilder()
+                            .uri(b.host.resolve(substitute(r.path, session)))
+                            .method(r.method, HttpRequest.BodyPublishers.noBody())
+                            .timeout(Duration.ofMillis(REQUEST_TIMEOUT_MS))
+                            .build();
+                } catch (IllegalArgumentException e) {
+                    stats.internalErrors.incrementAndGet();
+                    LOGGER.debug("Cannot make a request: " + e.getMessage());
+                    return;
+                }
+                stats.requestCount.incrementAndGet();
+                final long start = System.nanoTime();
+                try {
+                    final HttpResponse<Void> response = hc.send(request, HttpResponse.BodyHandlers.discarding());
+                    stats.response(response.statusCode(), System.nanoTime() - start);
+                    if (response.statusCode() < r.minStatus || response.statusCode() > r.maxStatus) {
+                        stats.invalid.incrementAndGet();
+                    }
+                } catch (HttpTimeoutException e) {
+                    stats.requestTimeouts.incrementAndGet();
+                    return;
+                } catch (IOException e) {
+                    stats.connectionErrors.incrementAndGet();
+                    LOGGER.debug("Request " + request.uri() + " failed: " + e.getMessage());
+                    return;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    static String substitute(String template, Map<String, String> session) {
+        final Matcher m = VAR.matcher(template);
+        final StringBuilder sb = new StringBuilder();
+        while (m.find()) {
+            final String value = session.get(m.group(1));
+            if (value == null) {
+                throw new IllegalArgumentException("Variable " + m.group(1) + " is not set.");
+            }
+            m.appendReplacement(sb, Matcher.quoteReplacement(value));
+        }
+        return m.appendTail(sb).toString();
+    }
+
+    @SuppressWarnings("unchecked")
+    static Benchmark benchmark(Object yaml) {
+        final Map<String, Object> root = (Map<String, Object>) yaml;
+        final Map<String, Object> http = (Map<String, Object>) root.get("http");
+        if (http == null || http.get("host") == null) {
+            throw new IllegalArgumentException("Benchmark must set http.host.");
+        }
+        final List<List<Step>> sequences = new ArrayList<>();
+        if (!(root.get("scenario") instanceof List)) {
+            throw new IllegalArgumentException("Only scenario as a list of sequences is supported.");
+        }
+        for (Object sequence : (List<Object>) root.get("scenario")) {
+            for (Object steps : ((Map<String, Object>) sequence).values()) {
+                final List<Step> s = new ArrayList<>();
+                for (Object step : (List<Object>) steps) {
+                    final Map.Entry<String, Object> e = ((Map<String, Object>) step).entrySet().iterator().next();
+                    switch (e.getKey()) {
+                        case "randomItem": {
+                            final Map<String, Object> r = (Map<String, Object>) e.getValue();
+                            s.add(new RandomItem((List<String>) r.get("list"), (String) r.get("toVar")));
+                            break;
+                        }
+                        case "httpRequest":
+                            s.add(request((Map<String, Object>) e.getValue()));
+                            break;
+                        case "awaitVar":
+                            // Users wait for each response anyway
+                            break;
+                        default:
+                            throw new IllegalArgumentException("Unsupported step " + e.getKey());
+                    }
+                }
+                sequences.add(s);
+            }
+        }
+        final String sharedConnections = (String) http.get("sharedConnections");
+        return new Benchmark((String) root.getOrDefault("name", "benchmark"),
+                URI.create((String) http.get("host")),
+                sharedConnections == null ? 1 : Integer.parseInt(sharedConnections),
+                Double.parseDouble((String) root.get("usersPerSec")),
+                durationMs((String) root.get("duration")),
+                sequences);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Request request(Map<String, Object> r) {
+        String method = null;
+        for (String m : new String[]{"GET", "HEAD", "DELETE", "OPTIONS"}) {
+            if (r.containsKey(m)) {
+                method = m;
+            }
+        }
+        if (method == null) {
+            throw new IllegalArgumentException("Only requests without body are supported: " + r.keySet());
+        }
+        int min = 200;
+        int max = 299;
+        final Map<String, Object> handler = (Map<String, Object>) r.get("handler");
+        if (handler != null && handler.get("status") instanceof Map) {
+            final String range = (String) ((Map<String, Object>) handler.get("status")).get("range");
+            if (range != null && range.matches("[1-5]xx")) {
+                min = (range.charAt(0) - '0') * 100;
+                max = min + 99;
+            } else if (range != null) {
+                final String[] bounds = range.split("-");
+                min = Integer.parseInt(bounds[0].trim());
+                max = Integer.parseInt(bounds[bounds.length - 1].trim());
+            }
+        }
+        final String path = (String) r.get(method);
+        // Hyperfoil paths are relative to the host
+        return new Request(method, path.startsWith("/") ? path.substring(1) : path, min, max);
+    }
+
+    static long durationMs(String duration) {
+        final Matcher m = DURATION.matcher(duration == null ? "" : duration.trim());
+        if (!m.matches()) {
+            throw new IllegalArgumentException("Unsupported duration " + duration);
+        }
+        final long v = Long.parseLong(m.group(1));
+        switch (m.group(2)) {
+            case "ms":
+                return v;
+            case "s":
+                return v * 1000L;
+            default:
+                return v * 60_000L;
+        }
+    }
+
+    /**
+     * Parses the block style YAML subset benchmark files are written in: maps, lists, plain and quoted scalars,
+     * flow lists, !param and !concat. Scalars stay strings.
+     */
+    static Object yaml(List<String> lines, Map<String, String> params) {
+        final List<String> content = new ArrayList<>();
+        for (String l : lines) {
+            final String stripped = l.stripTrailing();
+            if (!stripped.isBlank() && !stripped.trim().startsWith("#")) {
+                content.add(stripped);
+            }
+        }
+        if (content.isEmpty()) {
+            return null;
+        }
+        final int[] pos = new int[]{0};
+        return node(content, pos, indent(content.get(0)), params);
+    }
+
+    private static Object node(List<String> lines, int[] pos, int indent, Map<String, String> params) {
+        return lines.get(pos[0]).trim().startsWith("-") ? list(lines, pos, indent, params) : map(lines, pos, indent, params);
+    }
+
+    private static List<Object> list(List<String> lines, int[] pos, int indent, Map<String, String> params) {
+        final List<Object> list = new ArrayList<>();
+        while (pos[0] < lines.size() && indent(lines.get(pos[0])) == indent && lines.get(pos[0]).trim().startsWith("-")) {
+            final String item = lines.get(pos[0]).trim().substring(1).trim();
+            if (item.isEmpty()) {
+                pos[0]++;
+                list.add(pos[0] < lines.size() && indent(lines.get(pos[0])) > indent
+                        ? node(lines, pos, indent(lines.get(pos[0])), params) : null);
+            } else if (KEY.matcher(item).matches()) {
+                // A map starting on the dash line, continue as if the dash was a space
+                final int itemIndent = lines.get(pos[0]).indexOf(item);
+                lines.set(pos[0], " ".repeat(itemIndent) + item);
+                list.add(map(lines, pos, itemIndent, params));
+            } else {
+                pos[0]++;
+                list.add(scalar(item, params));
+            }
+        }
+        return list;
+    }
+
+    private static Map<String, Object> map(List<String> lines, int[] pos, int indent, Map<String, String> params) {
+        final Map<String, Object> map = new LinkedHashMap<>();
+        while (pos[0] < lines.size() && indent(lines.get(pos[0])) == indent && !lines.get(pos[0]).trim().startsWith("-")) {
+            final String line = lines.get(pos[0]).trim();
+            final Matcher m = KEY.matcher(line);
+            if (!m.matches()) {
+                throw new IllegalArgumentException("Unsupported YAML line: " + line);
+            }
+            pos[0]++;
+            final String value = m.group(2) == null ? "" : m.group(2).trim();
+            if (!value.isEmpty()) {
+                map.put(m.group(1), scalar(value, params));
+            } else if (pos[0] < lines.size() && (indent(lines.get(pos[0])) > indent
+                    || (indent(lines.get(pos[0])) == indent && lines.get(pos[0]).trim().startsWith("-")))) {
+                map.put(m.group(1), node(lines, pos, indent(lines.get(pos[0])), params));
+            } else {
+                map.put(m.group(1), null);
+            }
+        }
+        return map;
+    }
+
+    private static Object scalar(String value, Map<String, String> params) {
+        final String v = value.trim();
+        if (v.startsWith("!param ")) {
+            final String name = v.substring("!param ".length()).trim();
+            if (!params.containsKey(name)) {
+                throw new IllegalArgumentException("Benchmark parameter " + name + " is not set.");
+            }
+            return params.get(name);
+        }
+        if (v.startsWith("!concat ")) {
+            final StringBuilder sb = new StringBuilder();
+            for (Object o : flowList(v.substring("!concat ".length()).trim(), params)) {
+                sb.append(o);
+            }
+            return sb.toString();
+        }
+        if (v.startsWith("[")) {
+            return flowList(v, params);
+        }
+        if (v.length() > 1 && (v.startsWith("\"") && v.endsWith("\"") || v.startsWith("'") && v.endsWith("'"))) {
+            return v.substring(1, v.length() - 1);
+        }
+        return v;
+    }
+
+    private static List<Object> flowList(String value, Map<String, String> params) {
+        if (!value.startsWith("[") || !value.endsWith("]")) {
+            throw new IllegalArgumentException("Unsupported YAML value: " + value);
+        }
+        final List<Object> items = new ArrayList<>();
+        final String inner = value.substring(1, value.length() - 1);
+        int depth = 0;
+        char quote = 0;
+        int start = 0;
+        for (int i = 0; i < inner.length(); i++) {
+            final char c = inner.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']') {
+                depth--;
+            } else if (c == ',' && depth == 0) {
+                items.add(scalar(inner.substring(start, i), params));
+                start = i + 1;
+            }
+        }
+        if (!inner.isBlank()) {
+            items.add(scalar(inner.substring(start), params));
+        }
+        return items;
+    }
+
+    private static int indent(String line) {
+        int i = 0;
+        while (i < line.length() && line.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,160 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Embedded load generator reads benchmark.hf.yaml like files and drives load against a local server.
+ */
+@Tag("testing-testsuite")
+public class LoadGeneratorTest {
+
+    private static List<String> benchmark(int port) {
+        return List.of(
+                "name: test-benchmark",
+                "http:",
+                "  host: http://localhost:" + port,
+                "  sharedConnections: 4",
+                "usersPerSec: 40",
+                "duration: 1s",
+                "scenario:",
+                "  - first:",
+                "      # comments are skipped",
+                "      - randomItem:",
+                "          list:",
+                "            - !concat [\"hello/\", !param ENDPOINT, \"/a\"]",
+                "            - !concat [\"hello/\", !param ENDPOINT, \"/b\"]",
+                "          toVar: my-random-path",
+                "      - httpRequest:",
+                "          GET: /${my-random-path}",
+                "          metric:",
+                "            - .*\\.html -> pages",
+                "            - -> other",
+                "          handler:",
+                "            status:",
+                "              range: 2xx",
+                "            onCompletion:",
+                "              set: completed <- yes",
+                "          sync: false",
+                "      - awaitVar: completed",
+                "  - second:",
+                "      - httpRequest:",
+                "          GET: /missing",
+                "          handler:",
+                "            status:",
+                "              range: 2xx",
+                "      - awaitVar: secondDone");
+    }
+
+    @Test
+    public void parse() {
+        final LoadGenerator.Benchmark b = LoadGenerator.benchmark(LoadGenerator.yaml(benchmark(8080), Map.of("ENDPOINT", "work")));
+        assertEquals("test-benchmark", b.name);
+        assertEquals("http://localhost:8080", b.host.toString());
+        assertEquals(4, b.sharedConnections);
+        assertEquals(40.0, b.usersPerSec);
+        assertEquals(1000L, b.durationMs);
+        assertEquals(2, b.sequences.size());
+        final LoadGenerator.RandomItem r = (LoadGenerator.RandomItem) b.sequences.get(0).get(0);
+        assertEquals(List.of("hello/work/a", "hello/work/b"), r.list);
+        assertEquals("my-random-path", r.toVar);
+        final LoadGenerator.Request req = (LoadGenerator.Request) b.sequences.get(0).get(1);
+        assertEquals("GET", req.method);
+        assertEquals("${my-random-path}", req.path);
+        assertEquals(200, req.minStatus);
+        assertEquals(299, req.maxStatus);
+        assertEquals(1, b.sequences.get(1).size());
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.yaml(benchmark(8080), Map.of()));
+        assertEquals(500L, LoadGenerator.durationMs("500ms"));
+        assertEquals(120_000L, LoadGenerator.durationMs("2m"));
+        assertEquals(90L, LoadGenerator.percentile(new long[]{10, 20, 30, 40, 50, 60, 70, 80, 90, 100}, 90.0));
+        assertEquals(100L, LoadGenerator.percentile(new long[]{10, 20, 30, 40, 50, 60, 70, 80, 90, 100}, 99.0));
+    }
+
+    @Test
+    public void run() throws IOException, InterruptedException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        final Set<String> paths = ConcurrentHashMap.newKeySet();
+        server.createContext("/", exchange -> {
+            paths.add(exchange.getRequestURI().getPath());
+            final int status = exchange.getRequestURI().getPath().startsWith("/hello/") ? 200 : 404;
+            exchange.sendResponseHeaders(status, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final LoadGenerator.Benchmark b = LoadGenerator.benchmark(
+                    LoadGenerator.yaml(benchmark(server.getAddress().getPort()), Map.of("ENDPOINT", "regular")));
+            final LoadGenerator.Stats stats = LoadGenerator.run(b);
+            // Open model: ~40 users in a second, two requests each
+            assertTrue(stats.requestCount() >= 60 && stats.requestCount() <= 100, "Unexpected request count " + stats.requestCount());
+            assertEquals(stats.requestCount(), stats.responseCount());
+            assertEquals(Set.of("/hello/regular/a", "/hello/regular/b", "/missing"), paths);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void stopsAtDuration() throws IOException, InterruptedException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        try {
+            final LoadGenerator.Request slow = new LoadGenerator.Request("GET", "slow", 200, 299);
+            // The app keeps up with 5 requests/s, 50 users/s with two requests each arrive
+            final LoadGenerator.Benchmark b = new LoadGenerator.Benchmark("slow-benchmark",
+                    URI.create("http://localhost:" + server.getAddress().getPort()), 1, 50, 500, List.of(List.of(slow, slow)));
+            final long start = System.currentTimeMillis();
+            final LoadGenerator.Stats stats = LoadGenerator.run(b);
+            final long tookMs = System.currentTimeMillis() - start;
+            assertTrue(tookMs < 1500, "Users waiting for a connection must be dropped at the end of the run, took " + tookMs + " ms");
+            assertTrue(stats.requestCount() <= 5, "Unexpected request count " + stats.requestCount());
+            assertEquals(stats.requestCount(), stats.responseCount(), "Requests in flight must be waited for");
+            assertTrue(stats.blockedTimeNs() > 500_000_000L, "Dropped users must count as blocked, was " + stats.blockedTimeNs() + " ns");
+        } finally {
+            server.stop(0);
+        }
+    }
+}
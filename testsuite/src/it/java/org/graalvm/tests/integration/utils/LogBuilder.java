@@ -62,6 +62,18 @@ public class LogBuilder {
     private long responseTime99Percentile = -1L;
     private static final String openedFilesHeader = "FDs";
     private long openedFiles = -1L;
+    private static final String peakRssKbHeader = "peakRSSKb";
+    private long peakRssKb = -1L;
+    private static final String peakPssKbHeader = "peakPSSKb";
+    private long peakPssKb = -1L;
+    private static final String peakThreadsHeader = "peakThreads";
+    private long peakThreads = -1L;
+    private static final String peakOpenedFilesHeader = "peakFDs";
+    private long peakOpenedFiles = -1L;
+    private static final String cpuUserMsHeader = "cpuUserMs";
+    private long cpuUserMs = -1L;
+    private static final String cpuSystemMsHeader = "cpuSystemMs";
+    private long cpuSystemMs = -1L;
     private static final String appHeader = "App";
     private String app = null;
 
@@ -148,6 +160,30 @@ public class LogBuilder {
         return this;
     }
 
+    /**
+     * Peaks sampled over the whole run, values the sampler could not read are left out.
+     */
+    public LogBuilder procSamples(ProcSampler sampler) {
+        Objects.requireNonNull(sampler, "Valid sampler must be provided");
+        this.peakRssKb = sampler.peakRssKb();
+        this.peakPssKb = sampler.peakPssKb();
+        this.peakThreads = sampler.peakThreads();
+        this.peakOpenedFiles = sampler.peakFDs();
+        return this;
+    }
+
+    /**
+     * Peak memory and CPU time of a container, read from its cgroup. Peak RSS here is the usage as
+     * podman/docker stats report it, i.e. without inactive page cache.
+     */
+    public LogBuilder containerSamples(ContainerSampler sampler) {
+        Objects.requireNonNull(sampler, "Valid sampler must be provided");
+        this.peakRssKb = sampler.peakUsageKb();
+        this.cpuUserMs = sampler.cpuUserMs();
+        this.cpuSystemMs = sampler.cpuSystemMs();
+        return this;
+    }
+
     public LogBuilder app(Apps app) {
         Objects.requireNonNull(app, "Valid app flavour must be provided");
         this.app = app.toString();
@@ -248,6 +284,48 @@ public class LogBuilder {
             l.append(',');
             sections++;
         }
+        if (peakRssKb != -1L) {
+            h.append(peakRssKbHeader);
+            h.append(',');
+            l.append(peakRssKb);
+            l.append(',');
+            sections++;
+        }
+        if (peakPssKb != -1L) {
+            h.append(peakPssKbHeader);
+            h.append(',');
+            l.append(peakPssKb);
+            l.append(',');
+            sections++;
+        }
+        if (peakThreads != -1L) {
+            h.append(peakThreadsHeader);
+            h.append(',');
+            l.append(peakThreads);
+            l.append(',');
+            sections++;
+        }
+        if (peakOpenedFiles != -1L) {
+            h.append(peakOpenedFilesHeader);
+            h.append(',');
+            l.append(peakOpenedFiles);
+            l.append(',');
+            sections++;
+        }
+        if (cpuUserMs != -1L) {
+            h.append(cpuUserMsHeader);
+            h.append(',');
+            l.append(cpuUserMs);
+            l.append(',');
+            sections++;
+        }
+        if (cpuSystemMs != -1L) {
+            h.append(cpuSystemMsHeader);
+            h.append(',');
+            l.append(cpuSystemMs);
+            l.append(',');
+            sections++;
+        }
         String header = h.toString();
         // Strip trailing ',' for CSV
         String headerCSV = header.substring(0, header.length() - 1);
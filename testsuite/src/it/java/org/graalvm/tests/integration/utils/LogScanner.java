@@ -0,0 +1,535 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Single pass over a log, e.g. build-and-run.log, feeding every registered extractor at once.
+ *
+ * The log is split into sections on the "Command: ..." lines written by
+ * {@link Commands#runCommand(List, java.io.File, java.io.File, Apps)} and {@link Commands.ProcessRunner}.
+ * Lines before the first such marker form a section with a null command. Each section gets
+ * a fresh instance of every registered extractor, the marker line itself is fed to them too.
+ *
+ * e.g.
+ * <pre>
+ * final LogScanner.Sections sections = new LogScanner()
+ *         .perfStat(statsFor)
+ *         .serialGC(statsFor)
+ *         .whitelist(app)
+ *         .scan(processLog.toPath());
+ * final Commands.PerfRecord pr = sections.first(LogScanner.PERF_STAT);
+ * </pre>
+ */
+public class LogScanner {
+    public static final String COMMAND_MARKER = "Command: ";
+    // Written by tests between phases of a run, see Phases
+    public static final String PHASE_MARKER = "Phase: ";
+    public static final String PERF_STAT = "perfStat";
+    public static final String SERIAL_GC = "serialGC";
+    public static final String WHITELIST = "whitelist";
+
+    /**
+     * Consumes lines of one section.
+     *
+     * @param <T> result type
+     */
+    public interface Extractor<T> {
+        void accept(String line);
+
+        /**
+         * @return what was extracted from the section or null if there was nothing relevant in it
+         */
+        T result();
+    }
+
+    private final Map<String, Supplier<Extractor<?>>> extractors = new LinkedHashMap<>();
+
+    public LogScanner register(String name, Supplier<Extractor<?>> extractor) {
+        if (extractors.putIfAbsent(name, extractor) != null) {
+            throw new IllegalArgumentException("Extractor " + name + " is already registered");
+        }
+        return this;
+    }
+
+    /**
+     * Collects the given group of every matching line.
+     */
+    public LogScanner collect(String name, Pattern pattern, int group) {
+        return register(name, () -> new Collector(pattern, group));
+    }
+
+    public LogScanner perfStat(String statsFor) {
+        return register(PERF_STAT, () -> new PerfStatExtractor(statsFor));
+    }
+
+    /**
+     * GC pauses of the run, see {@link GCLog} for the log formats. Despite the name, any collector the GCLog reads.
+     */
+    public LogScanner serialGC(String statsFor) {
+        return register(SERIAL_GC, () -> new SerialGCExtractor(statsFor));
+    }
+
+    public LogScanner whitelist(Pattern errorDetection, WhitelistMatcher whitelist) {
+        return register(WHITELIST, () -> new WhitelistExtractor(errorDetection, whitelist));
+    }
+
+    public LogScanner whitelist(Apps app) {
+        return whitelist(Logs.WARN_ERROR_DETECTION_PATTERN, WhitelistMatcher.of(app));
+    }
+
+    public Sections scan(Path log) throws IOException {
+        final List<Section> sections = new ArrayList<>();
+        // Default UTF-8 decoder replaces malformed input instead of giving up on the rest of the file.
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(Files.newInputStream(log), UTF_8))) {
+            Section current = null;
+            Map<String, Extractor<?>> active = null;
+            String line;
+            int lineNumber = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (current == null || line.startsWith(COMMAND_MARKER)) {
+                    if (current != null) {
+                        current.finish(active);
+                    }
+                    current = new Section(line.startsWith(COMMAND_MARKER) ? line.substring(COMMAND_MARKER.length()) : null, lineNumber);
+                    sections.add(current);
+                    active = new LinkedHashMap<>(extractors.size());
+                    for (Map.Entry<String, Supplier<Extractor<?>>> e : extractors.entrySet()) {
+                        active.put(e.getKey(), e.getValue().get());
+                    }
+                }
+                for (Extractor<?> e : active.values()) {
+                    e.accept(line);
+                }
+            }
+            if (current != null) {
+                current.finish(active);
+            }
+        }
+        return new Sections(sections, extractors.keySet());
+    }
+
+    public static class Section {
+        /**
+         * Command as written after the marker, null for lines preceding the first marker.
+         */
+        public final String command;
+        public final int firstLine;
+        private final Map<String, Object> results = new LinkedHashMap<>();
+
+        Section(String command, int firstLine) {
+            this.command = command;
+            this.firstLine = firstLine;
+        }
+
+        private void finish(Map<String, Extractor<?>> extractors) {
+            extractors.forEach((name, e) -> {
+                final Object r = e.result();
+                if (r != null) {
+                    results.put(name, r);
+                }
+            });
+        }
+
+        @SuppressWarnings("unchecked")
+        public <T> T get(String name) {
+            return (T) results.get(name);
+        }
+    }
+
+    public static class Sections {
+        public final List<Section> sections;
+        private final Set<String> registered;
+
+        Sections(List<Section> sections, Set<String> registered) {
+            this.sections = Collections.unmodifiableList(sections);
+            this.registered = Set.copyOf(registered);
+        }
+
+        public boolean hasExtractor(String name) {
+            return registered.contains(name);
+        }
+
+        /**
+         * @return result of the first section the extractor found something in, null if there is none
+         */
+        public <T> T first(String name) {
+            for (Section s : sections) {
+                final T r = s.get(name);
+                if (r != null) {
+                    return r;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * @return results of all sections the extractor found something in, in log order
+         */
+        public <T> List<T> all(String name) {
+            final List<T> r = new ArrayList<>();
+            for (Section s : sections) {
+                final T t = s.get(name);
+                if (t != null) {
+                    r.add(t);
+                }
+            }
+            return r;
+        }
+
+        /**
+         * @return all values gathered by a {@link LogScanner#collect(String, Pattern, int)} extractor across sections
+         */
+        public List<String> collected(String name) {
+            final List<String> r = new ArrayList<>();
+            for (List<String> l : this.<List<String>>all(name)) {
+                r.addAll(l);
+            }
+            return r;
+        }
+    }
+
+    public static class Collector implements Extractor<List<String>> {
+        private final Pattern pattern;
+        private final int group;
+        private final List<String> values = new ArrayList<>();
+
+        public Collector(Pattern pattern, int group) {
+            this.pattern = pattern;
+            this.group = group;
+        }
+
+        @Override
+        public void accept(String line) {
+            final Matcher m = pattern.matcher(line);
+            if (m.matches()) {
+                values.add(m.group(group));
+            }
+        }
+
+        @Override
+        public List<String> result() {
+            return values.isEmpty() ? null : values;
+        }
+    }
+
+    /**
+     * Output of perf stat for a particular command, the first block found in the section wins.
+     */
+    public static class PerfStatExtractor implements Extractor<Commands.PerfRecord> {
+        /*
+        An alternative would be to read it all in a one scary chunk:
+        final Pattern p = Pattern.compile(".*Performance counter stats for '(?<file>" + filename + ")':\\s*$+" +
+                        "\\s*(?<taskclock>[0-9\\.,]*)\\s*msec\\s*task-clock.*$" +
+                        "\\s*(?<contextswitches>[0-9\\.,]*)\\s*context-switches.*$" +
+                        "\\s*(?<cpumigrations>[0-9\\.,]*)\\s*cpu-migrations.*$" +
+                        "\\s*(?<pagefaults>[0-9\\.,]*)\\s*page-faults.*$" +
+                        "\\s*(?<cycles>[0-9\\.,]*)\\s*cycles.*$" +
+                        "\\s*(?<instructions>[0-9\\.,]*)\\s*instructions.*$" +
+                        "\\s*(?<branches>[0-9\\.,]*)\\s*branches.*$" +
+                        "\\s*(?<branchmisses>[0-9\\.,]*)\\s*branch-misses.*$+" +
+                        "\\s*(?<secondstimeelapsed>[0-9\\.,]*)\\s*seconds time elapsed.*$"
+                , Pattern.DOTALL | Pattern.MULTILINE);
+       */
+        private static final Pattern TASK_CLOCK = Pattern.compile("\\s*([0-9\\.,]+)\\s*msec\\s*task-clock.*$");
+        private static final Pattern CONTEXT_SWITCHES = Pattern.compile("\\s*([0-9\\.,]+)\\s*context-switches.*$");
+        private static final Pattern CPU_MIGRATIONS = Pattern.compile("\\s*([0-9\\.,]+)\\s*cpu-migrations.*$");
+        private static final Pattern PAGE_FAULTS = Pattern.compile("\\s*([0-9\\.,]+)\\s*page-faults.*$");
+        private static final Pattern CYCLES = Pattern.compile("\\s*([0-9\\.,]+)\\s*cycles.*$");
+        private static final Pattern INSTRUCTIONS = Pattern.compile("\\s*([0-9\\.,]+)\\s*instructions.*$");
+        private static final Pattern BRANCHES = Pattern.compile("\\s*([0-9\\.,]+)\\s*branches.*$");
+        private static final Pattern BRANCH_MISSES = Pattern.compile("\\s*([0-9\\.,]+)\\s*branch-misses.*$");
+        private static final Pattern SECONDS_TIME_ELAPSED = Pattern.compile("\\s*([0-9\\.,]+)\\s*seconds time elapsed.*$");
+
+        private final String statsFor;
+        private final Pattern begin;
+        private Commands.PerfRecord pr;
+        // Set for perf stat -x, null for the human-readable output
+        private String separator;
+        private boolean interval;
+
+        public PerfStatExtractor(String statsFor) {
+            this.statsFor = statsFor;
+            this.begin = Pattern.compile(".*Performance counter stats for\\s+'\\Q" + statsFor + "\\E':.*");
+        }
+
+        @Override
+        public void accept(String rawLine) {
+            if (pr == null) {
+                if (begin.matcher(rawLine).matches()) {
+                    pr = new Commands.PerfRecord();
+                    pr.file = statsFor;
+                } else if (rawLine.startsWith(COMMAND_MARKER + "perf stat ") && rawLine.endsWith(" " + statsFor)) {
+                    // Machine-readable output has no header, it is all in the section of the command
+                    final List<String> options = List.of(rawLine.substring(0, rawLine.length() - statsFor.length()).trim().split(" "));
+                    final int x = options.indexOf("-x");
+                    if (x > 0 && x + 1 < options.size()) {
+                        separator = options.get(x + 1);
+                        interval = options.contains("-I");
+                        pr = new Commands.PerfRecord();
+                        pr.file = statsFor;
+                    }
+                }
+                return;
+            }
+            if (separator != null) {
+                acceptCSV(rawLine);
+                return;
+            }
+            if (pr.secondsTimeElapsed != -1) {
+                return;
+            }
+            final String line = rawLine.replace(",", "");
+            Matcher m = TASK_CLOCK.matcher(line);
+            if (m.matches()) {
+                pr.taskClock = Double.parseDouble(m.group(1));
+                return;
+            }
+            m = CONTEXT_SWITCHES.matcher(line);
+            if (m.matches()) {
+                pr.contextSwitches = Long.parseLong(m.group(1));
+                return;
+            }
+            m = CPU_MIGRATIONS.matcher(line);
+            if (m.matches()) {
+                pr.cpuMigrations = Long.parseLong(m.group(1));
+                return;
+            }
+            m = PAGE_FAULTS.matcher(line);
+            if (m.matches()) {
+                pr.pageFaults = Long.parseLong(m.group(1));
+                return;
+            }
+            m = CYCLES.matcher(line);
+            if (m.matches()) {
+                pr.cycles = Long.parseLong(m.group(1));
+                return;
+            }
+            m = INSTRUCTIONS.matcher(line);
+            if (m.matches()) {
+                pr.instructions = Long.parseLong(m.group(1));
+                return;
+            }
+            m = BRANCHES.matcher(line);
+            if (m.matches()) {
+                pr.branches = Long.parseLong(m.group(1));
+                return;
+            }
+            m = BRANCH_MISSES.matcher(line);
+            if (m.matches()) {
+                pr.branchMisses = Long.parseLong(m.group(1));
+                return;
+            }
+            m = SECONDS_TIME_ELAPSED.matcher(line);
+            if (m.matches()) {
+                pr.secondsTimeElapsed = Double.parseDouble(m.group(1));
+            }
+        }
+
+        /**
+         * [interval time;]value;unit;event;run time;enabled %;metric value;metric unit
+         * e.g. 0.100123456;123456;;cpu_core/cycles/;99000000;100.00;;
+         */
+        private void acceptCSV(String line) {
+            final String[] f = line.trim().split(Pattern.quote(separator), -1);
+            final int i = interval ? 1 : 0;
+            if (f.length < i + 4 || f[i + 2].isEmpty() || !f[i + 3].matches("[0-9]+")) {
+                // App's output
+                return;
+            }
+            if (f[i].startsWith("<")) {
+                // <not counted>, <not supported>
+                return;
+            }
+            final double timeMs;
+            final double value;
+            try {
+                timeMs = interval ? Double.parseDouble(f[0].replace(',', '.')) * 1000d : -1;
+                value = Double.parseDouble(f[i].replace(',', '.'));
+            } catch (NumberFormatException e) {
+                return;
+            }
+            // cpu_core/cycles/ and cpu_atom/cycles/ are both cycles, so are cycles:u
+            String event = f[i + 2];
+            if (event.indexOf('/') >= 0) {
+                event = event.split("/")[1];
+            }
+            event = event.replaceFirst(":[a-zA-Z]+$", "");
+            pr.counters.merge(event, value, Double::sum);
+            if (interval) {
+                final List<double[]> s = pr.series.computeIfAbsent(event, k -> new ArrayList<>());
+                if (!s.isEmpty() && s.get(s.size() - 1)[0] == timeMs) {
+                    s.get(s.size() - 1)[1] += value;
+                } else {
+                    s.add(new double[]{timeMs, value});
+                }
+            }
+        }
+
+        @Override
+        public Commands.PerfRecord result() {
+            if (separator != null) {
+                if (pr.counters.isEmpty()) {
+                    return null;
+                }
+                final Map<String, Double> c = pr.counters;
+                pr.taskClock = c.getOrDefault("task-clock", -1d);
+                pr.contextSwitches = Math.round(c.getOrDefault("context-switches", c.getOrDefault("cs", -1d)));
+                pr.cpuMigrations = Math.round(c.getOrDefault("cpu-migrations", -1d));
+                pr.pageFaults = Math.round(c.getOrDefault("page-faults", c.getOrDefault("faults", -1d)));
+                pr.cycles = Math.round(c.getOrDefault("cycles", -1d));
+                pr.instructions = Math.round(c.getOrDefault("instructions", -1d));
+                pr.branches = Math.round(c.getOrDefault("branches", -1d));
+                pr.branchMisses = Math.round(c.getOrDefault("branch-misses", -1d));
+                if (c.containsKey("duration_time")) {
+                    pr.secondsTimeElapsed = c.get("duration_time") / 1e9;
+                } else if (!pr.series.isEmpty()) {
+                    final List<double[]> s = pr.series.values().iterator().next();
+                    pr.secondsTimeElapsed = s.get(s.size() - 1)[0] / 1000d;
+                }
+            }
+            return pr;
+        }
+    }
+
+    /**
+     * GC events logged after the command line was echoed until Quarkus reports it stopped.
+     * Events after a {@link #PHASE_MARKER} line are also counted for that phase.
+     */
+    public static class SerialGCExtractor implements Extractor<Commands.SerialGCLog> {
+        private static final Pattern END = Pattern.compile(".*quarkus.*stopped.*");
+
+        private final Pattern begin;
+        private Commands.SerialGCLog l;
+        private Commands.SerialGCLog phase;
+        private boolean linesAfterBegin = false;
+        private boolean done = false;
+
+        public SerialGCExtractor(String statsFor) {
+            this.begin = Pattern.compile(".*\\s+\\Q" + statsFor + "\\E$");
+        }
+
+        @Override
+        public void accept(String line) {
+            if (done) {
+                return;
+            }
+            if (l == null) {
+                if (begin.matcher(line).matches()) {
+                    l = new Commands.SerialGCLog();
+                }
+                return;
+            }
+            linesAfterBegin = true;
+            if (END.matcher(line).matches()) {
+                done = true;
+                return;
+            }
+            if (line.startsWith(PHASE_MARKER)) {
+                phase = new Commands.SerialGCLog();
+                l.phases.put(line.substring(PHASE_MARKER.length()).trim(), phase);
+                return;
+            }
+            final GCLog.Pause p = l.gc.accept(line);
+            if (p != null) {
+                add(l, p);
+                if (phase != null) {
+                    phase.gc.add(p);
+                    add(phase, p);
+                }
+            }
+        }
+
+        private static void add(Commands.SerialGCLog log, GCLog.Pause p) {
+            if (p.kind == GCLog.Kind.FULL) {
+                log.fullGCevents = log.fullGCevents + 1;
+            } else if (p.kind == GCLog.Kind.YOUNG) {
+                log.incrementalGCevents = log.incrementalGCevents + 1;
+            }
+            log.timeSpentInGCs = log.timeSpentInGCs + p.pauseMs / 1000.0;
+        }
+
+        @Override
+        public Commands.SerialGCLog result() {
+            // Tests echo the command line right before running it, i.e. just before the next "Command:" marker.
+            // Such a match closing a section is not the run itself.
+            return linesAfterBegin ? l : null;
+        }
+    }
+
+    public static class WhitelistResult {
+        /**
+         * How many lines each whitelist rule let through, in the order the rules first fired.
+         */
+        public final Map<Pattern, Integer> ruleHits = new LinkedHashMap<>();
+        public final Set<String> offending = new LinkedHashSet<>();
+    }
+
+    /**
+     * Error and warning lines, split to whitelisted and offending ones.
+     */
+    public static class WhitelistExtractor implements Extractor<WhitelistResult> {
+        private final Pattern errorDetection;
+        private final WhitelistMatcher whitelist;
+        private final WhitelistResult r = new WhitelistResult();
+
+        public WhitelistExtractor(Pattern errorDetection, WhitelistMatcher whitelist) {
+            this.errorDetection = errorDetection;
+            this.whitelist = whitelist;
+        }
+
+        @Override
+        public void accept(String line) {
+            if (!errorDetection.matcher(line).matches()) {
+                return;
+            }
+            final int rule = whitelist.match(line);
+            if (rule == WhitelistMatcher.NO_MATCH) {
+                r.offending.add(line);
+            } else {
+                r.ruleHits.merge(whitelist.rule(rule), 1, Integer::sum);
+            }
+        }
+
+        @Override
+        public WhitelistResult result() {
+            return r.ruleHits.isEmpty() && r.offending.isEmpty() ? null : r;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Single pass extraction from build-and-run.log like logs.
+ */
+@Tag("testing-testsuite")
+public class LogScannerTest {
+
+    @Test
+    public void sectionsAndExtractors() throws IOException {
+        final String statsFor = "java -Xlog:gc -jar target/app-runner.jar";
+        final Path log = Files.createTempFile(LogScannerTest.class.getSimpleName(), ".log");
+        try {
+            Files.writeString(log, String.join("\n",
+                    "Preamble WARNING: whatever",
+                    "Command: mvn package",
+                    "[INFO] BUILD SUCCESS",
+                    // Test echoes the command before running it
+                    "perf stat " + statsFor,
+                    "Command: perf stat " + statsFor,
+                    "Hello, 1",
+                    "Phase: coldStart",
+                    "[0.100s][info][gc] GC(0) Pause Young (Allocation Failure) 5M->1M(20M) 2.000ms",
+                    "Phase: warmUp",
+                    "Phase: loadHash",
+                    "[0.200s][info][gc] GC(1) Pause Full (Allocation Failure) 5M->1M(20M) 4.000ms",
+                    "quarkus-app stopped in 0.010s",
+                    "[0.300s][info][gc] GC(2) Pause Young (Allocation Failure) 5M->1M(20M) 8.000ms",
+                    " Performance counter stats for '" + statsFor + "':",
+                    "          1,234.50 msec task-clock                #    1.000 CPUs utilized",
+                    "               100      context-switches          #   81.004 /sec",
+                    "       1.500000000 seconds time elapsed",
+                    "Command: ./app",
+                    "Hello, 2",
+                    "ERROR: Something bad",
+                    "ERROR: Something expected"), UTF_8);
+
+            final LogScanner.Sections sections = new LogScanner()
+                    .collect("hello", Pattern.compile("Hello, (.*)"), 1)
+                    .perfStat(statsFor)
+                    .serialGC(statsFor)
+                    .whitelist(Pattern.compile("(?i:.*(ERROR|WARN).*)"), new WhitelistMatcher(new Pattern[]{Pattern.compile(".*expected.*")}))
+                    .scan(log);
+
+            assertEquals(4, sections.sections.size());
+            assertNull(sections.sections.get(0).command);
+            assertEquals("perf stat " + statsFor, sections.sections.get(2).command);
+            assertEquals(5, sections.sections.get(2).firstLine);
+            assertEquals(List.of("1", "2"), sections.collected("hello"));
+
+            final Commands.PerfRecord pr = sections.first(LogScanner.PERF_STAT);
+            assertEquals(1234.5, pr.taskClock);
+            assertEquals(100, pr.contextSwitches);
+            assertEquals(-1, pr.cycles);
+            assertEquals(1.5, pr.secondsTimeElapsed);
+
+            assertEquals(1, sections.all(LogScanner.SERIAL_GC).size(), "The echoed command closing a section must not count as the run.");
+            final Commands.SerialGCLog gc = Commands.parseSerialGCLog(sections);
+            assertEquals(1, gc.incrementalGCevents);
+            assertEquals(1, gc.fullGCevents);
+            assertEquals(0.006, gc.timeSpentInGCs, 0.0000001);
+            assertEquals(List.of("coldStart", "warmUp", "loadHash"), List.copyOf(gc.phases.keySet()));
+            assertEquals(1, gc.phases.get("coldStart").incrementalGCevents);
+            assertEquals(0, gc.phases.get("warmUp").incrementalGCevents + gc.phases.get("warmUp").fullGCevents);
+            assertEquals(1, gc.phases.get("loadHash").fullGCevents);
+            assertEquals(0.004, gc.phases.get("loadHash").timeSpentInGCs, 0.0000001);
+
+            final List<LogScanner.WhitelistResult> wl = sections.all(LogScanner.WHITELIST);
+            assertEquals(2, wl.size());
+            assertTrue(wl.get(0).offending.contains("Preamble WARNING: whatever"));
+            assertEquals(1, (int) wl.get(1).ruleHits.values().iterator().next());
+            assertEquals(1, wl.get(1).offending.size());
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+    @Test
+    public void machineReadablePerfStat() throws IOException {
+        final String[] cmd = Commands.perfStat("--delay", "1000", "./target/app-runner", "-XX:+PrintGC");
+        final String statsFor = Commands.perfStatTarget(cmd);
+        assertEquals("./target/app-runner -XX:+PrintGC", statsFor);
+        final Path log = Files.createTempFile(LogScannerTest.class.getSimpleName(), ".log");
+        try {
+            Files.writeString(log, String.join("\n",
+                    "Command: perf stat -x ; -e duration_time,task-clock,cycles,instructions,LLC-load-misses -I 100 --delay 1000 " + statsFor,
+                    "Events disabled",
+                    "Events enabled",
+                    "Hello; from; the app; 12; 100",
+                    "     0.100100000;100000000;ns;duration_time;100000000;100.00;;",
+                    "     0.100100000;99,5;msec;task-clock;99500000;100.00;0,995;CPUs utilized",
+                    "     0.100100000;1000;;cpu_core/cycles/;99500000;100.00;;",
+                    "     0.100100000;500;;cpu_atom/cycles/;99500000;100.00;;",
+                    "     0.100100000;3000;;cpu_core/instructions/;99500000;100.00;2,00;insn per cycle",
+                    "     0.100100000;<not supported>;;LLC-load-misses;0;100.00;;",
+                    "     0.200200000;100000000;ns;duration_time;100000000;100.00;;",
+                    "     0.200200000;50.5;msec;task-clock;50500000;100.00;0.505;CPUs utilized",
+                    "     0.200200000;2000;;cycles:u;50500000;100.00;;",
+                    "     0.200200000;2000;;instructions:u;50500000;100.00;1.00;insn per cycle",
+                    "     0.200200000;7;;LLC-load-misses;50500000;100.00;;"), UTF_8);
+
+            final Commands.PerfRecord pr = new LogScanner().perfStat(statsFor).scan(log).first(LogScanner.PERF_STAT);
+            assertEquals(150.0, pr.taskClock, 0.0000001, "Decimal comma of some locales is a decimal point too");
+            assertEquals(3500, pr.cycles, "Hybrid core and atom cycles are summed up");
+            assertEquals(5000, pr.instructions);
+            assertEquals(0.2, pr.secondsTimeElapsed, 0.0000001);
+            assertEquals(-1, pr.branches);
+            assertEquals(7.0, (double) pr.counters.get("LLC-load-misses"));
+            assertEquals(2, pr.series.get("cycles").size());
+
+            final Report report = new Report();
+            pr.toReport(report);
+            assertEquals(7L, report.getLong("llcLoadMisses"));
+            assertEquals("100:1500 200:2000", report.get("cyclesSeries"));
+            assertEquals("100:2 200:1", report.get("ipcSeries"));
+            assertNull(report.get("durationTimeSeries"));
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Buffered sink for process output, e.g. native-image builder output going to build-and-run.log.
+ *
+ * The log file channel is opened once and kept open. Lines are batched in memory
+ * and written either when the batch grows over LOG_SINK_BUFFER_KB or when
+ * LOG_SINK_FLUSH_INTERVAL_MS elapses, whichever comes first. Either way the batch is
+ * written by the flusher thread, the thread reading the process output never waits
+ * for the disk. Console echo of the lines, in the same order as in the file,
+ * can be switched off with LOG_SINK_CONSOLE_ECHO=false.
+ *
+ * Other threads can {@link #subscribe()} to get every new line as it arrives,
+ * without re-reading the log file.
+ */
+public class LogSink implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(LogSink.class.getName());
+
+    public static final boolean CONSOLE_ECHO = Boolean.parseBoolean(getProperty("LOG_SINK_CONSOLE_ECHO", "true"));
+    public static final long FLUSH_INTERVAL_MS = Long.parseLong(getProperty("LOG_SINK_FLUSH_INTERVAL_MS", "200"));
+    public static final int BUFFER_BYTES = Integer.parseInt(getProperty("LOG_SINK_BUFFER_KB", "64")) * 1024;
+
+    private static final Map<Path, LogSink> ACTIVE = new ConcurrentHashMap<>();
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        final Thread t = new Thread(r, "log-sink-flusher");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final Path path;
+    private final FileChannel channel;
+    private final boolean consoleEcho;
+    private final StringBuilder batch = new StringBuilder(BUFFER_BYTES);
+    private final List<BlockingQueue<String>> subscribers = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> periodicFlush;
+    private boolean closed = false;
+    // A full batch has been handed to the flusher
+    private boolean flushRequested = false;
+
+    private LogSink(Path path, boolean consoleEcho) throws IOException {
+        this.path = path;
+        this.consoleEcho = consoleEcho;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.periodicFlush = FLUSHER.scheduleWithFixedDelay(this::flushQuietly, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Opens a sink appending to the given file and registers it so that
+     * other threads can find it with {@link #active(Path)}.
+     *
+     * @param path log file, created if it does not exist
+     * @param consoleEcho whether to print the lines to stdout too
+     * @return the sink, caller is responsible for closing it
+     * @throws IOException
+     */
+    public static LogSink open(Path path, boolean consoleEcho) throws IOException {
+        final LogSink sink = new LogSink(path, consoleEcho);
+        ACTIVE.put(path.toAbsolutePath().normalize(), sink);
+        return sink;
+    }
+
+    public static LogSink open(Path path) throws IOException {
+        return open(path, CONSOLE_ECHO);
+    }
+
+    /**
+     * @param path log file
+     * @return the currently open sink writing to the file or null if there is none
+     */
+    public static LogSink active(Path path) {
+        return ACTIVE.get(path.toAbsolutePath().normalize());
+    }
+
+    public void append(String line) throws IOException {
+        boolean full;
+        synchronized (batch) {
+            if (closed) {
+                throw new IOException("Log sink for " + path + " is already closed");
+            }
+            batch.append(line).append('\n');
+            full = batch.length() >= BUFFER_BYTES && !flushRequested;
+            if (full) {
+                flushRequested = true;
+            }
+        }
+        for (BlockingQueue<String> s : subscribers) {
+            s.offer(line);
+        }
+        if (full) {
+            FLUSHER.execute(this::flushQuietly);
+        }
+    }
+
+    /**
+     * Every line appended after this call is offered to the returned queue.
+     * Mind to {@link #unsubscribe(BlockingQueue)} once not interested anymore.
+     */
+    public BlockingQueue<String> subscribe() {
+        final BlockingQueue<String> q = new LinkedBlockingQueue<>();
+        subscribers.add(q);
+        return q;
+    }
+
+    public void unsubscribe(BlockingQueue<String> q) {
+        subscribers.remove(q);
+    }
+
+    public void flush() throws IOException {
+        synchronized (batch) {
+            flushRequested = false;
+            if (batch.length() == 0 || !channel.isOpen()) {
+                return;
+            }
+            final String chunk = batch.toString();
+            batch.setLength(0);
+            // Writing and echoing under the lock keeps chunks in order in both.
+            final ByteBuffer buffer = ByteBuffer.wrap(chunk.getBytes(UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (consoleEcho) {
+                System.out.print(chunk);
+                System.out.flush();
+            }
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            LOGGER.error("Failed to flush " + path, e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        periodicFlush.cancel(false);
+        try {
+            flush();
+        } finally {
+            synchronized (batch) {
+                closed = true;
+                channel.close();
+            }
+            ACTIVE.remove(path.toAbsolutePath().normalize(), this);
+            subscribers.clear();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Buffered log sink used for process output.
+ */
+@Tag("testing-testsuite")
+public class LogSinkTest {
+
+    @Test
+    public void appendSubscribeAndFlush() throws IOException, InterruptedException {
+        final Path log = Files.createTempFile(LogSinkTest.class.getSimpleName(), ".log");
+        try {
+            Files.writeString(log, "Command: something\n", UTF_8);
+            final BlockingQueue<String> lines;
+            try (LogSink sink = LogSink.open(log, false)) {
+                assertSame(sink, LogSink.active(log));
+                lines = sink.subscribe();
+                for (int i = 0; i < 10000; i++) {
+                    sink.append("line " + i);
+                }
+                assertEquals("line 0", lines.poll(1, TimeUnit.SECONDS));
+            }
+            assertNull(LogSink.active(log));
+            final List<String> written = Files.readAllLines(log, UTF_8);
+            assertEquals(10001, written.size(), "All lines must be flushed on close, appended to the existing content.");
+            assertEquals("Command: something", written.get(0));
+            assertEquals("line 9999", written.get(10000));
+            assertEquals(9999, lines.size(), "Subscriber is expected to see every appended line.");
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+
+    @Test
+    public void consoleEchoInFileOrder() throws IOException, InterruptedException {
+        final Path log = Files.createTempFile(LogSinkTest.class.getSimpleName(), ".log");
+        final PrintStream stdout = System.out;
+        final ByteArrayOutputStream console = new ByteArrayOutputStream();
+        try {
+            System.setOut(new PrintStream(console, true, UTF_8));
+            try (LogSink sink = LogSink.open(log, true)) {
+                final Thread[] appenders = new Thread[4];
+                for (int t = 0; t < appenders.length; t++) {
+                    final int id = t;
+                    appenders[t] = new Thread(() -> {
+                        try {
+                            for (int i = 0; i < 20000; i++) {
+                                sink.append("appender " + id + " line " + i);
+                                if (i % 1000 == 0) {
+                                    sink.flush();
+                                }
+                            }
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                    appenders[t].start();
+                }
+                for (Thread t : appenders) {
+                    t.join();
+                }
+            } finally {
+                System.setOut(stdout);
+            }
+            assertTrue(Files.readString(log, UTF_8).equals(console.toString(UTF_8)), "Console must echo chunks in the file's order.");
+        } finally {
+            Files.deleteIfExists(log);
+        }
+    }
+}
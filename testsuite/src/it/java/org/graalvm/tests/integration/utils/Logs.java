@@ -20,6 +20,9 @@
 package org.graalvm.tests.integration.utils;
 
 import org.apache.commons.lang3.StringUtils;
+import org.graalvm.tests.integration.utils.thresholds.SequentialProbabilityRatio;
+import org.graalvm.tests.integration.utils.thresholds.Statistics;
+import org.graalvm.tests.integration.utils.thresholds.Thresholds;
 import org.jboss.logging.Logger;
 
 import java.io.File;
@@ -29,9 +32,11 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Scanner;
+import java.util.Map;
 import java.util.Set;
 import java.util.regex.Pattern;
 
@@ -51,38 +56,35 @@ public class Logs {
     private static final String MS_prefix = ".ms";
     private static final String PERCENT_prefix = ".percent";
     private static final Logger LOGGER = Logger.getLogger(Logs.class.getName());
-    private static final Pattern WARN_ERROR_DETECTION_PATTERN = Pattern.compile("(?i:.*(ERROR|SEVERE|WARN|No such file|Not found|unknown).*)");
+    static final Pattern WARN_ERROR_DETECTION_PATTERN = Pattern.compile("(?i:.*(ERROR|SEVERE|WARN|No such file|Not found|unknown).*)");
     public static final long SKIP = -1L;
 
     public static void checkLog(String testClass, String testMethod, Apps app, File log) throws IOException {
-        final boolean inContainer = app.runtimeContainer != ContainerNames.NONE;
-        final Pattern[] whitelistPatterns = new Pattern[app.whitelistLogLines.get(inContainer).length + WhitelistLogLines.ALL.get(inContainer).length];
-        System.arraycopy(app.whitelistLogLines.get(inContainer), 0, whitelistPatterns, 0, app.whitelistLogLines.get(inContainer).length);
-        System.arraycopy(WhitelistLogLines.ALL.get(inContainer), 0, whitelistPatterns, app.whitelistLogLines.get(inContainer).length, WhitelistLogLines.ALL.get(inContainer).length);
-        try (Scanner sc = new Scanner(log, UTF_8)) {
-            final Set<String> offendingLines = new HashSet<>();
-            while (sc.hasNextLine()) {
-                final String line = sc.nextLine();
-                final boolean error = WARN_ERROR_DETECTION_PATTERN.matcher(line).matches();
-                boolean whiteListed = false;
-                if (error) {
-                    for (Pattern p : whitelistPatterns) {
-                        if (p.matcher(line).matches()) {
-                            whiteListed = true;
-                            LOGGER.info(log.getName() + " log for " + testMethod + " contains whitelisted error: `" + line + "'");
-                            break;
-                        }
-                    }
-                    if (!whiteListed) {
-                        offendingLines.add(line);
-                    }
-                }
-            }
-            assertTrue(offendingLines.isEmpty(),
-                    log.getName() + " log should not contain error or warning lines that are not whitelisted. " +
-                            "See " + Path.of(BASE_DIR, "testsuite", "target", "archived-logs", testClass, testMethod, log.getName()) +
-                            " and check these offending " + offendingLines.size() + " lines: \n" + String.join("\n", offendingLines));
+        checkLog(testClass, testMethod, log, new LogScanner().whitelist(app).scan(log.toPath()));
+    }
+
+    /**
+     * Checks the whitelist results of an already done scan, so that the log
+     * needn't be read again when other things were extracted from it too.
+     *
+     * @param sections scan with {@link LogScanner#whitelist(Apps)} registered
+     */
+    public static void checkLog(String testClass, String testMethod, File log, LogScanner.Sections sections) {
+        if (!sections.hasExtractor(LogScanner.WHITELIST)) {
+            throw new IllegalArgumentException("The log scan must have the whitelist extractor registered");
+        }
+        final Set<String> offendingLines = new LinkedHashSet<>();
+        final Map<Pattern, Integer> ruleHits = new LinkedHashMap<>();
+        for (LogScanner.WhitelistResult r : sections.<LogScanner.WhitelistResult>all(LogScanner.WHITELIST)) {
+            r.ruleHits.forEach((rule, hits) -> ruleHits.merge(rule, hits, Integer::sum));
+            offendingLines.addAll(r.offending);
         }
+        ruleHits.forEach((rule, hits) ->
+                LOGGER.info(log.getName() + " log for " + testMethod + " contains " + hits + " error lines whitelisted by `" + rule + "'"));
+        assertTrue(offendingLines.isEmpty(),
+                log.getName() + " log should not contain error or warning lines that are not whitelisted. " +
+                        "See " + Path.of(BASE_DIR, "testsuite", "target", "archived-logs", testClass, testMethod, log.getName()) +
+                        " and check these offending " + offendingLines.size() + " lines: \n" + String.join("\n", offendingLines));
     }
 
     public enum Mode {
@@ -98,145 +100,154 @@ public class Logs {
         }
     }
 
-    public static void checkThreshold(Apps app, Mode mode, long executableSize, long rss, long timeToFirstOKRequest,
-            long timeToFinishMs, long mean, long p50, long p90) {
+    /**
+     * Each metric comes as samples of one or more trials, null to skip it. A threshold is crossed when the median
+     * is over it plus the threshold's tolerance, see {@link Statistics#withinThreshold(long[], long, long)}.
+     */
+    public static void checkThreshold(Apps app, Mode mode, long[] executableSizes, long[] rssTrials, long[] timeToFirstOKRequests,
+            long[] timeToFinishMsTrials, long[] means, long[] p50s, long[] p90s) {
 
         final Path properties = Path.of(BASE_DIR, app.dir, "threshold.conf");
         if (app.thresholdProperties.isEmpty() &&
-                (executableSize != SKIP || rss != SKIP || timeToFirstOKRequest != SKIP || timeToFinishMs != SKIP)) {
+                (executableSizes != null || rssTrials != null || timeToFirstOKRequests != null || timeToFinishMsTrials != null)) {
             LOGGER.warn("It seem there is no " +properties +
                     ". Skipping checking thresholds.");
             return;
         }
-        final String propPrefix = (IS_THIS_WINDOWS ? "windows" : (IS_THIS_MACOS ? "macos" : "linux")) +
-                ((app.runtimeContainer != ContainerNames.NONE) ? ".container" : "") +
-                ((mode != Mode.NONE) ? "." + mode : "");
+        final String propPrefix = thresholdPrefix(app, mode);
         final List<String> failures = new ArrayList<>();
+        final long executableSize = median(executableSizes);
+        final long rss = median(rssTrials);
+        final long timeToFirstOKRequest = median(timeToFirstOKRequests);
+        final long timeToFinishMs = median(timeToFinishMsTrials);
+        final long mean = median(means);
+        final long p50 = median(p50s);
+        final long p90 = median(p90s);
 
-        if (executableSize != SKIP) {
+        if (executableSizes != null) {
             final String key = propPrefix + ".executable.size.threshold";
             if (app.thresholdProperties.containsKey(key + KB_prefix)) {
                 long executableSizeThreshold = app.thresholdProperties.get(key + KB_prefix);
-                assertThreshold(failures, executableSize <= executableSizeThreshold,
+                assertThreshold(failures, withinThreshold(app, executableSizes, executableSizeThreshold, key + KB_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " executable size " +
                                 ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? "overhead is" : "is ") +
                                 executableSize + " kB, which is over " +
-                                executableSizeThreshold + " kB threshold by " + percentageValOverTh(executableSize, executableSizeThreshold) + "%.", false);
+                                executableSizeThreshold + " kB threshold by " + percentageValOverTh(executableSize, executableSizeThreshold) + "%." + trials(executableSizes), false);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long executableSizeThreshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, executableSize <= executableSizeThreshold,
+                assertThreshold(failures, withinThreshold(app, executableSizes, executableSizeThreshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " executable size " +
                                 executableSize + " % more than the control, which is over the " +
-                                executableSizeThreshold + " % threshold", false);
+                                executableSizeThreshold + " % threshold" + trials(executableSizes), false);
             } else {
                 LOGGER.error("executableSize was to be checked, but there is no " + key + KB_prefix+ " or " + key + PERCENT_prefix + " in " + properties);
             }
         }
 
-        if (timeToFirstOKRequest != SKIP) {
+        if (timeToFirstOKRequests != null) {
             final String key = propPrefix + ".time.to.first.ok.request.threshold";
             if (app.thresholdProperties.containsKey(key + MS_prefix)) {
                 long timeToFirstOKRequestThreshold = app.thresholdProperties.get(key + MS_prefix);
-                assertThreshold(failures, timeToFirstOKRequest <= timeToFirstOKRequestThreshold,
+                assertThreshold(failures, withinThreshold(app, timeToFirstOKRequests, timeToFirstOKRequestThreshold, key + MS_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") +
                                 " took " + timeToFirstOKRequest + " ms " + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? "more " : "") +
                                 "to get the first OK request, which is over " +
-                                timeToFirstOKRequestThreshold + " ms threshold by " + percentageValOverTh(timeToFirstOKRequest, timeToFirstOKRequestThreshold) + "%.", true);
+                                timeToFirstOKRequestThreshold + " ms threshold by " + percentageValOverTh(timeToFirstOKRequest, timeToFirstOKRequestThreshold) + "%." + trials(timeToFirstOKRequests), true);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long timeToFirstOKRequestThreshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, timeToFirstOKRequest <= timeToFirstOKRequestThreshold,
+                assertThreshold(failures, withinThreshold(app, timeToFirstOKRequests, timeToFirstOKRequestThreshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") +
                                 " took " + timeToFirstOKRequest + " % longer than the control to get the first OK request, which is over " +
-                                timeToFirstOKRequestThreshold + " % threshold", true);
+                                timeToFirstOKRequestThreshold + " % threshold" + trials(timeToFirstOKRequests), true);
             } else {
                 LOGGER.error("timeToFirstOKRequest was to be checked, but there is no " + key + MS_prefix + " or " + key + PERCENT_prefix + " in " + properties);
             }
         }
 
-        if (rss != SKIP) {
+        if (rssTrials != null) {
             final String key = propPrefix + ".RSS.threshold";
             if (app.thresholdProperties.containsKey(key + KB_prefix)) {
                 long rssThreshold = app.thresholdProperties.get(key + KB_prefix);
-                assertThreshold(failures, rss <= rssThreshold,
+                assertThreshold(failures, withinThreshold(app, rssTrials, rssThreshold, key + KB_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") +
                                 " consumed " + rss + " kB of RSS memory " + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? "more " : "") + ", which is over " +
-                                rssThreshold + " kB threshold by " + percentageValOverTh(rss, rssThreshold) + "%.", false);
+                                rssThreshold + " kB threshold by " + percentageValOverTh(rss, rssThreshold) + "%." + trials(rssTrials), false);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long rssThreshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, rss <= rssThreshold,
+                assertThreshold(failures, withinThreshold(app, rssTrials, rssThreshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") +
                                 " consumed " + rss + " % more RSS memory than the control, which is over the " +
-                                rssThreshold + " % threshold", false);
+                                rssThreshold + " % threshold" + trials(rssTrials), false);
             }else {
                 LOGGER.error("rss was to be checked, but there is no " + key + KB_prefix + " or " + key + PERCENT_prefix + " in " + properties);
             }
         }
 
-        if (timeToFinishMs != SKIP) {
+        if (timeToFinishMsTrials != null) {
             final String key = propPrefix + ".time.to.finish.threshold.ms";
             if (app.thresholdProperties.containsKey(key)) {
                 long timeToFinishThresholdMs = app.thresholdProperties.get(key);
-                assertThreshold(failures, timeToFinishMs <= timeToFinishThresholdMs,
+                assertThreshold(failures, withinThreshold(app, timeToFinishMsTrials, timeToFinishThresholdMs, key),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " took " +
                                 timeToFinishMs + " ms " + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? "more " : "") + "to finish, which is over " +
-                                timeToFinishThresholdMs + " ms threshold by " + percentageValOverTh(timeToFinishMs, timeToFinishThresholdMs) + "%.", true);
+                                timeToFinishThresholdMs + " ms threshold by " + percentageValOverTh(timeToFinishMs, timeToFinishThresholdMs) + "%." + trials(timeToFinishMsTrials), true);
             } else {
                 LOGGER.error("timeToFinishMs was to be checked, but there is no " + key + " in " + properties);
             }
         }
 
-        if (mean != SKIP) {
+        if (means != null) {
             final String key = propPrefix + ".mean.latency";
             if (app.thresholdProperties.containsKey(key)) {
                 long meanThreshold = app.thresholdProperties.get(key);
-                assertThreshold(failures, mean <= meanThreshold,
+                assertThreshold(failures, withinThreshold(app, means, meanThreshold, key),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has mean response latency " +
                                 mean + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? " more" : " ") + ", which is over " +
-                                meanThreshold + " threshold by " + percentageValOverTh(mean, meanThreshold) + "%.", true);
+                                meanThreshold + " threshold by " + percentageValOverTh(mean, meanThreshold) + "%." + trials(means), true);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long meanThreshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, mean <= meanThreshold,
+                assertThreshold(failures, withinThreshold(app, means, meanThreshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has mean response latency " +
                                 mean + "% more than the control, which is over " +
-                                meanThreshold + " % threshold.", true);
+                                meanThreshold + " % threshold." + trials(means), true);
             } else {
                 LOGGER.error("mean was to be checked, but there is no " + key + " or " + key + PERCENT_prefix + " in " + properties);
             }
         }
 
-        if (p50 != SKIP) {
+        if (p50s != null) {
             final String key = propPrefix + ".p50.latency";
             if (app.thresholdProperties.containsKey(key)) {
                 long p50Threshold = app.thresholdProperties.get(key);
-                assertThreshold(failures, p50 <= p50Threshold,
+                assertThreshold(failures, withinThreshold(app, p50s, p50Threshold, key),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has p50 response latency " +
                                 p50 + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? " more" : "") + ", which is over " +
-                                p50Threshold + "  threshold by " + percentageValOverTh(p50, p50Threshold) + "%.", true);
+                                p50Threshold + "  threshold by " + percentageValOverTh(p50, p50Threshold) + "%." + trials(p50s), true);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long p50Threshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, p50 <= p50Threshold,
+                assertThreshold(failures, withinThreshold(app, p50s, p50Threshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has p50 response latency " +
                                 p50 + "% more than the control, which is over " +
-                                p50Threshold + " % threshold", true);
+                                p50Threshold + " % threshold" + trials(p50s), true);
             } else {
                 LOGGER.error("p99 was to be checked, but there is no " + key + " or " + key + PERCENT_prefix + " in " + properties);
             }
         }
 
-        if (p90 != SKIP) {
+        if (p90s != null) {
             final String key = propPrefix + ".p90.latency";
             if (app.thresholdProperties.containsKey(key)) {
                 long p90Threshold = app.thresholdProperties.get(key);
-                assertThreshold(failures, p90 <= p90Threshold,
+                assertThreshold(failures, withinThreshold(app, p90s, p90Threshold, key),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has p90 response latency " +
                                 p90 + ((mode == Mode.DIFF_JVM || mode == Mode.DIFF_NATIVE) ? " more" : "") + ", which is over " +
-                                p90Threshold + "  threshold by " + percentageValOverTh(p90, p90Threshold) + "%.", true);
+                                p90Threshold + "  threshold by " + percentageValOverTh(p90, p90Threshold) + "%." + trials(p90s), true);
             } else if (app.thresholdProperties.containsKey(key + PERCENT_prefix)) {
                 long p90Threshold = app.thresholdProperties.get(key + PERCENT_prefix);
-                assertThreshold(failures, p90 <= p90Threshold,
+                assertThreshold(failures, withinThreshold(app, p90s, p90Threshold, key + PERCENT_prefix),
                         "Application " + app + (mode != null ? " in mode " + mode : "") + " has p90 response latency " +
                                 p90 + " % more than the control, which is over " +
-                                p90Threshold + " % threshold", true);
+                                p90Threshold + " % threshold" + trials(p90s), true);
             } else {
                 LOGGER.error("p90 was to be checked, but there is no " + key + " or " + key + PERCENT_prefix + "in " + properties);
             }
@@ -257,10 +268,91 @@ public class Logs {
         }
     }
 
+    /**
+     * With ADAPTIVE_REMEASURE=true, samples crossing the threshold do not fail the test right away. The measurement
+     * is repeated with the already built app under a {@link SequentialProbabilityRatio} test until it is clear
+     * whether the threshold is really crossed, at most ADAPTIVE_BUDGET times.
+     *
+     * @param thresholdKey full key of the threshold, e.g. linux.time.to.first.ok.request.threshold.ms
+     * @param trial        takes one more measurement
+     * @return samples to check the threshold against: the re-measured ones if the sequential test decided,
+     * all of them otherwise, the original samples if there was no need to re-measure
+     */
+    public static long[] remeasure(Apps app, String thresholdKey, long[] samples, SequentialProbabilityRatio.Trial trial) throws IOException, InterruptedException {
+        final Long threshold = app.thresholdProperties.get(thresholdKey);
+        if (!SequentialProbabilityRatio.ENABLED || threshold == null || withinThreshold(app, samples, threshold, thresholdKey)) {
+            return samples;
+        }
+        final long limit = (long) Statistics.limit(threshold, app.thresholdProperties.getOrDefault(thresholdKey + Thresholds.TOLERANCE_SUFFIX, 0L));
+        LOGGER.warn("Application " + app + " " + thresholdKey + " measured " + Statistics.describe(samples) +
+                " is over " + limit + ", re-measuring.");
+        final SequentialProbabilityRatio.Result r = SequentialProbabilityRatio.run(app + " " + thresholdKey, limit, trial);
+        if (r.verdict != SequentialProbabilityRatio.Verdict.UNDECIDED) {
+            return r.samples;
+        }
+        final long[] all = Arrays.copyOf(samples, samples.length + r.samples.length);
+        System.arraycopy(r.samples, 0, all, samples.length, r.samples.length);
+        return all;
+    }
+
+    /**
+     * @return e.g. linux.container.diff_native, the prefix of the app's threshold.conf keys
+     */
+    public static String thresholdPrefix(Apps app, Mode mode) {
+        return (IS_THIS_WINDOWS ? "windows" : (IS_THIS_MACOS ? "macos" : "linux")) +
+                ((app.runtimeContainer != ContainerNames.NONE) ? ".container" : "") +
+                ((mode != Mode.NONE) ? "." + mode : "");
+    }
+
+    /**
+     * Compares trials of a metric with a baseline sample, e.g. of previous runs on the same host, and fails
+     * (as FAIL_ON_PERF_REGRESSION says) if they are significantly greater and the median grew by at least
+     * the threshold's min.effect, PERF_MIN_EFFECT_PERCENT if threshold.conf does not set any.
+     *
+     * @param thresholdKey full key of the metric's threshold, e.g. linux.RSS.threshold.kB
+     */
+    public static void checkAgainstBaseline(Apps app, String thresholdKey, long[] samples, long[] baseline, boolean timeSensitive) {
+        final long minEffect = app.thresholdProperties.getOrDefault(thresholdKey + Thresholds.MIN_EFFECT_SUFFIX, Statistics.MIN_EFFECT_PERCENT);
+        if (samples.length < 2 || baseline.length < 2) {
+            LOGGER.info("Not enough trials to compare " + thresholdKey + " of " + app + " with its baseline.");
+            return;
+        }
+        final List<String> failures = new ArrayList<>();
+        assertThreshold(failures, !Statistics.regressed(samples, baseline, minEffect, Statistics.ALPHA),
+                "Application " + app + " " + thresholdKey + " measured " + Statistics.describe(samples) +
+                        " is significantly over the baseline " + Statistics.describe(baseline) +
+                        " (Mann-Whitney p=" + String.format("%.4f", Statistics.mannWhitneyGreaterP(samples, baseline)) +
+                        ", min effect " + minEffect + "%).", timeSensitive);
+        assertTrue(failures.isEmpty(), "\n" + String.join("\n", failures) + "\n");
+    }
+
     public static int percentageValOverTh(float value, float threshold) {
         return Math.round(value / (threshold / 100f)) - 100;
     }
 
+    public static void checkThreshold(Apps app, Mode mode, long executableSize, long rss, long timeToFirstOKRequest,
+            long timeToFinishMs, long mean, long p50, long p90) {
+        checkThreshold(app, mode, trial(executableSize), trial(rss), trial(timeToFirstOKRequest), trial(timeToFinishMs),
+                trial(mean), trial(p50), trial(p90));
+    }
+
+    private static long[] trial(long value) {
+        return value == SKIP ? null : new long[]{value};
+    }
+
+    private static long median(long[] samples) {
+        return samples == null ? SKIP : Math.round(Statistics.median(samples));
+    }
+
+    private static boolean withinThreshold(Apps app, long[] samples, long threshold, String thresholdKey) {
+        return Statistics.withinThreshold(samples, threshold,
+                app.thresholdProperties.getOrDefault(thresholdKey + Thresholds.TOLERANCE_SUFFIX, 0L));
+    }
+
+    private static String trials(long[] samples) {
+        return samples.length == 1 ? "" : " Measured " + Statistics.describe(samples) + ".";
+    }
+
     public static void checkThreshold(Apps app, long executableSizeKb, long rssKb, long timeToFirstOKRequest) {
         checkThreshold(app, Mode.NONE, executableSizeKb, rssKb, timeToFirstOKRequest, SKIP, SKIP, SKIP, SKIP);
     }
@@ -337,11 +429,15 @@ public class Logs {
         return destDir;
     }
 
+    /**
+     * Appends the line to the measurements CSV, which goes away with target/, and to the {@link History}.
+     */
     public static void logMeasurements(LogBuilder.Log log, Path path) throws IOException {
         if (Files.notExists(path)) {
             Files.write(path, (log.headerCSV + "\n").getBytes(UTF_8), StandardOpenOption.CREATE);
         }
         Files.write(path, (log.lineCSV + "\n").getBytes(UTF_8), StandardOpenOption.APPEND);
         LOGGER.info("\n" + log.headerCSV + "\n" + log.lineCSV);
+        History.record(log);
     }
 }
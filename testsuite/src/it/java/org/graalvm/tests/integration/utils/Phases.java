@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Phases of a perf run so that startup, warm-up (JIT in case of JVM) and steady state are not mixed in one number:
+ * a cold start with the very first request, a warm-up and measurement windows. Each phase is given
+ * a number of requests or a duration and gets its own latencies, CPU time, faults and context switches
+ * read from /proc, see {@link ProcSampler#counters(long)}, and GC events, see {@link LogScanner#PHASE_MARKER}.
+ *
+ * Warm-up takes PERFCHECK_TEST_WARMUP_REQUESTS (default 1) requests or PERFCHECK_TEST_WARMUP_S seconds if set,
+ * measurements take the given number of requests or PERFCHECK_TEST_MEASUREMENT_S seconds if set.
+ *
+ * e.g.
+ * <pre>
+ * final List&lt;Phases.Phase&gt; phases = Phases.of(hashRequest, List.of(hashRequest, loadRequest), HEAVY_REQUESTS);
+ * for (Phases.Phase p : phases) {
+ *     p.run(hc, pid, processLog);
+ * }
+ * ...process stopped and its log scanned...
+ * Phases.attributeGC(phases, serialGCLog);
+ * phases.forEach(p -&gt; p.toReport(report));
+ * </pre>
+ */
+public class Phases {
+    private static final Logger LOGGER = Logger.getLogger(Phases.class.getName());
+    public static final int WARMUP_REQUESTS = Integer.parseInt(getProperty("PERFCHECK_TEST_WARMUP_REQUESTS", "1"));
+    public static final long WARMUP_S = Long.parseLong(getProperty("PERFCHECK_TEST_WARMUP_S", "0"));
+    public static final long MEASUREMENT_S = Long.parseLong(getProperty("PERFCHECK_TEST_MEASUREMENT_S", "0"));
+    // Upper bounds of latency histogram buckets in ms, the last one takes the rest
+    // Index of the first measurement phase, after cold start and warm-up
+    public static final int FIRST_MEASUREMENT = 2;
+    static final long[] HISTOGRAM_MS = new long[]{1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, Long.MAX_VALUE};
+
+    public static class Phase {
+        public final String name;
+        public final HttpRequest request;
+        public final int requests;
+        public final long durationMs;
+        private long[] latenciesNs = new long[16];
+        private int count = 0;
+        private long elapsedNs = 0;
+        private ProcSampler.Counters before;
+        private ProcSampler.Counters after;
+        private Commands.SerialGCLog gc;
+
+        /**
+         * @param durationMs if positive, requests are sent for this long instead
+         */
+        public Phase(String name, HttpRequest request, int requests, long durationMs) {
+            this.name = name;
+            this.request = request;
+            this.requests = requests;
+            this.durationMs = durationMs;
+        }
+
+        /**
+         * Sends the phase's requests one after another, a marker line goes to the app's log first.
+         *
+         * @param pid process to read counters of, -1 not to
+         */
+        public void run(HttpClient hc, long pid, File log) throws IOException, InterruptedException {
+            Files.writeString(log.toPath(), LogScanner.PHASE_MARKER + name + "\n", UTF_8, StandardOpenOption.APPEND, StandardOpenOption.CREATE);
+            before = pid > 0 && ProcSampler.isSupported() ? ProcSampler.counters(pid) : null;
+            final long start = System.nanoTime();
+            final long end = start + durationMs * 1_000_000L;
+            while (durationMs > 0 ? System.nanoTime() < end : count < requests) {
+                final long t = System.nanoTime();
+                final HttpResponse<Void> r = hc.send(request, HttpResponse.BodyHandlers.discarding());
+                final long latency = System.nanoTime() - t;
+                assertEquals(200, r.statusCode(), "App returned a non HTTP 200 response in " + name + ". The perf report is invalid.");
+                if (count == latenciesNs.length) {
+                    latenciesNs = Arrays.copyOf(latenciesNs, count * 2);
+                }
+                latenciesNs[count++] = latency;
+            }
+            elapsedNs = System.nanoTime() - start;
+            after = before != null ? ProcSampler.counters(pid) : null;
+            LOGGER.info("Phase " + name + ": " + count + " requests in " + elapsedNs / 1_000_000L + " ms");
+        }
+
+        public int count() {
+            return count;
+        }
+
+        public long elapsedMs() {
+            return elapsedNs / 1_000_000L;
+        }
+
+        /**
+         * @return latency in ms at the percentile, nearest rank
+         */
+        public double latencyMs(double percentile) {
+            final long[] sorted = Arrays.copyOf(latenciesNs, count);
+            Arrays.sort(sorted);
+            return ms(LoadGenerator.percentile(sorted, percentile));
+        }
+
+        public double meanLatencyMs() {
+            return count == 0 ? 0 : ms(Arrays.stream(latenciesNs, 0, count).sum() / count);
+        }
+
+        public double throughputPerS() {
+            return elapsedNs == 0 ? 0 : count * 1e9 / elapsedNs;
+        }
+
+        /**
+         * @return counts of requests per bucket, see HISTOGRAM_MS
+         */
+        public int[] histogram() {
+            final int[] buckets = new int[HISTOGRAM_MS.length];
+            for (int i = 0; i < count; i++) {
+                final long ms = latenciesNs[i] / 1_000_000L;
+                int b = 0;
+                while (ms >= HISTOGRAM_MS[b]) {
+                    b++;
+                }
+                buckets[b]++;
+            }
+            return buckets;
+        }
+
+        /**
+         * Adds the phase's numbers prefixed with its name, e.g. warmUpMeanLatencyMs, to a perf report.
+         * The histogram is "upToMs:count" pairs separated by a space, empty buckets left out, "inf" for the last one.
+         */
+        public void toReport(Report report) {
+            report.put(name + "Requests", count);
+            report.put(name + "DurationMs", elapsedMs(), "ms");
+            report.put(name + "ThroughputPerS", round(throughputPerS()), "req/s");
+            report.put(name + "MeanLatencyMs", meanLatencyMs(), "ms");
+            report.put(name + "P50LatencyMs", latencyMs(50), "ms");
+            report.put(name + "P90LatencyMs", latencyMs(90), "ms");
+            report.put(name + "P99LatencyMs", latencyMs(99), "ms");
+            report.put(name + "MaxLatencyMs", latencyMs(100), "ms");
+            final int[] h = histogram();
+            final StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < h.length; i++) {
+                if (h[i] > 0) {
+                    sb.append(sb.length() == 0 ? "" : " ")
+                            .append(HISTOGRAM_MS[i] == Long.MAX_VALUE ? "inf" : Long.toString(HISTOGRAM_MS[i]))
+                            .append(':').append(h[i]);
+                }
+            }
+            report.put(name + "LatencyHistogram", sb.toString());
+            if (before != null && after != null) {
+                report.put(name + "CpuMs", after.cpuMs - before.cpuMs, "ms");
+                report.put(name + "MinorFaults", after.minorFaults - before.minorFaults);
+                report.put(name + "MajorFaults", after.majorFaults - before.majorFaults);
+                report.put(name + "ContextSwitches", after.contextSwitches - before.contextSwitches);
+            }
+            if (gc != null) {
+                report.put(name + "IncrementalGCevents", gc.incrementalGCevents);
+                report.put(name + "FullGCevents", gc.fullGCevents);
+                report.put(name + "TimeSpentInGCs", gc.timeSpentInGCs, "s");
+                report.put(name + "MaxGCPauseMs", gc.gc.pauseMs(100), "ms");
+            }
+        }
+    }
+
+    /**
+     * Cold start, warm-up and a measurement phase for each request, named after its path, e.g. load and loadHash.
+     *
+     * @param warmUp                request for the cold start and warm-up
+     * @param measurementRequests   requests of each measurement phase unless PERFCHECK_TEST_MEASUREMENT_S is set
+     */
+    public static List<Phase> of(HttpRequest warmUp, List<HttpRequest> measurements, int measurementRequests) {
+        final Phase[] phases = new Phase[FIRST_MEASUREMENT + measurements.size()];
+        phases[0] = new Phase("coldStart", warmUp, 1, 0);
+        phases[1] = new Phase("warmUp", warmUp, WARMUP_REQUESTS, WARMUP_S * 1000L);
+        for (int i = 0; i < measurements.size(); i++) {
+            phases[FIRST_MEASUREMENT + i] = new Phase(name(measurements.get(i)), measurements.get(i), measurementRequests, MEASUREMENT_S * 1000L);
+        }
+        return List.of(phases);
+    }
+
+    /**
+     * Hands GC events of each phase, scanned with {@link LogScanner#serialGC(String)}, over to the phase.
+     */
+    public static void attributeGC(List<Phase> phases, Commands.SerialGCLog l) {
+        for (Phase p : phases) {
+            // No GC at all in a phase is a valid result too
+            p.gc = l.phases.getOrDefault(p.name, new Commands.SerialGCLog());
+        }
+    }
+
+    /**
+     * @return e.g. loadHash for /load/hash
+     */
+    static String name(HttpRequest request) {
+        final StringBuilder sb = new StringBuilder();
+        for (String s : request.uri().getPath().split("/")) {
+            if (!s.isEmpty()) {
+                sb.append(sb.length() == 0 ? s : Character.toUpperCase(s.charAt(0)) + s.substring(1));
+            }
+        }
+        return sb.length() == 0 ? "root" : sb.toString();
+    }
+
+    private static double ms(long ns) {
+        return Math.round(ns / 1000d) / 1000d;
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000d) / 1000d;
+    }
+}
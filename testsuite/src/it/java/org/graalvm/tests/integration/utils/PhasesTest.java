@@ -0,0 +1,116 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Phases of requests against a stand-in app, each with its own latencies and counters.
+ */
+@Tag("testing-testsuite")
+public class PhasesTest {
+
+    @Test
+    public void coldStartWarmUpMeasurements() throws IOException, InterruptedException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            exchange.getRequestBody().readAllBytes();
+            if (exchange.getRequestURI().getPath().endsWith("hash")) {
+                try {
+                    Thread.sleep(3);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.sendResponseHeaders(200, -1);
+            exchange.close();
+        });
+        server.start();
+        final File log = Files.createTempFile(PhasesTest.class.getSimpleName(), ".log").toFile();
+        try {
+            final String base = "http://localhost:" + server.getAddress().getPort();
+            final HttpRequest hash = HttpRequest.newBuilder(URI.create(base + "/load/hash")).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+            final HttpRequest load = HttpRequest.newBuilder(URI.create(base + "/load")).POST(HttpRequest.BodyPublishers.ofString("{}")).build();
+            final List<Phases.Phase> phases = Phases.of(hash, List.of(hash, load), 5);
+            assertEquals(List.of("coldStart", "warmUp", "loadHash", "load"), phases.stream().map(p -> p.name).collect(Collectors.toList()));
+            final HttpClient hc = HttpClient.newHttpClient();
+            for (Phases.Phase p : phases) {
+                p.run(hc, ProcessHandle.current().pid(), log);
+            }
+            assertEquals(List.of("Phase: coldStart", "Phase: warmUp", "Phase: loadHash", "Phase: load"), Files.readAllLines(log.toPath(), UTF_8));
+
+            final Phases.Phase loadHash = phases.get(2);
+            assertEquals(1, phases.get(0).count());
+            assertEquals(Phases.WARMUP_REQUESTS, phases.get(1).count());
+            assertEquals(5, loadHash.count());
+            assertTrue(loadHash.latencyMs(50) >= 3, "Hashing takes at least 3 ms: " + loadHash.latencyMs(50));
+            assertTrue(loadHash.latencyMs(100) >= loadHash.latencyMs(90));
+            assertTrue(loadHash.throughputPerS() > 0);
+            assertEquals(5, Arrays.stream(loadHash.histogram()).sum());
+
+            final Commands.SerialGCLog gc = new Commands.SerialGCLog();
+            final Commands.SerialGCLog loadGC = new Commands.SerialGCLog();
+            loadGC.incrementalGCevents = 2;
+            gc.phases.put("load", loadGC);
+            Phases.attributeGC(phases, gc);
+            final Report report = new Report();
+            phases.forEach(p -> p.toReport(report));
+            assertEquals(5L, report.getLong("loadHashRequests"));
+            assertEquals(2L, report.getLong("loadIncrementalGCevents"));
+            assertEquals(0L, report.getLong("loadHashIncrementalGCevents"));
+            assertEquals("ms", report.unit("loadHashP99LatencyMs"));
+            assertFalse(((String) report.get("loadHashLatencyHistogram")).isEmpty());
+            if (ProcSampler.isSupported()) {
+                assertNotNull(report.get("loadHashCpuMs"));
+                assertTrue(report.getLong("loadHashContextSwitches") >= 0);
+            }
+        } finally {
+            server.stop(0);
+            Files.deleteIfExists(log.toPath());
+        }
+    }
+
+    @Test
+    public void histogramBuckets() {
+        assertEquals("loadHash", Phases.name(HttpRequest.newBuilder(URI.create("http://localhost:8887/load/hash")).build()));
+        assertEquals("root", Phases.name(HttpRequest.newBuilder(URI.create("http://localhost:8887/")).build()));
+        assertEquals(Long.MAX_VALUE, Phases.HISTOGRAM_MS[Phases.HISTOGRAM_MS.length - 1], "The last bucket takes the rest");
+    }
+}
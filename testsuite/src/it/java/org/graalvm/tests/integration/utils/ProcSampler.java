@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.IS_THIS_MACOS;
+import static org.graalvm.tests.integration.utils.Commands.IS_THIS_WINDOWS;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Samples memory, threads and file descriptors of a running process straight from /proc,
+ * i.e. without forking ps or lsof which takes tens of milliseconds and disturbs the measured process.
+ *
+ * Linux only, see {@link #isSupported()}. Samples are taken every PROC_SAMPLER_INTERVAL_MS
+ * on a background daemon thread until {@link #close()} or until the process is gone.
+ *
+ * e.g.
+ * <pre>
+ * try (ProcSampler sampler = ProcSampler.start(process.pid())) {
+ *     ...load the app...
+ *     sampler.close();
+ *     sampler.toReport(report);
+ * }
+ * </pre>
+ */
+public class ProcSampler implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(ProcSampler.class.getName());
+    public static final long INTERVAL_MS = Long.parseLong(getProperty("PROC_SAMPLER_INTERVAL_MS", "100"));
+    private static final Path PROC = Path.of("/proc");
+    // USER_HZ, utime and stime in /proc/pid/stat are in these, 100 on all the architectures we run on
+    private static final long CLOCK_TICKS = 100;
+
+    public static class Sample {
+        public final long timestampMs;
+        public final long rssKb;
+        // Proportional set size, -1 if smaps_rollup is not readable, e.g. kernel < 4.14
+        public final long pssKb;
+        public final long threads;
+        public final long fds;
+
+        public Sample(long timestampMs, long rssKb, long pssKb, long threads, long fds) {
+            this.timestampMs = timestampMs;
+            this.rssKb = rssKb;
+            this.pssKb = pssKb;
+            this.threads = threads;
+            this.fds = fds;
+        }
+    }
+
+    private final long pid;
+    private final long startMs;
+    private final List<Sample> samples = Collections.synchronizedList(new ArrayList<>());
+    private final ScheduledExecutorService executor;
+
+    private ProcSampler(long pid, long intervalMs) {
+        this.pid = pid;
+        this.startMs = System.currentTimeMillis();
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread t = new Thread(r, "proc-sampler-" + pid);
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleAtFixedRate(this::takeSample, 0, intervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    public static ProcSampler start(long pid, long intervalMs) {
+        if (!isSupported()) {
+            throw new UnsupportedOperationException("/proc is not available on this system");
+        }
+        return new ProcSampler(pid, intervalMs);
+    }
+
+    public static ProcSampler start(long pid) {
+        return start(pid, INTERVAL_MS);
+    }
+
+    public static boolean isSupported() {
+        return !IS_THIS_WINDOWS && !IS_THIS_MACOS && Files.isReadable(PROC.resolve("self").resolve("status"));
+    }
+
+    /**
+     * One sample right now.
+     *
+     * @return sample or null if the process does not exist
+     */
+    public static Sample sample(long pid) throws IOException {
+        final Path dir = PROC.resolve(Long.toString(pid));
+        long rssKb = -1;
+        long threads = -1;
+        try {
+            for (String l : Files.readAllLines(dir.resolve("status"), UTF_8)) {
+                if (l.startsWith("VmRSS:")) {
+                    rssKb = parseKb(l);
+                } else if (l.startsWith("Threads:")) {
+                    threads = Long.parseLong(l.substring("Threads:".length()).trim());
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return new Sample(System.currentTimeMillis(), rssKb, pssKb(dir), threads, fds(pid));
+    }
+
+    /**
+     * @return resident set size in kB or -1 if the process does not exist
+     */
+    public static long rssKb(long pid) throws IOException {
+        try {
+            for (String l : Files.readAllLines(PROC.resolve(Long.toString(pid)).resolve("status"), UTF_8)) {
+                if (l.startsWith("VmRSS:")) {
+                    return parseKb(l);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * @return number of open file descriptors or -1 if /proc/pid/fd cannot be listed
+     */
+    public static long fds(long pid) throws IOException {
+        long count = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(PROC.resolve(Long.toString(pid)).resolve("fd"))) {
+            for (Path ignored : ds) {
+                count++;
+            }
+        } catch (NoSuchFileException | AccessDeniedException e) {
+            return -1;
+        }
+        return count;
+    }
+
+    /**
+     * Cumulative CPU time, faults and context switches of a process, differences of two readings
+     * attribute them to what the process did in between, see {@link Phases}.
+     */
+    public static class Counters {
+        public final long cpuMs;
+        public final long minorFaults;
+        public final long majorFaults;
+        // Summed over live threads, switches of threads that have already exited are lost
+        public final long contextSwitches;
+
+        public Counters(long cpuMs, long minorFaults, long majorFaults, long contextSwitches) {
+            this.cpuMs = cpuMs;
+            this.minorFaults = minorFaults;
+            this.majorFaults = majorFaults;
+            this.contextSwitches = contextSwitches;
+        }
+    }
+
+    /**
+     * @return counters right now or null if the process does not exist
+     */
+    public static Counters counters(long pid) throws IOException {
+        final Path dir = PROC.resolve(Long.toString(pid));
+        final String stat;
+        try {
+            stat = Files.readString(dir.resolve("stat"), UTF_8);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        // Fields after "pid (comm)", comm may contain spaces: state ppid ... minflt(10) cminflt majflt(12) cmajflt utime(14) stime(15)
+        final String[] f = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+        final long cpuMs = (Long.parseLong(f[11]) + Long.parseLong(f[12])) * 1000L / CLOCK_TICKS;
+        long contextSwitches = 0;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir.resolve("task"))) {
+            for (Path task : ds) {
+                try {
+                    for (String l : Files.readAllLines(task.resolve("status"), UTF_8)) {
+                        if (l.startsWith("voluntary_ctxt_switches:") || l.startsWith("nonvoluntary_ctxt_switches:")) {
+                            contextSwitches += Long.parseLong(l.substring(l.indexOf(':') + 1).trim());
+                        }
+                    }
+                } catch (NoSuchFileException e) {
+                    // Thread exited meanwhile
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        return new Counters(cpuMs, Long.parseLong(f[7]), Long.parseLong(f[9]), contextSwitches);
+    }
+
+    private static long pssKb(Path dir) throws IOException {
+        final Path rollup = dir.resolve("smaps_rollup");
+        if (!Files.isReadable(rollup)) {
+            return -1;
+        }
+        try {
+            for (String l : Files.readAllLines(rollup, UTF_8)) {
+                if (l.startsWith("Pss:")) {
+                    return parseKb(l);
+                }
+            }
+        } catch (NoSuchFileException e) {
+            return -1;
+        }
+        return -1;
+    }
+
+    // e.g. "VmRSS:	   12345 kB"
+    private static long parseKb(String line) {
+        final String v = line.substring(line.indexOf(':') + 1).trim();
+        final int space = v.indexOf(' ');
+        return Long.parseLong(space > 0 ? v.substring(0, space) : v);
+    }
+
+    private void takeSample() {
+        try {
+            final Sample s = sample(pid);
+            if (s == null) {
+                LOGGER.debug("Process " + pid + " is gone, stopping sampling.");
+                executor.shutdown();
+                return;
+            }
+            samples.add(s);
+        } catch (IOException | RuntimeException e) {
+            LOGGER.error("Failed to sample /proc/" + pid, e);
+        }
+    }
+
+    public List<Sample> samples() {
+        synchronized (samples) {
+            return List.copyOf(samples);
+        }
+    }
+
+    public long peakRssKb() {
+        return peak(s -> s.rssKb);
+    }
+
+    public long peakPssKb() {
+        return peak(s -> s.pssKb);
+    }
+
+    public long peakThreads() {
+        return peak(s -> s.threads);
+    }
+
+    public long peakFDs() {
+        return peak(s -> s.fds);
+    }
+
+    private long peak(ToLongFunction<Sample> f) {
+        return samples().stream().mapToLong(f).max().orElse(-1L);
+    }
+
+    /**
+     * Adds peaks and the time series, "msFromStart:value" pairs separated by a space, to a perf report.
+     */
+    public void toReport(Report report) {
+        final List<Sample> s = samples();
+        report.put("peakRssKb", peakRssKb(), "kB");
+        report.put("peakPssKb", peakPssKb(), "kB");
+        report.put("peakThreads", peakThreads());
+        report.put("peakFDs", peakFDs());
+        report.put("rssKbSeries", series(s, x -> x.rssKb));
+        report.put("pssKbSeries", series(s, x -> x.pssKb));
+        report.put("threadsSeries", series(s, x -> x.threads));
+        report.put("fdsSeries", series(s, x -> x.fds));
+    }
+
+    private String series(List<Sample> s, ToLongFunction<Sample> f) {
+        return s.stream().map(x -> (x.timestampMs - startMs) + ":" + f.applyAsLong(x)).collect(Collectors.joining(" "));
+    }
+
+    /**
+     * Appends the samples to a CSV file, e.g. next to measurements.csv in archived logs.
+     */
+    public void writeCSV(String label, Path path) throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        if (Files.notExists(path)) {
+            sb.append("label,pid,msFromStart,rssKb,pssKb,threads,fds\n");
+        }
+        for (Sample s : samples()) {
+            sb.append(label).append(',').append(pid).append(',').append(s.timestampMs - startMs).append(',')
+                    .append(s.rssKb).append(',').append(s.pssKb).append(',').append(s.threads).append(',').append(s.fds).append('\n');
+        }
+        Files.writeString(path, sb, UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    /**
+     * Stops sampling, collected samples remain available.
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        try {
+            executor.awaitTermination(1, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
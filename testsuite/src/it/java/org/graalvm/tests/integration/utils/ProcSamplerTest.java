@@ -0,0 +1,69 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Sampling this very JVM through /proc.
+ */
+@Tag("testing-testsuite")
+@DisabledOnOs({OS.WINDOWS, OS.MAC})
+public class ProcSamplerTest {
+
+    @Test
+    public void sampleSelf() throws IOException, InterruptedException {
+        final long pid = ProcessHandle.current().pid();
+        final ProcSampler.Sample s = ProcSampler.sample(pid);
+        assertTrue(s.rssKb > 0, "RSS of a running JVM must be positive");
+        assertTrue(s.threads > 1, "A JVM has more than one thread");
+        assertTrue(s.fds >= 3, "At least stdin, stdout and stderr are expected");
+        assertEquals(s.fds, ProcSampler.fds(pid));
+        assertNull(ProcSampler.sample(Long.MAX_VALUE), "Nonexistent process has no sample");
+
+        final Report report = new Report();
+        final ProcSampler sampler = ProcSampler.start(pid, 10);
+        try {
+            Thread.sleep(200);
+        } finally {
+            sampler.close();
+        }
+        final int samples = sampler.samples().size();
+        assertTrue(samples > 3, "Expected a sample every 10 ms, got " + samples);
+        Thread.sleep(50);
+        assertEquals(samples, sampler.samples().size(), "No samples are expected after close");
+        assertTrue(sampler.peakRssKb() >= s.rssKb / 2);
+        sampler.toReport(report);
+        final String rssKbSeries = (String) report.get("rssKbSeries");
+        assertTrue(rssKbSeries.matches("[0-9]+:[0-9]+( [0-9]+:[0-9]+)+"), rssKbSeries);
+        assertEquals(((String) report.get("threadsSeries")).split(" ").length, ((String) report.get("fdsSeries")).split(" ").length);
+        assertEquals("kB", report.unit("peakRssKb"));
+    }
+}
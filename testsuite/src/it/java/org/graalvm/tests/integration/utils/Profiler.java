@@ -0,0 +1,437 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Sampling profiles of the tested app, to tell which methods are behind a regression perf stat shows.
+ *
+ * Enabled with PERF_PROFILE=true. Executables are then built with debug info and frame pointers,
+ * see {@link #debugInfo(Map, boolean)}, the JVM gets {@link #JVM_OPTIONS} via {@link #env()} and
+ * perf record -F PERF_PROFILE_FREQUENCY --call-graph PERF_PROFILE_CALL_GRAPH (fp or dwarf) is attached to
+ * the running app, see {@link #attach(long, Path)}.
+ *
+ * Samples are folded into collapsed stacks, i.e. "comm;root;...;leaf count" lines, and drawn as a flame graph SVG.
+ * The first profile of an app and mode on a runner becomes the baseline in PERF_PROFILE_BASELINE_DIR, later
+ * profiles also get a differential flame graph, red for frames that take more of the samples than in the baseline,
+ * blue for less, and the report gets the PERF_PROFILE_TOP methods whose self time grew the most.
+ * PERF_PROFILE_UPDATE_BASELINE=true replaces the baseline with the current profile.
+ */
+public class Profiler implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(Profiler.class.getName());
+    public static final boolean ENABLED = Boolean.parseBoolean(getProperty("PERF_PROFILE", "false"));
+    public static final String CALL_GRAPH = getProperty("PERF_PROFILE_CALL_GRAPH", "fp");
+    public static final int FREQUENCY = Integer.parseInt(getProperty("PERF_PROFILE_FREQUENCY", "499"));
+    public static final int TOP = Integer.parseInt(getProperty("PERF_PROFILE_TOP", "10"));
+    public static final Path BASELINE_DIR = Path.of(getProperty("PERF_PROFILE_BASELINE_DIR",
+            History.DIR.resolve("profiles").toString()));
+    public static final boolean UPDATE_BASELINE = Boolean.parseBoolean(getProperty("PERF_PROFILE_UPDATE_BASELINE", "false"));
+    // JIT compiled frames are resolved from /tmp/perf-<pid>.map the JVM writes as it exits
+    public static final String JVM_OPTIONS = "-XX:+UnlockDiagnosticVMOptions -XX:+DumpPerfMapAtExit -XX:+PreserveFramePointer";
+    // Same as DebugSymbolsTest builds with
+    static final String DEBUG_INFO = "-H:GenerateDebugInfo=1,-H:+PreserveFramePointer,-H:-DeleteLocalSymbols";
+    // e.g. "	    7f3a2c1d4e5f com.example.Foo::bar+0x1f (/path/to/runner)"
+    private static final Pattern FRAME = Pattern.compile("\\s*[0-9a-fA-F]+\\s+(.*?)(?:\\s+\\((.*)\\))?\\s*");
+    private static final Pattern OFFSET = Pattern.compile("\\+0x[0-9a-fA-F]+$");
+    static final int SVG_WIDTH = 1200;
+    static final int FRAME_HEIGHT = 16;
+    private static final int SVG_PAD = 10;
+    private static final int SVG_HEADER = 40;
+
+    private final Process perf;
+    private final Path data;
+
+    private Profiler(Process perf, Path data) {
+        this.perf = perf;
+        this.data = data;
+    }
+
+    /**
+     * Appends debug info switches to the GRAALVM_BUILD_OUTPUT_JSON_FILE replacements, i.e. to the end of
+     * -Dquarkus.native.additional-build-args. No-op unless PERF_PROFILE is true.
+     *
+     * @param experimental true for Mandrel 23.1+ where the switches must be unlocked
+     */
+    public static Map<String, String> debugInfo(Map<String, String> switches, boolean experimental) {
+        if (!ENABLED) {
+            return switches;
+        }
+        final String flags = experimental ? ",-H:+UnlockExperimentalVMOptions," + DEBUG_INFO + ",-H:-UnlockExperimentalVMOptions" : "," + DEBUG_INFO;
+        final Map<String, String> result = new HashMap<>(switches);
+        result.replaceAll((k, v) -> k.startsWith(Commands.GRAALVM_BUILD_OUTPUT_JSON_FILE) ? v + flags : v);
+        return result;
+    }
+
+    /**
+     * @return env for the app's runCommand, null unless PERF_PROFILE is true
+     */
+    public static Map<String, String> env() {
+        return ENABLED ? Map.of("JAVA_TOOL_OPTIONS", JVM_OPTIONS) : null;
+    }
+
+    /**
+     * Starts perf record on a running process, perf's own output goes next to the data file.
+     *
+     * @return the profiler or null if perf record cannot be started
+     */
+    public static Profiler attach(long pid, Path data) throws IOException {
+        final List<String> cmd = List.of("perf", "record", "-F", Integer.toString(FREQUENCY),
+                "--call-graph", CALL_GRAPH, "-p", Long.toString(pid), "-o", data.toString());
+        LOGGER.info("Profiling " + pid + ": " + String.join(" ", cmd));
+        final Process perf;
+        try {
+            perf = new ProcessBuilder(cmd)
+                    .redirectErrorStream(true)
+                    .redirectOutput(data.resolveSibling(data.getFileName() + ".log").toFile())
+                    .start();
+        } catch (IOException e) {
+            LOGGER.warn("Cannot start perf record, not profiling: " + e.getMessage());
+            return null;
+        }
+        return new Profiler(perf, data);
+    }
+
+    /**
+     * Stops perf record, it writes the data file as it exits.
+     */
+    @Override
+    public void close() throws IOException {
+        if (!perf.isAlive()) {
+            return;
+        }
+        perf.destroy();
+        try {
+            if (!perf.waitFor(30, TimeUnit.SECONDS)) {
+                perf.destroyForcibly();
+                LOGGER.warn("perf record did not finish in time, " + data + " might be incomplete");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while stopping perf record", e);
+        }
+    }
+
+    /**
+     * Folds the perf record data and writes its flame graph, and the differential one against the baseline, to the given dir.
+     * Adds profileSamples and profileTopRegressions to the report. Never fails the test, it only logs a warning.
+     */
+    public static void analyze(Path data, String app, String mode, Path outDir, Report report) {
+        try {
+            final Map<String, Long> stacks = collapse(data);
+            final String name = app + "-" + mode;
+            writeCollapsed(stacks, outDir.resolve(name + ".collapsed"));
+            flameGraph(stacks, null, name, outDir.resolve(name + ".svg"));
+            report.put("profileSamples", total(stacks));
+            final Path baselineFile = BASELINE_DIR.resolve(History.RUNNER).resolve(app).resolve(mode + ".collapsed");
+            if (Files.isRegularFile(baselineFile)) {
+                final Map<String, Long> baseline = readCollapsed(baselineFile);
+                flameGraph(stacks, baseline, name + " vs baseline", outDir.resolve(name + "-diff.svg"));
+                report.put("profileTopRegressions", differences(stacks, baseline).stream()
+                        .filter(d -> d.deltaPct() > 0)
+                        .limit(TOP)
+                        .map(Difference::toString)
+                        .collect(Collectors.joining(", ")));
+            }
+            if (!Files.isRegularFile(baselineFile) || UPDATE_BASELINE) {
+                writeCollapsed(stacks, baselineFile);
+                LOGGER.info("Profile baseline stored in " + baselineFile);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Cannot analyze profile " + data + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Runs perf script on the data file and folds its output.
+     */
+    public static Map<String, Long> collapse(Path data) throws IOException {
+        final Process script = new ProcessBuilder("perf", "script", "-F", "comm,ip,sym,dso", "-i", data.toString())
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        final Map<String, Long> stacks;
+        try (BufferedReader r = new BufferedReader(new InputStreamReader(script.getInputStream(), UTF_8))) {
+            stacks = fold(r);
+        }
+        try {
+            if (script.waitFor() != 0) {
+                throw new IOException("perf script failed with exit value " + script.exitValue());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for perf script", e);
+        }
+        return stacks;
+    }
+
+    /**
+     * Folds perf script output, a line with comm followed by indented frames leaf first and a blank line per sample,
+     * into collapsed stacks.
+     */
+    static Map<String, Long> fold(BufferedReader r) throws IOException {
+        final Map<String, Long> stacks = new HashMap<>();
+        final LinkedList<String> frames = new LinkedList<>();
+        String comm = null;
+        String l;
+        while ((l = r.readLine()) != null) {
+            if (l.isBlank()) {
+                comm = addStack(stacks, comm, frames);
+            } else if (Character.isWhitespace(l.charAt(0))) {
+                final Matcher m = FRAME.matcher(l);
+                if (comm != null && m.matches()) {
+                    frames.addFirst(frameName(m.group(1), m.group(2)));
+                }
+            } else {
+                addStack(stacks, comm, frames);
+                comm = l.trim().replace(';', ':');
+            }
+        }
+        addStack(stacks, comm, frames);
+        return stacks;
+    }
+
+    private static String addStack(Map<String, Long> stacks, String comm, List<String> frames) {
+        if (comm != null) {
+            final String stack = frames.isEmpty() ? comm : comm + ";" + String.join(";", frames);
+            stacks.merge(stack, 1L, Long::sum);
+        }
+        frames.clear();
+        return null;
+    }
+
+    private static String frameName(String sym, String dso) {
+        String name = OFFSET.matcher(sym).replaceFirst("");
+        if (name.isEmpty() || "[unknown]".equals(name)) {
+            // Better tell which library than nothing at all
+            name = dso == null || dso.isEmpty() || "[unknown]".equals(dso) ? "[unknown]" : "[" + Path.of(dso).getFileName() + "]";
+        }
+        // Separates frames in collapsed stacks, JVM perf maps have it in type names
+        return name.replace(';', ':');
+    }
+
+    public static long total(Map<String, Long> stacks) {
+        return stacks.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    public static void writeCollapsed(Map<String, Long> stacks, Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        try (BufferedWriter w = Files.newBufferedWriter(file, UTF_8)) {
+            for (Map.Entry<String, Long> e : new TreeMap<>(stacks).entrySet()) {
+                w.write(e.getKey());
+                w.write(' ');
+                w.write(Long.toString(e.getValue()));
+                w.write('\n');
+            }
+        }
+    }
+
+    public static Map<String, Long> readCollapsed(Path file) throws IOException {
+        final Map<String, Long> stacks = new HashMap<>();
+        for (String l : Files.readAllLines(file, UTF_8)) {
+            final int i = l.lastIndexOf(' ');
+            if (i > 0) {
+                stacks.merge(l.substring(0, i), Long.parseLong(l.substring(i + 1).trim()), Long::sum);
+            }
+        }
+        return stacks;
+    }
+
+    /**
+     * Change of a method's share of self time, i.e. of samples with the method on top of the stack, in percent points.
+     */
+    public static class Difference {
+        public final String method;
+        public final double pct;
+        public final double baselinePct;
+
+        public Difference(String method, double pct, double baselinePct) {
+            this.method = method;
+            this.pct = pct;
+            this.baselinePct = baselinePct;
+        }
+
+        public double deltaPct() {
+            return pct - baselinePct;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "%s %+.2f%%", method, deltaPct());
+        }
+    }
+
+    /**
+     * @return self time differences of all methods, the most grown first
+     */
+    public static List<Difference> differences(Map<String, Long> stacks, Map<String, Long> baseline) {
+        final Map<String, Double> self = selfPct(stacks);
+        final Map<String, Double> baselineSelf = selfPct(baseline);
+        final List<Difference> result = new ArrayList<>();
+        self.forEach((m, p) -> result.add(new Difference(m, p, baselineSelf.getOrDefault(m, 0d))));
+        baselineSelf.forEach((m, p) -> {
+            if (!self.containsKey(m)) {
+                result.add(new Difference(m, 0d, p));
+            }
+        });
+        result.sort(Comparator.comparingDouble(Difference::deltaPct).reversed().thenComparing(d -> d.method));
+        return result;
+    }
+
+    private static Map<String, Double> selfPct(Map<String, Long> stacks) {
+        final long total = total(stacks);
+        final Map<String, Double> self = new HashMap<>();
+        if (total == 0) {
+            return self;
+        }
+        stacks.forEach((s, c) -> self.merge(s.substring(s.lastIndexOf(';') + 1), 100d * c / total, Double::sum));
+        return self;
+    }
+
+    private static class Node {
+        final String name;
+        final Map<String, Node> children = new TreeMap<>();
+        long samples;
+
+        Node(String name) {
+            this.name = name;
+        }
+
+        void add(String[] frames, long count) {
+            samples += count;
+            Node n = this;
+            for (String f : frames) {
+                n = n.children.computeIfAbsent(f, Node::new);
+                n.samples += count;
+            }
+        }
+
+        int depth() {
+            return 1 + children.values().stream().mapToInt(Node::depth).max().orElse(0);
+        }
+    }
+
+    private static Node tree(Map<String, Long> stacks) {
+        final Node root = new Node("all");
+        stacks.forEach((s, c) -> root.add(s.split(";"), c));
+        return root;
+    }
+
+    /**
+     * Writes a flame graph, root at the bottom. With a baseline, frames are coloured by the change of their share
+     * of samples, stack and descendants included: red grew, blue shrank, white did not change.
+     *
+     * @param baseline null for a plain flame graph
+     */
+    public static void flameGraph(Map<String, Long> stacks, Map<String, Long> baseline, String title, Path svg) throws IOException {
+        final Node root = tree(stacks);
+        final Node baselineRoot = baseline == null ? null : tree(baseline);
+        final double maxDelta = baselineRoot == null ? 0 : maxDelta(root, baselineRoot, root.samples, baselineRoot.samples);
+        final int height = root.depth() * FRAME_HEIGHT + SVG_HEADER + SVG_PAD;
+        Files.createDirectories(svg.toAbsolutePath().getParent());
+        try (BufferedWriter w = Files.newBufferedWriter(svg, UTF_8)) {
+            w.write(String.format("<?xml version=\"1.0\" standalone=\"no\"?>\n" +
+                    "<svg version=\"1.1\" width=\"%d\" height=\"%d\" xmlns=\"http://www.w3.org/2000/svg\">\n" +
+                    "<rect x=\"0\" y=\"0\" width=\"100%%\" height=\"100%%\" fill=\"#f8f8f8\"/>\n" +
+                    "<text x=\"%d\" y=\"24\" text-anchor=\"middle\" font-family=\"Verdana\" font-size=\"17\">%s</text>\n" +
+                    "<g font-family=\"Verdana\" font-size=\"12\">\n", SVG_WIDTH, height, SVG_WIDTH / 2, escape(title)));
+            if (root.samples > 0) {
+                writeFrame(w, root, baselineRoot, root.samples, baselineRoot == null ? 0 : baselineRoot.samples,
+                        maxDelta, SVG_PAD, 0, height);
+            }
+            w.write("</g>\n</svg>\n");
+        }
+    }
+
+    private static double maxDelta(Node n, Node b, long total, long baselineTotal) {
+        double max = Math.abs(delta(n, b, total, baselineTotal));
+        for (Node c : n.children.values()) {
+            max = Math.max(max, maxDelta(c, b == null ? null : b.children.get(c.name), total, baselineTotal));
+        }
+        return max;
+    }
+
+    private static double delta(Node n, Node b, long total, long baselineTotal) {
+        final double share = (double) n.samples / total;
+        return b == null || baselineTotal == 0 ? share : share - (double) b.samples / baselineTotal;
+    }
+
+    private static void writeFrame(BufferedWriter w, Node n, Node b, long total, long baselineTotal, double maxDelta,
+                                   double x, int depth, int height) throws IOException {
+        final double width = (double) n.samples / total * (SVG_WIDTH - 2 * SVG_PAD);
+        if (width < 0.1) {
+            return;
+        }
+        final int y = height - SVG_PAD - (depth + 1) * FRAME_HEIGHT;
+        final String fill;
+        final String info;
+        if (baselineTotal > 0) {
+            final double d = delta(n, b, total, baselineTotal);
+            final int v = maxDelta == 0 ? 245 : (int) Math.round(245 - 200 * Math.abs(d) / maxDelta);
+            fill = d > 0 ? String.format("rgb(255,%d,%d)", v, v) : d < 0 ? String.format("rgb(%d,%d,255)", v, v) : "rgb(245,245,245)";
+            info = String.format(Locale.ROOT, "%s (%d samples, %.2f%%, %+.2f%%)", n.name, n.samples, 100d * n.samples / total, 100 * d);
+        } else {
+            final int h = n.name.hashCode();
+            fill = String.format("rgb(%d,%d,%d)", 205 + Math.floorMod(h, 50), Math.floorMod(h >> 8, 230), Math.floorMod(h >> 16, 55));
+            info = String.format(Locale.ROOT, "%s (%d samples, %.2f%%)", n.name, n.samples, 100d * n.samples / total);
+        }
+        w.write(String.format(Locale.ROOT,
+                "<g><title>%s</title><rect x=\"%.1f\" y=\"%d\" width=\"%.1f\" height=\"%d\" fill=\"%s\" rx=\"2\" ry=\"2\"/>",
+                escape(info), x, y, width, FRAME_HEIGHT - 1, fill));
+        // ~7px per character of Verdana 12
+        final int chars = (int) ((width - 6) / 7);
+        if (chars > 2) {
+            final String label = n.name.length() <= chars ? n.name : n.name.substring(0, chars - 2) + "..";
+            w.write(String.format(Locale.ROOT, "<text x=\"%.1f\" y=\"%d\">%s</text>", x + 3, y + FRAME_HEIGHT - 4, escape(label)));
+        }
+        w.write("</g>\n");
+        double childX = x;
+        for (Node c : n.children.values()) {
+            writeFrame(w, c, b == null ? null : b.children.get(c.name), total, baselineTotal, maxDelta, childX, depth + 1, height);
+            childX += (double) c.samples / total * (SVG_WIDTH - 2 * SVG_PAD);
+        }
+    }
+
+    private static String escape(String s) {
+        return s.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;").replace("\"", "&quot;");
+    }
+}
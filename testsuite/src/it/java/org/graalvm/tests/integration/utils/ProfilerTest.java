@@ -0,0 +1,121 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Folding perf script output into collapsed stacks, flame graphs and differences against a baseline.
+ */
+@Tag("testing-testsuite")
+public class ProfilerTest {
+
+    // perf script -F comm,ip,sym,dso
+    private static final String SCRIPT = "" +
+            "executor-thread-1 \n" +
+            "\t    7f3a2c1d4e5f com.fasterxml.jackson.core.json.UTF8StreamJsonParser::nextToken+0x1f (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d3000 org.acme.JsonResource::load+0x44 (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d2000 java.lang.Thread::run+0x10 (/app/target/quarkus-json-runner)\n" +
+            "\n" +
+            "executor-thread-1 \n" +
+            "\t    7f3a2c1d4e5f com.fasterxml.jackson.core.json.UTF8StreamJsonParser::nextToken+0x2a (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d3000 org.acme.JsonResource::load+0x44 (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d2000 java.lang.Thread::run+0x10 (/app/target/quarkus-json-runner)\n" +
+            "\n" +
+            "java \n" +
+            "\t    7f0000001000 Lorg/acme/JsonResource;::hash (/tmp/perf-1234.map)\n" +
+            "\t    7f0000000000 [unknown] (/usr/lib64/libc.so.6)\n" +
+            "\n" +
+            "executor-thread-1 \n" +
+            "\t    7f3a2c1d5000 sun.security.provider.DigestBase::engineUpdate+0x8 (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d3100 org.acme.JsonResource::hash+0x12 (/app/target/quarkus-json-runner)\n" +
+            "\t    7f3a2c1d2000 java.lang.Thread::run+0x10 (/app/target/quarkus-json-runner)\n" +
+            "\n";
+
+    @Test
+    public void fold() throws IOException {
+        final Map<String, Long> stacks = Profiler.fold(new BufferedReader(new StringReader(SCRIPT)));
+        assertEquals(3, stacks.size(), stacks.toString());
+        assertEquals(Long.valueOf(2L), stacks.get("executor-thread-1;java.lang.Thread::run;org.acme.JsonResource::load;" +
+                "com.fasterxml.jackson.core.json.UTF8StreamJsonParser::nextToken"));
+        assertEquals(Long.valueOf(1L), stacks.get("java;[libc.so.6];Lorg/acme/JsonResource:::hash"));
+        assertEquals(Long.valueOf(1L), stacks.get("executor-thread-1;java.lang.Thread::run;org.acme.JsonResource::hash;" +
+                "sun.security.provider.DigestBase::engineUpdate"));
+        assertEquals(4L, Profiler.total(stacks));
+    }
+
+    @Test
+    public void differentialFlameGraph() throws IOException {
+        final Map<String, Long> baseline = Map.of(
+                "main;run;load;parse", 80L,
+                "main;run;hash;digest", 20L);
+        final Map<String, Long> current = Map.of(
+                "main;run;load;parse", 50L,
+                "main;run;hash;digest", 40L,
+                "main;run;hash;copy", 10L);
+
+        final List<Profiler.Difference> differences = Profiler.differences(current, baseline);
+        assertEquals("digest", differences.get(0).method);
+        assertEquals(20d, differences.get(0).deltaPct(), 1e-9);
+        assertEquals("copy", differences.get(1).method);
+        assertEquals("parse", differences.get(differences.size() - 1).method);
+        assertEquals(-30d, differences.get(differences.size() - 1).deltaPct(), 1e-9);
+        assertEquals("digest +20.00%", differences.get(0).toString());
+
+        final Path dir = Files.createTempDirectory("profiler-test");
+        try {
+            final Path collapsed = dir.resolve("current.collapsed");
+            Profiler.writeCollapsed(current, collapsed);
+            assertEquals(current, Profiler.readCollapsed(collapsed));
+
+            final Path svg = dir.resolve("diff.svg");
+            Profiler.flameGraph(current, baseline, "current vs <baseline>", svg);
+            final String s = Files.readString(svg, UTF_8);
+            assertTrue(s.startsWith("<?xml"), s);
+            assertTrue(s.trim().endsWith("</svg>"), s);
+            assertTrue(s.contains("current vs &lt;baseline&gt;"), s);
+            // hash grew from 20 % to 50 %, the most of all frames, load shrank from 80 % to 50 %
+            assertTrue(s.contains("<title>hash (50 samples, 50.00%, +30.00%)</title>") && s.contains("fill=\"rgb(255,45,45)\""), s);
+            assertTrue(s.contains("<title>load (50 samples, 50.00%, -30.00%)</title>") && s.contains("fill=\"rgb(45,45,255)\""), s);
+            assertTrue(s.contains("<title>all (100 samples, 100.00%, +0.00%)</title>"), s);
+            // main, run, load, parse, hash, digest and copy plus the root
+            assertEquals(8, s.split("<g><title>").length - 1, s);
+        } finally {
+            for (String f : new String[]{"current.collapsed", "diff.svg"}) {
+                Files.deleteIfExists(dir.resolve(f));
+            }
+            Files.delete(dir);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Typed measurements of one run, as reported to the collector, see {@link Uploader}: longs and doubles with
+ * an optional unit, booleans and string metadata such as versions. Written with {@link JsonWriter}, so numbers
+ * stay numbers. Units are not part of the payload, the collector knows its fields, they are for humans reading logs.
+ */
+public class Report {
+    // Sorted as the collector has always seen the fields
+    private final Map<String, Entry> entries = new TreeMap<>();
+
+    private static class Entry {
+        final Object value;
+        final String unit;
+
+        Entry(Object value, String unit) {
+            this.value = value;
+            this.unit = unit;
+        }
+    }
+
+    public Report put(String name, long value) {
+        return put(name, value, null);
+    }
+
+    public Report put(String name, long value, String unit) {
+        entries.put(name, new Entry(value, unit));
+        return this;
+    }
+
+    public Report put(String name, double value) {
+        return put(name, value, null);
+    }
+
+    public Report put(String name, double value, String unit) {
+        entries.put(name, new Entry(value, unit));
+        return this;
+    }
+
+    /**
+     * @param value null for not applicable, e.g. a native only flag of a JVM run
+     */
+    public Report put(String name, Boolean value) {
+        entries.put(name, new Entry(value, null));
+        return this;
+    }
+
+    public Report put(String name, String value) {
+        entries.put(name, new Entry(value, null));
+        return this;
+    }
+
+    public Set<String> names() {
+        return entries.keySet();
+    }
+
+    /**
+     * @return Long, Double, Boolean, String or null
+     */
+    public Object get(String name) {
+        final Entry e = entries.get(name);
+        return e == null ? null : e.value;
+    }
+
+    public String unit(String name) {
+        final Entry e = entries.get(name);
+        return e == null ? null : e.unit;
+    }
+
+    public long getLong(String name) {
+        return number(name).longValue();
+    }
+
+    public double getDouble(String name) {
+        return number(name).doubleValue();
+    }
+
+    public void writeJSON(JsonWriter w) throws IOException {
+        w.beginObject();
+        for (Map.Entry<String, Entry> e : entries.entrySet()) {
+            w.name(e.getKey());
+            final Object v = e.getValue().value;
+            if (v instanceof Long) {
+                w.value((long) v);
+            } else if (v instanceof Double) {
+                w.value((double) v);
+            } else if (v instanceof Boolean) {
+                w.value((boolean) v);
+            } else {
+                w.value((String) v);
+            }
+        }
+        w.endObject();
+    }
+
+    /**
+     * Writes the reports as a JSON array, the collector's runtime payload.
+     */
+    public static void writeJSON(List<Report> reports, Writer out) throws IOException {
+        final JsonWriter w = new JsonWriter(out);
+        w.beginArray();
+        for (Report r : reports) {
+            r.writeJSON(w);
+        }
+        w.endArray();
+        w.flush();
+    }
+
+    /**
+     * For logs, payloads are better written straight where they go with {@link #writeJSON(List, Writer)}.
+     */
+    public static String toJSON(List<Report> reports) {
+        final StringWriter s = new StringWriter(512 * reports.size());
+        try {
+            writeJSON(reports, s);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return s.toString();
+    }
+
+    /**
+     * @return e.g. rss=1024 kB, mean=350000 ns
+     */
+    @Override
+    public String toString() {
+        return entries.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue().value + (e.getValue().unit == null ? "" : " " + e.getValue().unit))
+                .collect(Collectors.joining(", "));
+    }
+
+    private Number number(String name) {
+        final Object v = get(name);
+        if (!(v instanceof Number)) {
+            throw new IllegalArgumentException(name + " is not a number: " + v);
+        }
+        return (Number) v;
+    }
+}
@@ -0,0 +1,77 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testing test suite...
+ * Typed reports and the JSON they are written as.
+ */
+@Tag("testing-testsuite")
+public class ReportTest {
+
+    @Test
+    public void typedValues() {
+        final Report r = new Report()
+                .put("rssKb", 1024L, "kB")
+                .put("timeSpentInGCs", 0.25, "s")
+                .put("executableSizeKb", -1L)
+                .put("parseOnce", (Boolean) null)
+                .put("buildCacheHit", true)
+                .put("mandrelVersion", "23.1.5.0-Final");
+        final String json = Report.toJSON(List.of(r, new Report()));
+        assertEquals("[{\"buildCacheHit\":true,\"executableSizeKb\":-1,\"mandrelVersion\":\"23.1.5.0-Final\"," +
+                "\"parseOnce\":null,\"rssKb\":1024,\"timeSpentInGCs\":0.25},{}]", json);
+        assertEquals(1024L, r.getLong("rssKb"));
+        assertEquals(0.25, r.getDouble("timeSpentInGCs"));
+        assertEquals("kB", r.unit("rssKb"));
+        assertNull(r.unit("executableSizeKb"));
+        assertNull(r.get("nonexistent"));
+        assertThrows(IllegalArgumentException.class, () -> r.getLong("mandrelVersion"));
+        assertEquals("buildCacheHit=true, executableSizeKb=-1, mandrelVersion=23.1.5.0-Final, parseOnce=null, " +
+                "rssKb=1024 kB, timeSpentInGCs=0.25 s", r.toString());
+    }
+
+    @Test
+    public void escaping() throws IOException {
+        final StringWriter s = new StringWriter();
+        final JsonWriter w = new JsonWriter(s);
+        w.beginObject()
+                .name("quote\"back\\slash").value("line\nbreak\ttab\u0001")
+                .name("nan").value(Double.NaN)
+                .name("inf").value(Double.POSITIVE_INFINITY)
+                .name("nested").beginArray().value(1).beginArray().endArray().value(false).endArray()
+                .endObject();
+        w.flush();
+        assertEquals("{\"quote\\\"back\\\\slash\":\"line\\nbreak\\ttab\\u0001\",\"nan\":null,\"inf\":null," +
+                "\"nested\":[1,[],false]}", s.toString());
+        assertThrows(IllegalStateException.class, () -> new JsonWriter(new StringWriter()).endObject());
+    }
+}
@@ -0,0 +1,412 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+import org.junit.jupiter.api.Assumptions;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Collectors;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
+import static org.graalvm.tests.integration.utils.Commands.IS_THIS_MACOS;
+import static org.graalvm.tests.integration.utils.Commands.IS_THIS_WINDOWS;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Commands.getRunCommand;
+
+/**
+ * Controls the host a benchmark runs on and tells whether it is quiet enough to measure anything.
+ *
+ * With RUN_ENV_CONTROL=true, {@link #setUp()} keeps turbo off, sets the CPU governor to RUN_ENV_GOVERNOR and
+ * pins the test suite, i.e. the embedded load generator too, to RUN_ENV_LOAD_CPUS. Apps spawned by
+ * {@link Commands#runCommand(List, java.io.File, java.io.File, Apps, java.io.File, Map)} run pinned to RUN_ENV_APP_CPUS,
+ * see {@link #pinned(List, Apps)}, builds get all the CPUs, see {@link #unpinned(List)}. Both default to the two halves of the CPUs the test suite may use. Apps running
+ * in containers are not pinned. {@link #close()} puts everything back.
+ *
+ * {@link #probe()} watches the host for NOISE_PROBE_MS before a measured run: CPU steal, CPUs of the app busy
+ * with something else and how much their frequency varies. NOISE_GATE decides what a noisy host means:
+ * flag (default) marks the run noisy, such runs are not recorded in the {@link History} nor checked against thresholds,
+ * reject probes again NOISE_PROBE_RETRIES times and then aborts the test, off does not probe at all.
+ */
+public class RunEnvironment implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(RunEnvironment.class.getName());
+    public static final boolean CONTROL = Boolean.parseBoolean(getProperty("RUN_ENV_CONTROL", "false"));
+    public static final String GOVERNOR = getProperty("RUN_ENV_GOVERNOR", "performance");
+    public static final String NOISE_GATE = getProperty("NOISE_GATE", "flag");
+    public static final long NOISE_PROBE_MS = Long.parseLong(getProperty("NOISE_PROBE_MS", "1000"));
+    public static final int NOISE_PROBE_RETRIES = Integer.parseInt(getProperty("NOISE_PROBE_RETRIES", "3"));
+    public static final double NOISE_MAX_STEAL_PCT = Double.parseDouble(getProperty("NOISE_MAX_STEAL_PCT", "2"));
+    public static final double NOISE_MAX_BUSY_PCT = Double.parseDouble(getProperty("NOISE_MAX_BUSY_PCT", "10"));
+    public static final double NOISE_MAX_FREQ_CV_PCT = Double.parseDouble(getProperty("NOISE_MAX_FREQ_CV_PCT", "10"));
+    private static final Path PROC_STAT = Path.of("/proc/stat");
+    private static final Path CPUS = Path.of("/sys/devices/system/cpu");
+    private static final long FREQ_SAMPLE_MS = 20;
+
+    private static volatile RunEnvironment active;
+
+    public final String appCpus;
+    public final String loadCpus;
+    private final String ownCpus;
+    private final Map<Path, String> governors = new LinkedHashMap<>();
+
+    private RunEnvironment(String appCpus, String loadCpus, String ownCpus) {
+        this.appCpus = appCpus;
+        this.loadCpus = loadCpus;
+        this.ownCpus = ownCpus;
+    }
+
+    /**
+     * Takes control of the host, no-op returning null unless RUN_ENV_CONTROL is true and the host is Linux.
+     */
+    public static synchronized RunEnvironment setUp() throws IOException {
+        if (!CONTROL || active != null) {
+            return active;
+        }
+        if (IS_THIS_WINDOWS || IS_THIS_MACOS || !Files.isReadable(PROC_STAT)) {
+            LOGGER.info("Run environment control is implemented for Linux only.");
+            return null;
+        }
+        final String ownCpus = ownCpus();
+        final String[] split = split(cpuList(ownCpus));
+        final RunEnvironment e = new RunEnvironment(getProperty("RUN_ENV_APP_CPUS", split[0]),
+                getProperty("RUN_ENV_LOAD_CPUS", split[1]), ownCpus);
+        if (!Collections.disjoint(cpuList(e.appCpus), cpuList(e.loadCpus))) {
+            LOGGER.warn("App CPUs " + e.appCpus + " and load generator CPUs " + e.loadCpus + " overlap.");
+        }
+        Commands.disableTurbo();
+        e.setGovernors();
+        e.taskset(e.loadCpus, ProcessHandle.current().pid());
+        active = e;
+        LOGGER.info("App pinned to CPUs " + e.appCpus + ", test suite and load generator to " + e.loadCpus +
+                ", governor " + GOVERNOR + ", turbo off.");
+        return e;
+    }
+
+    /**
+     * @return true while {@link #setUp()} holds the host, e.g. ad hoc turbo switching is then left to the controller
+     */
+    public static boolean isActive() {
+        return active != null;
+    }
+
+    /**
+     * @return the command prefixed with taskset pinning it to the app CPUs if the controller is active
+     * and the command runs the app on this host
+     */
+    public static List<String> pinned(List<String> command, Apps app) {
+        final RunEnvironment e = active;
+        if (e == null || app == null || app.runtimeContainer != ContainerNames.NONE || command.isEmpty()
+                || CONTAINER_RUNTIME.equals(command.get(0))) {
+            return command;
+        }
+        final List<String> pinned = new ArrayList<>(command.size() + 3);
+        pinned.add("taskset");
+        pinned.add("-c");
+        pinned.add(e.appCpus);
+        pinned.addAll(command);
+        return pinned;
+    }
+
+    /**
+     * @return the command prefixed with taskset giving it all the CPUs the test suite had before {@link #setUp()},
+     * e.g. for builds, if the controller is active
+     */
+    public static List<String> unpinned(List<String> command) {
+        final RunEnvironment e = active;
+        if (e == null || command.isEmpty()) {
+            return command;
+        }
+        final List<String> unpinned = new ArrayList<>(command.size() + 3);
+        unpinned.add("taskset");
+        unpinned.add("-c");
+        unpinned.add(e.ownCpus);
+        unpinned.addAll(command);
+        return unpinned;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (RunEnvironment.class) {
+            if (active != this) {
+                return;
+            }
+            active = null;
+        }
+        taskset(ownCpus, ProcessHandle.current().pid());
+        if (!governors.isEmpty()) {
+            sudo(governors.entrySet().stream()
+                    .map(g -> "echo " + g.getValue() + " > " + g.getKey())
+                    .collect(Collectors.joining("; ")));
+        }
+        Commands.enableTurbo();
+    }
+
+    private void setGovernors() throws IOException {
+        final List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(CPUS, "cpu[0-9]*")) {
+            for (Path cpu : ds) {
+                final Path g = cpu.resolve("cpufreq").resolve("scaling_governor");
+                if (Files.isReadable(g)) {
+                    governors.put(g, Files.readString(g, UTF_8).trim());
+                    files.add(g);
+                }
+            }
+        }
+        if (files.isEmpty()) {
+            LOGGER.info("No CPU governor found. This is either a vm or a different system.");
+            return;
+        }
+        sudo("for g in " + files.stream().map(Path::toString).collect(Collectors.joining(" ")) +
+                "; do echo " + GOVERNOR + " > $g; done");
+    }
+
+    private void taskset(String cpus, long pid) throws IOException {
+        final List<String> cmd = getRunCommand("taskset", "-a", "-p", "-c", cpus, Long.toString(pid));
+        LOGGER.infof("Command: %s, Output: %s", cmd, Commands.runCommand(cmd));
+    }
+
+    private static void sudo(String script) throws IOException {
+        final List<String> cmd = getRunCommand("sudo", "bash", "-c", script);
+        LOGGER.infof("Command: %s, Output: %s", cmd, Commands.runCommand(cmd));
+    }
+
+    public static class Noise {
+        public final double stealPct;
+        // Busy CPUs of the app, i.e. something else is running there, -1 if unknown
+        public final double busyPct;
+        // Coefficient of variation of the app CPUs' frequency, -1 if unknown, e.g. in a vm
+        public final double freqCvPct;
+        public final List<String> reasons = new ArrayList<>();
+
+        public Noise(double stealPct, double busyPct, double freqCvPct) {
+            this.stealPct = stealPct;
+            this.busyPct = busyPct;
+            this.freqCvPct = freqCvPct;
+            if (stealPct > NOISE_MAX_STEAL_PCT) {
+                reasons.add(String.format("steal %.2f%% > %.2f%%", stealPct, NOISE_MAX_STEAL_PCT));
+            }
+            if (busyPct > NOISE_MAX_BUSY_PCT) {
+                reasons.add(String.format("busy %.2f%% > %.2f%%", busyPct, NOISE_MAX_BUSY_PCT));
+            }
+            if (freqCvPct > NOISE_MAX_FREQ_CV_PCT) {
+                reasons.add(String.format("frequency variation %.2f%% > %.2f%%", freqCvPct, NOISE_MAX_FREQ_CV_PCT));
+            }
+        }
+
+        public boolean noisy() {
+            return !reasons.isEmpty();
+        }
+
+        /**
+         * Adds noiseStealPct, noiseBusyPct, noiseFreqCvPct and noisy to a perf report.
+         */
+        public void toReport(Report report) {
+            report.put("noiseStealPct", round(stealPct), "%");
+            report.put("noiseBusyPct", round(busyPct), "%");
+            report.put("noiseFreqCvPct", round(freqCvPct), "%");
+            report.put("noisy", noisy());
+        }
+
+        @Override
+        public String toString() {
+            return String.format("steal %.2f%%, busy %.2f%%, frequency variation %.2f%%%s", stealPct, busyPct, freqCvPct,
+                    noisy() ? ", noisy: " + String.join(", ", reasons) : "");
+        }
+    }
+
+    /**
+     * @return true if the report is of a run flagged noisy by {@link Noise#toReport(Report)}
+     */
+    public static boolean noisy(Report report) {
+        return Boolean.TRUE.equals(report.get("noisy"));
+    }
+
+    /**
+     * Probes the host for noise as NOISE_GATE says.
+     *
+     * @return the noise or null if NOISE_GATE is off or the host is not Linux
+     */
+    public static Noise probe() throws IOException, InterruptedException {
+        if ("off".equalsIgnoreCase(NOISE_GATE) || IS_THIS_WINDOWS || IS_THIS_MACOS || !Files.isReadable(PROC_STAT)) {
+            return null;
+        }
+        Noise noise = probe(NOISE_PROBE_MS);
+        for (int i = 0; "reject".equalsIgnoreCase(NOISE_GATE) && noise.noisy() && i < NOISE_PROBE_RETRIES; i++) {
+            LOGGER.warn("Host is noisy, " + noise + ", probing again.");
+            noise = probe(NOISE_PROBE_MS);
+        }
+        if (noise.noisy()) {
+            LOGGER.warn("Host is noisy, " + noise + ". Numbers of this run are not to be trusted.");
+            Assumptions.assumeFalse("reject".equalsIgnoreCase(NOISE_GATE), "Host is too noisy to measure: " + noise);
+        } else {
+            LOGGER.info("Noise probe: " + noise);
+        }
+        return noise;
+    }
+
+    /**
+     * Watches /proc/stat and CPU frequencies of the app CPUs for the given time.
+     */
+    public static Noise probe(long durationMs) throws IOException, InterruptedException {
+        final RunEnvironment e = active;
+        final Set<Integer> cpus = e != null ? cpuList(e.appCpus) : cpuList(ownCpus());
+        final List<String> before = Files.readAllLines(PROC_STAT, UTF_8);
+        final List<Double> freqs = new ArrayList<>();
+        final long end = System.currentTimeMillis() + durationMs;
+        do {
+            for (int cpu : cpus) {
+                final Path f = CPUS.resolve("cpu" + cpu).resolve("cpufreq").resolve("scaling_cur_freq");
+                if (Files.isReadable(f)) {
+                    freqs.add(Double.parseDouble(Files.readString(f, UTF_8).trim()));
+                }
+            }
+            Thread.sleep(FREQ_SAMPLE_MS);
+        } while (System.currentTimeMillis() < end);
+        final List<String> after = Files.readAllLines(PROC_STAT, UTF_8);
+        return noise(before, after, cpus, freqs);
+    }
+
+    /**
+     * @param before /proc/stat at the start of the probe
+     * @param after  /proc/stat at the end
+     * @param cpus   CPUs of the app
+     * @param freqs  frequency samples of the app CPUs
+     */
+    static Noise noise(List<String> before, List<String> after, Set<Integer> cpus, List<Double> freqs) {
+        final Map<String, long[]> b = stat(before);
+        final Map<String, long[]> a = stat(after);
+        double stealPct = 0;
+        final long[] total = delta(b.get("cpu"), a.get("cpu"));
+        if (total != null && sum(total) > 0) {
+            stealPct = 100d * (total.length > 7 ? total[7] : 0) / sum(total);
+        }
+        long busy = 0;
+        long all = 0;
+        for (int cpu : cpus) {
+            final long[] d = delta(b.get("cpu" + cpu), a.get("cpu" + cpu));
+            if (d != null) {
+                // idle and iowait
+                busy += sum(d) - d[3] - (d.length > 4 ? d[4] : 0);
+                all += sum(d);
+            }
+        }
+        final double busyPct = all > 0 ? 100d * busy / all : -1;
+        double freqCvPct = -1;
+        if (freqs.size() > 1) {
+            final double mean = freqs.stream().mapToDouble(Double::doubleValue).average().orElse(0);
+            final double variance = freqs.stream().mapToDouble(f -> (f - mean) * (f - mean)).sum() / freqs.size();
+            freqCvPct = mean > 0 ? 100d * Math.sqrt(variance) / mean : -1;
+        }
+        return new Noise(stealPct, busyPct, freqCvPct);
+    }
+
+    // cpu lines of /proc/stat: user nice system idle iowait irq softirq steal guest guest_nice, guests are in user already
+    private static Map<String, long[]> stat(List<String> lines) {
+        final Map<String, long[]> m = new LinkedHashMap<>();
+        for (String l : lines) {
+            if (l.startsWith("cpu")) {
+                final String[] s = l.trim().split("\\s+");
+                final long[] v = new long[Math.min(8, s.length - 1)];
+                for (int i = 0; i < v.length; i++) {
+                    v[i] = Long.parseLong(s[i + 1]);
+                }
+                m.put(s[0], v);
+            }
+        }
+        return m;
+    }
+
+    private static long[] delta(long[] before, long[] after) {
+        if (before == null || after == null || before.length != after.length || before.length < 4) {
+            return null;
+        }
+        final long[] d = new long[before.length];
+        for (int i = 0; i < d.length; i++) {
+            d[i] = after[i] - before[i];
+        }
+        return d;
+    }
+
+    private static long sum(long[] v) {
+        long s = 0;
+        for (long l : v) {
+            s += l;
+        }
+        return s;
+    }
+
+    /**
+     * @param list e.g. 0-3,6
+     */
+    static Set<Integer> cpuList(String list) {
+        final Set<Integer> cpus = new TreeSet<>();
+        for (String r : list.trim().split(",")) {
+            if (r.isBlank()) {
+                continue;
+            }
+            final String[] fromTo = r.trim().split("-");
+            final int from = Integer.parseInt(fromTo[0]);
+            final int to = fromTo.length > 1 ? Integer.parseInt(fromTo[1]) : from;
+            for (int c = from; c <= to; c++) {
+                cpus.add(c);
+            }
+        }
+        return cpus;
+    }
+
+    /**
+     * @return app and load generator halves of the CPUs, the app gets the bigger one, the same CPU for both if there is just one
+     */
+    static String[] split(Set<Integer> cpus) {
+        final List<Integer> l = new ArrayList<>(cpus);
+        if (l.size() < 2) {
+            final String all = l.stream().map(String::valueOf).collect(Collectors.joining(","));
+            return new String[]{all, all};
+        }
+        final int appCount = (l.size() + 1) / 2;
+        return new String[]{
+                l.subList(0, appCount).stream().map(String::valueOf).collect(Collectors.joining(",")),
+                l.subList(appCount, l.size()).stream().map(String::valueOf).collect(Collectors.joining(","))};
+    }
+
+    private static String ownCpus() throws IOException {
+        for (String l : Files.readAllLines(Path.of("/proc/self/status"), UTF_8)) {
+            if (l.startsWith("Cpus_allowed_list:")) {
+                return l.substring("Cpus_allowed_list:".length()).trim();
+            }
+        }
+        return "0-" + (Runtime.getRuntime().availableProcessors() - 1);
+    }
+
+    private static double round(double v) {
+        return Math.round(v * 1000d) / 1000d;
+    }
+}
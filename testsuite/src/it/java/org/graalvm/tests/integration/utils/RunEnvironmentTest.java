@@ -0,0 +1,91 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * CPU sets, and noise of the host from /proc/stat and CPU frequency samples.
+ */
+@Tag("testing-testsuite")
+public class RunEnvironmentTest {
+
+    @Test
+    public void cpuSets() {
+        assertEquals(Set.of(0, 1, 2, 3, 6), RunEnvironment.cpuList("0-3,6"));
+        assertEquals(Set.of(5), RunEnvironment.cpuList(" 5\n"));
+        assertArrayEquals(new String[]{"0,1,2", "3,6"}, RunEnvironment.split(RunEnvironment.cpuList("0-3,6")));
+        assertArrayEquals(new String[]{"0", "0"}, RunEnvironment.split(Set.of(0)));
+        // Not active, commands are left alone
+        final List<String> cmd = List.of("./target/app-runner", "-XX:+PrintGC");
+        assertSame(cmd, RunEnvironment.pinned(cmd, Apps.QUARKUS_JSON_PERF));
+        assertSame(cmd, RunEnvironment.unpinned(cmd));
+    }
+
+    @Test
+    public void noise() {
+        final List<String> before = List.of(
+                "cpu  1000 0 500 8000 100 0 0 0 0 0",
+                "cpu0 500 0 250 4000 50 0 0 0 0 0",
+                "cpu1 500 0 250 4000 50 0 0 0 0 0",
+                "intr 12345");
+        // cpu1 was busy for 100 of 400 ticks, 50 ticks stolen overall
+        final List<String> after = List.of(
+                "cpu  1100 0 500 8600 100 0 0 50 0 0",
+                "cpu0 500 0 250 4350 50 0 0 0 0 0",
+                "cpu1 600 0 250 4250 50 0 0 50 0 0",
+                "intr 12399");
+        final RunEnvironment.Noise quiet = RunEnvironment.noise(before, after, Set.of(0), List.of(2000000d, 2000000d));
+        assertEquals(50d * 100 / 750, quiet.stealPct, 1e-9);
+        assertEquals(0d, quiet.busyPct, 1e-9);
+        assertEquals(0d, quiet.freqCvPct, 1e-9);
+        final RunEnvironment.Noise busy = RunEnvironment.noise(before, after, Set.of(1), List.of(1000000d, 3000000d));
+        assertEquals(100d * 150 / 400, busy.busyPct, 1e-9);
+        assertEquals(50d, busy.freqCvPct, 1e-9);
+        assertTrue(busy.noisy(), busy.toString());
+        assertEquals(3, busy.reasons.size(), busy.toString());
+
+        final Report report = new Report();
+        busy.toReport(report);
+        assertTrue(RunEnvironment.noisy(report));
+        // No frequencies in a vm
+        assertEquals(-1d, RunEnvironment.noise(before, after, Set.of(0), List.of()).freqCvPct, 1e-9);
+    }
+
+    @Test
+    public void probe() throws IOException, InterruptedException {
+        final RunEnvironment.Noise noise = RunEnvironment.probe(100);
+        assertTrue(noise.stealPct >= 0 && noise.stealPct <= 100, noise.toString());
+        assertTrue(noise.busyPct >= -1 && noise.busyPct <= 100, noise.toString());
+        assertFalse(Double.isNaN(noise.freqCvPct), noise.toString());
+    }
+}
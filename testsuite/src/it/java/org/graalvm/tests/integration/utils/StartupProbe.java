@@ -0,0 +1,347 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Commands.parsePort;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Measures startup of an app from the moment {@link Commands#runCommand(List, File, File, Apps)} spawned it,
+ * not from the moment a test gets to ask for a web page:
+ * <ul>
+ *     <li>time to exec, until ProcessBuilder.start() returned, i.e. the executable was exec'd</li>
+ *     <li>time to listen, until a socket of the app, or of its child processes, listens on the app's port, see
+ *     {@link #listeningInodes(Path[], int)}</li>
+ *     <li>time to first OK, until the expected page came over a keep-alive connection, once the app listens
+ *     that is a single request unless the app answers it with an error</li>
+ *     <li>startup the app reports itself, e.g. Quarkus' "started in 0.015s"</li>
+ * </ul>
+ * Call {@link #probe(Process, Apps, long)} right after runCommand, anything in between delays the probe.
+ * Time to listen is not available outside Linux, there the probe keeps sending requests every
+ * STARTUP_PROBE_INTERVAL_US until one is answered.
+ * Time to listen is not available for apps in containers either, the port is published by the container runtime
+ * before the app listens.
+ */
+public class StartupProbe {
+    private static final Logger LOGGER = Logger.getLogger(StartupProbe.class.getName());
+    public static final long INTERVAL_US = Long.parseLong(getProperty("STARTUP_PROBE_INTERVAL_US", "200"));
+    // Quarkus: "started in 0.015s.", Micronaut: "Startup completed in 15ms."
+    static final Pattern APP_STARTED = Pattern.compile("(?:started|Startup completed) in ([0-9]+(?:\\.[0-9]+)?)(ms|s)\\b");
+    // How long the app gets to log its startup after the first OK
+    private static final long APP_LOG_WAIT_MS = 1000;
+    private static final String TCP_LISTEN = "0A";
+    private static final Map<Long, Spawn> SPAWNS = new ConcurrentHashMap<>();
+
+    private static class Spawn {
+        final long startNs;
+        final long execNs;
+        final File log;
+        final long logOffset;
+
+        Spawn(long startNs, long execNs, File log, long logOffset) {
+            this.startNs = startNs;
+            this.execNs = execNs;
+            this.log = log;
+            this.logOffset = logOffset;
+        }
+    }
+
+    public static class Startup {
+        // All in ms since spawn, -1 if not available
+        public final double execMs;
+        public final double listenMs;
+        public final double firstOKMs;
+        // As reported by the app, measured by the app from whenever it thinks it started
+        public final double appReportedMs;
+        // Sent until the first OK
+        public final int requests;
+
+        Startup(double execMs, double listenMs, double firstOKMs, double appReportedMs, int requests) {
+            this.execMs = execMs;
+            this.listenMs = listenMs;
+            this.firstOKMs = firstOKMs;
+            this.appReportedMs = appReportedMs;
+            this.requests = requests;
+        }
+
+        public long timeToFirstOKRequestMs() {
+            return Math.round(firstOKMs);
+        }
+
+        public void toReport(Report report) {
+            report.put("timeToFirstOKRequestMs", timeToFirstOKRequestMs(), "ms");
+            putIfMeasured(report, "timeToExecMs", execMs);
+            putIfMeasured(report, "timeToListenMs", listenMs);
+            putIfMeasured(report, "appReportedStartupMs", appReportedMs);
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT, "exec %.3f ms, listen %.3f ms, first OK %.3f ms (%d requests), app reported %.3f ms",
+                    execMs, listenMs, firstOKMs, requests, appReportedMs);
+        }
+
+        private static void putIfMeasured(Report report, String name, double ms) {
+            if (ms >= 0) {
+                report.put(name, ms, "ms");
+            }
+        }
+    }
+
+    /**
+     * Called by runCommand with the time taken just before ProcessBuilder.start().
+     *
+     * @param logOffset where the process output starts in the log
+     */
+    static void spawned(Process process, long startNs, File log, long logOffset) {
+        final long execNs = System.nanoTime();
+        if (process == null) {
+            return;
+        }
+        final long pid = process.pid();
+        SPAWNS.put(pid, new Spawn(startNs, execNs, log, logOffset));
+        process.onExit().thenRun(() -> SPAWNS.remove(pid));
+    }
+
+    /**
+     * Probes the app's first URL for its expected content, see {@link #probe(Process, String, String, long, boolean)}.
+     */
+    public static Startup probe(Process process, Apps app, long timeoutS) throws IOException, InterruptedException {
+        return probe(process, app.urlContent.urlContent[0][0], app.urlContent.urlContent[0][1], timeoutS,
+                app.runtimeContainer == ContainerNames.NONE, -1L);
+    }
+
+    /**
+     * Probes the app's first URL measuring from now instead of from the spawn, e.g. once a container
+     * logged the app started, so that pulling the image and creating the container do not count.
+     * There is no time to exec nor to listen then.
+     */
+    public static Startup probeFromNow(Process process, Apps app, long timeoutS) throws IOException, InterruptedException {
+        return probe(process, app.urlContent.urlContent[0][0], app.urlContent.urlContent[0][1], timeoutS, false, System.nanoTime());
+    }
+
+    /**
+     * Waits for the process started by runCommand to listen on the url's port and for the url
+     * to return the expected string.
+     *
+     * @param watchListen false if the port is not opened by the process itself, e.g. a container
+     */
+    public static Startup probe(Process process, String url, String stringToLookFor, long timeoutS, boolean watchListen)
+            throws IOException, InterruptedException {
+        return probe(process, url, stringToLookFor, timeoutS, watchListen, -1L);
+    }
+
+    /**
+     * @param fromNs System.nanoTime() to measure from instead of the spawn, -1 for the spawn
+     */
+    private static Startup probe(Process process, String url, String stringToLookFor, long timeoutS, boolean watchListen, long fromNs)
+            throws IOException, InterruptedException {
+        final Spawn spawn = SPAWNS.get(process.pid());
+        if (spawn == null) {
+            throw new IllegalArgumentException("Process " + process.pid() + " was not started with Commands.runCommand " +
+                    "or has already exited");
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeoutS);
+        // Created before anything is measured
+        final HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(500))
+                .build();
+        final HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .header("Accept", "*/*")
+                .timeout(Duration.ofSeconds(timeoutS))
+                .GET()
+                .build();
+
+        long listenNs = -1L;
+        final Path procNet = Path.of("/proc", Long.toString(process.pid()), "net");
+        if (watchListen && Files.isReadable(procNet.resolve("tcp"))) {
+            final int port = parsePort(url);
+            final Path[] tables = new Path[]{procNet.resolve("tcp"), procNet.resolve("tcp6")};
+            boolean firstPoll = true;
+            while (System.nanoTime() < deadline && process.isAlive()) {
+                final long pollNs = System.nanoTime();
+                final Set<String> inodes = listeningInodes(tables, port);
+                if (!inodes.isEmpty()) {
+                    if (firstPoll) {
+                        LOGGER.warn("Port " + port + " was already listening when probing started, time to listen not measured.");
+                    } else if (owns(process.toHandle(), inodes)) {
+                        listenNs = pollNs;
+                    } else {
+                        LOGGER.warn("Port " + port + " is listened on by another process, time to listen not measured.");
+                    }
+                    break;
+                }
+                firstPoll = false;
+                LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(INTERVAL_US));
+            }
+        }
+
+        long okNs = -1L;
+        int requests = 0;
+        while (System.nanoTime() < deadline) {
+            requests++;
+            try {
+                final HttpResponse<String> r = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (r.statusCode() / 100 == 2 && r.body().contains(stringToLookFor)) {
+                    okNs = System.nanoTime();
+                    break;
+                }
+            } catch (IOException e) {
+                LOGGER.debug("Waiting `" + stringToLookFor + "' to appear on " + url);
+            }
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(INTERVAL_US));
+        }
+        assertTrue(okNs > 0, "Timeout " + timeoutS + "s was reached. " + url + " must contain string: `" + stringToLookFor + "'");
+
+        final long startNs = fromNs < 0 ? spawn.startNs : fromNs;
+        final Startup startup = new Startup(
+                fromNs < 0 ? ms(spawn.execNs - spawn.startNs) : -1,
+                listenNs < 0 ? -1 : ms(listenNs - startNs),
+                ms(okNs - startNs),
+                spawn.log == null ? -1 : appReportedMs(spawn.log, spawn.logOffset),
+                requests);
+        LOGGER.info("Startup of " + url + ": " + startup);
+        return startup;
+    }
+
+    /**
+     * The tables list the sockets of the whole network namespace, not just of the process,
+     * see {@link #owns(ProcessHandle, Set)}.
+     *
+     * @param tables /proc/&lt;pid&gt;/net/tcp and tcp6
+     * @return inodes of the sockets in LISTEN state on the port
+     */
+    static Set<String> listeningInodes(Path[] tables, int port) throws IOException {
+        final String hexPort = String.format(":%04X", port);
+        final Set<String> inodes = new HashSet<>();
+        for (Path t : tables) {
+            if (!Files.isReadable(t)) {
+                continue;
+            }
+            // sl local_address rem_address st tx_queue:rx_queue tr:tm->when retrnsmt uid timeout inode ...,
+            // e.g. 0: 00000000:1F90 00000000:0000 0A 00000000:00000000 00:00000000 00000000 1000 0 12345 ...
+            for (String l : Files.readAllLines(t, UTF_8)) {
+                final String[] f = l.trim().split("\\s+");
+                if (f.length > 9 && f[1].endsWith(hexPort) && TCP_LISTEN.equals(f[3])) {
+                    inodes.add(f[9]);
+                }
+            }
+        }
+        return inodes;
+    }
+
+    /**
+     * @return true if the process or any of its descendants, e.g. the app a script started, has an fd
+     * on any of the sockets, /proc/&lt;pid&gt;/fd/N links to "socket:[inode]"
+     */
+    static boolean owns(ProcessHandle process, Set<String> inodes) throws IOException {
+        final List<ProcessHandle> tree = new ArrayList<>();
+        tree.add(process);
+        process.descendants().forEach(tree::add);
+        for (ProcessHandle p : tree) {
+            try (DirectoryStream<Path> fds = Files.newDirectoryStream(Path.of("/proc", Long.toString(p.pid()), "fd"))) {
+                for (Path fd : fds) {
+                    final String link;
+                    try {
+                        link = Files.readSymbolicLink(fd).toString();
+                    } catch (NoSuchFileException e) {
+                        // Closed meanwhile
+                        continue;
+                    }
+                    if (link.startsWith("socket:[") && inodes.contains(link.substring(8, link.length() - 1))) {
+                        return true;
+                    }
+                }
+            } catch (NoSuchFileException | AccessDeniedException e) {
+                LOGGER.debug("Cannot list fds of " + p.pid() + ": " + e.getMessage());
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return startup in ms the app logged itself or -1 if it logged none in time
+     */
+    static double appReportedMs(File log, long offset) throws IOException, InterruptedException {
+        final long deadline = System.currentTimeMillis() + APP_LOG_WAIT_MS;
+        do {
+            try (FileChannel ch = FileChannel.open(log.toPath(), StandardOpenOption.READ);
+                 BufferedReader r = new BufferedReader(new InputStreamReader(Channels.newInputStream(ch.position(offset)), UTF_8))) {
+                String l;
+                while ((l = r.readLine()) != null) {
+                    final double ms = appReportedMs(l);
+                    if (ms >= 0) {
+                        return ms;
+                    }
+                }
+            }
+            Thread.sleep(50);
+        } while (System.currentTimeMillis() < deadline);
+        return -1;
+    }
+
+    static double appReportedMs(String line) {
+        final Matcher m = APP_STARTED.matcher(line);
+        if (!m.find()) {
+            return -1;
+        }
+        final double v = Double.parseDouble(m.group(1));
+        return "s".equals(m.group(2)) ? v * 1000 : v;
+    }
+
+    private static double ms(long ns) {
+        // µs precision is plenty
+        return Math.round(ns / 1000d) / 1000d;
+    }
+}
@@ -0,0 +1,129 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Startup of a tiny HTTP server in a JVM of its own, measured from spawn.
+ */
+@Tag("testing-testsuite")
+@DisabledOnOs({OS.WINDOWS, OS.MAC})
+public class StartupProbeTest {
+
+    // Listens only after a while so that listening is clearly apart from exec
+    private static final String SERVER = "" +
+            "import com.sun.net.httpserver.HttpServer;\n" +
+            "import java.net.InetSocketAddress;\n" +
+            "public class Server {\n" +
+            "    public static void main(String[] args) throws Exception {\n" +
+            "        final long start = System.nanoTime();\n" +
+            "        Thread.sleep(300);\n" +
+            "        final HttpServer s = HttpServer.create(new InetSocketAddress(\"localhost\", Integer.parseInt(args[0])), 0);\n" +
+            "        s.createContext(\"/\", x -> {\n" +
+            "            final byte[] b = \"Hello from server\".getBytes();\n" +
+            "            x.sendResponseHeaders(200, b.length);\n" +
+            "            x.getResponseBody().write(b);\n" +
+            "            x.close();\n" +
+            "        });\n" +
+            "        s.start();\n" +
+            "        System.out.printf(\"server started in %.3fs. Listening on: %s%n\", (System.nanoTime() - start) / 1e9, args[0]);\n" +
+            "        Thread.sleep(60000);\n" +
+            "    }\n" +
+            "}\n";
+
+    @Test
+    public void probeServer() throws IOException, InterruptedException {
+        final Path dir = Files.createTempDirectory("startup-probe");
+        final File log = dir.resolve("process.log").toFile();
+        Files.writeString(dir.resolve("Server.java"), SERVER, UTF_8);
+        Files.writeString(log.toPath(), "earlier run started in 9.999s\n", UTF_8);
+        final int port;
+        try (ServerSocket s = new ServerSocket(0)) {
+            port = s.getLocalPort();
+        }
+        final String java = Path.of(System.getProperty("java.home"), "bin", "java").toString();
+        final Process process = Commands.runCommand(List.of(java, "Server.java", Integer.toString(port)), dir.toFile(), log, null);
+        try {
+            final StartupProbe.Startup s = StartupProbe.probe(process, "http://localhost:" + port + "/", "Hello", 60, true);
+            assertTrue(s.execMs > 0, "Exec must take some time: " + s);
+            assertTrue(s.listenMs > s.execMs + 300, "Server listens 300 ms after it started at the earliest: " + s);
+            assertTrue(s.firstOKMs >= s.listenMs, "No OK before listening: " + s);
+            assertEquals(1, s.requests, "Once listening, a single request gets the page: " + s);
+            assertTrue(s.appReportedMs >= 300 && s.appReportedMs < s.firstOKMs,
+                    "The app measures less than the probe and the earlier run in the log is skipped: " + s);
+            final Report report = new Report();
+            s.toReport(report);
+            assertEquals(s.timeToFirstOKRequestMs(), report.getLong("timeToFirstOKRequestMs"));
+            assertEquals("ms", report.unit("timeToListenMs"));
+        } finally {
+            process.destroyForcibly().waitFor();
+            Files.walk(dir).sorted((a, b) -> b.compareTo(a)).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    @Test
+    public void ownSockets() throws IOException {
+        final Path[] tables = new Path[]{Path.of("/proc/self/net/tcp"), Path.of("/proc/self/net/tcp6")};
+        try (ServerSocket s = new ServerSocket(0)) {
+            final Set<String> inodes = StartupProbe.listeningInodes(tables, s.getLocalPort());
+            assertFalse(inodes.isEmpty());
+            assertTrue(StartupProbe.owns(ProcessHandle.current(), inodes));
+            assertFalse(StartupProbe.owns(ProcessHandle.current(), Set.of("0")), "Sockets of other processes are not ours");
+        }
+    }
+
+    @Test
+    public void parsing() throws IOException {
+        final Path tcp = Files.createTempFile("tcp", "");
+        try {
+            Files.writeString(tcp, "" +
+                    "  sl  local_address rem_address   st tx_queue rx_queue tr tm->when retrnsmt   uid  timeout inode\n" +
+                    "   0: 0100007F:1F90 00000000:0000 0A 00000000:00000000 00:00000000 00000000  1000        0 1 1\n" +
+                    "   1: 0100007F:C350 0100007F:1F90 01 00000000:00000000 00:00000000 00000000  1000        0 2 1\n", UTF_8);
+            final Path[] tables = new Path[]{tcp, tcp.resolveSibling("nonexistent-tcp6")};
+            assertEquals(Set.of("1"), StartupProbe.listeningInodes(tables, 8080));
+            assertTrue(StartupProbe.listeningInodes(tables, 50000).isEmpty(), "Established, not listening");
+            assertTrue(StartupProbe.listeningInodes(tables, 8081).isEmpty());
+        } finally {
+            Files.delete(tcp);
+        }
+        assertEquals(15.0, StartupProbe.appReportedMs("getting-started 1.0.0-SNAPSHOT native (powered by Quarkus 3.2.0) started in 0.015s. Listening on: http://0.0.0.0:8080"), 1e-9);
+        assertEquals(18.0, StartupProbe.appReportedMs("Startup completed in 18ms. Server Running: http://localhost:8080"));
+        assertEquals(-1.0, StartupProbe.appReportedMs("Installed features: [cdi, resteasy-reactive]"));
+    }
+}
@@ -0,0 +1,488 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import org.jboss.logging.Logger;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * On-disk queue of payloads for the collector behind PERF_APP_ENDPOINT, see {@link Uploader}.
+ *
+ * A test only writes its payload to PERF_APP_SPOOL_DIR, a background thread sends it. Runtime payloads,
+ * JSON arrays of reports, waiting for the same context are sent as one array of at most PERF_APP_BATCH_SIZE
+ * payloads. Bodies are gzip compressed (PERF_APP_GZIP) unless the collector answers 415. Connection errors,
+ * 408, 429 and 5xx are retried with exponential backoff from PERF_APP_RETRY_BACKOFF_MS up to
+ * PERF_APP_RETRY_MAX_BACKOFF_MS. A rejected batch is sent again payload by payload so that one bad report
+ * does not take the others down with it, payloads rejected on their own are moved to the failed/ subdirectory.
+ *
+ * An entry is a name.upload properties file with its payloads next to it in name.N.json. Payloads are streamed
+ * from and to these files, never held in memory as a whole. An entry records the endpoint it was enqueued for
+ * and is only ever sent there, entries for other endpoints wait for a spool of their own.
+ *
+ * Whatever is not sent by the end of the JVM stays in the spool for the next run. Several JVMs may share
+ * the spool, only the one holding its lock sends.
+ */
+public class UploadSpool implements AutoCloseable {
+    private static final Logger LOGGER = Logger.getLogger(UploadSpool.class.getName());
+    public static final Path DIR = Path.of(getProperty("PERF_APP_SPOOL_DIR",
+            Path.of(System.getProperty("java.io.tmpdir"), "mandrel-it-upload-spool").toString()));
+    public static final boolean GZIP = Boolean.parseBoolean(getProperty("PERF_APP_GZIP", "true"));
+    public static final int BATCH_SIZE = Integer.parseInt(getProperty("PERF_APP_BATCH_SIZE", "20"));
+    public static final long BACKOFF_MS = Long.parseLong(getProperty("PERF_APP_RETRY_BACKOFF_MS", "1000"));
+    public static final long MAX_BACKOFF_MS = Long.parseLong(getProperty("PERF_APP_RETRY_MAX_BACKOFF_MS", "60000"));
+    static final String ENTRY_SUFFIX = ".upload";
+    static final String FAILED_DIR = "failed";
+    private static final String LOCK = ".lock";
+    private static final String BODY = ".body";
+    private static final String RUNTIME = "runtime";
+    private static final String BUILDTIME = "buildtime";
+    private static final String ENDPOINT = "endpoint";
+
+    /**
+     * Writes a payload, e.g. {@link Report#writeJSON(List, Writer)}.
+     */
+    public interface Payload {
+        void writeTo(Writer w) throws IOException;
+    }
+
+    private interface Body {
+        void writeTo(OutputStream os) throws IOException;
+    }
+
+    private enum Outcome {
+        SENT,
+        RETRY,
+        REJECTED
+    }
+
+    private final Path dir;
+    private final String endpoint;
+    private final String token;
+    private final int batchSize;
+    private final long backoffMs;
+    private final long maxBackoffMs;
+    private final HttpClient hc = HttpClient.newBuilder().followRedirects(HttpClient.Redirect.ALWAYS).build();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Thread worker;
+    // Guards pending and closed, notified after each pass over the spool
+    private final Object signal = new Object();
+    // Entries left by previous runs are sent right away
+    private boolean pending = true;
+    private boolean closed = false;
+    private volatile boolean gzip;
+
+    public UploadSpool(Path dir, String endpoint, String token, boolean gzip, int batchSize, long backoffMs, long maxBackoffMs) throws IOException {
+        this.dir = Files.createDirectories(dir);
+        this.endpoint = endpoint;
+        this.token = token;
+        this.gzip = gzip;
+        this.batchSize = Math.max(1, batchSize);
+        this.backoffMs = backoffMs;
+        this.maxBackoffMs = maxBackoffMs;
+        this.worker = new Thread(this::work, "uploader");
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * @param json writes a JSON array of reports
+     */
+    public void enqueueRuntime(String appContext, Payload json) throws IOException {
+        final Properties e = new Properties();
+        e.setProperty("kind", RUNTIME);
+        e.setProperty("context", appContext);
+        final String name = nextName();
+        try (Writer w = new BufferedWriter(new OutputStreamWriter(Files.newOutputStream(payload(name, 0)), UTF_8))) {
+            json.writeTo(w);
+        }
+        e.setProperty("payloads", "1");
+        enqueue(name, e);
+    }
+
+    /**
+     * @param query e.g. t=25.0.1.0-Final,3.27.0&runnerid=1
+     * @param json  main payload and optionally a secondary one PUT to the id the collector assigns to the main one
+     */
+    public void enqueueBuildtime(String appContext, String query, Path... json) throws IOException {
+        final Properties e = new Properties();
+        e.setProperty("kind", BUILDTIME);
+        e.setProperty("context", appContext);
+        e.setProperty("query", query);
+        final String name = nextName();
+        for (int i = 0; i < json.length; i++) {
+            Files.copy(json[i], payload(name, i), StandardCopyOption.REPLACE_EXISTING);
+        }
+        e.setProperty("payloads", Integer.toString(json.length));
+        enqueue(name, e);
+    }
+
+    /**
+     * Waits for the spool to empty.
+     *
+     * @return true if there is nothing left to send
+     */
+    public boolean drain(long timeoutMs) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (signal) {
+            pending = true;
+            signal.notifyAll();
+            while (!entries().isEmpty()) {
+                final long left = deadline - System.currentTimeMillis();
+                if (left <= 0 || closed) {
+                    return false;
+                }
+                signal.wait(left);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        synchronized (signal) {
+            closed = true;
+            signal.notifyAll();
+        }
+    }
+
+    /**
+     * @return entries enqueued for this spool's endpoint, oldest first
+     */
+    List<Path> entries() {
+        try (Stream<Path> s = Files.list(dir)) {
+            return s.filter(p -> p.getFileName().toString().endsWith(ENTRY_SUFFIX) && ownEntry(p)).sorted().collect(Collectors.toList());
+        } catch (IOException e) {
+            LOGGER.warn("Cannot list " + dir + ": " + e.getMessage());
+            return List.of();
+        }
+    }
+
+    private boolean ownEntry(Path entry) {
+        try {
+            return endpoint.equals(load(entry).getProperty(ENDPOINT));
+        } catch (IOException e) {
+            // Sent and deleted in the meantime
+            return false;
+        }
+    }
+
+    private String nextName() {
+        // Sorts by time of arrival
+        return String.format("%013d-%d-%06d", System.currentTimeMillis(), ProcessHandle.current().pid(), sequence.incrementAndGet());
+    }
+
+    private Path payload(String name, int i) {
+        return dir.resolve(name + "." + i + ".json");
+    }
+
+    private static Path payload(Path entry, int i) {
+        final String name = entry.getFileName().toString();
+        return entry.resolveSibling(name.substring(0, name.length() - ENTRY_SUFFIX.length()) + "." + i + ".json");
+    }
+
+    private void enqueue(String name, Properties e) throws IOException {
+        // Payloads are in place before the entry appears, tmp file and move so that the sender never sees half an entry
+        e.setProperty(ENDPOINT, endpoint);
+        final Path tmp = dir.resolve(name + ".tmp");
+        store(tmp, e);
+        Files.move(tmp, dir.resolve(name + ENTRY_SUFFIX), StandardCopyOption.ATOMIC_MOVE);
+        synchronized (signal) {
+            pending = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void work() {
+        long backoff = 0;
+        try {
+            while (true) {
+                synchronized (signal) {
+                    final long until = backoff == 0 ? Long.MAX_VALUE : System.currentTimeMillis() + backoff;
+                    while (!pending && !closed && System.currentTimeMillis() < until) {
+                        signal.wait(until == Long.MAX_VALUE ? 0 : Math.max(1, until - System.currentTimeMillis()));
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    pending = false;
+                }
+                if (sendAll()) {
+                    backoff = 0;
+                } else {
+                    backoff = backoff == 0 ? backoffMs : Math.min(maxBackoffMs, backoff * 2);
+                    LOGGER.warn("Collector " + endpoint + " not reachable, retrying in " + backoff + " ms.");
+                }
+                synchronized (signal) {
+                    signal.notifyAll();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return false if something is to be retried later
+     */
+    private boolean sendAll() throws InterruptedException {
+        try (FileChannel ch = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             FileLock lock = ch.tryLock()) {
+            if (lock == null) {
+                LOGGER.debug("Another JVM is sending " + dir);
+                return false;
+            }
+            final List<Path> entries = entries();
+            for (int i = 0; i < entries.size(); ) {
+                final Properties e = load(entries.get(i));
+                final List<Path> batch = new ArrayList<>();
+                final Outcome outcome;
+                if (RUNTIME.equals(e.getProperty("kind"))) {
+                    for (int j = i; j < entries.size() && batch.size() < batchSize; j++) {
+                        final Properties next = j == i ? e : load(entries.get(j));
+                        if (!RUNTIME.equals(next.getProperty("kind")) || !e.getProperty("context").equals(next.getProperty("context"))) {
+                            break;
+                        }
+                        batch.add(entries.get(j));
+                    }
+                    outcome = sendRuntime(e.getProperty("context"), batch);
+                } else {
+                    batch.add(entries.get(i));
+                    outcome = sendBuildtime(entries.get(i), e);
+                }
+                if (outcome == Outcome.RETRY) {
+                    return false;
+                }
+                if (outcome == Outcome.REJECTED && batch.size() > 1) {
+                    LOGGER.warn("Batch of " + batch.size() + " payloads rejected, sending them one by one.");
+                    for (Path p : batch) {
+                        final Outcome single = sendRuntime(e.getProperty("context"), List.of(p));
+                        if (single == Outcome.RETRY) {
+                            return false;
+                        }
+                        finish(p, single);
+                    }
+                } else {
+                    for (Path p : batch) {
+                        finish(p, outcome);
+                    }
+                }
+                i += batch.size();
+            }
+            return true;
+        } catch (IOException | OverlappingFileLockException e) {
+            LOGGER.warn("Cannot send " + dir + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Deletes a sent entry, sets a rejected one aside.
+     */
+    private void finish(Path entry, Outcome outcome) throws IOException {
+        final int payloads = Integer.parseInt(load(entry).getProperty("payloads", "0"));
+        if (outcome == Outcome.SENT) {
+            for (int k = 0; k < payloads; k++) {
+                Files.deleteIfExists(payload(entry, k));
+            }
+            Files.deleteIfExists(entry);
+        } else {
+            final Path failed = Files.createDirectories(dir.resolve(FAILED_DIR));
+            for (int k = 0; k < payloads; k++) {
+                Files.move(payload(entry, k), failed.resolve(payload(entry, k).getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            }
+            Files.move(entry, failed.resolve(entry.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+            LOGGER.error("Payload was NOT uploaded to the collector server, see " + failed.resolve(entry.getFileName()));
+        }
+    }
+
+    private Outcome sendRuntime(String context, List<Path> batch) throws InterruptedException {
+        try {
+            final HttpResponse<String> r = send("POST", endpoint + "/" + context, os -> {
+                // [a,b] + [c] -> [a,b,c]
+                os.write('[');
+                boolean first = true;
+                for (Path entry : batch) {
+                    first = copyElements(payload(entry, 0), os, first);
+                }
+                os.write(']');
+            });
+            LOGGER.info("Response code:" + r.statusCode() + ", " + batch.size() + " payload(s)");
+            return outcome(r.statusCode());
+        } catch (IOException e) {
+            LOGGER.debug("POST " + context + " failed: " + e.getMessage());
+            return Outcome.RETRY;
+        }
+    }
+
+    private Outcome sendBuildtime(Path entry, Properties e) throws InterruptedException, IOException {
+        final String context = e.getProperty("context");
+        final boolean secondary = Integer.parseInt(e.getProperty("payloads", "1")) > 1;
+        String id = e.getProperty("id");
+        try {
+            if (id == null) {
+                final HttpResponse<String> r = send("POST", endpoint + "/" + context + "/import?" + e.getProperty("query"),
+                        os -> Files.copy(payload(entry, 0), os));
+                LOGGER.info("Response code:" + r.statusCode());
+                final Outcome main = outcome(r.statusCode());
+                if (main != Outcome.SENT || !secondary) {
+                    return main;
+                }
+                try {
+                    id = String.valueOf(new JSONObject(r.body()).getInt("id"));
+                } catch (RuntimeException ex) {
+                    LOGGER.error("No id in the response to the main payload, SKIPPING secondary payload " + payload(entry, 1));
+                    return Outcome.SENT;
+                }
+                // A retry only sends the secondary payload
+                e.setProperty("id", id);
+                final Path tmp = entry.resolveSibling(entry.getFileName() + ".tmp");
+                store(tmp, e);
+                Files.move(tmp, entry, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            final HttpResponse<String> r = send("PUT", endpoint + "/" + context + "/" + id, os -> Files.copy(payload(entry, 1), os));
+            LOGGER.info("Response code:" + r.statusCode());
+            return outcome(r.statusCode());
+        } catch (IOException ex) {
+            LOGGER.debug("Sending " + context + " failed: " + ex.getMessage());
+            return Outcome.RETRY;
+        }
+    }
+
+    /**
+     * The body is streamed to a file, compressed on the way if need be, and sent from there.
+     */
+    private HttpResponse<String> send(String method, String uri, Body body) throws IOException, InterruptedException {
+        final boolean compressed = gzip;
+        final Path file = dir.resolve(BODY);
+        try (OutputStream os = compressed ? new GZIPOutputStream(Files.newOutputStream(file)) : Files.newOutputStream(file)) {
+            body.writeTo(os);
+        }
+        final HttpRequest.Builder b = HttpRequest.newBuilder()
+                .uri(URI.create(uri))
+                .headers("User-Agent", Uploader.USER_AGENT,
+                        "token", token,
+                        "Content-Type", "application/json",
+                        "Accept", "application/json")
+                .method(method, HttpRequest.BodyPublishers.ofFile(file));
+        if (compressed) {
+            b.header("Content-Encoding", "gzip");
+        }
+        LOGGER.info(method + "ing payload to " + uri);
+        final HttpResponse<String> r = hc.send(b.build(), HttpResponse.BodyHandlers.ofString());
+        if (compressed && r.statusCode() == 415) {
+            LOGGER.warn("Collector does not take gzip, sending uncompressed from now on.");
+            gzip = false;
+            return send(method, uri, body);
+        }
+        return r;
+    }
+
+    /**
+     * Copies what is between the outer brackets of a JSON array.
+     *
+     * @param first whether nothing was copied yet, i.e. no comma is due
+     * @return whether nothing was copied yet after this array
+     */
+    static boolean copyElements(Path array, OutputStream os, boolean first) throws IOException {
+        try (FileChannel ch = FileChannel.open(array, StandardOpenOption.READ)) {
+            long start = 0;
+            long end = ch.size() - 1;
+            while (start < end && byteAt(ch, start) != '[') {
+                start++;
+            }
+            while (end > start && byteAt(ch, end) != ']') {
+                end--;
+            }
+            long from = start + 1;
+            while (from < end && Character.isWhitespace(byteAt(ch, from))) {
+                from++;
+            }
+            if (from >= end) {
+                // Empty array
+                return first;
+            }
+            if (!first) {
+                os.write(',');
+            }
+            ch.transferTo(start + 1, end - start - 1, Channels.newChannel(os));
+            return false;
+        }
+    }
+
+    private static char byteAt(FileChannel ch, long position) throws IOException {
+        final ByteBuffer b = ByteBuffer.allocate(1);
+        ch.read(b, position);
+        return (char) b.get(0);
+    }
+
+    private static Outcome outcome(int status) {
+        if (status == 200 || status == 201 || status == 202) {
+            return Outcome.SENT;
+        }
+        if (status == 408 || status == 429 || status >= 500) {
+            return Outcome.RETRY;
+        }
+        return Outcome.REJECTED;
+    }
+
+    private static Properties load(Path p) throws IOException {
+        final Properties e = new Properties();
+        try (Reader r = Files.newBufferedReader(p, UTF_8)) {
+            e.load(r);
+        }
+        return e;
+    }
+
+    private static void store(Path p, Properties e) throws IOException {
+        try (Writer w = Files.newBufferedWriter(p, UTF_8)) {
+            e.store(w, null);
+        }
+    }
+}
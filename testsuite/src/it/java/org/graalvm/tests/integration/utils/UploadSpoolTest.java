@@ -0,0 +1,166 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Payloads survive a collector that is down, are sent in gzip batches once it is up, rejected ones are set aside.
+ */
+@Tag("testing-testsuite")
+public class UploadSpoolTest {
+
+    /**
+     * Stand-in collector answering with the given status, 400 to anything "broken",
+     * it records "METHOD path body" of each request.
+     */
+    private static HttpServer collector(AtomicInteger status, List<String> received) throws IOException {
+        final HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            final String request;
+            try (InputStream is = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding")) ?
+                    new GZIPInputStream(exchange.getRequestBody()) : exchange.getRequestBody()) {
+                request = new String(is.readAllBytes(), UTF_8);
+            }
+            received.add(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " " + request);
+            final byte[] body = "{\"id\":7}".getBytes(UTF_8);
+            exchange.sendResponseHeaders(request.contains("\"broken\"") ? 400 : status.get(), body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void retryAndBatch() throws IOException, InterruptedException {
+        final Path dir = Files.createTempDirectory(UploadSpoolTest.class.getSimpleName());
+        final AtomicInteger status = new AtomicInteger(503);
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final HttpServer server = collector(status, received);
+        final String endpoint = "http://localhost:" + server.getAddress().getPort();
+        try {
+            try (UploadSpool spool = new UploadSpool(dir, endpoint, "secret", true, 20, 10, 50)) {
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"a\":1}]"));
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[ ]"));
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"a\":2},{\"a\":3}]\n"));
+                assertFalse(spool.drain(2000), "Collector is down, nothing can be sent");
+            }
+            assertEquals(3, Files.list(dir).filter(p -> p.toString().endsWith(UploadSpool.ENTRY_SUFFIX)).count(),
+                    "Payloads must be kept for the next run");
+            assertTrue(received.size() > 1, "Sending must have been retried");
+
+            status.set(201);
+            received.clear();
+            try (UploadSpool spool = new UploadSpool(dir, endpoint, "secret", true, 20, 10, 50)) {
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"a\":4}]"));
+                assertTrue(spool.drain(5000));
+                assertTrue(spool.entries().isEmpty());
+            }
+            final String all = String.join("\n", received);
+            for (int i = 1; i <= 4; i++) {
+                assertTrue(all.contains("{\"a\":" + i + "}"), "Report " + i + " missing in " + all);
+            }
+            assertTrue(received.size() <= 2, "Payloads left by the previous run must go in one batch: " + all);
+            assertTrue(received.get(0).startsWith("POST /api/v1/perfstats/perf [{\"a\":1},{\"a\":2},{\"a\":3}"), all);
+        } finally {
+            server.stop(0);
+            Commands.cleanDirOrFile(dir.toString());
+        }
+    }
+
+    @Test
+    public void buildtimeAndRejected() throws IOException, InterruptedException {
+        final Path dir = Files.createTempDirectory(UploadSpoolTest.class.getSimpleName());
+        final AtomicInteger status = new AtomicInteger(201);
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final HttpServer server = collector(status, received);
+        final String endpoint = "http://localhost:" + server.getAddress().getPort();
+        try (UploadSpool spool = new UploadSpool(dir, endpoint, "secret", false, 20, 10, 50)) {
+            final Path main = Files.writeString(dir.resolve("main.json"), "{\"main\":1}");
+            final Path timing = Files.writeString(dir.resolve("timing-stats.json"), "{\"timing\":2}");
+            spool.enqueueBuildtime("api/v1/image-stats", "t=25.0.1.0-Final,3.27.0", main, timing);
+            assertTrue(spool.drain(5000));
+            assertEquals(2, received.size(), String.join("\n", received));
+            assertEquals("POST /api/v1/image-stats/import?t=25.0.1.0-Final,3.27.0 {\"main\":1}", received.get(0));
+            assertTrue(received.get(1).matches("PUT /api/v1/image-stats/\\d+ \\{\"timing\":2}"), received.get(1));
+
+            status.set(400);
+            spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"broken\":true}]"));
+            assertTrue(spool.drain(5000));
+            assertEquals(1, Files.list(dir.resolve(UploadSpool.FAILED_DIR)).filter(p -> p.toString().endsWith(UploadSpool.ENTRY_SUFFIX)).count(),
+                    "Rejected payload must be set aside");
+        } finally {
+            server.stop(0);
+            Commands.cleanDirOrFile(dir.toString());
+        }
+    }
+
+    @Test
+    public void rejectedBatchAndForeignEndpoint() throws IOException, InterruptedException {
+        final Path dir = Files.createTempDirectory(UploadSpoolTest.class.getSimpleName());
+        final AtomicInteger status = new AtomicInteger(503);
+        final List<String> received = new CopyOnWriteArrayList<>();
+        final HttpServer server = collector(status, received);
+        final String endpoint = "http://localhost:" + server.getAddress().getPort();
+        try {
+            // Left behind by a run against another collector
+            Files.writeString(dir.resolve("0000000000000-1-000001.0.json"), "[{\"foreign\":1}]");
+            Files.writeString(dir.resolve("0000000000000-1-000001" + UploadSpool.ENTRY_SUFFIX),
+                    "kind=runtime\ncontext=api/v1/perfstats/perf\npayloads=1\nendpoint=http\\://localhost\\:1\n");
+            try (UploadSpool spool = new UploadSpool(dir, endpoint, "secret", false, 20, 10, 50)) {
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"a\":1}]"));
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"broken\":true}]"));
+                spool.enqueueRuntime("api/v1/perfstats/perf", w -> w.write("[{\"a\":2}]"));
+                assertFalse(spool.drain(500));
+                status.set(201);
+                assertTrue(spool.drain(5000));
+            }
+            final String all = String.join("\n", received);
+            assertFalse(all.contains("foreign"), "Entry for another endpoint must not be sent: " + all);
+            assertTrue(Files.exists(dir.resolve("0000000000000-1-000001" + UploadSpool.ENTRY_SUFFIX)), "Entry for another endpoint must be kept");
+            assertTrue(received.stream().anyMatch(r -> r.endsWith(" [{\"a\":1}]")), "Good payloads must be resent on their own: " + all);
+            assertTrue(received.stream().anyMatch(r -> r.endsWith(" [{\"a\":2}]")), "Good payloads must be resent on their own: " + all);
+            assertEquals(1, Files.list(dir.resolve(UploadSpool.FAILED_DIR)).filter(p -> p.toString().endsWith(UploadSpool.ENTRY_SUFFIX)).count(),
+                    "Only the rejected payload must be set aside");
+        } finally {
+            server.stop(0);
+            Commands.cleanDirOrFile(dir.toString());
+        }
+    }
+}
@@ -19,8 +19,6 @@ package org.graalvm.tests.integration.utils;
  *
  */
 
-import org.graalvm.home.Version;
-import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.junit.jupiter.api.Tag;
 import org.junit.jupiter.api.Test;
 
@@ -84,9 +82,8 @@ public class UtilsTests {
 
     @Test
     public void parseSerialGC() throws IOException {
-        boolean newLogFormat = UsedVersion.getVersion(false).compareTo(Version.create(23, 1, 0)) >= 0;
+        // Both native log formats, the old one and the one since Mandrel 23.1, are read regardless of the version used
         final String filename = "./target/quarkus-json_+ParseOnce-runner -XX:+PrintGC";
-        final Commands.SerialGCLog pr = parseSerialGCLog(newLogFormat ? p_new : p, filename, false);
         final String expected = "" +
                 "timeSpentInGCs 11.725144\n" +
                 "incrementalGCevents 23\n" +
@@ -95,14 +92,17 @@ public class UtilsTests {
                 "timeSpentInGCs 14.758271\n" +
                 "incrementalGCevents 61\n" +
                 "fullGCevents 23\n";
-        final String actual = String.format(
-                "timeSpentInGCs %f\n" +
-                        "incrementalGCevents %d\n" +
-                        "fullGCevents %d\n"
-                ,
-                pr.timeSpentInGCs,
-                pr.incrementalGCevents,
-                pr.fullGCevents);
-        assertEquals(newLogFormat ? expected_new : expected, actual, "perf tool output parsing method was likely changed without updating the test");
+        for (boolean newLogFormat : new boolean[]{false, true}) {
+            final Commands.SerialGCLog pr = parseSerialGCLog(newLogFormat ? p_new : p, filename);
+            final String actual = String.format(
+                    "timeSpentInGCs %f\n" +
+                            "incrementalGCevents %d\n" +
+                            "fullGCevents %d\n"
+                    ,
+                    pr.timeSpentInGCs,
+                    pr.incrementalGCevents,
+                    pr.fullGCevents);
+            assertEquals(newLogFormat ? expected_new : expected, actual, "perf tool output parsing method was likely changed without updating the test");
+        }
     }
 }
@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Whitelist patterns compiled into one matcher.
+ *
+ * Most whitelist rules are ".*some literal text.*". For each rule the longest literal that any
+ * matching line must contain is extracted and all the literals go to one Aho-Corasick automaton.
+ * A line is then read once to find out which rules could possibly match, and only those are
+ * evaluated, in the order they were listed. Rules without a usable literal are always evaluated.
+ *
+ * Logs repeat the same warnings a lot, so results for already seen lines are remembered.
+ */
+public class WhitelistMatcher {
+    public static final int NO_MATCH = -1;
+    // Shorter literals would make most of the rules candidates anyway
+    private static final int MIN_LITERAL_LENGTH = 3;
+    private static final int MAX_REMEMBERED_LINES = 10_000;
+    private static final Pattern UNSCOPED_INLINE_FLAGS = Pattern.compile(".*\\(\\?[a-zA-Z-]+\\).*");
+    private static final Map<String, WhitelistMatcher> COMPILED = new ConcurrentHashMap<>();
+
+    private final Pattern[] rules;
+    private final BitSet alwaysCheck = new BitSet();
+    private final List<Map<Character, Integer>> goTo = new ArrayList<>();
+    private final List<Integer> fail = new ArrayList<>();
+    private final List<int[]> output = new ArrayList<>();
+    private final Map<String, Integer> remembered = new ConcurrentHashMap<>();
+
+    public WhitelistMatcher(Pattern[] rules) {
+        this.rules = rules.clone();
+        newNode();
+        for (int i = 0; i < this.rules.length; i++) {
+            final String literal = this.rules[i].flags() == 0 ? requiredLiteral(this.rules[i].pattern()) : null;
+            if (literal == null || literal.length() < MIN_LITERAL_LENGTH) {
+                alwaysCheck.set(i);
+            } else {
+                addLiteral(literal, i);
+            }
+        }
+        buildFailLinks();
+    }
+
+    /**
+     * @return matcher for the app's whitelist together with {@link WhitelistLogLines#ALL}, compiled once per app
+     */
+    public static WhitelistMatcher of(Apps app) {
+        final boolean inContainer = app.runtimeContainer != ContainerNames.NONE;
+        return COMPILED.computeIfAbsent(app.name() + "_" + inContainer, k -> {
+            final Pattern[] a = app.whitelistLogLines.get(inContainer);
+            final Pattern[] all = WhitelistLogLines.ALL.get(inContainer);
+            final Pattern[] p = new Pattern[a.length + all.length];
+            System.arraycopy(a, 0, p, 0, a.length);
+            System.arraycopy(all, 0, p, a.length, all.length);
+            return new WhitelistMatcher(p);
+        });
+    }
+
+    /**
+     * @return index of the first rule matching the line or {@link #NO_MATCH}
+     */
+    public int match(String line) {
+        final Integer r = remembered.get(line);
+        if (r != null) {
+            return r;
+        }
+        final BitSet candidates = candidates(line);
+        int result = NO_MATCH;
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (rules[i].matcher(line).matches()) {
+                result = i;
+                break;
+            }
+        }
+        if (remembered.size() < MAX_REMEMBERED_LINES) {
+            remembered.put(line, result);
+        }
+        return result;
+    }
+
+    public Pattern rule(int index) {
+        return rules[index];
+    }
+
+    public int size() {
+        return rules.length;
+    }
+
+    private BitSet candidates(String line) {
+        final BitSet c = (BitSet) alwaysCheck.clone();
+        int state = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char ch = line.charAt(i);
+            Integer next;
+            while ((next = goTo.get(state).get(ch)) == null && state != 0) {
+                state = fail.get(state);
+            }
+            state = next == null ? 0 : next;
+            for (int rule : output.get(state)) {
+                c.set(rule);
+            }
+        }
+        return c;
+    }
+
+    private int newNode() {
+        goTo.add(new HashMap<>());
+        fail.add(0);
+        output.add(new int[0]);
+        return goTo.size() - 1;
+    }
+
+    private void addLiteral(String literal, int rule) {
+        int state = 0;
+        for (int i = 0; i < literal.length(); i++) {
+            final char ch = literal.charAt(i);
+            Integer next = goTo.get(state).get(ch);
+            if (next == null) {
+                next = newNode();
+                goTo.get(state).put(ch, next);
+            }
+            state = next;
+        }
+        output.set(state, append(output.get(state), new int[]{rule}));
+    }
+
+    private void buildFailLinks() {
+        final Queue<Integer> queue = new ArrayDeque<>(goTo.get(0).values());
+        while (!queue.isEmpty()) {
+            final int state = queue.poll();
+            for (Map.Entry<Character, Integer> e : goTo.get(state).entrySet()) {
+                final int child = e.getValue();
+                int f = fail.get(state);
+                Integer target;
+                while ((target = goTo.get(f).get(e.getKey())) == null && f != 0) {
+                    f = fail.get(f);
+                }
+                final int childFail = target == null || target == child ? 0 : target;
+                fail.set(child, childFail);
+                output.set(child, append(output.get(child), output.get(childFail)));
+                queue.add(child);
+            }
+        }
+    }
+
+    private static int[] append(int[] a, int[] b) {
+        final int[] r = new int[a.length + b.length];
+        System.arraycopy(a, 0, r, 0, a.length);
+        System.arraycopy(b, 0, r, a.length, b.length);
+        return r;
+    }
+
+    /**
+     * Longest run of literal characters every string matching the regex must contain.
+     * Conservative, i.e. returns null whenever in doubt, e.g. on top level alternation.
+     *
+     * @param regex
+     * @return literal or null
+     */
+    static String requiredLiteral(String regex) {
+        if (UNSCOPED_INLINE_FLAGS.matcher(regex).matches()) {
+            return null;
+        }
+        String longest = "";
+        final StringBuilder run = new StringBuilder();
+        // Where the last literal character of the run starts, a quantifier following it makes it optional
+        int lastChar = -1;
+        int i = 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\' && i + 1 < regex.length()) {
+                final char n = regex.charAt(i + 1);
+                if (n == 'Q') {
+                    final int end = regex.indexOf("\\E", i + 2);
+                    final String quoted = regex.substring(i + 2, end < 0 ? regex.length() : end);
+                    if (!quoted.isEmpty()) {
+                        run.append(quoted);
+                        lastChar = run.length() - 1;
+                    }
+                    i = end < 0 ? regex.length() : end + 2;
+                    continue;
+                }
+                if (Character.isLetterOrDigit(n)) {
+                    // Character classes like \s, \d, back references or escaped characters like \x41 or \cM
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i = skipEscape(regex, i);
+                } else {
+                    lastChar = run.length();
+                    run.append(n);
+                    i += 2;
+                }
+                continue;
+            }
+            switch (c) {
+                case '|':
+                    return null;
+                case '*':
+                case '?':
+                case '{':
+                    if (lastChar >= 0) {
+                        run.setLength(lastChar);
+                    }
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i = c == '{' ? skipTo(regex, i, '}') : i + 1;
+                    break;
+                case '+':
+                    // The preceding character is still required, but nothing can be chained after it
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i++;
+                    break;
+                case '(':
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i = skipGroup(regex, i);
+                    break;
+                case '[':
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i = skipClass(regex, i);
+                    break;
+                case '.':
+                case '^':
+                case '$':
+                case ')':
+                case ']':
+                case '}':
+                    longest = longer(longest, run);
+                    run.setLength(0);
+                    lastChar = -1;
+                    i++;
+                    break;
+                default:
+                    lastChar = run.length();
+                    run.append(c);
+                    i++;
+            }
+        }
+        longest = longer(longest, run);
+        return longest.isEmpty() ? null : longest;
+    }
+
+    private static String longer(String longest, StringBuilder run) {
+        return run.length() > longest.length() ? run.toString() : longest;
+    }
+
+    private static int skipTo(String regex, int i, char c) {
+        final int end = regex.indexOf(c, i);
+        return end < 0 ? regex.length() : end + 1;
+    }
+
+    /**
+     * Skips an escape together with its operands, e.g. the hex digits of \x41 or the character of \cM.
+     *
+     * @param i index of the backslash
+     */
+    private static int skipEscape(String regex, int i) {
+        if (i + 1 >= regex.length()) {
+            return regex.length();
+        }
+        final char n = regex.charAt(i + 1);
+        int end = i + 2;
+        switch (n) {
+            case 'x':
+                end = end < regex.length() && regex.charAt(end) == '{' ? skipTo(regex, end, '}') : end + 2;
+                break;
+            case 'u':
+                end += 4;
+                break;
+            case '0':
+                while (end < i + 5 && end < regex.length() && regex.charAt(end) >= '0' && regex.charAt(end) <= '7') {
+                    end++;
+                }
+                break;
+            case 'c':
+                end++;
+                break;
+            case 'p':
+            case 'P':
+                end = end < regex.length() && regex.charAt(end) == '{' ? skipTo(regex, end, '}') : end + 1;
+                break;
+            case 'N':
+                end = skipTo(regex, end, '}');
+                break;
+            case 'k':
+                end = skipTo(regex, end, '>');
+                break;
+            default:
+                // Back references may have more digits
+                while (Character.isDigit(n) && end < regex.length() && Character.isDigit(regex.charAt(end))) {
+                    end++;
+                }
+        }
+        return Math.min(end, regex.length());
+    }
+
+    private static int skipClass(String regex, int i) {
+        int depth = 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                i = skipEscape(regex, i);
+                continue;
+            }
+            if (c == '[') {
+                depth++;
+            } else if (c == ']' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipGroup(String regex, int i) {
+        int depth = 0;
+        while (i < regex.length()) {
+            final char c = regex.charAt(i);
+            if (c == '\\') {
+                if (i + 1 < regex.length() && regex.charAt(i + 1) == 'Q') {
+                    final int end = regex.indexOf("\\E", i + 2);
+                    i = end < 0 ? regex.length() : end + 2;
+                } else {
+                    i = skipEscape(regex, i);
+                }
+                continue;
+            }
+            if (c == '[') {
+                i = skipClass(regex, i);
+                continue;
+            }
+            if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+            i++;
+        }
+        return i;
+    }
+}
@@ -0,0 +1,150 @@
+package org.graalvm.tests.integration.utils;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.graalvm.tests.integration.utils.WhitelistMatcher.NO_MATCH;
+import static org.graalvm.tests.integration.utils.WhitelistMatcher.requiredLiteral;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Compiled whitelist must give the same answers as trying the patterns one by one.
+ */
+@Tag("testing-testsuite")
+public class WhitelistMatcherTest {
+
+    @Test
+    public void literals() {
+        assertEquals("Configuration property 'quarkus", requiredLiteral(".*Configuration property 'quarkus.package.type' has been deprecated.*"));
+        assertEquals("sun.security.util.UntrustedCertificates is internal proprietary API and may be removed in a future release",
+                requiredLiteral(".*sun\\.security\\.util\\.UntrustedCertificates is internal proprietary API and may be removed in a future release.*"));
+        assertEquals(" GCs during the last stage, taking up ", requiredLiteral(".*GC warning: [0-9.]+s spent in [0-9]+ GCs during the last stage, taking up [0-9]+.[0-9]+% of the time.*"));
+        assertEquals("Command podman", requiredLiteral(".*\\QCommand podman\\E.*"));
+        assertEquals("WARNIN", requiredLiteral(".*WARNING?.*"));
+        assertEquals(" elapsed", requiredLiteral("(?:foo bar baz)* elapsed"));
+        assertNull(requiredLiteral(".*(a|b).*"));
+        assertNull(requiredLiteral(".*long enough|other.*"));
+        assertNull(requiredLiteral("(?i).*case insensitive.*"));
+        // Operands of escapes are not literal text
+        assertEquals("BCDEF", requiredLiteral(".*\\x41BCDEF.*"));
+        assertEquals("bcdef", requiredLiteral(".*\\x{41}bcdef.*"));
+        assertEquals("bcdef", requiredLiteral(".*\\u0041bcdef.*"));
+        assertEquals("xyz1", requiredLiteral(".*\\0101xyz1.*"));
+        assertEquals("bcd", requiredLiteral(".*\\cAbcd.*"));
+        assertEquals("tail", requiredLiteral(".*(\\c)head)tail.*"));
+        assertEquals("tail", requiredLiteral(".*[\\c]]tail.*"));
+        assertEquals("word", requiredLiteral(".*\\p{Lu}word.*"));
+    }
+
+    @Test
+    public void sameAnswersAsSequentialMatching() {
+        final Pattern[] rules = new Pattern[]{
+                Pattern.compile(".*microdnf.*Found 0 entitlement certificates.*"),
+                Pattern.compile(".*microdnf.*lib.*WARNING.*"),
+                Pattern.compile(".*(?i:deprecated).*"),
+                Pattern.compile(".*Database driver: undefined/unknown.*"),
+                Pattern.compile(".*WARN.*", Pattern.CASE_INSENSITIVE),
+                Pattern.compile("^x.*"),
+                Pattern.compile(".*\\x41BCDE.*")
+        };
+        final WhitelistMatcher m = new WhitelistMatcher(rules);
+        final String[] lines = new String[]{
+                "(microdnf:1): librhsm-WARNING **: Found 0 entitlement certificates",
+                "(microdnf:1): lib-WARNING **: something",
+                "Option Foo is DEPRECATED",
+                "INFO Database driver: undefined/unknown",
+                "warn: lower case",
+                "ERROR: nothing matches this one",
+                "xERROR",
+                "ERROR ABCDE",
+                ""
+        };
+        for (int round = 0; round < 2; round++) {
+            for (String line : lines) {
+                int expected = NO_MATCH;
+                for (int i = 0; i < rules.length; i++) {
+                    if (rules[i].matcher(line).matches()) {
+                        expected = i;
+                        break;
+                    }
+                }
+                assertEquals(expected, m.match(line), "Rule mismatch for line: " + line);
+            }
+        }
+        assertEquals(rules.length, m.size());
+    }
+
+    /**
+     * Every whitelist as the tests use it, on lines quoted next to the rules and lines derived from them.
+     */
+    @Test
+    public void sameAnswersOnWhitelists() throws IOException {
+        final List<String> lines = new ArrayList<>();
+        for (String log : new String[]{"whitelist-corpus.log", "parse-serial-gc-build-and-run.log", "parse-serial-gc-build-and-run-new.log"}) {
+            lines.addAll(Files.readAllLines(Path.of(Commands.getBaseDir(), "testsuite", "src", "test", "resources", log)));
+        }
+        // Local native-image only, the testing-testsuite runs have no builder image
+        final Map<String, Pattern> distinct = new LinkedHashMap<>();
+        for (WhitelistLogLines w : WhitelistLogLines.values()) {
+            final List<Pattern> rules = new ArrayList<>(List.of(w.get(false)));
+            rules.addAll(List.of(WhitelistLogLines.ALL.get(false)));
+            rules.forEach(rule -> distinct.putIfAbsent(rule.pattern() + "/" + rule.flags(), rule));
+            final WhitelistMatcher m = new WhitelistMatcher(rules.toArray(new Pattern[0]));
+            for (String line : lines) {
+                int expected = NO_MATCH;
+                for (int i = 0; i < rules.size(); i++) {
+                    if (rules.get(i).matcher(line).matches()) {
+                        expected = i;
+                        break;
+                    }
+                }
+                assertEquals(expected, m.match(line), w + " rule mismatch for line: " + line);
+            }
+        }
+        // Wherever a rule is found in a line, its literal must be there too
+        for (Pattern rule : distinct.values()) {
+            final String literal = rule.flags() == 0 ? requiredLiteral(rule.pattern()) : null;
+            if (literal == null) {
+                continue;
+            }
+            // Leading and trailing .* make no difference to find(), only make it quadratic on long lines
+            final Pattern unanchored = Pattern.compile(rule.pattern().replaceFirst("^\\.\\*", "").replaceFirst("(?<!\\\\)\\.\\*$", ""));
+            for (String line : lines) {
+                if (unanchored.matcher(line).find()) {
+                    assertTrue(line.contains(literal), "Literal '" + literal + "' of " + rule + " missing in: " + line);
+                }
+            }
+        }
+    }
+}
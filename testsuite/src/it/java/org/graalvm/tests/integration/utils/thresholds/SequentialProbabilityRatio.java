@@ -0,0 +1,113 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils.thresholds;
+
+import org.jboss.logging.Logger;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Wald's sequential probability ratio test on whether a measurement is over its limit.
+ *
+ * Each trial either exceeds the limit or not. H0: it exceeds with probability SPRT_P0 (default 0.2), i.e. noise,
+ * H1: with probability SPRT_P1 (default 0.8), i.e. a regression. Trials are taken one by one until the
+ * log-likelihood ratio crosses a bound given by SPRT_ALPHA and SPRT_BETA (default 0.05 both),
+ * at most ADAPTIVE_BUDGET (default 10) trials. A noisy host then costs a few app restarts, not a rebuild,
+ * and a true regression is still confirmed.
+ */
+public class SequentialProbabilityRatio {
+    private static final Logger LOGGER = Logger.getLogger(SequentialProbabilityRatio.class.getName());
+    public static final boolean ENABLED = Boolean.parseBoolean(getProperty("ADAPTIVE_REMEASURE", "false"));
+    public static final int BUDGET = Integer.parseInt(getProperty("ADAPTIVE_BUDGET", "10"));
+    public static final double P0 = Double.parseDouble(getProperty("SPRT_P0", "0.2"));
+    public static final double P1 = Double.parseDouble(getProperty("SPRT_P1", "0.8"));
+    public static final double ALPHA = Double.parseDouble(getProperty("SPRT_ALPHA", "0.05"));
+    public static final double BETA = Double.parseDouble(getProperty("SPRT_BETA", "0.05"));
+
+    /**
+     * One more measurement with the already built app.
+     */
+    public interface Trial {
+        long measure() throws IOException, InterruptedException;
+    }
+
+    public enum Verdict {
+        PASS,
+        FAIL,
+        UNDECIDED
+    }
+
+    public static class Result {
+        public final Verdict verdict;
+        // The re-measured samples only
+        public final long[] samples;
+
+        Result(Verdict verdict, long[] samples) {
+            this.verdict = verdict;
+            this.samples = samples;
+        }
+    }
+
+    /**
+     * Log-likelihood ratio of H1 to H0 after the given trials.
+     */
+    static double llr(int exceeded, int total, double p0, double p1) {
+        return exceeded * Math.log(p1 / p0) + (total - exceeded) * Math.log((1 - p1) / (1 - p0));
+    }
+
+    /**
+     * @return verdict for exceeded out of total trials, UNDECIDED if more trials are needed
+     */
+    static Verdict decide(int exceeded, int total, double p0, double p1, double alpha, double beta) {
+        final double llr = llr(exceeded, total, p0, p1);
+        if (llr >= Math.log((1 - beta) / alpha)) {
+            return Verdict.FAIL;
+        }
+        if (llr <= Math.log(beta / (1 - alpha))) {
+            return Verdict.PASS;
+        }
+        return Verdict.UNDECIDED;
+    }
+
+    public static Result run(String what, long limit, Trial trial) throws IOException, InterruptedException {
+        return run(what, limit, trial, BUDGET, P0, P1, ALPHA, BETA);
+    }
+
+    static Result run(String what, long limit, Trial trial, int budget, double p0, double p1, double alpha, double beta)
+            throws IOException, InterruptedException {
+        final long[] samples = new long[budget];
+        int exceeded = 0;
+        Verdict verdict = Verdict.UNDECIDED;
+        int n = 0;
+        while (n < budget && verdict == Verdict.UNDECIDED) {
+            samples[n] = trial.measure();
+            if (samples[n] > limit) {
+                exceeded++;
+            }
+            n++;
+            verdict = decide(exceeded, n, p0, p1, alpha, beta);
+        }
+        LOGGER.infof("Re-measured %s %d times, %d over the limit %d: %s", what, n, exceeded, limit, verdict);
+        return new Result(verdict, Arrays.copyOf(samples, n));
+    }
+}
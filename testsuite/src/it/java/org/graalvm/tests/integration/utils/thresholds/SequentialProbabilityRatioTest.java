@@ -0,0 +1,64 @@
+package org.graalvm.tests.integration.utils.thresholds;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Testing test suite...
+ * SPRT re-measurement stops as soon as it is sure and respects its budget.
+ */
+@Tag("testing-testsuite")
+public class SequentialProbabilityRatioTest {
+
+    private static SequentialProbabilityRatio.Result run(List<Long> measurements, int budget) throws IOException, InterruptedException {
+        final Iterator<Long> it = measurements.iterator();
+        return SequentialProbabilityRatio.run("test", 300, it::next, budget, 0.2, 0.8, 0.05, 0.05);
+    }
+
+    @Test
+    public void sprt() throws IOException, InterruptedException {
+        // ln(0.8/0.2) per exceeding trial against ln(19) bounds, three in a row decide
+        assertEquals(SequentialProbabilityRatio.Verdict.UNDECIDED, SequentialProbabilityRatio.decide(2, 2, 0.2, 0.8, 0.05, 0.05));
+        assertEquals(SequentialProbabilityRatio.Verdict.FAIL, SequentialProbabilityRatio.decide(3, 3, 0.2, 0.8, 0.05, 0.05));
+        assertEquals(SequentialProbabilityRatio.Verdict.PASS, SequentialProbabilityRatio.decide(0, 3, 0.2, 0.8, 0.05, 0.05));
+        assertEquals(SequentialProbabilityRatio.Verdict.UNDECIDED, SequentialProbabilityRatio.decide(3, 6, 0.2, 0.8, 0.05, 0.05));
+
+        final SequentialProbabilityRatio.Result noise = run(List.of(250L, 280L, 270L, 900L), 10);
+        assertEquals(SequentialProbabilityRatio.Verdict.PASS, noise.verdict);
+        assertArrayEquals(new long[]{250, 280, 270}, noise.samples);
+
+        final SequentialProbabilityRatio.Result regression = run(List.of(350L, 320L, 290L, 340L, 360L), 10);
+        assertEquals(SequentialProbabilityRatio.Verdict.FAIL, regression.verdict);
+        assertEquals(5, regression.samples.length);
+
+        final SequentialProbabilityRatio.Result undecided = run(List.of(350L, 250L, 350L, 250L, 350L), 4);
+        assertEquals(SequentialProbabilityRatio.Verdict.UNDECIDED, undecided.verdict);
+        assertEquals(4, undecided.samples.length);
+    }
+}
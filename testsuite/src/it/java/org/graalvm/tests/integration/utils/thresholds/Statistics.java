@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils.thresholds;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+
+/**
+ * Verdicts over several trials of one metric instead of over a single measurement.
+ *
+ * A threshold is crossed if the median of the trials lies above it, i.e. one noisy trial out of
+ * several does not fail the test while most trials over it do, however fast the rest is.
+ * With one trial it boils down to the good old value &lt;= threshold. The bootstrap confidence
+ * interval of the median is only reported, see {@link #describe(long[])}.
+ *
+ * A sample can also be compared to a baseline sample, e.g. of previous runs, with a one-sided
+ * Mann-Whitney U test, so that a consistent shift smaller than any sane absolute threshold is caught.
+ *
+ * Tuned with PERF_CONFIDENCE (percent, default 95), PERF_BOOTSTRAP_RESAMPLES (default 2000),
+ * PERF_ALPHA (default 0.05) and PERF_MIN_EFFECT_PERCENT (default 5).
+ */
+public class Statistics {
+    public static final int CONFIDENCE_PERCENT = Integer.parseInt(getProperty("PERF_CONFIDENCE", "95"));
+    public static final int BOOTSTRAP_RESAMPLES = Integer.parseInt(getProperty("PERF_BOOTSTRAP_RESAMPLES", "2000"));
+    public static final double ALPHA = Double.parseDouble(getProperty("PERF_ALPHA", "0.05"));
+    public static final long MIN_EFFECT_PERCENT = Long.parseLong(getProperty("PERF_MIN_EFFECT_PERCENT", "5"));
+    // Same data, same verdict
+    private static final long SEED = 0x5EEDL;
+
+    public static double median(long[] samples) {
+        final long[] s = samples.clone();
+        Arrays.sort(s);
+        final int n = s.length;
+        return n % 2 == 1 ? s[n / 2] : (s[n / 2 - 1] + s[n / 2]) / 2.0;
+    }
+
+    /**
+     * Percentile bootstrap confidence interval of the median.
+     *
+     * @return {lower, upper}
+     */
+    public static double[] medianCI(long[] samples, int confidencePercent, int resamples) {
+        if (samples.length == 1) {
+            return new double[]{samples[0], samples[0]};
+        }
+        final SplittableRandom random = new SplittableRandom(SEED);
+        final double[] medians = new double[resamples];
+        final long[] resample = new long[samples.length];
+        for (int r = 0; r < resamples; r++) {
+            for (int i = 0; i < samples.length; i++) {
+                resample[i] = samples[random.nextInt(samples.length)];
+            }
+            medians[r] = median(resample);
+        }
+        Arrays.sort(medians);
+        final double tail = (100 - confidencePercent) / 200.0;
+        return new double[]{
+                medians[(int) Math.floor(tail * (resamples - 1))],
+                medians[(int) Math.ceil((1 - tail) * (resamples - 1))]};
+    }
+
+    public static double[] medianCI(long[] samples) {
+        return medianCI(samples, CONFIDENCE_PERCENT, BOOTSTRAP_RESAMPLES);
+    }
+
+    /**
+     * @param tolerancePercent how much over the threshold is still fine
+     * @return true unless the median is over the threshold plus tolerance
+     */
+    public static boolean withinThreshold(long[] samples, long threshold, long tolerancePercent) {
+        // Not the lower CI bound, for a handful of trials that is the fastest one
+        return median(samples) <= limit(threshold, tolerancePercent);
+    }
+
+    /**
+     * @return threshold plus tolerance
+     */
+    public static double limit(long threshold, long tolerancePercent) {
+        return threshold + Math.abs(threshold) * tolerancePercent / 100.0;
+    }
+
+    /**
+     * One-sided Mann-Whitney U test, normal approximation with tie and continuity correction.
+     *
+     * @return p-value of the hypothesis that samples are not stochastically greater than baseline
+     */
+    public static double mannWhitneyGreaterP(long[] samples, long[] baseline) {
+        final int n1 = samples.length;
+        final int n2 = baseline.length;
+        final int n = n1 + n2;
+        final long[][] all = new long[n][];
+        for (int i = 0; i < n1; i++) {
+            all[i] = new long[]{samples[i], 0};
+        }
+        for (int i = 0; i < n2; i++) {
+            all[n1 + i] = new long[]{baseline[i], 1};
+        }
+        Arrays.sort(all, (a, b) -> Long.compare(a[0], b[0]));
+        double rankSum = 0;
+        double tieTerm = 0;
+        for (int i = 0; i < n; ) {
+            int j = i;
+            while (j < n && all[j][0] == all[i][0]) {
+                j++;
+            }
+            final double rank = (i + 1 + j) / 2.0;
+            for (int k = i; k < j; k++) {
+                if (all[k][1] == 0) {
+                    rankSum += rank;
+                }
+            }
+            final double t = j - i;
+            tieTerm += t * t * t - t;
+            i = j;
+        }
+        final double u = rankSum - n1 * (n1 + 1) / 2.0;
+        final double mean = n1 * n2 / 2.0;
+        final double variance = n1 * n2 / 12.0 * ((n + 1) - tieTerm / ((double) n * (n - 1)));
+        if (variance <= 0) {
+            return 1.0;
+        }
+        final double z = (u - mean - 0.5) / Math.sqrt(variance);
+        return 1.0 - normalCdf(z);
+    }
+
+    /**
+     * @param minEffectPercent smallest shift of the median worth failing for
+     * @return true if samples are significantly greater than baseline and the median grew by at least minEffectPercent
+     */
+    public static boolean regressed(long[] samples, long[] baseline, long minEffectPercent, double alpha) {
+        if (samples.length < 2 || baseline.length < 2) {
+            return false;
+        }
+        final double baselineMedian = median(baseline);
+        final double effect = baselineMedian == 0 ? 0 : (median(samples) - baselineMedian) * 100.0 / Math.abs(baselineMedian);
+        return effect >= minEffectPercent && mannWhitneyGreaterP(samples, baseline) < alpha;
+    }
+
+    /**
+     * @return e.g. "median of 5 trials 312, 95% CI [300, 330]" or just the value for a single trial
+     */
+    public static String describe(long[] samples) {
+        if (samples.length == 1) {
+            return Long.toString(samples[0]);
+        }
+        final double[] ci = medianCI(samples);
+        return String.format("%.0f (median of %d trials, %d%% CI [%.0f, %.0f])",
+                median(samples), samples.length, CONFIDENCE_PERCENT, ci[0], ci[1]);
+    }
+
+    // Abramowitz and Stegun 7.1.26, plenty for a verdict
+    static double normalCdf(double z) {
+        final double x = Math.abs(z) / Math.sqrt(2);
+        final double t = 1 / (1 + 0.3275911 * x);
+        final double erf = 1 - (((((1.061405429 * t - 1.453152027) * t) + 1.421413741) * t - 0.284496736) * t + 0.254829592) * t * Math.exp(-x * x);
+        return z >= 0 ? (1 + erf) / 2 : (1 - erf) / 2;
+    }
+}
@@ -0,0 +1,73 @@
+package org.graalvm.tests.integration.utils.thresholds;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testing test suite...
+ * Verdicts over trials: median CI against thresholds, Mann-Whitney against a baseline.
+ */
+@Tag("testing-testsuite")
+public class StatisticsTest {
+
+    @Test
+    public void threshold() {
+        assertEquals(3.0, Statistics.median(new long[]{5, 1, 3}));
+        assertEquals(2.5, Statistics.median(new long[]{4, 1, 3, 2}));
+        // A single trial is the plain old value <= threshold
+        assertTrue(Statistics.withinThreshold(new long[]{300}, 300, 0));
+        assertFalse(Statistics.withinThreshold(new long[]{301}, 300, 0));
+        assertTrue(Statistics.withinThreshold(new long[]{330}, 300, 10));
+        // One outlier out of several trials does not cross the threshold...
+        assertTrue(Statistics.withinThreshold(new long[]{280, 290, 285, 900, 295, 288, 291}, 300, 0));
+        // ...a consistent excess does
+        assertFalse(Statistics.withinThreshold(new long[]{320, 330, 325, 318, 335, 322, 327}, 300, 0));
+        // ...and so do most trials over it, however fast the one left is
+        assertFalse(Statistics.withinThreshold(new long[]{200, 320, 330, 325, 318}, 300, 0));
+        assertFalse(Statistics.withinThreshold(new long[]{316, 200, 318}, 300, 5));
+        assertTrue(Statistics.withinThreshold(new long[]{314, 200, 318}, 300, 5));
+        final double[] ci = Statistics.medianCI(new long[]{280, 290, 285, 900, 295, 288, 291});
+        assertTrue(ci[0] <= 290 && 290 <= ci[1], "CI [" + ci[0] + ", " + ci[1] + "] must contain the median");
+        assertEquals(Statistics.describe(new long[]{1, 2, 3}), Statistics.describe(new long[]{1, 2, 3}), "Verdicts must be reproducible");
+    }
+
+    @Test
+    public void baseline() {
+        final long[] baseline = new long[]{100, 102, 98, 101, 99, 103, 97, 100, 101, 99};
+        final long[] same = new long[]{101, 99, 100, 102, 98, 100, 101, 99, 100, 103};
+        final long[] slower = new long[]{106, 108, 105, 107, 109, 106, 105, 108, 107, 106};
+        assertTrue(Statistics.mannWhitneyGreaterP(slower, baseline) < 0.001);
+        assertTrue(Statistics.mannWhitneyGreaterP(same, baseline) > 0.05);
+        assertTrue(Statistics.mannWhitneyGreaterP(baseline, slower) > 0.99);
+        assertTrue(Statistics.regressed(slower, baseline, 5, 0.05));
+        // Significant, but smaller than the minimum effect worth failing for
+        assertFalse(Statistics.regressed(slower, baseline, 10, 0.05));
+        assertFalse(Statistics.regressed(same, baseline, 0, 0.05));
+        assertFalse(Statistics.regressed(new long[]{200}, baseline, 0, 0.05));
+        assertEquals(0.5, Statistics.normalCdf(0), 1e-6);
+        assertEquals(0.975, Statistics.normalCdf(1.96), 1e-3);
+    }
+}
@@ -61,8 +61,13 @@ public class Thresholds {
                     "(?:min\\s*=\\s*\"(?<min>[^\"]+?)\"\\s*,?\\s*)|\\s*" +
                     "(?:max\\s*=\\s*\"(?<max>[^\"]+?)\"\\s*,?\\s*))+\\s*\\)\\s*");
     public static final Pattern PROP_PATTERN = Pattern.compile(
-            "\\s*(?<key>[^=]+?)\\s*=\\s*(?<value>[0-9]+?)\\s*");
+            "\\s*(?<key>[^=]+?)\\s*=\\s*(?<value>[0-9]+?)" +
+                    "(?:\\s+tolerance\\s*=\\s*(?<tolerance>[0-9]+)\\s*%)?" +
+                    "(?:\\s+min\\.effect\\s*=\\s*(?<minEffect>[0-9]+)\\s*%)?\\s*");
     //@formatter:on
+    // e.g. linux.RSS.threshold.kB=120000 tolerance=5% min.effect=3% is stored as three properties
+    public static final String TOLERANCE_SUFFIX = ".tolerance.percent";
+    public static final String MIN_EFFECT_SUFFIX = ".min.effect.percent";
     private static final String QMARK = "@IfQ";
     private static final String MMARK = "@IfM";
 
@@ -126,6 +131,17 @@ public class Thresholds {
                 final String value = propMatch.group("value");
                 if (useProp) {
                     props.put(key, Long.parseLong(value));
+                    // An override without tolerance or minimal effect must not inherit the overridden line's ones
+                    if (propMatch.group("tolerance") != null) {
+                        props.put(key + TOLERANCE_SUFFIX, Long.parseLong(propMatch.group("tolerance")));
+                    } else {
+                        props.remove(key + TOLERANCE_SUFFIX);
+                    }
+                    if (propMatch.group("minEffect") != null) {
+                        props.put(key + MIN_EFFECT_SUFFIX, Long.parseLong(propMatch.group("minEffect")));
+                    } else {
+                        props.remove(key + MIN_EFFECT_SUFFIX);
+                    }
                 }
             } else {
                 LOGGER.error("Line '" + line + "' does not match the pattern '" + PROP_PATTERN.pattern() + "'. Ignoring.");
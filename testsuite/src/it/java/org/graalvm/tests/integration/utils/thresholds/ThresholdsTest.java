@@ -22,6 +22,7 @@ package org.graalvm.tests.integration.utils.thresholds;
 import org.graalvm.tests.integration.utils.versions.QuarkusVersion;
 import org.graalvm.tests.integration.utils.versions.UsedVersion;
 import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
 
@@ -41,10 +42,14 @@ import static java.lang.System.setProperty;
 import static org.graalvm.tests.integration.RuntimesSmokeTest.BASE_DIR;
 import static org.graalvm.tests.integration.utils.Commands.IS_THIS_WINDOWS;
 import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.thresholds.Thresholds.MIN_EFFECT_SUFFIX;
 import static org.graalvm.tests.integration.utils.thresholds.Thresholds.MVERSION_PATTERN;
+import static org.graalvm.tests.integration.utils.thresholds.Thresholds.PROP_PATTERN;
 import static org.graalvm.tests.integration.utils.thresholds.Thresholds.QVERSION_PATTERN;
+import static org.graalvm.tests.integration.utils.thresholds.Thresholds.TOLERANCE_SUFFIX;
 import static org.graalvm.tests.integration.utils.thresholds.Thresholds.parseProperties;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
@@ -223,6 +228,33 @@ public class ThresholdsTest {
         }
     }
 
+    @Test
+    public void testToleranceAndMinEffect() throws IOException {
+        final Path config = Path.of(BASE_DIR, "testsuite", "src", "test", "resources", "threshold-9.conf");
+        final String quarkusVersionTmp = getProperty("QUARKUS_VERSION", QuarkusVersion.DEFAULT_VERSION);
+        setProperty("QUARKUS_VERSION", "3.6.0");
+        try {
+            final Map<String, Long> thresholds = parseProperties(config);
+            assertEquals(Long.valueOf(150), thresholds.get("some.property.a"));
+            assertEquals(Long.valueOf(20), thresholds.get("some.property.a" + TOLERANCE_SUFFIX));
+            assertNull(thresholds.get("some.property.a" + MIN_EFFECT_SUFFIX));
+            assertEquals(Long.valueOf(200), thresholds.get("some.property.b"));
+            assertEquals(Long.valueOf(5), thresholds.get("some.property.b" + TOLERANCE_SUFFIX));
+            assertEquals(Long.valueOf(3), thresholds.get("some.property.b" + MIN_EFFECT_SUFFIX));
+            assertEquals(Long.valueOf(300), thresholds.get("some.property.c"));
+            assertNull(thresholds.get("some.property.c" + TOLERANCE_SUFFIX));
+            assertEquals(Long.valueOf(2), thresholds.get("some.property.c" + MIN_EFFECT_SUFFIX));
+            assertEquals(Long.valueOf(450), thresholds.get("some.property.d"));
+            assertNull(thresholds.get("some.property.d" + TOLERANCE_SUFFIX), "Override must drop the overridden tolerance");
+            assertNull(thresholds.get("some.property.d" + MIN_EFFECT_SUFFIX), "Override must drop the overridden minimal effect");
+        } finally {
+            setProperty("QUARKUS_VERSION", quarkusVersionTmp);
+        }
+        assertTrue(PROP_PATTERN.matcher("linux.RSS.threshold.kB=120000").matches());
+        assertTrue(PROP_PATTERN.matcher(" linux.RSS.threshold.kB = 120000 tolerance=5% min.effect=3% ").matches());
+        assertFalse(PROP_PATTERN.matcher("linux.RSS.threshold.kB=120000 tolerance=5").matches());
+    }
+
     /**
      * @param file path to the fake native-image file
      * @param contents <p>if multiline, all newlines must be escaped as \\n (double backslash), the reason is that JUnit's @CsvSource doesn't like \n in its parameters.</p>
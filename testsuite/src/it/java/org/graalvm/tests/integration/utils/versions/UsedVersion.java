@@ -285,7 +285,12 @@ public class UsedVersion {
         }
 
         public static MVersion of(boolean inContainer) {
-            List<String> versionOutput = runNativeImageVersion(inContainer);
+            if (inContainer) {
+                pullBuilderImage();
+            }
+            final String cacheKey = VersionCache.key(inContainer);
+            final List<String> cachedOutput = VersionCache.get(cacheKey);
+            final List<String> versionOutput = cachedOutput != null ? cachedOutput : runNativeImageVersion(inContainer);
             List<String> lines = new ArrayList<>(versionOutput.size());
 
             // Drop everything until we see "GraalVM" or "native-image" in the output
@@ -312,6 +317,9 @@ public class UsedVersion {
                         "Is it on PATH? Unknown version format? " +
                         "Output reads in " + lines.size() + " lines, see them in an array: " + lines);
             }
+            if (cachedOutput == null && mandrelVersion != UNKNOWN_VERSION) {
+                VersionCache.put(cacheKey, versionOutput);
+            }
             LOGGER.infof("The test suite runs with Mandrel version %s %s, JDK %d.%d.%d%s.",
                     mandrelVersion.version == null ? "UNKNOWN" : mandrelVersion.version.toString(),
                     inContainer ? "in container" : "installed locally on PATH",
@@ -361,16 +369,19 @@ public class UsedVersion {
             return mandrelVersion;
         }
 
+        private static void pullBuilderImage() {
+            final List<String> pullCmd = List.of(CONTAINER_RUNTIME, "pull", BUILDER_IMAGE);
+            LOGGER.info("Running command " + pullCmd + " so as to pull Mandrel image locally.");
+            try {
+                Commands.runCommand(pullCmd);
+            } catch (IOException e) {
+                throw new RuntimeException("Failing to pull " + BUILDER_IMAGE, e);
+            }
+        }
+
         private static List<String> runNativeImageVersion(boolean inContainer) {
             final String out;
             if (inContainer) {
-                final List<String> pullCmd = List.of(CONTAINER_RUNTIME, "pull", BUILDER_IMAGE);
-                LOGGER.info("Running command " + pullCmd + " so as to pull Mandrel image locally.");
-                try {
-                    Commands.runCommand(pullCmd);
-                } catch (IOException e) {
-                    throw new RuntimeException("Failing to pull " + BUILDER_IMAGE, e);
-                }
                 final List<String> cmd = List.of(CONTAINER_RUNTIME, "run", "-t", BUILDER_IMAGE, "native-image", "--version");
                 LOGGER.info("Running command " + cmd + " to determine Mandrel version used.");
                 try {
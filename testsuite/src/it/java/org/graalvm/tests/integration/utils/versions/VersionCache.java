@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package org.graalvm.tests.integration.utils.versions;
+
+import org.jboss.logging.Logger;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.graalvm.tests.integration.utils.Commands.BUILDER_IMAGE;
+import static org.graalvm.tests.integration.utils.Commands.CONTAINER_RUNTIME;
+import static org.graalvm.tests.integration.utils.Commands.IS_THIS_WINDOWS;
+import static org.graalvm.tests.integration.utils.Commands.getProperty;
+import static org.graalvm.tests.integration.utils.Commands.runCommand;
+
+/**
+ * Keeps `native-image --version' output on disk so that each test JVM does not have to
+ * run native-image, or start a builder image container, just to learn the version.
+ *
+ * Local installation is keyed by the real path, size and mtime of native-image found on PATH,
+ * builder image by its image ID. The raw output is kept, parsing is left to {@link UsedVersion}.
+ * Turn off with VERSION_CACHE=false, entries are kept in VERSION_CACHE_DIR.
+ */
+final class VersionCache {
+    private static final Logger LOGGER = Logger.getLogger(VersionCache.class.getName());
+    static final boolean ENABLED = Boolean.parseBoolean(getProperty("VERSION_CACHE", "true"));
+    static final Path DIR = Path.of(getProperty("VERSION_CACHE_DIR",
+            Path.of(System.getProperty("java.io.tmpdir"), "mandrel-it-version-cache").toString()));
+    private static final Pattern IMAGE_ID = Pattern.compile("(sha256:)?[0-9a-f]{12,64}");
+
+    private VersionCache() {
+    }
+
+    /**
+     * @return key of the native-image in use or null if it cannot be told,
+     * e.g. the builder image is not there or a fake native-image is used in tests
+     */
+    static String key(boolean inContainer) {
+        if (!ENABLED) {
+            return null;
+        }
+        if (inContainer) {
+            final String id;
+            try {
+                id = runCommand(List.of(CONTAINER_RUNTIME, "image", "inspect", "--format", "{{.Id}}", BUILDER_IMAGE)).trim();
+            } catch (IOException e) {
+                LOGGER.debug("Cannot inspect " + BUILDER_IMAGE + ": " + e.getMessage());
+                return null;
+            }
+            return IMAGE_ID.matcher(id).matches() ? key(List.of("container", BUILDER_IMAGE, id)) : null;
+        }
+        // Tests swap fake native-image scripts in place, mtime is not granular enough for them
+        if (!System.getProperty("FAKE_NATIVE_IMAGE_DIR", "").isEmpty()) {
+            return null;
+        }
+        final Path nativeImage = onPath(IS_THIS_WINDOWS ? "native-image.cmd" : "native-image", System.getenv("PATH"));
+        if (nativeImage == null) {
+            return null;
+        }
+        try {
+            return key(List.of("local", nativeImage.toRealPath().toString(),
+                    Long.toString(Files.size(nativeImage)), Long.toString(Files.getLastModifiedTime(nativeImage).toMillis())));
+        } catch (IOException e) {
+            LOGGER.debug("Cannot stat " + nativeImage + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static Path onPath(String executable, String path) {
+        if (path == null) {
+            return null;
+        }
+        for (String dir : path.split(File.pathSeparator)) {
+            if (dir.isBlank()) {
+                continue;
+            }
+            final Path p = Path.of(dir, executable);
+            if (Files.isRegularFile(p) && Files.isExecutable(p)) {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    static String key(List<String> identity) {
+        final MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        identity.forEach(i -> {
+            md.update(i.getBytes(UTF_8));
+            md.update((byte) 0);
+        });
+        final StringBuilder sb = new StringBuilder(64);
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+        return sb.toString();
+    }
+
+    /**
+     * @return cached output lines or null on a miss
+     */
+    static List<String> get(String key) {
+        if (key == null) {
+            return null;
+        }
+        final Path entry = DIR.resolve(key);
+        if (!Files.isRegularFile(entry)) {
+            return null;
+        }
+        try {
+            final List<String> lines = Files.readAllLines(entry, UTF_8);
+            LOGGER.info("Using native-image version output cached in " + entry);
+            return lines;
+        } catch (IOException e) {
+            LOGGER.debug("Cannot read " + entry + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    static void put(String key, List<String> lines) {
+        if (key == null) {
+            return;
+        }
+        try {
+            final Path tmp = Files.createTempFile(Files.createDirectories(DIR), key, ".tmp");
+            Files.write(tmp, new ArrayList<>(lines), UTF_8);
+            // Concurrent JVMs write the same content, whoever comes last wins
+            Files.move(tmp, DIR.resolve(key), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            LOGGER.debug("Cannot cache native-image version output in " + DIR + ": " + e.getMessage());
+        }
+    }
+}
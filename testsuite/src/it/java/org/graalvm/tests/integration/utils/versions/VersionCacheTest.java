@@ -0,0 +1,79 @@
+package org.graalvm.tests.integration.utils.versions;
+/*
+ * Copyright (c) 2026, Red Hat Inc. All rights reserved.
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information regarding copyright ownership.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * You may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testing test suite...
+ * native-image version output cache: PATH lookup, keys and cache round trip.
+ */
+@Tag("testing-testsuite")
+public class VersionCacheTest {
+
+    @Test
+    public void pathKeyGetPut() throws IOException {
+        final Path dir = Files.createTempDirectory(VersionCacheTest.class.getSimpleName());
+        try {
+            final Path empty = Files.createDirectories(dir.resolve("empty"));
+            final Path bin = Files.createDirectories(dir.resolve("bin"));
+            final Path nativeImage = Files.createFile(bin.resolve("native-image"),
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwxr-xr-x")));
+            assertEquals(nativeImage, VersionCache.onPath("native-image", empty + File.pathSeparator + bin));
+            assertNull(VersionCache.onPath("native-image", empty.toString()));
+            assertNull(VersionCache.onPath("native-image", null));
+
+            final String a = VersionCache.key(List.of("local", nativeImage.toString(), "0", "1"));
+            assertEquals(a, VersionCache.key(List.of("local", nativeImage.toString(), "0", "1")));
+            assertNotEquals(a, VersionCache.key(List.of("local", nativeImage.toString(), "0", "2")));
+            // Separators keep fields apart
+            assertNotEquals(VersionCache.key(List.of("ab", "c")), VersionCache.key(List.of("a", "bc")));
+
+            final String key = VersionCache.key(List.of(dir.toString()));
+            assertNull(VersionCache.get(key));
+            assertNull(VersionCache.get(null));
+            final List<String> out = List.of(
+                    "native-image 21.0.5 2024-10-15",
+                    "OpenJDK Runtime Environment Mandrel-23.1.5.0-Final (build 21.0.5+11)",
+                    "OpenJDK 64-Bit Server VM Mandrel-23.1.5.0-Final (build 21.0.5+11, mixed mode)");
+            VersionCache.put(key, out);
+            try {
+                assertEquals(out, VersionCache.get(key));
+            } finally {
+                Files.deleteIfExists(VersionCache.DIR.resolve(key));
+            }
+        } finally {
+            FileUtils.deleteDirectory(dir.toFile());
+        }
+    }
+}